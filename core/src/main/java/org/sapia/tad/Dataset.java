@@ -38,6 +38,20 @@ public interface Dataset extends Iterable<Vector> {
    */
   public Vector getColumn(String name) throws IllegalArgumentException;
   
+  /**
+   * @param colIndex the index of a column.
+   * @return the {@link NumericColumn} providing primitive access to the given column's values.
+   * @throws IllegalArgumentException if the given index is invalid.
+   */
+  public NumericColumn getNumericColumn(int colIndex) throws IllegalArgumentException;
+  
+  /**
+   * @param name the name of a column.
+   * @return the {@link NumericColumn} providing primitive access to the given column's values.
+   * @throws IllegalArgumentException if the given name is invalid.
+   */
+  public NumericColumn getNumericColumn(String name) throws IllegalArgumentException;
+  
   /**
    * @param colName a column name.
    * @param filter the {@link Criteria} to use as a filter.
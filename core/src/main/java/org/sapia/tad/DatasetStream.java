@@ -0,0 +1,40 @@
+package org.sapia.tad;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+/**
+ * A forward-only sequence of {@link Dataset}s, each holding a batch of rows of some larger, 
+ * logical dataset. It allows processing data that does not fit in memory: only the current batch
+ * is meant to be held at any given time.
+ * <p>
+ * All batches of a given stream have the same {@link ColumnSet}. An instance of this interface 
+ * should be closed once it's not needed anymore.
+ * 
+ * @see DatasetStreams
+ * 
+ * @author yduchesne
+ *
+ */
+public interface DatasetStream extends Closeable {
+
+  /**
+   * @return the {@link ColumnSet} of the batches returned by this instance.
+   */
+  public ColumnSet getColumnSet();
+  
+  /**
+   * @return <code>true</code> if this instance has another batch of rows.
+   * @throws IOException if an IO error occurs while attempting to read the next batch.
+   */
+  public boolean hasNext() throws IOException;
+  
+  /**
+   * @return the next batch of rows, as a {@link Dataset}.
+   * @throws IOException if an IO error occurs while reading the batch.
+   * @throws NoSuchElementException if this instance has no more batches.
+   */
+  public Dataset next() throws IOException, NoSuchElementException;
+  
+}
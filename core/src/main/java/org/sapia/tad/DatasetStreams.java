@@ -0,0 +1,146 @@
+package org.sapia.tad;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.sapia.tad.func.ArgFunction;
+import org.sapia.tad.help.Doc;
+import org.sapia.tad.impl.DatasetRowSetAdapter;
+import org.sapia.tad.impl.DefaultDataset;
+import org.sapia.tad.transform.merge.Merges;
+import org.sapia.tad.util.Checks;
+
+/**
+ * Provides methods for working with {@link DatasetStream}s.
+ * 
+ * @author yduchesne
+ *
+ */
+@Doc("Provides methods for working with dataset streams")
+public class DatasetStreams {
+  
+  /**
+   * The default number of rows per batch.
+   */
+  public static final int DEFAULT_BATCH_SIZE = 10000;
+
+  private DatasetStreams() {
+  }
+  
+  /**
+   * @param dataset a {@link Dataset}.
+   * @param batchSize the number of rows per batch.
+   * @return a new {@link DatasetStream}, returning the rows of the given dataset in batches of the given size.
+   */
+  @Doc("Returns a stream over the given dataset, returning its rows in batches of the given size")
+  public static DatasetStream stream(@Doc("a dataset") final Dataset dataset, @Doc("the number of rows per batch") final int batchSize) {
+    Checks.isTrue(batchSize > 0, "Batch size must be greater than 0 (got %s)", batchSize);
+    return new DatasetStream() {
+      private int start;
+      
+      @Override
+      public ColumnSet getColumnSet() {
+        return dataset.getColumnSet();
+      }
+      
+      @Override
+      public boolean hasNext() {
+        return start < dataset.size();
+      }
+      
+      @Override
+      public Dataset next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        int end = Math.min(start + batchSize, dataset.size());
+        Dataset batch = new DefaultDataset(
+            dataset.getColumnSet(), 
+            RowSets.range(new DatasetRowSetAdapter(dataset), start, end)
+        );
+        start = end;
+        return batch;
+      }
+      
+      @Override
+      public void close() {
+      }
+    };
+  }
+  
+  /**
+   * @param stream a {@link DatasetStream}.
+   * @param columns the {@link ColumnSet} of the batches returned by the given function.
+   * @param function the {@link ArgFunction} to apply to each batch of the given stream.
+   * @return a new {@link DatasetStream}, returning the batches of the given stream, as transformed
+   * by the given function (batches are transformed as they're read).
+   */
+  public static DatasetStream map(final DatasetStream stream, final ColumnSet columns, final ArgFunction<Dataset, Dataset> function) {
+    return new DatasetStream() {
+      @Override
+      public ColumnSet getColumnSet() {
+        return columns;
+      }
+      
+      @Override
+      public boolean hasNext() throws IOException {
+        return stream.hasNext();
+      }
+      
+      @Override
+      public Dataset next() throws IOException {
+        return function.call(stream.next());
+      }
+      
+      @Override
+      public void close() throws IOException {
+        stream.close();
+      }
+    };
+  }
+  
+  /**
+   * Reads all batches of the given stream into memory, and closes the stream.
+   * 
+   * @param stream a {@link DatasetStream}.
+   * @return a {@link Dataset} holding all the rows of the given stream.
+   * @throws IOException if an IO error occurs while reading the stream.
+   */
+  @Doc("Reads all the rows of the given stream into a single dataset")
+  public static Dataset collect(@Doc("a dataset stream") DatasetStream stream) throws IOException {
+    try {
+      List<Dataset> batches = new ArrayList<>();
+      while (stream.hasNext()) {
+        batches.add(stream.next());
+      }
+      if (batches.isEmpty()) {
+        return new DefaultDataset(stream.getColumnSet(), new ArrayList<Vector>());
+      }
+      return Merges.mergeRows(batches);
+    } finally {
+      stream.close();
+    }
+  }
+  
+  /**
+   * Reads all batches of the given stream, and closes the stream.
+   * 
+   * @param stream a {@link DatasetStream}.
+   * @return the number of rows in the given stream.
+   * @throws IOException if an IO error occurs while reading the stream.
+   */
+  @Doc("Returns the number of rows in the given stream")
+  public static long count(@Doc("a dataset stream") DatasetStream stream) throws IOException {
+    try {
+      long count = 0;
+      while (stream.hasNext()) {
+        count += stream.next().size();
+      }
+      return count;
+    } finally {
+      stream.close();
+    }
+  }
+}
@@ -5,11 +5,17 @@ import org.sapia.tad.help.Hide;
 import org.sapia.tad.impl.DefaultColumn;
 import org.sapia.tad.impl.DefaultDataset;
 import org.sapia.tad.impl.DefaultRowSet;
+import org.sapia.tad.impl.columnar.ColumnarDataset;
+import org.sapia.tad.impl.columnar.ColumnarDatasetBuilder;
+import org.sapia.tad.io.bin.BinaryDatasetReader;
+import org.sapia.tad.io.bin.BinaryDatasetWriter;
 import org.sapia.tad.io.table.Row;
 import org.sapia.tad.io.table.Table;
 import org.sapia.tad.util.Checks;
 import org.sapia.tad.value.Value;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -179,6 +185,64 @@ public class Datasets {
     return new DefaultDataset(columns, new DefaultRowSet(rows));
   }
   
+  /**
+   * @param columns a {@link ColumnSet}
+   * @param rows a {@link List} of {@link Vector} instances to use as rows.
+   * @return a new {@link ColumnarDataset}, holding the given rows.
+   */
+  @Hide
+  public static ColumnarDataset columnar(ColumnSet columns, List<Vector> rows) {
+    ColumnarDatasetBuilder builder = new ColumnarDatasetBuilder(columns);
+    for (Vector row : rows) {
+      builder.row(row);
+    }
+    return builder.build();
+  }
+  
+  /**
+   * @param dataset a {@link Dataset}.
+   * @return a {@link ColumnarDataset} holding the given dataset's data (the given dataset is returned
+   * as is if it is itself a {@link ColumnarDataset}).
+   */
+  public static ColumnarDataset columnar(Dataset dataset) {
+    if (dataset instanceof ColumnarDataset) {
+      return (ColumnarDataset) dataset;
+    }
+    ColumnarDatasetBuilder builder = new ColumnarDatasetBuilder(dataset.getColumnSet());
+    for (Vector row : dataset) {
+      builder.row(row);
+    }
+    return builder.build();
+  }
+  
+  /**
+   * Saves the given dataset in binary, columnar format: numeric and date columns are stored as primitive
+   * blocks, strings are dictionary-encoded. Datasets with {@link Datatype#GEOMETRY} columns cannot be saved.
+   * 
+   * @param dataset the {@link Dataset} to save.
+   * @param fileName the name of the file to save to (it is replaced if it exists: datasets previously
+   * {@link #load(String) loaded} from it remain valid).
+   * @throws IOException if an IO error occurs while saving.
+   * @throws IllegalArgumentException if the dataset has {@link Datatype#GEOMETRY} columns, or holds 
+   * values that cannot be saved.
+   * @see #load(String)
+   */
+  public static void save(Dataset dataset, String fileName) throws IOException, IllegalArgumentException {
+    new BinaryDatasetWriter().write(dataset, new File(fileName));
+  }
+  
+  /**
+   * Loads a dataset that was saved with {@link #save(Dataset, String)}. The file is memory-mapped: the
+   * data of the dataset is thus not copied to memory up front.
+   * 
+   * @param fileName the name of the file to load.
+   * @return the {@link ColumnarDataset} that was loaded.
+   * @throws IOException if an IO error occurs while loading.
+   */
+  public static ColumnarDataset load(String fileName) throws IOException {
+    return new BinaryDatasetReader().read(new File(fileName));
+  }
+  
   /**
    * @param dataset the {@link Dataset} whose string representation should be returned.
    * @return a {@link String} corresponding to the dataset's content.
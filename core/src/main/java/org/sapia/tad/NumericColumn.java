@@ -0,0 +1,47 @@
+package org.sapia.tad;
+
+/**
+ * Provides primitive access to the numeric values of a column (or of a {@link Vector}), allowing
+ * computations to loop over <code>double</code>s rather than over {@link org.sapia.tad.value.Value}s.
+ * <p>
+ * Values that are null, or that are not numeric, are reported as such by {@link #isNull(int)}: 
+ * {@link #getDouble(int)} returns 0 for them.
+ * 
+ * @see Dataset#getNumericColumn(int)
+ * @see NumericColumns
+ * 
+ * @author yduchesne
+ *
+ */
+public interface NumericColumn {
+
+  /**
+   * @return the number of values in this instance.
+   */
+  public int size();
+  
+  /**
+   * @param index the index of a value.
+   * @return <code>true</code> if the value at the given index is null, or not numeric.
+   */
+  public boolean isNull(int index);
+  
+  /**
+   * @param index the index of a value.
+   * @return the <code>double</code> at the given index (0 if that value is null or not numeric).
+   */
+  public double getDouble(int index);
+  
+  /**
+   * @param srcPos the index of the first value to copy.
+   * @param dest the array to copy the values to.
+   * @param destPos the position in the destination array at which to start copying.
+   * @param length the number of values to copy.
+   */
+  public void copyTo(int srcPos, double[] dest, int destPos, int length);
+  
+  /**
+   * @return a new <code>double</code> array, holding a copy of this instance's values.
+   */
+  public double[] toDoubleArray();
+}
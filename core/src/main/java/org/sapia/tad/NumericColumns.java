@@ -0,0 +1,91 @@
+package org.sapia.tad;
+
+import java.util.BitSet;
+
+import org.sapia.tad.impl.DatasetRowSetAdapter;
+import org.sapia.tad.impl.DefaultNumericColumn;
+import org.sapia.tad.impl.NumericColumnRange;
+import org.sapia.tad.impl.RangeRowSet;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.Value;
+
+/**
+ * Utility methods pertaining to {@link NumericColumn}s.
+ * 
+ * @author yduchesne
+ *
+ */
+public class NumericColumns {
+
+  private NumericColumns() {
+  }
+  
+  /**
+   * Copies the values of the given dataset column to a new {@link NumericColumn}. Datasets
+   * should typically not be passed directly to this method: {@link Dataset#getNumericColumn(int)} 
+   * should be used instead.
+   * 
+   * @param dataset a {@link Dataset}.
+   * @param colIndex the index of the column whose values should be copied.
+   * @return a new {@link NumericColumn}.
+   */
+  public static NumericColumn of(Dataset dataset, int colIndex) {
+    dataset.getColumnSet().get(colIndex);
+    return copy(dataset, dataset.size(), colIndex);
+  }
+  
+  /**
+   * @param rows a {@link RowSet}.
+   * @param colIndex a column index.
+   * @return the {@link NumericColumn} holding the values of the given column, in the given rows. If
+   * the rowset wraps a {@link Dataset}, the dataset's own {@link NumericColumn} is returned (if it
+   * is a {@link RangeRowSet} over such a rowset, a range of the dataset's column is returned).
+   */
+  public static NumericColumn of(RowSet rows, int colIndex) {
+    if (rows instanceof DatasetRowSetAdapter) {
+      return ((DatasetRowSetAdapter) rows).getDataset().getNumericColumn(colIndex);
+    } else if (rows instanceof RangeRowSet && ((RangeRowSet) rows).getRowSet() instanceof DatasetRowSetAdapter) {
+      RangeRowSet range = (RangeRowSet) rows;
+      return new NumericColumnRange(of(range.getRowSet(), colIndex), range.getStart(), range.getEnd());
+    }
+    return copy(rows, rows.size(), colIndex);
+  }
+  
+  /**
+   * @param vector a {@link Vector}.
+   * @return the given vector, if it implements {@link NumericColumn}, or a new {@link NumericColumn} 
+   * holding a copy of the vector's values.
+   */
+  public static NumericColumn of(Vector vector) {
+    if (vector instanceof NumericColumn) {
+      return (NumericColumn) vector;
+    }
+    double[] values = new double[vector.size()];
+    BitSet   nulls  = new BitSet(values.length);
+    for (int i = 0; i < values.length; i++) {
+      set(vector.get(i), i, values, nulls);
+    }
+    return new DefaultNumericColumn(values, nulls);
+  }
+  
+  // --------------------------------------------------------------------------
+  // Restricted methods
+  
+  private static NumericColumn copy(Iterable<Vector> rows, int size, int colIndex) {
+    double[] values = new double[size];
+    BitSet   nulls  = new BitSet(size);
+    int      i      = 0;
+    for (Vector row : rows) {
+      set(row.get(colIndex), i++, values, nulls);
+    }
+    return new DefaultNumericColumn(values, nulls);
+  }
+  
+  private static void set(Value value, int index, double[] values, BitSet nulls) {
+    if (NullValue.isNull(value) || !value.isNumeric()) {
+      nulls.set(index);
+    } else {
+      values[index] = value.get();
+    }
+  }
+}
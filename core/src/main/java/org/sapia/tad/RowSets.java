@@ -4,6 +4,7 @@ import org.sapia.tad.help.Doc;
 import org.sapia.tad.impl.DatasetRowSetAdapter;
 import org.sapia.tad.impl.DefaultRowSet;
 import org.sapia.tad.impl.DefaultVector;
+import org.sapia.tad.impl.RangeRowSet;
 import org.sapia.tad.util.Numbers;
 import org.sapia.tad.value.NumericValue;
 import org.sapia.tad.value.Value;
@@ -73,6 +74,16 @@ public class RowSets {
     return new DatasetRowSetAdapter(dataset);
   }
   
+  /**
+   * @param rows a {@link RowSet}.
+   * @param start the index of the first row in the range (inclusive).
+   * @param end the index of the last row in the range (exclusive).
+   * @return a {@link RowSet} corresponding to the given range of rows (the rows are not copied).
+   */
+  public static RowSet range(RowSet rows, int start, int end) {
+    return new RangeRowSet(rows, start, end);
+  }
+  
   /**
    * @param arraysOfVectorValues an array of other arrays that correspond
    * to vector array.
@@ -71,6 +71,14 @@ public class Vectors {
   public static double product(Vector v1, Vector v2) {
     Checks.isTrue(v1.size() == v2.size(), "Vectors do not have same length (%s vs %s)", v1.size(), v2.size());
     double product = 0;
+    if (v1 instanceof NumericColumn && v2 instanceof NumericColumn) {
+      NumericColumn c1 = (NumericColumn) v1;
+      NumericColumn c2 = (NumericColumn) v2;
+      for (int i = 0; i < c1.size(); i++) {
+        product += c1.getDouble(i) * c2.getDouble(i);
+      }
+      return product;
+    }
     for (int i = 0; i < v1.size(); i++) {
       Value thisValue = v1.get(i);
       Value otherValue = v2.get(i);
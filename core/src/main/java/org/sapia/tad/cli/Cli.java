@@ -11,14 +11,19 @@ import org.sapia.tad.io.csv.Csv;
 import org.sapia.tad.io.text.Texts;
 import org.sapia.tad.math.Sum;
 import org.sapia.tad.stat.Stats;
+import org.sapia.tad.transform.aggregate.Aggregations;
 import org.sapia.tad.transform.filter.Filters;
+import org.sapia.tad.transform.filter.Predicates;
 import org.sapia.tad.transform.formula.Formulas;
 import org.sapia.tad.transform.index.Indices;
 import org.sapia.tad.transform.join.Joins;
 import org.sapia.tad.transform.merge.Merges;
+import org.sapia.tad.transform.pipeline.DatasetPipeline;
+import org.sapia.tad.transform.pivot.PivotFunction;
 import org.sapia.tad.transform.pivot.Pivots;
 import org.sapia.tad.transform.range.Ranges;
 import org.sapia.tad.transform.slice.Slices;
+import org.sapia.tad.transform.sort.SortOrder;
 import org.sapia.tad.transform.sort.Sorts;
 import org.sapia.tad.transform.view.Views;
 import org.sapia.tad.util.ChainOR;
@@ -56,15 +61,20 @@ public class Cli {
         Sum.class.getName(),
         
         // Transformation
+        Aggregations.class.getName(),
         Filters.class.getName(),
+        Predicates.class.getName(),
         Formulas.class.getName(),
         Indices.class.getName(),
         Joins.class.getName(),
         Merges.class.getName(),
+        DatasetPipeline.class.getName(),
         Pivots.class.getName(),
+        PivotFunction.class.getName(),
         Ranges.class.getName(),
         Slices.class.getName(),
         Sorts.class.getName(),
+        SortOrder.class.getName(),
         Views.class.getName()
     );
     
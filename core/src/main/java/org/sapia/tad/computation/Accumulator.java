@@ -0,0 +1,52 @@
+package org.sapia.tad.computation;
+
+import org.sapia.tad.value.Value;
+
+/**
+ * Specifies the behavior of {@link Value}s that accumulate <code>double</code>s, and whose state can be 
+ * merged with that of other instances of the same type. Instances of this interface are meant to be 
+ * held by {@link ComputationResult}s: the results computed over distinct sets of rows (by distinct threads,
+ * over distinct row ranges, or over distinct files) can then be merged without loss of precision.
+ * <p>
+ * The lifecycle of an instance is as follows:
+ * <ul>
+ *   <li>{@link #init()}: resets the instance's state (an instance is in its initial state upon creation);
+ *   <li>{@link #accumulate(double)}: called for each value to accumulate;
+ *   <li>{@link #mergeWith(Accumulator)}: called to merge the state of another instance into this instance;
+ *   <li>{@link #finish()}: called to obtain the final (immutable) result.
+ * </ul>
+ * {@link #get()} returns the current result at any point. Instances of this interface are not thread-safe.
+ * 
+ * @see ComputationResults#mergeWith(ComputationResults)
+ * 
+ * @author yduchesne
+ *
+ * @param <A> the type of the implementing class.
+ */
+public interface Accumulator<A extends Accumulator<A>> extends Value {
+  
+  /**
+   * Resets this instance to its initial state.
+   * 
+   * @return this instance.
+   */
+  public A init();
+  
+  /**
+   * @param value a value to accumulate.
+   * @return this instance.
+   */
+  public A accumulate(double value);
+  
+  /**
+   * @param other another instance, whose state should be merged into this instance.
+   * @return this instance.
+   */
+  public A mergeWith(A other);
+  
+  /**
+   * @return the immutable {@link Value} corresponding to this instance's result.
+   */
+  public Value finish();
+
+}
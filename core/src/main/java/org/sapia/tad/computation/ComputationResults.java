@@ -72,6 +72,14 @@ public class ComputationResults {
   /**
    * Merges this instance with the {@link ComputationResults} passed in. That other result
    * will have its data merged into this instance.
+   * <p>
+   * Values bound to the same result name and column are merged as follows:
+   * <ul>
+   *   <li>if both values are {@link Accumulator}s of the same type, the other value's state is merged 
+   *   into this instance's value (the result is the same as if a single accumulator had been used);
+   *   <li>if one of the values is null, the other value is kept;
+   *   <li>otherwise, the mean of both values is kept.
+   * </ul>
    * 
    * @param other some other {@link ComputationResults} to merge into this instance.
    * @return this instance;
@@ -87,14 +95,25 @@ public class ComputationResults {
         for (Column col : columns) {
           Value otherValue = otherResult.get(col, NullValue.getInstance());
           Value thisValue  = thisResult.get(col, NullValue.getInstance());
-          Value meanOfBoth = new MeanValue().increase(otherValue.get()).increase(thisValue.get());
-          thisResult.set(col, meanOfBoth);
+          thisResult.set(col, merge(thisValue, otherValue));
         }
       }
     }
     return this;
   }
   
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private static Value merge(Value thisValue, Value otherValue) {
+    if (thisValue instanceof Accumulator && thisValue.getClass().equals(otherValue.getClass())) {
+      return ((Accumulator) thisValue).mergeWith((Accumulator) otherValue);
+    } else if (NullValue.isNull(otherValue)) {
+      return thisValue;
+    } else if (NullValue.isNull(thisValue)) {
+      return otherValue;
+    }
+    return new MeanValue().accumulate(thisValue.get()).accumulate(otherValue.get());
+  }
+  
   /**
    * @param columns a {@link ColumnSet} consisting of the columns over which
    * computations should be performed.
@@ -1,8 +1,20 @@
 package org.sapia.tad.computation;
 
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.DatasetStream;
+import org.sapia.tad.RowSet;
+import org.sapia.tad.Vector;
+import org.sapia.tad.concurrent.Threading;
+import org.sapia.tad.conf.Conf;
+import org.sapia.tad.impl.DatasetRowSetAdapter;
+import org.sapia.tad.impl.DefaultRowSet;
 import org.sapia.tad.util.Time;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Holds computation-related methods.
@@ -29,9 +41,105 @@ public class Computations {
   }
   
   /**
-   * @return a {@link ComputationTask} that performs its computations in parallel.
+   * Returns a task that splits the rows passed to it into ranges, which are processed in parallel.
+   * 
+   * @param pool the {@link ForkJoinPool} to be used by the returned task.
+   * @param timeout the timeout value corresponding to the maximum amount of the 
+   * time given to perform all the task's computations.
+   * @param threshold the number of rows above which rows should be split into ranges.
+   * 
+   * @return a new {@link ComputationTask}.
+   * @see PartitionedComputationTask
+   */
+  public static ComputationTask partitioned(ForkJoinPool pool, Time timeout, int threshold) {
+    return new PartitionedComputationTask(pool, timeout, threshold);
+  }
+  
+  /**
+   * Returns a task that is appropriate for the given number of rows: if that number is greater than
+   * {@link Conf#getParallelRowThreshold()}, a task that processes row ranges in parallel is returned. 
+   * Otherwise, a task that executes its computations in parallel is returned.
+   * 
+   * @param rowCount the number of rows over which computations are to be performed.
+   * @return a new {@link ComputationTask}.
+   */
+  public static ComputationTask forRows(int rowCount) {
+    if (rowCount > Conf.getParallelRowThreshold()) {
+      return partitioned(Threading.getForkJoinPool(), Conf.getTaskTimeout(), Conf.getParallelRowThreshold());
+    }
+    return parallel(Threading.getThreadPool(), Conf.getTaskTimeout());
+  }
+  
+  /**
+   * @return a {@link ComputationTask} that performs its computations sequentially.
    */
   public static ComputationTask sequential() {
     return new SequentialComputationTask();
   }
+  
+  /**
+   * Performs the given computations over all batches of the given stream, one batch at a time: the
+   * partial result computed for each batch is merged with the ones of the previous batches, and 
+   * then the batch is discarded. The stream is closed once it has been consumed.
+   * 
+   * @param stream the {@link DatasetStream} over which to perform the given computations.
+   * @param columns the {@link ColumnSet} of the columns over which to perform the computations 
+   * (must be a subset of the stream's columns).
+   * @param computations the {@link MergeableComputation}s to perform.
+   * @return the {@link ComputationResults} holding the results of the computations.
+   * @throws IOException if an IO error occurs while reading the stream.
+   */
+  public static ComputationResults compute(DatasetStream stream, ColumnSet columns, List<MergeableComputation<?>> computations) 
+      throws IOException {
+    List<StreamPartial<?>> partials = new ArrayList<>(computations.size());
+    for (MergeableComputation<?> c : computations) {
+      partials.add(StreamPartial.newInstance(c));
+    }
+    try {
+      while (stream.hasNext()) {
+        RowSet rows = new DatasetRowSetAdapter(stream.next());
+        for (StreamPartial<?> p : partials) {
+          p.accumulate(columns, rows);
+        }
+      }
+    } finally {
+      stream.close();
+    }
+    ComputationResults results = ComputationResults.newInstance(columns);
+    for (StreamPartial<?> p : partials) {
+      p.complete(results);
+    }
+    return results;
+  }
+  
+  // ==========================================================================
+  
+  /**
+   * Holds the partial result of a {@link MergeableComputation} performed over a stream.
+   */
+  private static class StreamPartial<P> {
+    
+    private MergeableComputation<P> computation;
+    private P                       partial;
+    
+    private StreamPartial(MergeableComputation<P> computation) {
+      this.computation = computation;
+    }
+    
+    private static <P> StreamPartial<P> newInstance(MergeableComputation<P> computation) {
+      return new StreamPartial<>(computation);
+    }
+    
+    private void accumulate(ColumnSet columns, RowSet rows) {
+      P batchPartial = computation.computePartial(columns, rows);
+      partial = partial == null ? batchPartial : computation.merge(partial, batchPartial);
+    }
+    
+    private void complete(ComputationResults results) {
+      if (partial == null) {
+        partial = computation.computePartial(results.getColumnSet(), new DefaultRowSet(new ArrayList<Vector>()));
+      }
+      computation.complete(results, partial);
+    }
+  }
 }
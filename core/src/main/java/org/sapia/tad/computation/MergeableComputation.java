@@ -0,0 +1,46 @@
+package org.sapia.tad.computation;
+
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.RowSet;
+
+/**
+ * A {@link Computation} that can be performed over distinct ranges of rows independently: the
+ * partial results computed for each range are then merged, and the merged result is eventually
+ * published to a {@link ComputationResults} instance.
+ * <p>
+ * Implementations typically implement {@link #compute(ComputationResults, RowSet)} as follows:
+ * <pre>
+ * complete(context, computePartial(context.getColumnSet(), rows));
+ * </pre>
+ * An instance of this class is meant to be stateless: partial results are not expected to be 
+ * kept by the computation itself.
+ * 
+ * @see PartitionedComputationTask
+ * 
+ * @author yduchesne
+ *
+ * @param <P> the type of partial results supported by this computation.
+ */
+public interface MergeableComputation<P> extends Computation {
+
+  /**
+   * @param columns the {@link ColumnSet} describing the columns over which to perform computation.
+   * @param rows a {@link RowSet}.
+   * @return the partial result computed over the given rows.
+   */
+  public P computePartial(ColumnSet columns, RowSet rows);
+  
+  /**
+   * @param partial a partial result.
+   * @param other another partial result, computed over rows that follow those of the first one.
+   * @return the result of merging both partial results (the first partial may be returned, after
+   * having been updated).
+   */
+  public P merge(P partial, P other);
+  
+  /**
+   * @param context the {@link ComputationResults} to which to publish the given result.
+   * @param partial the partial result to publish (normally corresponding to the merged partial results).
+   */
+  public void complete(ComputationResults context, P partial);
+}
@@ -0,0 +1,162 @@
+package org.sapia.tad.computation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeoutException;
+
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.RowSet;
+import org.sapia.tad.RowSets;
+import org.sapia.tad.concurrent.ConcurrencyException;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.util.Time;
+
+/**
+ * A {@link ComputationTask} that parallelizes its computations over data: the {@link RowSet} that
+ * is passed to it is split into row ranges, which are processed concurrently in a {@link ForkJoinPool}.
+ * <p>
+ * Only {@link MergeableComputation}s are performed that way: the partial results that they compute over
+ * each row range are merged in row order. Other computations are performed by the calling thread, over
+ * all rows, while the row ranges are being processed.
+ * <p>
+ * Rows are partitioned only if their number is greater than the threshold that is passed to an instance 
+ * of this class: in such a case, each row range holds at least half that threshold. Otherwise, all 
+ * computations are performed sequentially by the calling thread.
+ * 
+ * @author yduchesne
+ *
+ */
+public class PartitionedComputationTask implements ComputationTask {
+
+  private ForkJoinPool      pool;
+  private Time              timeout;
+  private int               threshold;
+  private List<Computation> computations = new ArrayList<>();
+  
+  /**
+   * @param pool the {@link ForkJoinPool} to use to process row ranges.
+   * @param timeout the {@link Time} to wait until task completion - a {@link ConcurrencyException}
+   * is thrown if the computations could not complete within the allowed time.
+   * @param threshold the number of rows above which the rows should be partitioned.
+   */
+  public PartitionedComputationTask(ForkJoinPool pool, Time timeout, int threshold) {
+    Checks.isTrue(threshold > 1, "Threshold must be greater than 1");
+    this.pool      = pool;
+    this.timeout   = timeout;
+    this.threshold = threshold;
+  }
+  
+  @Override
+  public void add(Computation computation) {
+    computations.add(computation);
+  }
+  
+  @Override
+  public ComputationResults compute(ColumnSet columns, RowSet rows) throws InterruptedException {
+    List<MergeableComputation<Object>> mergeables = new ArrayList<>();
+    for (Computation c : computations) {
+      if (c instanceof MergeableComputation) {
+        mergeables.add(mergeable(c));
+      }
+    }
+    
+    ComputationResults results = ComputationResults.newInstance(columns);
+    if (rows.size() <= threshold || mergeables.isEmpty()) {
+      for (Computation c : computations) {
+        c.compute(results, rows);
+      }
+      return results;
+    }
+    
+    int partitionSize = Math.max(threshold / 2, rows.size() / (pool.getParallelism() * 4) + 1);
+    ForkJoinTask<Object[]> task = pool.submit(new RangeTask(mergeables, columns, rows, 0, rows.size(), partitionSize));
+    
+    // performing non-mergeable computations while the row ranges are being processed
+    List<ComputationResults> otherResults = new ArrayList<>();
+    for (Computation c : computations) {
+      if (!(c instanceof MergeableComputation)) {
+        ComputationResults r = ComputationResults.newInstance(columns);
+        c.compute(r, rows);
+        otherResults.add(r);
+      }
+    }
+    
+    Object[] partials;
+    try {
+      partials = task.get(timeout.getValue(), timeout.getUnit());
+    } catch (ExecutionException e) {
+      throw new ConcurrencyException("Error occured awaiting computation result", e);
+    } catch (TimeoutException e) {
+      task.cancel(true);
+      throw new ConcurrencyException("Timeout awaiting computation result", e);
+    }
+    
+    // publishing results in the order in which computations were added
+    int mergeableCount = 0;
+    int otherCount     = 0;
+    for (Computation c : computations) {
+      if (c instanceof MergeableComputation) {
+        mergeables.get(mergeableCount).complete(results, partials[mergeableCount]);
+        mergeableCount++;
+      } else {
+        results.mergeWith(otherResults.get(otherCount++));
+      }
+    }
+    return results;
+  }
+  
+  @SuppressWarnings("unchecked")
+  private static MergeableComputation<Object> mergeable(Computation computation) {
+    return (MergeableComputation<Object>) computation;
+  }
+  
+  // ==========================================================================
+  
+  /**
+   * Recursively splits a row range in two halves, until a range is not greater than the partition size.
+   */
+  private static class RangeTask extends RecursiveTask<Object[]> {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private List<MergeableComputation<Object>> computations;
+    private ColumnSet                          columns;
+    private RowSet                             rows;
+    private int                                start, end, partitionSize;
+    
+    private RangeTask(List<MergeableComputation<Object>> computations, ColumnSet columns, RowSet rows, int start, int end, int partitionSize) {
+      this.computations  = computations;
+      this.columns       = columns;
+      this.rows          = rows;
+      this.start         = start;
+      this.end           = end;
+      this.partitionSize = partitionSize;
+    }
+    
+    @Override
+    protected Object[] compute() {
+      Object[] partials = new Object[computations.size()];
+      if (end - start <= partitionSize) {
+        RowSet range = RowSets.range(rows, start, end);
+        for (int i = 0; i < partials.length; i++) {
+          partials[i] = computations.get(i).computePartial(columns, range);
+        }
+      } else {
+        int       middle = start + (end - start) / 2;
+        RangeTask left   = new RangeTask(computations, columns, rows, start, middle, partitionSize);
+        RangeTask right  = new RangeTask(computations, columns, rows, middle, end, partitionSize);
+        right.fork();
+        Object[] leftPartials  = left.compute();
+        Object[] rightPartials = right.join();
+        for (int i = 0; i < partials.length; i++) {
+          partials[i] = computations.get(i).merge(leftPartials[i], rightPartials[i]);
+        }
+      }
+      return partials;
+    }
+  }
+}
@@ -4,6 +4,7 @@ import org.sapia.tad.util.Time;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -36,6 +37,13 @@ public class Threading {
     return EXECUTOR;
   }
   
+  /**
+   * @return the {@link ForkJoinPool} used for data-parallel computations.
+   */
+  public static ForkJoinPool getForkJoinPool() {
+    return ForkJoinPool.commonPool();
+  }
+  
   /**
    * @return the default timeout for async computations.
    */
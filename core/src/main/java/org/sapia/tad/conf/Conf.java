@@ -43,7 +43,9 @@ public class Conf {
   }
   
   /**
-   * @return the {@link DateFormat} to use when parsing strings into {@link Date}s.
+   * @return the {@link DateFormat} to use when parsing strings into {@link Date}s. A
+   * {@link org.sapia.tad.parser.DateParser} created with its default constructor takes formats that are
+   * added or replaced afterwards into account.
    */
   public static List<DateFormat> getDateFormats() {
     return provider.get().getDateFormats();
@@ -69,4 +71,32 @@ public class Conf {
   public static Time getTaskTimeout() {
     return provider.get().getTaskTimeout();
   }
+  
+  /**
+   * @return the number of rows above which computations are performed in parallel, over row ranges.
+   */
+  public static int getParallelRowThreshold() {
+    return provider.get().getParallelRowThreshold();
+  }
+  
+  /**
+   * @return the maximum number of rows over which quantiles are computed exactly.
+   */
+  public static int getExactQuantileRowLimit() {
+    return provider.get().getExactQuantileRowLimit();
+  }
+  
+  /**
+   * @return the approximate amount of memory (in bytes) that may be used to hold rows while sorting.
+   */
+  public static long getSortMemoryBudget() {
+    return provider.get().getSortMemoryBudget();
+  }
+  
+  /**
+   * @return the approximate amount of memory (in bytes) that may be used to hold the groups of an aggregation.
+   */
+  public static long getAggregationMemoryBudget() {
+    return provider.get().getAggregationMemoryBudget();
+  }
 }
@@ -48,4 +48,28 @@ public interface ConfProvider {
    * @return the {@link Time} indicating the timeout for async tasks.
    */
   public Time getTaskTimeout();
+  
+  /**
+   * @return the number of rows above which computations are partitioned into row ranges that are 
+   * processed in parallel.
+   */
+  public int getParallelRowThreshold();
+  
+  /**
+   * @return the maximum number of rows over which quantiles are computed exactly: quantiles over more rows
+   * are approximated, in bounded memory.
+   */
+  public int getExactQuantileRowLimit();
+  
+  /**
+   * @return the approximate amount of memory (in bytes) that may be used to hold rows while sorting:
+   * sorts over more data are performed externally, using temporary files.
+   */
+  public long getSortMemoryBudget();
+  
+  /**
+   * @return the approximate amount of memory (in bytes) that may be used to hold the groups of an 
+   * aggregation: groups in excess are spilled to temporary files.
+   */
+  public long getAggregationMemoryBudget();
 }
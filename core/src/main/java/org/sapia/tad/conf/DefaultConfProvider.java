@@ -18,18 +18,26 @@ import java.util.concurrent.TimeUnit;
  */
 public class DefaultConfProvider implements ConfProvider {
   
-  public static final int DEFAULT_CELL_WIDTH    = 10;
-  public static final int DEFAULT_DISPLAY_WIDTH = 80;
-  public static final int DEFAULT_HEAD_LENGTH   = 25;
-  public static final int DEFAULT_TAIL_LENGTH   = 25;
-  public static final long DEFAULT_TASK_TIMEOUT = 30;
-  
-  private int              displayWidth = DEFAULT_DISPLAY_WIDTH;
-  private int              cellWidth    = DEFAULT_CELL_WIDTH;
-  private List<DateFormat> dateFormats  = new ArrayList<>();
-  private int              headLength   = DEFAULT_HEAD_LENGTH;
-  private int              tailLength   = DEFAULT_TAIL_LENGTH;
-  private Time             taskTimeout  = new Time(DEFAULT_TASK_TIMEOUT, TimeUnit.SECONDS);
+  public static final int  DEFAULT_CELL_WIDTH                = 10;
+  public static final int  DEFAULT_DISPLAY_WIDTH             = 80;
+  public static final int  DEFAULT_HEAD_LENGTH               = 25;
+  public static final int  DEFAULT_TAIL_LENGTH               = 25;
+  public static final long DEFAULT_TASK_TIMEOUT              = 30;
+  public static final int  DEFAULT_PARALLEL_ROW_THRESHOLD    = 100000;
+  public static final int  DEFAULT_EXACT_QUANTILE_ROW_LIMIT  = 1000000;
+  public static final long DEFAULT_SORT_MEMORY_BUDGET        = 64 * 1024 * 1024;
+  public static final long DEFAULT_AGGREGATION_MEMORY_BUDGET = 64 * 1024 * 1024;
+  
+  private int              displayWidth            = DEFAULT_DISPLAY_WIDTH;
+  private int              cellWidth               = DEFAULT_CELL_WIDTH;
+  private List<DateFormat> dateFormats             = new ArrayList<>();
+  private int              headLength              = DEFAULT_HEAD_LENGTH;
+  private int              tailLength              = DEFAULT_TAIL_LENGTH;
+  private Time             taskTimeout             = new Time(DEFAULT_TASK_TIMEOUT, TimeUnit.SECONDS);
+  private int              parallelRowThreshold    = DEFAULT_PARALLEL_ROW_THRESHOLD;
+  private int              exactQuantileRowLimit   = DEFAULT_EXACT_QUANTILE_ROW_LIMIT;
+  private long             sortMemoryBudget        = DEFAULT_SORT_MEMORY_BUDGET;
+  private long             aggregationMemoryBudget = DEFAULT_AGGREGATION_MEMORY_BUDGET;
   
   {
     dateFormats.add(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm'Z'"));
@@ -115,5 +123,58 @@ public class DefaultConfProvider implements ConfProvider {
   public void setTaskTimeout(Time taskTimeout) {
     this.taskTimeout = taskTimeout;
   }
+  
+  @Override
+  public int getParallelRowThreshold() {
+    return parallelRowThreshold;
+  }
+  
+  /**
+   * @param parallelRowThreshold the number of rows above which computations should be performed in parallel.
+   */
+  public void setParallelRowThreshold(int parallelRowThreshold) {
+    Checks.isTrue(parallelRowThreshold > 0, "Parallel row threshold must be greater than 0");
+    this.parallelRowThreshold = parallelRowThreshold;
+  }
+  
+  @Override
+  public int getExactQuantileRowLimit() {
+    return exactQuantileRowLimit;
+  }
+  
+  /**
+   * @param exactQuantileRowLimit the maximum number of rows over which quantiles should be computed exactly.
+   */
+  public void setExactQuantileRowLimit(int exactQuantileRowLimit) {
+    Checks.isTrue(exactQuantileRowLimit >= 0, "Exact quantile row limit must be greater than or equal to 0");
+    this.exactQuantileRowLimit = exactQuantileRowLimit;
+  }
+  
+  @Override
+  public long getSortMemoryBudget() {
+    return sortMemoryBudget;
+  }
+  
+  /**
+   * @param sortMemoryBudget the approximate amount of memory (in bytes) that may be used to hold rows while sorting.
+   */
+  public void setSortMemoryBudget(long sortMemoryBudget) {
+    Checks.isTrue(sortMemoryBudget > 0, "Sort memory budget must be greater than 0");
+    this.sortMemoryBudget = sortMemoryBudget;
+  }
+  
+  @Override
+  public long getAggregationMemoryBudget() {
+    return aggregationMemoryBudget;
+  }
+  
+  /**
+   * @param aggregationMemoryBudget the approximate amount of memory (in bytes) that may be used to hold 
+   * the groups of an aggregation.
+   */
+  public void setAggregationMemoryBudget(long aggregationMemoryBudget) {
+    Checks.isTrue(aggregationMemoryBudget > 0, "Aggregation memory budget must be greater than 0");
+    this.aggregationMemoryBudget = aggregationMemoryBudget;
+  }
 
 }
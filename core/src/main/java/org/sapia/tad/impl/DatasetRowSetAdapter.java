@@ -23,6 +23,13 @@ public class DatasetRowSetAdapter implements RowSet {
     this.dataset = dataset;
   }
 
+  /**
+   * @return the {@link Dataset} wrapped by this instance.
+   */
+  public Dataset getDataset() {
+    return dataset;
+  }
+
   @Override
   public Vector get(int index) throws IllegalArgumentException {
     return dataset.getRow(index);
@@ -17,8 +17,9 @@ import java.util.*;
  */
 public class DefaultDataset implements Dataset {
   
-  private ColumnSet columns;
-  private RowSet    rows;
+  private ColumnSet          columns;
+  private RowSet             rows;
+  private NumericColumnCache numericColumns = new NumericColumnCache(this);
 
   public DefaultDataset(ColumnSet columns, List<Vector> rows) {
     this(columns, new DefaultRowSet(rows));
@@ -69,6 +70,16 @@ public class DefaultDataset implements Dataset {
     return new DefaultVector(items);
   }
 
+  @Override
+  public NumericColumn getNumericColumn(int colIndex) throws IllegalArgumentException {
+    return numericColumns.get(colIndex);
+  }
+  
+  @Override
+  public NumericColumn getNumericColumn(String name) throws IllegalArgumentException {
+    return numericColumns.get(columns.get(name).getIndex());
+  }
+  
   @Override
   public Dataset getColumnSubset(int colIndex, Criteria<Value> filter)
       throws IllegalArgumentException {
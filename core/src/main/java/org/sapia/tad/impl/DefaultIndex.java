@@ -5,29 +5,44 @@ import org.sapia.tad.Vector;
 import org.sapia.tad.func.ArgFunction;
 import org.sapia.tad.util.Checks;
 import org.sapia.tad.util.Data;
+import org.sapia.tad.util.Objects;
 import org.sapia.tad.util.Strings;
+import org.sapia.tad.value.MutableNumericValue;
 import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.NumericValue;
 import org.sapia.tad.value.Value;
 
 import java.util.*;
-import java.util.Map.Entry;
 
+/**
+ * Default {@link Index} implementation: rows are grouped by key using a hash table, each distinct 
+ * key being assigned a dense group identifier (in the order in which keys are first encountered). 
+ * The row identifiers of each group are stored contiguously, in a single <code>int</code> array
+ * (the offset of each group in that array being kept in another array). Null key values only match
+ * null values, and NaN matches NaN.
+ * <p>
+ * The keys are only sorted when required: when {@link #getKeys()} is invoked, or when rows are
+ * accessed by position (in which case rows are returned by order of key). Keys are sorted once, 
+ * upon the first such access.
+ * 
+ * @author yduchesne
+ *
+ */
 public class DefaultIndex implements Index {
   
-  private Map<VectorKey, RowSet>   rowsets;
-  private ColumnSet                columns, indexedColumns;
-  private int                      size;
-  private TreeMap<Integer, RowSet> rowsetsByIndex;
+  private static final int INITIAL_TABLE_SIZE = 16;
+  private static final int NULL_HASH          = 0x7F4A7C15;
   
-  private DefaultIndex(DefaultIndex other) {
-    rowsets = new TreeMap<>();
-    rowsets.putAll(other.rowsets);
-    rowsetsByIndex = new TreeMap<>();
-    rowsetsByIndex.putAll(other.rowsetsByIndex);
-    this.columns = other.columns;
-    this.indexedColumns = other.indexedColumns;
-    this.size = other.size;
-  }
+  private ColumnSet        columns, indexedColumns;
+  private int[]            keyIndices;
+  private Vector[]         rows;
+  private int              groupCount;
+  private int[]            firstRows   = new int[INITIAL_TABLE_SIZE];
+  private int[]            groupHashes = new int[INITIAL_TABLE_SIZE];
+  private int[]            table       = new int[INITIAL_TABLE_SIZE];
+  private int[]            offsets;
+  private int[]            rowIds;
+  private SortedGroups     sorted;
   
   public DefaultIndex(RowSet rows, ColumnSet columns, ColumnSet indexedColumns) {
     if (rows.size() > 0) {
@@ -35,9 +50,14 @@ public class DefaultIndex implements Index {
           "Invalid row length: got %s item(s), expecting: %s", 
           rows.get(0).size(), columns.size());
     }
-    init(rows, indexedColumns);
     this.columns        = columns;
     this.indexedColumns = indexedColumns;
+    this.keyIndices     = new int[indexedColumns.size()];
+    int i = 0;
+    for (Column col : indexedColumns) {
+      keyIndices[i++] = col.getIndex();
+    }
+    init(rows);
   }
   
   @Override
@@ -50,46 +70,76 @@ public class DefaultIndex implements Index {
     return indexedColumns;
   }
   
+  /**
+   * @return the keys of this instance, sorted.
+   */
   @Override
   public Collection<VectorKey> getKeys() {
-    return Collections.unmodifiableCollection(rowsets.keySet());
+    return Collections.unmodifiableList(Arrays.asList(sorted().keys));
+  }
+  
+  /**
+   * @return the number of distinct keys (or groups) in this instance.
+   */
+  public int getGroupCount() {
+    return groupCount;
+  }
+  
+  /**
+   * @param groupId a group identifier (between 0 and {@link #getGroupCount()}, exclusively).
+   * @return the {@link RowSet} holding the rows of the given group.
+   */
+  public RowSet getGroupRowSet(int groupId) {
+    Checks.isTrue(groupId >= 0 && groupId < groupCount, "Invalid group: %s. Got %s groups", groupId, groupCount);
+    return new GroupRowSet(groupId);
   }
   
   @Override
   public int size() {
-    return size;
+    return rows.length;
   }
   
   @Override
   public RowSet getRowSet() {
-    if (size == 0) {
+    if (rows.length == 0) {
       return new NullRowset();
     }
     
     return new RowSet() {
       @Override
       public Iterator<Vector> iterator() {
-        return new CompositeIterator<Vector>(new Iterator<Iterator<Vector>>() {
-          
-          private Iterator<RowSet> iterator = rowsets.values().iterator();
+        final SortedGroups s = sorted();
+        return new Iterator<Vector>() {
+          private int group = -1;
+          private int next, end;
           
           @Override
           public boolean hasNext() {
-            return iterator.hasNext();
+            while (next >= end && group < groupCount - 1) {
+              int g = s.groups[++group];
+              next  = offsets[g];
+              end   = offsets[g + 1];
+            }
+            return next < end;
           }
+          
           @Override
-          public Iterator<Vector> next() {
-            return iterator.next().iterator();
+          public Vector next() {
+            if (!hasNext()) {
+              throw new NoSuchElementException();
+            }
+            return rows[rowIds[next++]];
           }
+          
           @Override
           public void remove() {
           }
-        });
+        };
       }
       
       @Override
       public int size() {
-        return size;
+        return rows.length;
       }
       
       @Override
@@ -99,17 +149,26 @@ public class DefaultIndex implements Index {
     };
   }
   
+  /**
+   * @param index the position of a row, in this index's key order.
+   * @return the row at the given position.
+   */
   public Vector get(int index) {
-    Integer                indexKey = new Integer(index);
-    Entry<Integer, RowSet> entry    = rowsetsByIndex.floorEntry(indexKey);
-    return entry.getValue().get(index - entry.getKey());
+    Checks.isTrue(index >= 0 && index < rows.length, "Invalid index: %s. Got %s rows", index, rows.length);
+    SortedGroups s   = sorted();
+    int          pos = Arrays.binarySearch(s.starts, index);
+    if (pos < 0) {
+      pos = -pos - 2;
+    }
+    int g = s.groups[pos];
+    return rows[rowIds[offsets[g] + index - s.starts[pos]]];
   }
   
   @Override
   public Set<Value> getValueSet(String columnName) {
     Set<Value> values = new HashSet<>();
     Column col = columns.get(columnName);
-    for (Vector v : getRowSet()) {
+    for (Vector v : rows) {
       Value value = v.get(col.getIndex());
       if (NullValue.isNull(value)) {
         values.add(NullValue.getInstance());
@@ -137,21 +196,12 @@ public class DefaultIndex implements Index {
           }
         })
     );
-    VectorKey key = new VectorKey(indexedColumns, values);
-    RowSet rowset = rowsets.get(key);
-    if (rowset == null) {
-      return new NullRowset();
-    }
-    return rowset;
+    return rowSetFor(values);
   }
   
   @Override
   public RowSet getRowset(VectorKey key) {
-    RowSet rowset = rowsets.get(key);
-    if (rowset == null) {
-      return new NullRowset();
-    }
-    return rowset;
+    return rowSetFor(key.getValues());
   }
   
   @Override
@@ -159,53 +209,266 @@ public class DefaultIndex implements Index {
     return mergeWith(Arrays.asList(indices));
   }
   
+  /**
+   * The rows of the given indices are added to the returned index: for keys found in more than one index, 
+   * only the rows of the last such index are kept.
+   */
   @Override
   public Index mergeWith(List<Index> indices) {
-    DefaultIndex index = new DefaultIndex(this);
+    Map<VectorKey, RowSet> rowsets = new LinkedHashMap<>();
+    for (VectorKey key : getKeys()) {
+      rowsets.put(key, getRowset(key));
+    }
     for (Index i : indices) {
-      Checks.isTrue(index.columns.equals(i.getColumnSet()), "Indices must have the same columns");
-      Checks.isTrue(index.indexedColumns.equals(i.getIndexedColumnSet()), "Indices must have the same index columns");
+      Checks.isTrue(columns.equals(i.getColumnSet()), "Indices must have the same columns");
+      Checks.isTrue(indexedColumns.equals(i.getIndexedColumnSet()), "Indices must have the same index columns");
       for (VectorKey key : i.getKeys()) {
-        RowSet rows = i.getRowset(key);
-        index.rowsets.put(key, rows);
+        rowsets.put(key, i.getRowset(key));
       }
     }
-    index.rowsetsByIndex = new TreeMap<>();
-    int size = 0;
-    for (Map.Entry<VectorKey, RowSet> entry : index.rowsets.entrySet()) {
-      rowsetsByIndex.put(new Integer(size), entry.getValue());
-      size += entry.getValue().size();
+    List<Vector> mergedRows = new ArrayList<>();
+    for (RowSet rowset : rowsets.values()) {
+      for (Vector row : rowset) {
+        mergedRows.add(row);
+      }
     }
-    return index;
+    return new DefaultIndex(new DefaultRowSet(mergedRows), columns, indexedColumns);
   }
   
-  private void init(RowSet rows, ColumnSet columns) {
-    VectorKey current = null;
-    Map<VectorKey, List<Vector>> rowsByGroupKey = new TreeMap<>();
-    for (Vector row : rows) {
-      if (current == null) {
-        current = new VectorKey(columns, row);
-      } else {
-        VectorKey key = new VectorKey(columns, row);
-        if (!key.equals(current)) {
-          current = key;
-        } 
+  // --------------------------------------------------------------------------
+  // Restricted methods
+  
+  private void init(RowSet rowSet) {
+    List<Vector> rowList = new ArrayList<>(rowSet.size());
+    for (Vector row : rowSet) {
+      rowList.add(row);
+    }
+    rows = rowList.toArray(new Vector[rowList.size()]);
+    
+    // assigning a group to each row
+    int[] groupOfRow = new int[rows.length];
+    for (int r = 0; r < rows.length; r++) {
+      int hash = hash(rows[r]);
+      int g    = find(hash, rows[r], null);
+      if (g < 0) {
+        g = addGroup(hash, r);
+      }
+      groupOfRow[r] = g;
+    }
+    
+    // laying out row ids contiguously, by group
+    offsets = new int[groupCount + 1];
+    for (int r = 0; r < rows.length; r++) {
+      offsets[groupOfRow[r] + 1]++;
+    }
+    for (int g = 0; g < groupCount; g++) {
+      offsets[g + 1] += offsets[g];
+    }
+    rowIds = new int[rows.length];
+    int[] positions = Arrays.copyOf(offsets, groupCount);
+    for (int r = 0; r < rows.length; r++) {
+      rowIds[positions[groupOfRow[r]]++] = r;
+    }
+  }
+  
+  private RowSet rowSetFor(Value[] keyValues) {
+    if (keyValues.length != keyIndices.length) {
+      return new NullRowset();
+    }
+    int g = find(hash(keyValues), null, keyValues);
+    if (g < 0) {
+      return new NullRowset();
+    }
+    return new GroupRowSet(g);
+  }
+  
+  // either a row, or the key values, must be passed.
+  private int find(int hash, Vector row, Value[] keyValues) {
+    int mask = table.length - 1;
+    for (int slot = spread(hash) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+      int g = table[slot] - 1;
+      if (groupHashes[g] == hash && matches(rows[firstRows[g]], row, keyValues)) {
+        return g;
+      }
+    }
+    return -1;
+  }
+  
+  private boolean matches(Vector groupRow, Vector row, Value[] keyValues) {
+    for (int i = 0; i < keyIndices.length; i++) {
+      Value other = row == null ? keyValues[i] : row.get(keyIndices[i]);
+      if (!sameKeyValue(groupRow.get(keyIndices[i]), other)) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
+  private int addGroup(int hash, int firstRow) {
+    if (groupCount == firstRows.length) {
+      firstRows   = Arrays.copyOf(firstRows, groupCount * 2);
+      groupHashes = Arrays.copyOf(groupHashes, groupCount * 2);
+    }
+    int g = groupCount++;
+    firstRows[g]   = firstRow;
+    groupHashes[g] = hash;
+    if (groupCount * 2 > table.length) {
+      table = new int[table.length * 2];
+      for (int i = 0; i < groupCount; i++) {
+        insert(i);
       }
-      List<Vector> groupRows = rowsByGroupKey.get(current);
-      if (groupRows == null) {
-        groupRows = new ArrayList<>();
-        rowsByGroupKey.put(current, groupRows);
+    } else {
+      insert(g);
+    }
+    return g;
+  }
+  
+  private void insert(int g) {
+    int mask = table.length - 1;
+    int slot = spread(groupHashes[g]) & mask;
+    while (table[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    table[slot] = g + 1;
+  }
+  
+  private int hash(Vector row) {
+    int hash = 1;
+    for (int i = 0; i < keyIndices.length; i++) {
+      hash = 31 * hash + hash(row.get(keyIndices[i]));
+    }
+    return hash;
+  }
+  
+  private int hash(Value[] keyValues) {
+    int hash = 1;
+    for (int i = 0; i < keyValues.length; i++) {
+      hash = 31 * hash + hash(keyValues[i]);
+    }
+    return hash;
+  }
+  
+  // not relying on Value.equals(): a numeric value of 0 equals null, but not the reverse, and NaN equals nothing
+  private static boolean sameKeyValue(Value v1, Value v2) {
+    boolean null1 = NullValue.isNull(v1), null2 = NullValue.isNull(v2);
+    if (null1 || null2) {
+      return null1 && null2;
+    } else if (v1.isNumeric() && v2.isNumeric() && Double.isNaN(v1.get()) && Double.isNaN(v2.get())) {
+      return true;
+    }
+    return v1.equals(v2);
+  }
+  
+  private static int hash(Value value) {
+    if (NullValue.isNull(value)) {
+      return NULL_HASH;
+    }
+    // numeric values are compared by their double value: hashing them consistently (all NaNs having the same bits)
+    if (value instanceof NumericValue || value instanceof MutableNumericValue) {
+      long bits = Double.doubleToLongBits(value.get() + 0.0);
+      return (int) (bits ^ (bits >>> 32));
+    }
+    return Objects.safeHashCode(value);
+  }
+  
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+  
+  private synchronized SortedGroups sorted() {
+    if (sorted == null) {
+      final VectorKey[] keys = new VectorKey[groupCount];
+      Integer[] order = new Integer[groupCount];
+      for (int g = 0; g < groupCount; g++) {
+        keys[g]  = new VectorKey(indexedColumns, rows[firstRows[g]]);
+        order[g] = g;
+      }
+      Arrays.sort(order, new Comparator<Integer>() {
+        @Override
+        public int compare(Integer g1, Integer g2) {
+          return keys[g1].compareTo(keys[g2]);
+        }
+      });
+      SortedGroups s = new SortedGroups(groupCount);
+      int start = 0;
+      for (int i = 0; i < groupCount; i++) {
+        int g = order[i];
+        s.keys[i]   = keys[g];
+        s.groups[i] = g;
+        s.starts[i] = start;
+        start += offsets[g + 1] - offsets[g];
       }
-      groupRows.add(row);
+      s.starts[groupCount] = start;
+      sorted = s;
+    }
+    return sorted;
+  }
+  
+  // ==========================================================================
+  
+  /**
+   * Holds the groups, sorted by key, with the position of the first row of each group in key order.
+   */
+  private static class SortedGroups {
+    
+    private VectorKey[] keys;
+    private int[]       groups;
+    private int[]       starts;
+    
+    private SortedGroups(int groupCount) {
+      keys   = new VectorKey[groupCount];
+      groups = new int[groupCount];
+      starts = new int[groupCount + 1];
+    }
+  }
+  
+  // --------------------------------------------------------------------------
+  
+  /**
+   * A {@link RowSet} over the rows of a given group: it does not copy these rows.
+   */
+  private class GroupRowSet implements RowSet {
+    
+    private int start, end;
+    
+    private GroupRowSet(int group) {
+      this.start = offsets[group];
+      this.end   = offsets[group + 1];
     }
     
-    rowsets = new TreeMap<>();
-    rowsetsByIndex = new TreeMap<>();
-    for (Map.Entry<VectorKey, List<Vector>> entry : rowsByGroupKey.entrySet()) {
-      RowSet rowset = new DefaultRowSet(entry.getValue());
-      rowsetsByIndex.put(new Integer(size), rowset);
-      size += entry.getValue().size();
-      rowsets.put(entry.getKey(), rowset);
+    @Override
+    public int size() {
+      return end - start;
+    }
+    
+    @Override
+    public Vector get(int index) throws IllegalArgumentException {
+      Checks.isTrue(index >= 0 && index < size(), "Invalid index: %s. Got %s rows", index, size());
+      return rows[rowIds[start + index]];
+    }
+    
+    @Override
+    public Iterator<Vector> iterator() {
+      return new Iterator<Vector>() {
+        private int next = start;
+        
+        @Override
+        public boolean hasNext() {
+          return next < end;
+        }
+        
+        @Override
+        public Vector next() {
+          if (next >= end) {
+            throw new NoSuchElementException();
+          }
+          return rows[rowIds[next++]];
+        }
+        
+        @Override
+        public void remove() {
+        }
+      };
     }
   }
 
@@ -0,0 +1,51 @@
+package org.sapia.tad.impl;
+
+import java.util.BitSet;
+
+import org.sapia.tad.NumericColumn;
+
+/**
+ * Default implementation of the {@link NumericColumn} interface, wrapping a <code>double</code> array.
+ * 
+ * @author yduchesne
+ *
+ */
+public class DefaultNumericColumn implements NumericColumn {
+
+  private double[] values;
+  private BitSet   nulls;
+  
+  /**
+   * @param values the <code>double</code>s to wrap.
+   * @param nulls the {@link BitSet} whose set bits correspond to values that are null or not numeric.
+   */
+  public DefaultNumericColumn(double[] values, BitSet nulls) {
+    this.values = values;
+    this.nulls  = nulls;
+  }
+  
+  @Override
+  public int size() {
+    return values.length;
+  }
+  
+  @Override
+  public boolean isNull(int index) {
+    return nulls.get(index);
+  }
+  
+  @Override
+  public double getDouble(int index) {
+    return values[index];
+  }
+  
+  @Override
+  public void copyTo(int srcPos, double[] dest, int destPos, int length) {
+    System.arraycopy(values, srcPos, dest, destPos, length);
+  }
+  
+  @Override
+  public double[] toDoubleArray() {
+    return values.clone();
+  }
+}
@@ -18,7 +18,8 @@ import java.util.List;
  */
 public class IndexDatasetAdapter implements IndexedDataset {
   
-  private Index index;
+  private Index              index;
+  private NumericColumnCache numericColumns = new NumericColumnCache(this);
 
   /**
    * @param index the {@link Index} that this instance should wrap.
@@ -42,6 +43,16 @@ public class IndexDatasetAdapter implements IndexedDataset {
     return getColumn(index.getColumnSet().get(name).getIndex());
   }
 
+  @Override
+  public NumericColumn getNumericColumn(int colIndex) throws IllegalArgumentException {
+    return numericColumns.get(colIndex);
+  }
+  
+  @Override
+  public NumericColumn getNumericColumn(String name) throws IllegalArgumentException {
+    return numericColumns.get(index.getColumnSet().get(name).getIndex());
+  }
+  
   @Override
   public ColumnSet getColumnSet() {
     return index.getColumnSet();
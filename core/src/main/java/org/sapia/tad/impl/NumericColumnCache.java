@@ -0,0 +1,47 @@
+package org.sapia.tad.impl;
+
+import org.sapia.tad.Dataset;
+import org.sapia.tad.NumericColumn;
+import org.sapia.tad.NumericColumns;
+
+/**
+ * Lazily creates the {@link NumericColumn}s of a given {@link Dataset}, and caches them: the values
+ * of a given column are thus copied to a primitive array only once. 
+ * <p>
+ * This class is meant for datasets that do not otherwise hold their data in primitive arrays. It is
+ * thread-safe.
+ * 
+ * @author yduchesne
+ *
+ */
+public class NumericColumnCache {
+  
+  private Dataset         owner;
+  private NumericColumn[] columns;
+  
+  /**
+   * @param owner the {@link Dataset} whose columns should be cached.
+   */
+  public NumericColumnCache(Dataset owner) {
+    this.owner = owner;
+  }
+  
+  /**
+   * @param colIndex a column index.
+   * @return the {@link NumericColumn} corresponding to the given column.
+   * @throws IllegalArgumentException if the given index is invalid.
+   */
+  public synchronized NumericColumn get(int colIndex) throws IllegalArgumentException {
+    owner.getColumnSet().get(colIndex);
+    if (columns == null) {
+      columns = new NumericColumn[owner.getColumnSet().size()];
+    }
+    NumericColumn column = columns[colIndex];
+    if (column == null) {
+      column = NumericColumns.of(owner, colIndex);
+      columns[colIndex] = column;
+    }
+    return column;
+  }
+
+}
@@ -0,0 +1,59 @@
+package org.sapia.tad.impl;
+
+import org.sapia.tad.NumericColumn;
+import org.sapia.tad.util.Checks;
+
+/**
+ * A {@link NumericColumn} that corresponds to a contiguous range of values of another {@link NumericColumn}: 
+ * an instance of this class does not copy the values that it holds.
+ * 
+ * @author yduchesne
+ *
+ */
+public class NumericColumnRange implements NumericColumn {
+  
+  private NumericColumn values;
+  private int           start;
+  private int           end;
+  
+  /**
+   * @param values the {@link NumericColumn} to wrap.
+   * @param start the index of the first value in the range (inclusive).
+   * @param end the index of the last value in the range (exclusive).
+   */
+  public NumericColumnRange(NumericColumn values, int start, int end) {
+    Checks.isTrue(start >= 0 && start <= end && end <= values.size(), 
+        "Invalid range: [%s, %s[. Got %s values", start, end, values.size());
+    this.values = values;
+    this.start  = start;
+    this.end    = end;
+  }
+
+  @Override
+  public int size() {
+    return end - start;
+  }
+  
+  @Override
+  public boolean isNull(int index) {
+    return values.isNull(start + index);
+  }
+  
+  @Override
+  public double getDouble(int index) {
+    return values.getDouble(start + index);
+  }
+  
+  @Override
+  public void copyTo(int srcPos, double[] dest, int destPos, int length) {
+    Checks.isTrue(srcPos >= 0 && srcPos + length <= size(), "Invalid range: [%s, %s[. Got %s values", srcPos, srcPos + length, size());
+    values.copyTo(start + srcPos, dest, destPos, length);
+  }
+  
+  @Override
+  public double[] toDoubleArray() {
+    double[] copy = new double[size()];
+    values.copyTo(start, copy, 0, copy.length);
+    return copy;
+  }
+}
@@ -0,0 +1,86 @@
+package org.sapia.tad.impl;
+
+import java.util.Iterator;
+
+import org.sapia.tad.RowSet;
+import org.sapia.tad.Vector;
+import org.sapia.tad.util.Checks;
+
+/**
+ * A {@link RowSet} that corresponds to a contiguous range of rows of another {@link RowSet}: an
+ * instance of this class does not copy the rows that it holds.
+ * 
+ * @author yduchesne
+ *
+ */
+public class RangeRowSet implements RowSet {
+  
+  private RowSet rows;
+  private int    start;
+  private int    end;
+  
+  /**
+   * @param rows the {@link RowSet} to wrap.
+   * @param start the index of the first row in the range (inclusive).
+   * @param end the index of the last row in the range (exclusive).
+   */
+  public RangeRowSet(RowSet rows, int start, int end) {
+    Checks.isTrue(start >= 0 && start <= end && end <= rows.size(), 
+        "Invalid range: [%s, %s[. Got %s rows", start, end, rows.size());
+    this.rows  = rows;
+    this.start = start;
+    this.end   = end;
+  }
+  
+  /**
+   * @return the wrapped {@link RowSet}.
+   */
+  public RowSet getRowSet() {
+    return rows;
+  }
+  
+  /**
+   * @return the index of the first row in the range, in the wrapped {@link RowSet} (inclusive).
+   */
+  public int getStart() {
+    return start;
+  }
+  
+  /**
+   * @return the index of the last row in the range, in the wrapped {@link RowSet} (exclusive).
+   */
+  public int getEnd() {
+    return end;
+  }
+  
+  @Override
+  public int size() {
+    return end - start;
+  }
+  
+  @Override
+  public Vector get(int index) throws IllegalArgumentException {
+    Checks.isTrue(index >= 0 && index < size(), "Invalid index: %s. Got %s rows", index, size());
+    return rows.get(start + index);
+  }
+  
+  @Override
+  public Iterator<Vector> iterator() {
+    return new Iterator<Vector>() {
+      private int count = start;
+      @Override
+      public boolean hasNext() {
+        return count < end;
+      }
+      
+      @Override
+      public Vector next() {
+        return rows.get(count++);
+      }
+      
+      @Override
+      public void remove() {
+      }
+    };
+  }
+}
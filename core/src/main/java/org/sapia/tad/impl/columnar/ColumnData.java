@@ -0,0 +1,222 @@
+package org.sapia.tad.impl.columnar;
+
+import java.util.BitSet;
+import java.util.List;
+
+import org.sapia.tad.Datatype;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.value.Value;
+
+/**
+ * Abstract class holding the data of a single column of a {@link ColumnarDataset}.
+ * <p>
+ * Implementations store their data in primitive arrays, and keep track of nulls in
+ * a bitmap. {@link Value}s are materialized lazily, when {@link #get(int)} is invoked.
+ *
+ * @author yduchesne
+ *
+ */
+public abstract class ColumnData {
+
+  protected final int    size;
+  protected final BitSet nulls;
+
+  /**
+   * @param size the number of values held by this instance.
+   * @param nulls the {@link BitSet} whose set bits correspond to null values.
+   */
+  protected ColumnData(int size, BitSet nulls) {
+    this.size  = size;
+    this.nulls = nulls;
+  }
+
+  /**
+   * @return the number of values held by this instance.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @param row a row index.
+   * @return <code>true</code> if the value at the given row is null.
+   */
+  public boolean isNull(int row) {
+    return nulls.get(row);
+  }
+
+  /**
+   * @return a copy of the bitmap of this instance's nulls: each set bit corresponds to the index of
+   * a row holding a null.
+   */
+  public BitSet getNullBitmap() {
+    return (BitSet) nulls.clone();
+  }
+
+  /**
+   * @return the number of nulls held by this instance.
+   */
+  public int getNullCount() {
+    return nulls.cardinality();
+  }
+
+  /**
+   * @return the {@link Datatype} of the data held by this instance.
+   */
+  public abstract Datatype getType();
+
+  /**
+   * @param row a row index.
+   * @return the {@link Value} at the given row.
+   * @throws IllegalArgumentException if the given row index is invalid.
+   */
+  public abstract Value get(int row) throws IllegalArgumentException;
+
+  /**
+   * @param rows the indices of the rows to select.
+   * @return a new instance of this class, holding the values at the given rows.
+   */
+  public abstract ColumnData select(int[] rows);
+
+  /**
+   * @param parts the instances to concatenate, which must all hold the data of the same column.
+   * @return a new instance, holding the values of the given ones, in order (primitive storage is kept
+   * if all the given instances have the same type of storage).
+   * @throws IllegalArgumentException if no instances are given.
+   */
+  public static ColumnData concat(List<ColumnData> parts) throws IllegalArgumentException {
+    Checks.isFalse(parts.isEmpty(), "At least one instance must be provided");
+    if (parts.size() == 1) {
+      return parts.get(0);
+    }
+    int total = 0;
+    for (ColumnData p : parts) {
+      total += p.size();
+    }
+    BitSet nulls  = new BitSet(total);
+    int    offset = 0;
+    for (ColumnData p : parts) {
+      for (int i = p.nulls.nextSetBit(0); i >= 0; i = p.nulls.nextSetBit(i + 1)) {
+        nulls.set(offset + i);
+      }
+      offset += p.size();
+    }
+
+    offset = 0;
+    if (isAll(parts, NumericColumnData.class)) {
+      double[] values = new double[total];
+      for (ColumnData p : parts) {
+        ((NumericColumnData) p).copyTo(0, values, offset, p.size());
+        offset += p.size();
+      }
+      return new NumericColumnData(values, nulls);
+    } else if (isAll(parts, DateColumnData.class)) {
+      long[] values = new long[total];
+      for (ColumnData p : parts) {
+        for (int i = 0; i < p.size(); i++) {
+          values[offset++] = ((DateColumnData) p).getTime(i);
+        }
+      }
+      return new DateColumnData(values, nulls);
+    } else if (isAll(parts, StringColumnData.class)) {
+      StringDictionary dictionary = new StringDictionary();
+      int[]            codes      = new int[total];
+      for (ColumnData p : parts) {
+        StringColumnData strings = (StringColumnData) p;
+        // mapping the codes of the part's dictionary to the ones of the new dictionary
+        int[] mapping = new int[strings.getDictionary().size()];
+        for (int c = 0; c < mapping.length; c++) {
+          mapping[c] = dictionary.encode(strings.getDictionary().get(c));
+        }
+        for (int i = 0; i < p.size(); i++) {
+          int code = strings.getCode(i);
+          codes[offset++] = code < 0 ? -1 : mapping[code];
+        }
+      }
+      return new StringColumnData(codes, dictionary, nulls);
+    }
+    Value[] values = new Value[total];
+    for (ColumnData p : parts) {
+      for (int i = 0; i < p.size(); i++) {
+        values[offset++] = p.get(i);
+      }
+    }
+    return new ValueColumnData(parts.get(0).getType(), values);
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  private static boolean isAll(List<ColumnData> parts, Class<? extends ColumnData> type) {
+    for (ColumnData p : parts) {
+      if (!type.isInstance(p)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  protected void checkRow(int row) {
+    Checks.isTrue(row >= 0 && row < size, "Invalid row index: %s. Got %s rows", row, size);
+  }
+
+  protected BitSet selectNulls(int[] rows) {
+    BitSet selected = new BitSet(rows.length);
+    if (!nulls.isEmpty()) {
+      for (int i = 0; i < rows.length; i++) {
+        if (nulls.get(rows[i])) {
+          selected.set(i);
+        }
+      }
+    }
+    return selected;
+  }
+
+  // ==========================================================================
+
+  /**
+   * Specifies the behavior for appending values to a {@link ColumnData} under construction.
+   */
+  public static abstract class Builder {
+
+    protected BitSet nulls = new BitSet();
+    protected int    size;
+
+    /**
+     * @param value a {@link Value} to append.
+     * @return <code>true</code> if the value could be appended, <code>false</code> if
+     * it cannot be held by the type of storage corresponding to this instance.
+     */
+    public abstract boolean append(Value value);
+
+    /**
+     * Appends a null value.
+     */
+    public void appendNull() {
+      ensureCapacity(size + 1);
+      nulls.set(size++);
+    }
+
+    /**
+     * @return the number of values appended so far.
+     */
+    public int size() {
+      return size;
+    }
+
+    /**
+     * @return a new {@link ColumnData}, holding the values appended so far.
+     */
+    public abstract ColumnData build();
+
+    protected abstract void ensureCapacity(int capacity);
+
+    protected static int grow(int current, int capacity) {
+      int newCapacity = current == 0 ? 16 : current;
+      while (newCapacity < capacity) {
+        newCapacity = newCapacity << 1;
+      }
+      return newCapacity;
+    }
+  }
+}
@@ -0,0 +1,165 @@
+package org.sapia.tad.impl.columnar;
+
+import java.util.Iterator;
+
+import org.sapia.tad.NumericColumn;
+import org.sapia.tad.Vector;
+import org.sapia.tad.Vectors;
+import org.sapia.tad.impl.DefaultVector;
+import org.sapia.tad.util.Objects;
+import org.sapia.tad.value.Value;
+
+/**
+ * A {@link Vector} that corresponds to a column of a {@link ColumnarDataset}: it wraps the
+ * column's {@link ColumnData}, without copying it.
+ *
+ * @author yduchesne
+ *
+ */
+class ColumnDataVector implements Vector {
+
+  private ColumnData data;
+
+  ColumnDataVector(ColumnData data) {
+    this.data = data;
+  }
+
+  /**
+   * @param data the {@link ColumnData} to wrap.
+   * @return a new {@link ColumnDataVector}, which also implements {@link NumericColumn} if 
+   * the given data is numeric.
+   */
+  static ColumnDataVector newInstance(ColumnData data) {
+    if (data instanceof NumericColumnData) {
+      return new Numeric((NumericColumnData) data);
+    }
+    return new ColumnDataVector(data);
+  }
+
+  @Override
+  public int size() {
+    return data.size();
+  }
+
+  @Override
+  public Value get(int index) throws IllegalArgumentException {
+    return data.get(index);
+  }
+
+  @Override
+  public Vector subset(int... indices) throws IllegalArgumentException {
+    Value[] values = new Value[indices.length];
+    for (int i = 0; i < indices.length; i++) {
+      values[i] = data.get(indices[i]);
+    }
+    return new DefaultVector(values);
+  }
+
+  @Override
+  public Value[] toArray() {
+    Value[] values = new Value[data.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = data.get(i);
+    }
+    return values;
+  }
+
+  @Override
+  public double product(Vector other) {
+    return Vectors.product(this, other);
+  }
+
+  @Override
+  public Vector sum(Vector other) {
+    return Vectors.sum(this, other);
+  }
+
+  @Override
+  public Iterator<Value> iterator() {
+    return new Iterator<Value>() {
+      private int count;
+      @Override
+      public boolean hasNext() {
+        return count < data.size();
+      }
+
+      @Override
+      public Value next() {
+        return data.get(count++);
+      }
+
+      @Override
+      public void remove() {
+      }
+    };
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof Vector) {
+      Vector other = (Vector) obj;
+      if (data.size() != other.size()) {
+        return false;
+      }
+      for (int i = 0; i < data.size(); i++) {
+        if (!Objects.safeEquals(data.get(i), other.get(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.safeHashCode((Object[]) toArray());
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder s = new StringBuilder("[");
+    for (int i = 0; i < data.size(); i++) {
+      if (i > 0) {
+        s.append(",");
+      }
+      s.append(data.get(i));
+    }
+    return s.append("]").toString();
+  }
+
+  // ==========================================================================
+
+  /**
+   * Wraps {@link NumericColumnData}, giving primitive access to it.
+   */
+  static class Numeric extends ColumnDataVector implements NumericColumn {
+
+    private NumericColumnData numeric;
+
+    Numeric(NumericColumnData data) {
+      super(data);
+      this.numeric = data;
+    }
+
+    @Override
+    public boolean isNull(int index) {
+      return numeric.isNull(index);
+    }
+
+    @Override
+    public double getDouble(int index) {
+      return numeric.getDouble(index);
+    }
+
+    @Override
+    public void copyTo(int srcPos, double[] dest, int destPos, int length) {
+      numeric.copyTo(srcPos, dest, destPos, length);
+    }
+
+    @Override
+    public double[] toDoubleArray() {
+      return numeric.toDoubleArray();
+    }
+  }
+}
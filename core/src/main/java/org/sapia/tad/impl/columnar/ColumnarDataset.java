@@ -0,0 +1,241 @@
+package org.sapia.tad.impl.columnar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.Datasets;
+import org.sapia.tad.Index;
+import org.sapia.tad.IndexedDataset;
+import org.sapia.tad.NumericColumn;
+import org.sapia.tad.RowResult;
+import org.sapia.tad.Vector;
+import org.sapia.tad.algo.Criteria;
+import org.sapia.tad.impl.DatasetRowSetAdapter;
+import org.sapia.tad.impl.DefaultColumnSet;
+import org.sapia.tad.impl.DefaultIndex;
+import org.sapia.tad.impl.DefaultRowResult;
+import org.sapia.tad.impl.IndexDatasetAdapter;
+import org.sapia.tad.impl.NumericColumnCache;
+import org.sapia.tad.transform.slice.Slices;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.util.Data;
+import org.sapia.tad.value.Value;
+
+/**
+ * A {@link Dataset} implementation that stores its data column by column, in primitive arrays:
+ * <ul>
+ *   <li>numeric columns are held in <code>double</code> arrays;
+ *   <li>date columns are held in <code>long</code> arrays (milliseconds since the epoch);
+ *   <li>string columns are dictionary-encoded, and held in <code>int</code> arrays.
+ * </ul>
+ * Nulls are tracked per column, in bitmaps. {@link Value}s are only materialized when rows or
+ * columns are accessed: rows and columns returned by an instance of this class are views over
+ * its storage, rather than copies.
+ *
+ * @see ColumnarDatasetBuilder
+ *
+ * @author yduchesne
+ *
+ */
+public class ColumnarDataset implements Dataset {
+
+  private ColumnSet          columns;
+  private ColumnData[]       data;
+  private NumericColumnCache numericColumns = new NumericColumnCache(this);
+
+  /**
+   * @param columns the {@link ColumnSet} of this instance.
+   * @param data the {@link ColumnData} instances holding the data of each column, in the
+   * order of the given columns' indices.
+   */
+  public ColumnarDataset(ColumnSet columns, ColumnData[] data) {
+    Checks.isTrue(columns.size() == data.length, "Got %s columns, but data was provided for %s columns", columns.size(), data.length);
+    for (int i = 1; i < data.length; i++) {
+      Checks.isTrue(data[i].size() == data[0].size(), "All columns must have the same size (column %s has %s values, expected %s)",
+          i, data[i].size(), data[0].size());
+    }
+    this.columns = columns;
+    this.data    = data;
+  }
+
+  /**
+   * @param colIndex a column index.
+   * @return the {@link ColumnData} holding the data of the given column.
+   * @throws IllegalArgumentException if the given index is invalid.
+   */
+  public ColumnData getColumnData(int colIndex) throws IllegalArgumentException {
+    Checks.bounds(colIndex, data, "Invalid column index: %s. Got %s columns", colIndex, data.length);
+    return data[colIndex];
+  }
+
+  /**
+   * @param colName a column name.
+   * @return the {@link ColumnData} holding the data of the given column.
+   * @throws IllegalArgumentException if the given name is invalid.
+   */
+  public ColumnData getColumnData(String colName) throws IllegalArgumentException {
+    return data[columns.get(colName).getIndex()];
+  }
+
+  /**
+   * @param rows the indices of the rows to select.
+   * @return a new {@link ColumnarDataset}, holding the rows at the given indices.
+   */
+  public ColumnarDataset select(int[] rows) {
+    ColumnData[] selected = new ColumnData[data.length];
+    for (int i = 0; i < data.length; i++) {
+      selected[i] = data[i].select(rows);
+    }
+    return new ColumnarDataset(columns, selected);
+  }
+
+  /**
+   * @param parts the instances to concatenate, which must all have the same columns.
+   * @return a new {@link ColumnarDataset}, holding the rows of the given instances, in order.
+   * @throws IllegalArgumentException if no instances are given, or if they don't have the same columns.
+   */
+  public static ColumnarDataset concat(List<ColumnarDataset> parts) throws IllegalArgumentException {
+    Checks.isFalse(parts.isEmpty(), "At least one dataset must be provided");
+    ColumnSet    columns = parts.get(0).getColumnSet();
+    ColumnData[] data    = new ColumnData[columns.size()];
+    for (int i = 0; i < data.length; i++) {
+      List<ColumnData> colParts = new ArrayList<>(parts.size());
+      for (ColumnarDataset p : parts) {
+        Checks.isTrue(columns.equals(p.getColumnSet()), "Datasets must have same columns (same name and same type, in same order)");
+        colParts.add(p.data[i]);
+      }
+      data[i] = ColumnData.concat(colParts);
+    }
+    return new ColumnarDataset(columns, data);
+  }
+
+  // --------------------------------------------------------------------------
+  // Dataset interface
+
+  @Override
+  public ColumnSet getColumnSet() {
+    return columns;
+  }
+
+  @Override
+  public int size() {
+    return data.length == 0 ? 0 : data[0].size();
+  }
+
+  @Override
+  public Vector getRow(int rowIndex) throws IllegalArgumentException {
+    Checks.isTrue(rowIndex >= 0 && rowIndex < size(), "Invalid row index: %s. Got %s rows", rowIndex, size());
+    return new ColumnarVector(data, rowIndex);
+  }
+
+  @Override
+  public Vector getColumn(int colIndex) throws IllegalArgumentException {
+    return ColumnDataVector.newInstance(getColumnData(colIndex));
+  }
+
+  @Override
+  public Vector getColumn(String name) throws IllegalArgumentException {
+    return ColumnDataVector.newInstance(getColumnData(name));
+  }
+
+  @Override
+  public NumericColumn getNumericColumn(int colIndex) throws IllegalArgumentException {
+    ColumnData col = getColumnData(colIndex);
+    if (col instanceof NumericColumnData) {
+      return (NumericColumnData) col;
+    }
+    return numericColumns.get(colIndex);
+  }
+
+  @Override
+  public NumericColumn getNumericColumn(String name) throws IllegalArgumentException {
+    return getNumericColumn(columns.get(name).getIndex());
+  }
+
+  @Override
+  public Dataset getColumnSubset(int colIndex, Criteria<Value> filter) throws IllegalArgumentException {
+    ColumnData col     = getColumnData(colIndex);
+    int[]      matched = new int[col.size()];
+    int        count   = 0;
+    for (int i = 0; i < col.size(); i++) {
+      if (filter.matches(col.get(i))) {
+        matched[count++] = i;
+      }
+    }
+    Column copy = columns.get(colIndex).copy(0);
+    return new ColumnarDataset(
+        new DefaultColumnSet(Data.list(copy)),
+        new ColumnData[] { col.select(Arrays.copyOf(matched, count)) }
+    );
+  }
+
+  @Override
+  public Dataset getColumnSubset(String colName, Criteria<Value> filter) throws IllegalArgumentException {
+    return getColumnSubset(columns.get(colName).getIndex(), filter);
+  }
+
+  @Override
+  public Dataset getSubset(Criteria<RowResult> filter) {
+    int[]            matched   = new int[size()];
+    int              count     = 0;
+    DefaultRowResult rowResult = new DefaultRowResult(columns);
+    for (int i = 0; i < matched.length; i++) {
+      rowResult.setVector(new ColumnarVector(data, i));
+      if (filter.matches(rowResult)) {
+        matched[count++] = i;
+      }
+    }
+    return select(Arrays.copyOf(matched, count));
+  }
+
+  @Override
+  public IndexedDataset index(String... colNames) throws IllegalArgumentException {
+    Index index = new DefaultIndex(new DatasetRowSetAdapter(this), columns, columns.includes(colNames));
+    return new IndexDatasetAdapter(index);
+  }
+
+  @Override
+  public IndexedDataset index(List<String> colNames) throws IllegalArgumentException {
+    return index(colNames.toArray(new String[colNames.size()]));
+  }
+
+  @Override
+  public Dataset head() {
+    return Slices.head(this);
+  }
+
+  @Override
+  public Dataset tail() {
+    return Slices.tail(this);
+  }
+
+  @Override
+  public Iterator<Vector> iterator() {
+    return new Iterator<Vector>() {
+      private int count;
+      @Override
+      public boolean hasNext() {
+        return count < size();
+      }
+
+      @Override
+      public Vector next() {
+        return new ColumnarVector(data, count++);
+      }
+
+      @Override
+      public void remove() {
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return Datasets.toString(head());
+  }
+}
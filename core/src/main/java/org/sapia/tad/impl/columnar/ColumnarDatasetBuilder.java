@@ -0,0 +1,187 @@
+package org.sapia.tad.impl.columnar;
+
+import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.Vector;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.value.DateValue;
+import org.sapia.tad.value.NumericValue;
+import org.sapia.tad.value.StringValue;
+import org.sapia.tad.value.Value;
+
+/**
+ * Builds {@link ColumnarDataset}s, row by row. Values are appended to primitive storage
+ * corresponding to the type of their column: if a value cannot be held in such storage, the
+ * column falls back to holding plain {@link Value}s.
+ * <p>
+ * An instance of this class is not thread-safe.
+ *
+ * @author yduchesne
+ *
+ */
+public class ColumnarDatasetBuilder {
+
+  private ColumnSet            columns;
+  private ColumnData.Builder[] builders;
+  private int                  size;
+
+  /**
+   * @param columns the {@link ColumnSet} of the dataset to build.
+   */
+  public ColumnarDatasetBuilder(ColumnSet columns) {
+    this.columns  = columns;
+    this.builders = new ColumnData.Builder[columns.size()];
+    for (Column col : columns) {
+      builders[col.getIndex()] = newBuilder(col);
+    }
+  }
+
+  /**
+   * @param row the {@link Vector} to append as a row.
+   * @return this instance.
+   */
+  public ColumnarDatasetBuilder row(Vector row) {
+    Checks.isTrue(row.size() == builders.length, "Invalid row length: got %s values, but dataset has %s columns", row.size(), builders.length);
+    for (int i = 0; i < builders.length; i++) {
+      append(i, row.get(i));
+    }
+    size++;
+    return this;
+  }
+
+  /**
+   * @param values the {@link Value}s to append as a row (<code>null</code>s are accepted).
+   * @return this instance.
+   */
+  public ColumnarDatasetBuilder row(Value...values) {
+    Checks.isTrue(values.length == builders.length, "Invalid row length: got %s values, but dataset has %s columns", values.length, builders.length);
+    for (int i = 0; i < builders.length; i++) {
+      append(i, values[i]);
+    }
+    size++;
+    return this;
+  }
+
+  /**
+   * Appends a <code>double</code> to the given column, which is expected to be numeric: this method, together
+   * with {@link #string(int, String)}, {@link #value(int, Value)} and {@link #endRow()}, allows building rows
+   * value by value, without allocating {@link Value}s for primitive values.
+   * 
+   * @param colIndex the index of the column to which to append the given value.
+   * @param value the value to append.
+   * @return this instance.
+   */
+  public ColumnarDatasetBuilder number(int colIndex, double value) {
+    if (builders[colIndex] instanceof NumericColumnData.Builder) {
+      ((NumericColumnData.Builder) builders[colIndex]).appendDouble(value);
+    } else {
+      append(colIndex, NumericValue.of(value));
+    }
+    return this;
+  }
+
+  /**
+   * @param colIndex the index of the column to which to append the given value.
+   * @param value the {@link String} to append (<code>null</code> is accepted).
+   * @return this instance.
+   * @see #number(int, double)
+   */
+  public ColumnarDatasetBuilder string(int colIndex, String value) {
+    if (value != null && builders[colIndex] instanceof StringColumnData.Builder) {
+      ((StringColumnData.Builder) builders[colIndex]).appendString(value);
+    } else {
+      append(colIndex, value == null ? null : StringValue.of(value));
+    }
+    return this;
+  }
+
+  /**
+   * @param colIndex the index of the column to which to append the given value.
+   * @param time the time to append, in milliseconds since the epoch.
+   * @return this instance.
+   * @see #number(int, double)
+   */
+  public ColumnarDatasetBuilder time(int colIndex, long time) {
+    if (builders[colIndex] instanceof DateColumnData.Builder) {
+      ((DateColumnData.Builder) builders[colIndex]).appendTime(time);
+    } else {
+      append(colIndex, new DateValue(time));
+    }
+    return this;
+  }
+
+  /**
+   * @param colIndex the index of the column to which to append the given value.
+   * @param value the {@link Value} to append (<code>null</code> is accepted).
+   * @return this instance.
+   * @see #number(int, double)
+   */
+  public ColumnarDatasetBuilder value(int colIndex, Value value) {
+    append(colIndex, value);
+    return this;
+  }
+
+  /**
+   * Ends the current row, whose values were appended column by column.
+   * 
+   * @return this instance.
+   * @throws IllegalStateException if a value has not been appended to each column for the current row.
+   * @see #number(int, double)
+   */
+  public ColumnarDatasetBuilder endRow() throws IllegalStateException {
+    for (int i = 0; i < builders.length; i++) {
+      Checks.illegalState(builders[i].size() != size + 1, "Column %s has %s values, expected %s", 
+          columns.get(i).getName(), builders[i].size(), size + 1);
+    }
+    size++;
+    return this;
+  }
+
+  /**
+   * @return the number of rows appended so far.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @return a new {@link ColumnarDataset}, holding the rows appended so far.
+   */
+  public ColumnarDataset build() {
+    ColumnData[] data = new ColumnData[builders.length];
+    for (int i = 0; i < builders.length; i++) {
+      data[i] = builders[i].build();
+    }
+    return new ColumnarDataset(columns, data);
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  private void append(int colIndex, Value value) {
+    if (value == null) {
+      builders[colIndex].appendNull();
+    } else if (!builders[colIndex].append(value)) {
+      ColumnData appended = builders[colIndex].build();
+      ValueColumnData.Builder fallback = new ValueColumnData.Builder(appended.getType());
+      for (int i = 0; i < appended.size(); i++) {
+        fallback.append(appended.get(i));
+      }
+      fallback.append(value);
+      builders[colIndex] = fallback;
+    }
+  }
+
+  static ColumnData.Builder newBuilder(Column column) {
+    switch (column.getType()) {
+      case NUMERIC:
+        return new NumericColumnData.Builder();
+      case DATE:
+        return new DateColumnData.Builder();
+      case STRING:
+        return new StringColumnData.Builder();
+      default:
+        return new ValueColumnData.Builder(column.getType());
+    }
+  }
+}
@@ -0,0 +1,121 @@
+package org.sapia.tad.impl.columnar;
+
+import java.util.Iterator;
+
+import org.sapia.tad.Vector;
+import org.sapia.tad.Vectors;
+import org.sapia.tad.impl.DefaultVector;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.util.Objects;
+import org.sapia.tad.value.Value;
+
+/**
+ * A {@link Vector} that corresponds to a row of a {@link ColumnarDataset}: it does not hold
+ * any values itself, but rather materializes them from the dataset's column storage.
+ *
+ * @author yduchesne
+ *
+ */
+class ColumnarVector implements Vector {
+
+  private ColumnData[] columns;
+  private int          row;
+
+  ColumnarVector(ColumnData[] columns, int row) {
+    this.columns = columns;
+    this.row     = row;
+  }
+
+  @Override
+  public int size() {
+    return columns.length;
+  }
+
+  @Override
+  public Value get(int index) throws IllegalArgumentException {
+    Checks.bounds(index, columns, "Invalid index: %s. Got %s values", index, columns.length);
+    return columns[index].get(row);
+  }
+
+  @Override
+  public Vector subset(int... indices) throws IllegalArgumentException {
+    Value[] values = new Value[indices.length];
+    for (int i = 0; i < indices.length; i++) {
+      values[i] = get(indices[i]);
+    }
+    return new DefaultVector(values);
+  }
+
+  @Override
+  public Value[] toArray() {
+    Value[] values = new Value[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      values[i] = columns[i].get(row);
+    }
+    return values;
+  }
+
+  @Override
+  public double product(Vector other) {
+    return Vectors.product(this, other);
+  }
+
+  @Override
+  public Vector sum(Vector other) {
+    return Vectors.sum(this, other);
+  }
+
+  @Override
+  public Iterator<Value> iterator() {
+    return new Iterator<Value>() {
+      private int count;
+      @Override
+      public boolean hasNext() {
+        return count < columns.length;
+      }
+
+      @Override
+      public Value next() {
+        return columns[count++].get(row);
+      }
+
+      @Override
+      public void remove() {
+      }
+    };
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof Vector) {
+      Vector other = (Vector) obj;
+      if (columns.length != other.size()) {
+        return false;
+      }
+      for (int i = 0; i < columns.length; i++) {
+        if (!Objects.safeEquals(columns[i].get(row), other.get(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.safeHashCode((Object[]) toArray());
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder s = new StringBuilder("[");
+    for (int i = 0; i < columns.length; i++) {
+      if (i > 0) {
+        s.append(",");
+      }
+      s.append(columns[i].get(row));
+    }
+    return s.append("]").toString();
+  }
+}
@@ -0,0 +1,112 @@
+package org.sapia.tad.impl.columnar;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.sapia.tad.Datatype;
+import org.sapia.tad.value.DateValue;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.Value;
+
+/**
+ * Holds dates as milliseconds since the epoch, in a {@link LongBuffer} which either wraps a <code>long</code>
+ * array, or corresponds to a memory-mapped file region.
+ *
+ * @author yduchesne
+ *
+ */
+public class DateColumnData extends ColumnData {
+
+  private LongBuffer values;
+
+  /**
+   * @param values the times to hold, in milliseconds since the epoch.
+   * @param nulls the {@link BitSet} whose set bits correspond to null values.
+   */
+  public DateColumnData(long[] values, BitSet nulls) {
+    this(LongBuffer.wrap(values), nulls);
+  }
+
+  /**
+   * @param values the {@link LongBuffer} holding the times (from index 0 to its limit), in milliseconds since the epoch.
+   * @param nulls the {@link BitSet} whose set bits correspond to null values.
+   */
+  public DateColumnData(LongBuffer values, BitSet nulls) {
+    super(values.limit(), nulls);
+    this.values = values;
+  }
+
+  @Override
+  public Datatype getType() {
+    return Datatype.DATE;
+  }
+
+  /**
+   * @param row a row index.
+   * @return the time at the given row, in milliseconds since the epoch (0 if the value at that row is null).
+   */
+  public long getTime(int row) {
+    return values.get(row);
+  }
+
+  @Override
+  public Value get(int row) throws IllegalArgumentException {
+    checkRow(row);
+    if (nulls.get(row)) {
+      return NullValue.getInstance();
+    }
+    return new DateValue(values.get(row));
+  }
+
+  @Override
+  public ColumnData select(int[] rows) {
+    long[] selected = new long[rows.length];
+    for (int i = 0; i < rows.length; i++) {
+      selected[i] = values.get(rows[i]);
+    }
+    return new DateColumnData(selected, selectNulls(rows));
+  }
+
+  // ==========================================================================
+
+  /**
+   * Builds {@link DateColumnData} instances.
+   */
+  public static class Builder extends ColumnData.Builder {
+
+    private long[] values = new long[0];
+
+    /**
+     * @param time a time to append, in milliseconds since the epoch.
+     */
+    public void appendTime(long time) {
+      ensureCapacity(size + 1);
+      values[size++] = time;
+    }
+
+    @Override
+    public boolean append(Value value) {
+      if (NullValue.isNull(value)) {
+        appendNull();
+        return true;
+      } else if (value instanceof DateValue) {
+        appendTime(((DateValue) value).getTime());
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public ColumnData build() {
+      return new DateColumnData(Arrays.copyOf(values, size), (BitSet) nulls.clone());
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+      if (capacity > values.length) {
+        values = Arrays.copyOf(values, grow(values.length, capacity));
+      }
+    }
+  }
+}
@@ -0,0 +1,124 @@
+package org.sapia.tad.impl.columnar;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.sapia.tad.Datatype;
+import org.sapia.tad.NumericColumn;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.NumericValue;
+import org.sapia.tad.value.Value;
+
+/**
+ * Holds numeric data in a {@link DoubleBuffer}, which either wraps a <code>double</code> array, or
+ * corresponds to a memory-mapped file region.
+ *
+ * @author yduchesne
+ *
+ */
+public class NumericColumnData extends ColumnData implements NumericColumn {
+
+  private DoubleBuffer values;
+
+  /**
+   * @param values the <code>double</code> values to hold.
+   * @param nulls the {@link BitSet} whose set bits correspond to null values.
+   */
+  public NumericColumnData(double[] values, BitSet nulls) {
+    this(DoubleBuffer.wrap(values), nulls);
+  }
+
+  /**
+   * @param values the {@link DoubleBuffer} holding the values (from index 0 to its limit).
+   * @param nulls the {@link BitSet} whose set bits correspond to null values.
+   */
+  public NumericColumnData(DoubleBuffer values, BitSet nulls) {
+    super(values.limit(), nulls);
+    this.values = values;
+  }
+
+  @Override
+  public Datatype getType() {
+    return Datatype.NUMERIC;
+  }
+
+  @Override
+  public double getDouble(int row) {
+    return values.get(row);
+  }
+
+  @Override
+  public void copyTo(int srcPos, double[] dest, int destPos, int length) {
+    DoubleBuffer src = values.duplicate();
+    src.position(srcPos);
+    src.get(dest, destPos, length);
+  }
+
+  @Override
+  public double[] toDoubleArray() {
+    double[] copy = new double[size];
+    copyTo(0, copy, 0, size);
+    return copy;
+  }
+
+  @Override
+  public Value get(int row) throws IllegalArgumentException {
+    checkRow(row);
+    if (nulls.get(row)) {
+      return NullValue.getInstance();
+    }
+    return new NumericValue(values.get(row));
+  }
+
+  @Override
+  public ColumnData select(int[] rows) {
+    double[] selected = new double[rows.length];
+    for (int i = 0; i < rows.length; i++) {
+      selected[i] = values.get(rows[i]);
+    }
+    return new NumericColumnData(selected, selectNulls(rows));
+  }
+
+  // ==========================================================================
+
+  /**
+   * Builds {@link NumericColumnData} instances.
+   */
+  public static class Builder extends ColumnData.Builder {
+
+    private double[] values = new double[0];
+
+    /**
+     * @param value a <code>double</code> to append.
+     */
+    public void appendDouble(double value) {
+      ensureCapacity(size + 1);
+      values[size++] = value;
+    }
+
+    @Override
+    public boolean append(Value value) {
+      if (NullValue.isNull(value)) {
+        appendNull();
+        return true;
+      } else if (value instanceof NumericValue) {
+        appendDouble(value.get());
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public ColumnData build() {
+      return new NumericColumnData(Arrays.copyOf(values, size), (BitSet) nulls.clone());
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+      if (capacity > values.length) {
+        values = Arrays.copyOf(values, grow(values.length, capacity));
+      }
+    }
+  }
+}
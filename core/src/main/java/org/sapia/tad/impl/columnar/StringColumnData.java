@@ -0,0 +1,138 @@
+package org.sapia.tad.impl.columnar;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.sapia.tad.Datatype;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.StringValue;
+import org.sapia.tad.value.Value;
+
+/**
+ * Holds dictionary-encoded strings: each row holds the <code>int</code> code of its string in
+ * a {@link StringDictionary} (-1 for nulls).
+ *
+ * @author yduchesne
+ *
+ */
+public class StringColumnData extends ColumnData {
+
+  private IntBuffer        codes;
+  private StringDictionary dictionary;
+
+  /**
+   * @param codes the codes to hold.
+   * @param dictionary the {@link StringDictionary} to which the codes correspond.
+   * @param nulls the {@link BitSet} whose set bits correspond to null values.
+   */
+  public StringColumnData(int[] codes, StringDictionary dictionary, BitSet nulls) {
+    this(IntBuffer.wrap(codes), dictionary, nulls);
+  }
+
+  /**
+   * @param codes the {@link IntBuffer} holding the codes (from index 0 to its limit) - it may correspond
+   * to a memory-mapped file region.
+   * @param dictionary the {@link StringDictionary} to which the codes correspond.
+   * @param nulls the {@link BitSet} whose set bits correspond to null values.
+   */
+  public StringColumnData(IntBuffer codes, StringDictionary dictionary, BitSet nulls) {
+    super(codes.limit(), nulls);
+    this.codes      = codes;
+    this.dictionary = dictionary;
+  }
+
+  @Override
+  public Datatype getType() {
+    return Datatype.STRING;
+  }
+
+  /**
+   * @param row a row index.
+   * @return the code of the string at the given row (-1 if the value at that row is null).
+   */
+  public int getCode(int row) {
+    return codes.get(row);
+  }
+
+  /**
+   * @return the {@link StringDictionary} to which this instance's codes correspond.
+   */
+  public StringDictionary getDictionary() {
+    return dictionary;
+  }
+
+  @Override
+  public Value get(int row) throws IllegalArgumentException {
+    checkRow(row);
+    if (nulls.get(row)) {
+      return NullValue.getInstance();
+    }
+    return dictionary.get(codes.get(row));
+  }
+
+  @Override
+  public ColumnData select(int[] rows) {
+    int[] selected = new int[rows.length];
+    for (int i = 0; i < rows.length; i++) {
+      selected[i] = codes.get(rows[i]);
+    }
+    return new StringColumnData(selected, dictionary, selectNulls(rows));
+  }
+
+  // ==========================================================================
+
+  /**
+   * Builds {@link StringColumnData} instances.
+   */
+  public static class Builder extends ColumnData.Builder {
+
+    private int[]            codes      = new int[0];
+    private StringDictionary dictionary = new StringDictionary();
+
+    /**
+     * @param value a {@link String} to append.
+     */
+    public void appendString(String value) {
+      if (value == null) {
+        appendNull();
+      } else {
+        ensureCapacity(size + 1);
+        codes[size++] = dictionary.encode(value);
+      }
+    }
+
+    @Override
+    public void appendNull() {
+      ensureCapacity(size + 1);
+      codes[size] = -1;
+      nulls.set(size++);
+    }
+
+    @Override
+    public boolean append(Value value) {
+      if (NullValue.isNull(value)) {
+        appendNull();
+        return true;
+      } else if (value instanceof StringValue) {
+        // keeping the given instance, so that it's shared with the rows from which it may originate
+        ensureCapacity(size + 1);
+        codes[size++] = dictionary.encode((StringValue) value);
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public ColumnData build() {
+      return new StringColumnData(Arrays.copyOf(codes, size), dictionary, (BitSet) nulls.clone());
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+      if (capacity > codes.length) {
+        codes = Arrays.copyOf(codes, grow(codes.length, capacity));
+      }
+    }
+  }
+}
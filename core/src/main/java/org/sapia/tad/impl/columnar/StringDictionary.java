@@ -0,0 +1,97 @@
+package org.sapia.tad.impl.columnar;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.value.StringValue;
+
+/**
+ * Maps distinct strings to dense <code>int</code> codes, in order of first appearance. Each distinct
+ * string corresponds to a single {@link StringValue} instance, which is shared by all rows holding
+ * that string.
+ * <p>
+ * An instance of this class is not thread-safe while it is being populated.
+ *
+ * @author yduchesne
+ *
+ */
+public class StringDictionary {
+
+  private List<StringValue>    values = new ArrayList<>();
+  private Map<String, Integer> codes  = new HashMap<>();
+
+  /**
+   * @param value a {@link String} to encode.
+   * @return the code corresponding to the given string - a new code is assigned if the
+   * string was not already held by this instance.
+   */
+  public int encode(String value) {
+    Integer code = codes.get(value);
+    if (code == null) {
+      code = add(new StringValue(value));
+    }
+    return code;
+  }
+
+  /**
+   * @param value a {@link StringValue} to encode.
+   * @return the code corresponding to the given value's string - if the string was not already held
+   * by this instance, a new code is assigned, and the given instance becomes the one shared by all
+   * rows holding that string.
+   */
+  public int encode(StringValue value) {
+    Integer code = codes.get(value.getValue());
+    if (code == null) {
+      code = add(value);
+    }
+    return code;
+  }
+
+  /**
+   * @param value a {@link String}.
+   * @return the {@link StringValue} instance corresponding to the given string, which is added to this
+   * instance if it was not already held.
+   */
+  public StringValue intern(String value) {
+    return values.get(encode(value));
+  }
+
+  /**
+   * @param value a {@link String}.
+   * @return the code of the given string, or -1 if this instance does not hold that string.
+   */
+  public int codeOf(String value) {
+    Integer code = codes.get(value);
+    return code == null ? -1 : code;
+  }
+
+  /**
+   * @param code a code.
+   * @return the {@link StringValue} corresponding to the given code.
+   * @throws IllegalArgumentException if the given code is invalid.
+   */
+  public StringValue get(int code) throws IllegalArgumentException {
+    Checks.bounds(code, values, "Invalid dictionary code: %s", code);
+    return values.get(code);
+  }
+
+  /**
+   * @return the number of distinct strings held by this instance.
+   */
+  public int size() {
+    return values.size();
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  private int add(StringValue value) {
+    int code = values.size();
+    codes.put(value.getValue(), code);
+    values.add(value);
+    return code;
+  }
+}
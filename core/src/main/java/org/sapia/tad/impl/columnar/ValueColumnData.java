@@ -0,0 +1,104 @@
+package org.sapia.tad.impl.columnar;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.sapia.tad.Datatype;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.Value;
+
+/**
+ * Holds {@link Value}s as such: used for data that has no primitive representation (such as
+ * geometries, or {@link org.sapia.tad.Nominal}s).
+ *
+ * @author yduchesne
+ *
+ */
+public class ValueColumnData extends ColumnData {
+
+  private Datatype type;
+  private Value[]  values;
+
+  /**
+   * @param type the {@link Datatype} of the given values.
+   * @param values the {@link Value}s to hold.
+   */
+  public ValueColumnData(Datatype type, Value[] values) {
+    super(values.length, nullsOf(values));
+    this.type   = type;
+    this.values = values;
+  }
+
+  @Override
+  public Datatype getType() {
+    return type;
+  }
+
+  @Override
+  public Value get(int row) throws IllegalArgumentException {
+    checkRow(row);
+    return values[row];
+  }
+
+  @Override
+  public ColumnData select(int[] rows) {
+    Value[] selected = new Value[rows.length];
+    for (int i = 0; i < rows.length; i++) {
+      selected[i] = values[rows[i]];
+    }
+    return new ValueColumnData(type, selected);
+  }
+
+  private static BitSet nullsOf(Value[] values) {
+    BitSet nulls = new BitSet(values.length);
+    for (int i = 0; i < values.length; i++) {
+      if (NullValue.isNull(values[i])) {
+        values[i] = NullValue.getInstance();
+        nulls.set(i);
+      }
+    }
+    return nulls;
+  }
+
+  // ==========================================================================
+
+  /**
+   * Builds {@link ValueColumnData} instances.
+   */
+  public static class Builder extends ColumnData.Builder {
+
+    private Datatype type;
+    private Value[]  values = new Value[0];
+
+    /**
+     * @param type the {@link Datatype} of the values to append.
+     */
+    public Builder(Datatype type) {
+      this.type = type;
+    }
+
+    @Override
+    public boolean append(Value value) {
+      ensureCapacity(size + 1);
+      values[size++] = value;
+      return true;
+    }
+
+    @Override
+    public void appendNull() {
+      append(NullValue.getInstance());
+    }
+
+    @Override
+    public ColumnData build() {
+      return new ValueColumnData(type, Arrays.copyOf(values, size));
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+      if (capacity > values.length) {
+        values = Arrays.copyOf(values, grow(values.length, capacity));
+      }
+    }
+  }
+}
@@ -0,0 +1,191 @@
+package org.sapia.tad.io.bin;
+
+import static org.sapia.tad.io.bin.BinaryFormat.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.sapia.tad.Column;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.Nominal;
+import org.sapia.tad.impl.DefaultColumn;
+import org.sapia.tad.impl.DefaultColumnSet;
+import org.sapia.tad.impl.columnar.ColumnData;
+import org.sapia.tad.impl.columnar.ColumnarDataset;
+import org.sapia.tad.impl.columnar.DateColumnData;
+import org.sapia.tad.impl.columnar.NumericColumnData;
+import org.sapia.tad.impl.columnar.StringColumnData;
+import org.sapia.tad.impl.columnar.StringDictionary;
+import org.sapia.tad.impl.columnar.ValueColumnData;
+import org.sapia.tad.value.DateValue;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.NumericValue;
+import org.sapia.tad.value.StringValue;
+import org.sapia.tad.value.Value;
+
+/**
+ * Reads {@link Dataset}s that were written by a {@link BinaryDatasetWriter}.
+ * <p>
+ * The file is memory-mapped: the blocks of numeric and date columns, as well as the dictionary codes of
+ * string columns, are not copied to the heap, but accessed straight from the mapped regions. Only null
+ * bitmaps, string dictionaries and columns that are stored value by value are loaded eagerly. Reopening
+ * a large dataset is thus mostly a matter of reading its header.
+ *
+ * @author yduchesne
+ *
+ */
+public class BinaryDatasetReader {
+
+  // the number of elements read at once from blocks too large to be mapped in one region.
+  private static final int WINDOW = 1 << 27;
+
+  /**
+   * @param file the {@link File} to read from.
+   * @return the {@link ColumnarDataset} that was read.
+   * @throws IOException if an IO error occurs while reading, or if the given file is not in binary format.
+   */
+  public ColumnarDataset read(File file) throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+      FileChannel channel = raf.getChannel();
+      if (channel.size() < 16) {
+        throw new IOException("Not a binary dataset file: " + file.getAbsolutePath());
+      }
+      ByteBuffer header = map(channel, 0, Math.min(channel.size(), Integer.MAX_VALUE));
+      if (header.getInt() != MAGIC) {
+        throw new IOException("Not a binary dataset file: " + file.getAbsolutePath());
+      }
+      int version = header.getInt();
+      if (version != VERSION) {
+        throw new IOException(String.format("Unsupported binary dataset version: %s (expected %s)", version, VERSION));
+      }
+      int rowCount    = header.getInt();
+      int columnCount = header.getInt();
+
+      List<Column> columns = new ArrayList<>(columnCount);
+      ColumnData[] data    = new ColumnData[columnCount];
+      for (int i = 0; i < columnCount; i++) {
+        String   name         = getString(header);
+        Datatype type         = Datatype.valueOf(getString(header));
+        byte     storage      = header.get();
+        long     nullsOffset  = header.getLong();
+        int      nullsWords   = header.getInt();
+        long     dataOffset   = header.getLong();
+        long     dataLength   = header.getLong();
+        columns.add(new DefaultColumn(i, type, name));
+
+        BitSet nulls = nullsWords == 0 ? new BitSet() : BitSet.valueOf(longs(channel, nullsOffset, nullsWords));
+        data[i] = readData(channel, storage, type, rowCount, nulls, dataOffset, dataLength);
+      }
+      return new ColumnarDataset(new DefaultColumnSet(columns), data);
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  private static ColumnData readData(FileChannel channel, byte storage, Datatype type, int rowCount, BitSet nulls,
+      long offset, long length) throws IOException {
+    switch (storage) {
+      case STORAGE_NUMERIC:
+        return new NumericColumnData(doubles(channel, offset, rowCount), nulls);
+      case STORAGE_DATE:
+        return new DateColumnData(longs(channel, offset, rowCount), nulls);
+      case STORAGE_STRING:
+        ByteBuffer       block      = map(channel, offset, Math.min(length, Integer.MAX_VALUE));
+        StringDictionary dictionary = new StringDictionary();
+        int              entries    = block.getInt();
+        for (int c = 0; c < entries; c++) {
+          dictionary.encode(getString(block));
+        }
+        long codesOffset = align(offset + block.position());
+        return new StringColumnData(ints(channel, codesOffset, rowCount), dictionary, nulls);
+      case STORAGE_VALUE:
+        if (length > Integer.MAX_VALUE) {
+          throw new IOException("Value block too large: " + length + " bytes");
+        }
+        ByteBuffer values = map(channel, offset, length);
+        Value[]    read   = new Value[rowCount];
+        for (int r = 0; r < rowCount; r++) {
+          read[r] = getValue(values);
+        }
+        return new ValueColumnData(type, read);
+      default:
+        throw new IOException("Unknown column storage: " + storage);
+    }
+  }
+
+  private static Value getValue(ByteBuffer buffer) throws IOException {
+    byte tag = buffer.get();
+    switch (tag) {
+      case TAG_NULL:
+        return NullValue.getInstance();
+      case TAG_NUMERIC:
+        return new NumericValue(buffer.getDouble());
+      case TAG_DATE:
+        return new DateValue(buffer.getLong());
+      case TAG_STRING:
+        return StringValue.of(getString(buffer));
+      case TAG_NOMINAL:
+        int code = buffer.getInt();
+        return new Nominal(getString(buffer), code);
+      default:
+        throw new IOException("Unknown value tag: " + tag);
+    }
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, CHARSET);
+  }
+
+  private static ByteBuffer map(FileChannel channel, long offset, long length) throws IOException {
+    return channel.map(FileChannel.MapMode.READ_ONLY, offset, length).order(BYTE_ORDER);
+  }
+
+  private static DoubleBuffer doubles(FileChannel channel, long offset, int count) throws IOException {
+    if ((long) count * 8 <= Integer.MAX_VALUE) {
+      return map(channel, offset, count * 8L).asDoubleBuffer();
+    }
+    double[] values = new double[count];
+    for (int i = 0; i < count; i += WINDOW) {
+      int n = Math.min(WINDOW, count - i);
+      map(channel, offset + i * 8L, n * 8L).asDoubleBuffer().get(values, i, n);
+    }
+    return DoubleBuffer.wrap(values);
+  }
+
+  private static LongBuffer longs(FileChannel channel, long offset, int count) throws IOException {
+    if ((long) count * 8 <= Integer.MAX_VALUE) {
+      return map(channel, offset, count * 8L).asLongBuffer();
+    }
+    long[] values = new long[count];
+    for (int i = 0; i < count; i += WINDOW) {
+      int n = Math.min(WINDOW, count - i);
+      map(channel, offset + i * 8L, n * 8L).asLongBuffer().get(values, i, n);
+    }
+    return LongBuffer.wrap(values);
+  }
+
+  private static IntBuffer ints(FileChannel channel, long offset, int count) throws IOException {
+    if ((long) count * 4 <= Integer.MAX_VALUE) {
+      return map(channel, offset, count * 4L).asIntBuffer();
+    }
+    int[] values = new int[count];
+    for (int i = 0; i < count; i += WINDOW) {
+      int n = Math.min(WINDOW, count - i);
+      map(channel, offset + i * 4L, n * 4L).asIntBuffer().get(values, i, n);
+    }
+    return IntBuffer.wrap(values);
+  }
+}
@@ -0,0 +1,270 @@
+package org.sapia.tad.io.bin;
+
+import static org.sapia.tad.io.bin.BinaryFormat.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import org.sapia.tad.Column;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.Datasets;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.Nominal;
+import org.sapia.tad.impl.columnar.ColumnData;
+import org.sapia.tad.impl.columnar.ColumnarDataset;
+import org.sapia.tad.impl.columnar.DateColumnData;
+import org.sapia.tad.impl.columnar.NumericColumnData;
+import org.sapia.tad.impl.columnar.StringColumnData;
+import org.sapia.tad.impl.columnar.StringDictionary;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.value.DateValue;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.NumericValue;
+import org.sapia.tad.value.StringValue;
+import org.sapia.tad.value.Value;
+
+/**
+ * Writes {@link Dataset}s in binary format, column by column (datasets that are not
+ * {@link ColumnarDataset}s are first converted to such).
+ * <p>
+ * Numeric, date and string columns are written as primitive blocks (strings being dictionary-encoded).
+ * Other columns are written value by value: only numeric, string, date and {@link Nominal} values are
+ * supported in such columns. {@link Datatype#GEOMETRY} columns are not supported.
+ * <p>
+ * A dataset is first written to a temporary file in the directory of the target file, which is then moved
+ * onto the target: datasets that were read from the target (and which memory-map it) keep the previous content.
+ *
+ * @see BinaryDatasetReader
+ *
+ * @author yduchesne
+ *
+ */
+public class BinaryDatasetWriter {
+
+  private static final int BUFFER_SIZE = 1024 * 1024;
+
+  private FileChannel channel;
+  private ByteBuffer  buffer;
+  private long        position;
+
+  /**
+   * @param dataset the {@link Dataset} to write.
+   * @param file the {@link File} to write to (it is replaced if it exists).
+   * @throws IOException if an IO error occurs while writing.
+   * @throws IllegalArgumentException if the dataset has {@link Datatype#GEOMETRY} columns, or holds 
+   * values that cannot be written in binary format.
+   */
+  public void write(Dataset dataset, File file) throws IOException, IllegalArgumentException {
+    for (Column col : dataset.getColumnSet()) {
+      Checks.isTrue(col.getType() != Datatype.GEOMETRY, "Cannot write column %s: values of type %s are not supported in binary format",
+          col.getName(), col.getType());
+    }
+    ColumnarDataset columnar = Datasets.columnar(dataset);
+    File            target   = file.getAbsoluteFile();
+    File            tmp      = File.createTempFile(target.getName() + ".", ".tmp", target.getParentFile());
+    boolean         moved    = false;
+    try {
+      doWrite(columnar, tmp);
+      try {
+        Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+      moved = true;
+    } finally {
+      if (!moved) {
+        tmp.delete();
+      }
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  private void doWrite(ColumnarDataset columnar, File file) throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+      channel  = raf.getChannel();
+      buffer   = ByteBuffer.allocate(BUFFER_SIZE).order(BYTE_ORDER);
+      position = 0;
+
+      int      columnCount  = columnar.getColumnSet().size();
+      byte[][] names        = new byte[columnCount][];
+      byte[][] typeNames    = new byte[columnCount][];
+      byte[]   storages     = new byte[columnCount];
+      long[]   nullsOffsets = new long[columnCount];
+      int[]    nullsWords   = new int[columnCount];
+      long[]   dataOffsets  = new long[columnCount];
+      long[]   dataLengths  = new long[columnCount];
+
+      long headerSize = 16;
+      for (Column col : columnar.getColumnSet()) {
+        int i = col.getIndex();
+        names[i]     = col.getName().getBytes(CHARSET);
+        typeNames[i] = col.getType().name().getBytes(CHARSET);
+        headerSize  += 4 + names[i].length + 4 + typeNames[i].length + 1 + 8 + 4 + 8 + 8;
+      }
+
+      // writing blocks, starting after the header
+      position = align(headerSize);
+      channel.position(position);
+      for (int i = 0; i < columnCount; i++) {
+        ColumnData data = columnar.getColumnData(i);
+        storages[i]     = storageOf(data);
+        nullsOffsets[i] = offset();
+        nullsWords[i]   = writeNulls(data);
+        padToAlignment();
+        dataOffsets[i]  = offset();
+        writeData(storages[i], data);
+        dataLengths[i]  = offset() - dataOffsets[i];
+        padToAlignment();
+      }
+      flush();
+
+      // writing the header, now that block offsets are known
+      channel.position(0);
+      position = 0;
+      buffer.putInt(MAGIC).putInt(VERSION).putInt(columnar.size()).putInt(columnCount);
+      for (int i = 0; i < columnCount; i++) {
+        putBytes(names[i]);
+        putBytes(typeNames[i]);
+        ensureCapacity(1 + 8 + 4 + 8 + 8);
+        buffer.put(storages[i]).putLong(nullsOffsets[i]).putInt(nullsWords[i]).putLong(dataOffsets[i]).putLong(dataLengths[i]);
+      }
+      flush();
+    } finally {
+      channel = null;
+      buffer  = null;
+    }
+  }
+
+  private static byte storageOf(ColumnData data) {
+    if (data instanceof NumericColumnData) {
+      return STORAGE_NUMERIC;
+    } else if (data instanceof DateColumnData) {
+      return STORAGE_DATE;
+    } else if (data instanceof StringColumnData) {
+      return STORAGE_STRING;
+    }
+    return STORAGE_VALUE;
+  }
+
+  private int writeNulls(ColumnData data) throws IOException {
+    if (data.getNullCount() == 0) {
+      return 0;
+    }
+    long[] words = new long[(data.size() + 63) >>> 6];
+    for (int r = 0; r < data.size(); r++) {
+      if (data.isNull(r)) {
+        words[r >>> 6] |= 1L << r;
+      }
+    }
+    for (long w : words) {
+      ensureCapacity(8);
+      buffer.putLong(w);
+    }
+    return words.length;
+  }
+
+  private void writeData(byte storage, ColumnData data) throws IOException {
+    switch (storage) {
+      case STORAGE_NUMERIC:
+        NumericColumnData numeric = (NumericColumnData) data;
+        for (int r = 0; r < data.size(); r++) {
+          ensureCapacity(8);
+          buffer.putDouble(numeric.getDouble(r));
+        }
+        break;
+      case STORAGE_DATE:
+        DateColumnData dates = (DateColumnData) data;
+        for (int r = 0; r < data.size(); r++) {
+          ensureCapacity(8);
+          buffer.putLong(dates.getTime(r));
+        }
+        break;
+      case STORAGE_STRING:
+        StringColumnData strings    = (StringColumnData) data;
+        StringDictionary dictionary = strings.getDictionary();
+        ensureCapacity(4);
+        buffer.putInt(dictionary.size());
+        for (int c = 0; c < dictionary.size(); c++) {
+          putBytes(dictionary.get(c).getValue().getBytes(CHARSET));
+        }
+        padToAlignment();
+        for (int r = 0; r < data.size(); r++) {
+          ensureCapacity(4);
+          buffer.putInt(strings.isNull(r) ? -1 : strings.getCode(r));
+        }
+        break;
+      default:
+        for (int r = 0; r < data.size(); r++) {
+          writeValue(data.get(r));
+        }
+    }
+  }
+
+  private void writeValue(Value value) throws IOException {
+    ensureCapacity(1 + 8);
+    if (NullValue.isNull(value)) {
+      buffer.put(TAG_NULL);
+    } else if (value instanceof NumericValue) {
+      buffer.put(TAG_NUMERIC).putDouble(value.get());
+    } else if (value instanceof DateValue) {
+      buffer.put(TAG_DATE).putLong(((DateValue) value).getTime());
+    } else if (value instanceof StringValue) {
+      buffer.put(TAG_STRING);
+      putBytes(((StringValue) value).getValue().getBytes(CHARSET));
+    } else if (value instanceof Nominal) {
+      Nominal nominal = (Nominal) value;
+      buffer.put(TAG_NOMINAL).putInt(nominal.getValue());
+      putBytes(nominal.getName().getBytes(CHARSET));
+    } else {
+      throw new IllegalArgumentException(String.format("Value of type %s cannot be written in binary format: %s",
+          value.getClass().getName(), value));
+    }
+  }
+
+  private void putBytes(byte[] bytes) throws IOException {
+    ensureCapacity(4);
+    buffer.putInt(bytes.length);
+    int offset = 0;
+    while (offset < bytes.length) {
+      ensureCapacity(1);
+      int length = Math.min(buffer.remaining(), bytes.length - offset);
+      buffer.put(bytes, offset, length);
+      offset += length;
+    }
+  }
+
+  // the offset in the file at which the next byte will be written
+  private long offset() {
+    return position + buffer.position();
+  }
+
+  private void padToAlignment() throws IOException {
+    long padding = align(offset()) - offset();
+    ensureCapacity((int) padding);
+    for (int i = 0; i < padding; i++) {
+      buffer.put((byte) 0);
+    }
+  }
+
+  private void ensureCapacity(int bytes) throws IOException {
+    if (buffer.remaining() < bytes) {
+      flush();
+    }
+  }
+
+  private void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer);
+    }
+    buffer.clear();
+  }
+}
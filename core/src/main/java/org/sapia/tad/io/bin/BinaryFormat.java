@@ -0,0 +1,60 @@
+package org.sapia.tad.io.bin;
+
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Holds the constants of the binary dataset format. A file in that format is laid out as follows
+ * (all numbers being little-endian):
+ * <pre>
+ * header:
+ *   int magic, int version, int row count, int column count
+ *   for each column:
+ *     int name length, UTF-8 name, int type name length, UTF-8 type name ({@link org.sapia.tad.Datatype})
+ *     byte storage, long nulls offset, int nulls word count, long data offset, long data length
+ * blocks (each starting at an offset that is a multiple of 8):
+ *   nulls: long[] (the words of the column's null bitmap - omitted if the column has no nulls)
+ *   data:
+ *     numeric: double[row count]
+ *     date:    long[row count] (milliseconds since the epoch)
+ *     string:  int dictionary size, (int length, UTF-8 bytes) for each dictionary entry,
+ *              then (padded to a multiple of 8) int[row count] holding dictionary codes (-1 for nulls)
+ *     value:   for each row, a byte tag followed by the value's content
+ * </pre>
+ * 
+ * @author yduchesne
+ *
+ */
+final class BinaryFormat {
+
+  static final int       MAGIC      = 0x54414442; // "TADB"
+  static final int       VERSION    = 1;
+  static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+  static final Charset   CHARSET    = StandardCharsets.UTF_8;
+  static final int       ALIGNMENT  = 8;
+
+  // storage types
+  static final byte STORAGE_NUMERIC = 0;
+  static final byte STORAGE_DATE    = 1;
+  static final byte STORAGE_STRING  = 2;
+  static final byte STORAGE_VALUE   = 3;
+
+  // value tags
+  static final byte TAG_NULL    = 0;
+  static final byte TAG_NUMERIC = 1;
+  static final byte TAG_STRING  = 2;
+  static final byte TAG_DATE    = 3;
+  static final byte TAG_NOMINAL = 4;
+
+  private BinaryFormat() {
+  }
+
+  /**
+   * @param offset an offset.
+   * @return the given offset, rounded up to the next multiple of {@link #ALIGNMENT}.
+   */
+  static long align(long offset) {
+    return (offset + ALIGNMENT - 1) & ~((long) ALIGNMENT - 1);
+  }
+}
@@ -0,0 +1,99 @@
+package org.sapia.tad.io.bin;
+
+import static org.sapia.tad.io.bin.BinaryFormat.*;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.sapia.tad.Nominal;
+import org.sapia.tad.value.DateValue;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.NumericValue;
+import org.sapia.tad.value.StringValue;
+import org.sapia.tad.value.Value;
+
+/**
+ * Writes and reads individual {@link Value}s to and from data streams, using the value tags of the
+ * binary dataset format: each value is encoded as a tag byte followed by its content. It is meant for
+ * temporary files that are written and read sequentially (such as the ones to which rows are spilled
+ * when processing data that does not fit in memory).
+ * <p>
+ * Note that numbers are written in the byte order of {@link DataOutput} (big-endian).
+ *
+ * @author yduchesne
+ *
+ */
+public class BinaryValues {
+
+  private BinaryValues() {
+  }
+
+  /**
+   * @param output the {@link DataOutput} to write to.
+   * @param value the {@link Value} to write.
+   * @throws IOException if an IO error occurs while writing.
+   * @throws IllegalArgumentException if the given value's type is not supported.
+   */
+  public static void write(DataOutput output, Value value) throws IOException, IllegalArgumentException {
+    if (NullValue.isNull(value)) {
+      output.writeByte(TAG_NULL);
+    } else if (value instanceof NumericValue) {
+      output.writeByte(TAG_NUMERIC);
+      output.writeDouble(value.get());
+    } else if (value instanceof DateValue) {
+      output.writeByte(TAG_DATE);
+      output.writeLong(((DateValue) value).getTime());
+    } else if (value instanceof StringValue) {
+      output.writeByte(TAG_STRING);
+      writeString(output, ((StringValue) value).getValue());
+    } else if (value instanceof Nominal) {
+      Nominal nominal = (Nominal) value;
+      output.writeByte(TAG_NOMINAL);
+      output.writeInt(nominal.getValue());
+      writeString(output, nominal.getName());
+    } else {
+      throw new IllegalArgumentException(String.format("Value of type %s cannot be written in binary format: %s",
+          value.getClass().getName(), value));
+    }
+  }
+
+  /**
+   * @param input the {@link DataInput} to read from.
+   * @return the {@link Value} that was read.
+   * @throws IOException if an IO error occurs while reading, or if an unknown value tag is encountered.
+   */
+  public static Value read(DataInput input) throws IOException {
+    byte tag = input.readByte();
+    switch (tag) {
+      case TAG_NULL:
+        return NullValue.getInstance();
+      case TAG_NUMERIC:
+        return new NumericValue(input.readDouble());
+      case TAG_DATE:
+        return new DateValue(input.readLong());
+      case TAG_STRING:
+        return StringValue.of(readString(input));
+      case TAG_NOMINAL:
+        int code = input.readInt();
+        return new Nominal(readString(input), code);
+      default:
+        throw new IOException("Unknown value tag: " + tag);
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  private static void writeString(DataOutput output, String value) throws IOException {
+    byte[] bytes = value.getBytes(CHARSET);
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  private static String readString(DataInput input) throws IOException {
+    byte[] bytes = new byte[input.readInt()];
+    input.readFully(bytes);
+    return new String(bytes, CHARSET);
+  }
+}
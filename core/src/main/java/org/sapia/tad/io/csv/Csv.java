@@ -2,9 +2,13 @@ package org.sapia.tad.io.csv;
 
 import org.sapia.tad.ColumnSet;
 import org.sapia.tad.Dataset;
+import org.sapia.tad.DatasetStream;
+import org.sapia.tad.DatasetStreams;
 import org.sapia.tad.help.Doc;
 import org.sapia.tad.help.Hide;
 import org.sapia.tad.help.SettingsDoc;
+import org.sapia.tad.io.helpers.ColumnTypeGuesser;
+import org.sapia.tad.io.helpers.TypeInference;
 import org.sapia.tad.util.Checks;
 import org.sapia.tad.util.Settings;
 
@@ -38,6 +42,16 @@ public class Csv {
         .description("separator character to use (defaults to comma - ',')")
       .setting().name("skip_lines").type(Integer.class)
         .description("the number of lines to skip from the top of the CSV - none by default")
+      .setting().name("guess_lines").type(Integer.class)
+        .description("the number of lines from which to guess column types, if guess_columns is true (defaults to 100)")
+      .setting().name("sample_lines").type(Integer.class)
+        .description("if specified, column types are guessed from the first guess_lines lines, and this number of lines sampled at random from the rest of the file")
+      .setting().name("error_ratio").type(Double.class)
+        .description("the ratio of a column's values that may not be parsed according to its guessed type, and are then read as nulls - reading fails if that ratio is exceeded (defaults to 0)")
+      .setting().name("columnar").type(Boolean.class)
+        .description("if true, indicates that the dataset should be stored column by column, in primitive arrays")
+      .setting().name("mapped").type(Boolean.class)
+        .description("if true, indicates that the file should be memory-mapped and parsed in parallel (implies columnar)")
       .setting().name("column_set").type(ColumnSet.class)
         .description("ColumnSet describing the CSV file's columns (does not have to be specified if guess_columns == true)")
         .mandatory()
@@ -49,6 +63,12 @@ public class Csv {
   private File      file;
   private ColumnSet columns;
   private int       skipLines;
+  private boolean   columnar;
+  private boolean   mapped;
+  private int       guessLines  = ColumnTypeGuesser.DEFAULT_GUESS_LINES;
+  private int       sampleLines = -1;
+  private double    errorRatio;
+  private int       batchSize   = DatasetStreams.DEFAULT_BATCH_SIZE;
   
   private Csv() {
   }
@@ -116,6 +136,87 @@ public class Csv {
     return this;
   }
   
+  /**
+   * Indicates that the dataset should be stored column by column, in primitive arrays.
+   * 
+   * @return this instance.
+   * @see org.sapia.tad.impl.columnar.ColumnarDataset
+   */
+  @Hide
+  public Csv columnar() {
+    this.columnar = true;
+    return this;
+  }
+  
+  /**
+   * Indicates that the file should be memory-mapped, and parsed in parallel, by a {@link MappedCsvReader}: 
+   * this implies that the dataset is stored column by column (a file must be set, rather than a reader). 
+   * If no columns have been specified, the first line is expected to hold column names, and the type of 
+   * each column is guessed from the lines that follow.
+   * 
+   * @return this instance.
+   * @see MappedCsvReader
+   */
+  @Hide
+  public Csv mapped() {
+    this.mapped   = true;
+    this.columnar = true;
+    return this;
+  }
+  
+  /**
+   * @param lines the number of lines from which to guess column types, if no columns are specified
+   * (the first line being then expected to hold column names).
+   * @return this instance.
+   */
+  @Hide
+  public Csv guessLines(int lines) {
+    Checks.isTrue(lines > 0, "Invalid number of lines to guess column types from (must be greater than 0): %s", lines);
+    this.guessLines = lines;
+    return this;
+  }
+  
+  /**
+   * Indicates that, if no columns are specified, column types should be guessed from the first lines, together
+   * with the given number of lines sampled at random from the rest of the file: the file is then read twice 
+   * (a file must be set, rather than a reader).
+   * 
+   * @param lines the number of lines to sample at random, beyond the first lines.
+   * @return this instance.
+   * @see #guessLines(int)
+   * @see #infer()
+   */
+  @Hide
+  public Csv sampleLines(int lines) {
+    Checks.isTrue(lines >= 0, "Invalid number of lines to sample (must be a positive number): %s", lines);
+    this.sampleLines = lines;
+    return this;
+  }
+  
+  /**
+   * @param ratio the ratio of a column's values that may not be parsed according to the column's type: such
+   * values are then read as nulls, as long as the ratio of a column's values read so far that could not be
+   * parsed does not exceed this ratio at the end of a batch (defaults to 0, meaning that all values must be parsed).
+   * @return this instance.
+   */
+  @Hide
+  public Csv errorRatio(double ratio) {
+    Checks.isTrue(ratio >= 0 && ratio < 1, "Invalid error ratio (must be greater than or equal to 0, and less than 1): %s", ratio);
+    this.errorRatio = ratio;
+    return this;
+  }
+  
+  /**
+   * @param size the maximum number of rows per batch, when {@link #stream() streaming}.
+   * @return this instance.
+   */
+  @Hide
+  public Csv batchSize(int size) {
+    Checks.isTrue(size > 0, "Invalid batch size (must be greater than 0): %s", size);
+    this.batchSize = size;
+    return this;
+  }
+  
   /**
    * @return a new {@link Dataset}.
    * @throws IOException if an IO error occurs while reading the data to build the dataset.
@@ -123,11 +224,94 @@ public class Csv {
   @Hide
   public Dataset build() throws IOException {
     Checks.isTrue(reader != null || file != null, "Either file or reader must be set");
-    if (file != null) {
-      return new CsvReader(separator, quoteChar).read(columns, new FileReader(file), skipLines);
-    } else {
-      return new CsvReader(separator, quoteChar).read(columns, reader, skipLines);
+    if (mapped) {
+      Checks.isTrue(file != null, "A file must be set in order to memory-map it");
+      MappedCsvReader csv = new MappedCsvReader(separator, quoteChar);
+      csv.setGuessLines(guessLines);
+      if (columns == null) {
+        return csv.read(file);
+      }
+      return csv.read(columns, file, skipLines);
+    }
+    CsvReader     csv      = newCsvReader();
+    TypeInference inferred = inferColumns(csv);
+    Reader        input    = file != null ? new FileReader(file) : reader;
+    try {
+      if (inferred != null) {
+        return csv.read(inferred, input);
+      } else if (columns == null) {
+        return csv.read(input);
+      }
+      return csv.read(columns, input, skipLines);
+    } finally {
+      if (file != null) {
+        input.close();
+      }
+    }
+  }
+  
+  /**
+   * Infers the columns of the CSV data, without loading it: the first line is expected to hold column names,
+   * and the type of each column is inferred from the lines that follow, together with the lines sampled at 
+   * random from the rest of the data.
+   * 
+   * @return the {@link TypeInference} holding the inferred columns, and the confidence of their types.
+   * @throws IOException if an IO error occurs while reading the data.
+   * @see #guessLines(int)
+   * @see #sampleLines(int)
+   * @see #errorRatio(double)
+   */
+  @Hide
+  public TypeInference infer() throws IOException {
+    Checks.isTrue(reader != null || file != null, "Either file or reader must be set");
+    return newCsvReader().infer(file != null ? new FileReader(file) : reader);
+  }
+  
+  /**
+   * Returns a {@link DatasetStream} over the CSV data, which is read lazily, one batch of rows at a time: 
+   * this allows processing data that does not fit in memory. If no columns have been specified, the 
+   * first line is expected to hold column names, and the type of each column is guessed from the 
+   * lines that follow.
+   * 
+   * @return a new {@link DatasetStream}, which should be closed once it's not needed anymore.
+   * @throws IOException if an IO error occurs while starting to read the data.
+   * @see #batchSize(int)
+   * @see #guessLines(int)
+   */
+  @Hide
+  public DatasetStream stream() throws IOException {
+    Checks.isTrue(reader != null || file != null, "Either file or reader must be set");
+    CsvReader     csv      = newCsvReader();
+    TypeInference inferred = inferColumns(csv);
+    Reader        input    = file != null ? new FileReader(file) : reader;
+    if (inferred != null) {
+      return csv.stream(inferred, input, batchSize);
+    } else if (columns == null) {
+      return csv.stream(input, batchSize);
     }
+    return csv.stream(columns, input, skipLines, batchSize);
+  }
+  
+  // --------------------------------------------------------------------------
+  // Restricted methods
+  
+  private CsvReader newCsvReader() {
+    CsvReader csv = new CsvReader(separator, quoteChar, columnar);
+    csv.setGuessLines(guessLines);
+    csv.setErrorRatio(errorRatio);
+    if (sampleLines >= 0) {
+      csv.setSampleLines(sampleLines);
+    }
+    return csv;
+  }
+  
+  // returns null, unless columns are to be inferred from a sample of the whole file
+  private TypeInference inferColumns(CsvReader csv) throws IOException {
+    if (columns != null || sampleLines < 0) {
+      return null;
+    }
+    Checks.isTrue(file != null, "A file must be set in order to sample it");
+    return csv.infer(new FileReader(file));
   }
   
   /**
@@ -165,20 +349,39 @@ public class Csv {
       }
     }
     String separator = SETTINGS.get("separator").get(values, ",", String.class);
+    boolean columnar = SETTINGS.get("columnar").get(values, Boolean.FALSE, Boolean.class);
+    boolean mapped = SETTINGS.get("mapped").get(values, Boolean.FALSE, Boolean.class);
     
     if (values.containsKey("guess_columns") && SETTINGS.get("guess_columns").get(values, Boolean.FALSE, Boolean.class)) {
+      int guessLines = SETTINGS.get("guess_lines").get(values, new Integer(ColumnTypeGuesser.DEFAULT_GUESS_LINES), Integer.class);
+      double errorRatio = SETTINGS.get("error_ratio").get(values, 0d, Double.class);
+      if (mapped) {
+        MappedCsvReader csv = new MappedCsvReader(new Character(separator.charAt(0)), quoteChar);
+        csv.setGuessLines(guessLines);
+        return csv.read(file);
+      }
       FileReader reader = new FileReader(file);
       try {
-        return new CsvReader(new Character(separator.charAt(0)), quoteChar).read(reader);
+        CsvReader csv = new CsvReader(new Character(separator.charAt(0)), quoteChar, columnar);
+        csv.setGuessLines(guessLines);
+        csv.setErrorRatio(errorRatio);
+        if (values.containsKey("sample_lines")) {
+          csv.setSampleLines(SETTINGS.get("sample_lines").get(values, Integer.class));
+          return csv.read(csv.infer(new FileReader(file)), reader);
+        }
+        return csv.read(reader);
       } finally {
         reader.close();
       }
     } else {
       ColumnSet columns = SETTINGS.get("column_set").get(values, ColumnSet.class);
       int skipLines = SETTINGS.get("skip_lines").get(values, new Integer(0), Integer.class);
+      if (mapped) {
+        return new MappedCsvReader(new Character(separator.charAt(0)), quoteChar).read(columns, file, skipLines);
+      }
       FileReader reader = new FileReader(file);
       try {
-        return new CsvReader(new Character(separator.charAt(0)), quoteChar).read(columns, reader, skipLines);
+        return new CsvReader(new Character(separator.charAt(0)), quoteChar, columnar).read(columns, reader, skipLines);
       } finally {
         reader.close();
       }
@@ -0,0 +1,167 @@
+package org.sapia.tad.io.csv;
+
+import au.com.bytecode.opencsv.CSVReader;
+import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.DatasetStream;
+import org.sapia.tad.impl.columnar.StringDictionary;
+import org.sapia.tad.io.helpers.RowCollector;
+import org.sapia.tad.parser.StringParser;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.value.Value;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link DatasetStream} that reads CSV lines lazily, one batch at a time.
+ * <p>
+ * The values of string columns (that use the default {@link StringParser}) are interned, per batch: all
+ * the rows of a batch that hold the same string share the same {@link org.sapia.tad.value.StringValue}
+ * instance. Columnar batches additionally hold a dictionary code per row, for such columns.
+ * 
+ * @author yduchesne
+ *
+ */
+class CsvDatasetStream implements DatasetStream {
+  
+  private CSVReader          csv;
+  private ColumnSet          columns;
+  private boolean            columnar;
+  private boolean            lenient;
+  private double             errorRatio;
+  private int                batchSize;
+  private int                lineNumber;
+  private Deque<String[]>    pending = new ArrayDeque<>();
+  private boolean            eof;
+  private boolean[]          interned;
+  private StringDictionary[] dictionaries;
+  // per column: the number of values that were parsed, and the number of those that failed
+  private long[]             parsed;
+  private long[]             failed;
+  
+  /**
+   * @param csv the {@link CSVReader} to read from.
+   * @param columns the {@link ColumnSet} of the lines to read.
+   * @param columnar if <code>true</code>, indicates that batches should be {@link org.sapia.tad.impl.columnar.ColumnarDataset}s.
+   * @param lenient if <code>true</code>, blank values are read as nulls, and lines are not required 
+   * to have exactly as many values as there are columns.
+   * @param errorRatio if greater than 0, values that cannot be parsed according to the type of their column 
+   * are read as nulls, as long as the ratio of a column's values read so far that could not be parsed does not 
+   * exceed this ratio at the end of a batch.
+   * @param batchSize the maximum number of rows per batch.
+   * @param lineNumber the number of the line that was last read.
+   * @param buffered lines that were already read from the given reader, and that are to be part of the first batch.
+   */
+  CsvDatasetStream(CSVReader csv, ColumnSet columns, boolean columnar, boolean lenient, double errorRatio, int batchSize, int lineNumber, List<String[]> buffered) {
+    Checks.isTrue(batchSize > 0, "Batch size must be greater than 0 (got %s)", batchSize);
+    this.csv        = csv;
+    this.columns    = columns;
+    this.columnar   = columnar;
+    this.lenient    = lenient;
+    this.errorRatio = errorRatio;
+    this.batchSize  = batchSize;
+    this.lineNumber = lineNumber - buffered.size();
+    this.pending.addAll(buffered);
+    this.interned   = new boolean[columns.size()];
+    this.parsed     = new long[columns.size()];
+    this.failed     = new long[columns.size()];
+    for (Column col : columns) {
+      interned[col.getIndex()] = col.getParser().getClass() == StringParser.class;
+    }
+  }
+
+  @Override
+  public ColumnSet getColumnSet() {
+    return columns;
+  }
+  
+  @Override
+  public boolean hasNext() throws IOException {
+    if (pending.isEmpty() && !eof) {
+      String[] line = csv.readNext();
+      if (line == null) {
+        eof = true;
+        csv.close();
+      } else {
+        pending.add(line);
+      }
+    }
+    return !pending.isEmpty();
+  }
+  
+  @Override
+  public Dataset next() throws IOException, NoSuchElementException {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    RowCollector rows = RowCollector.newInstance(columns, columnar);
+    // a batch's strings are not interned with the ones of other batches, so that memory remains bounded
+    dictionaries = new StringDictionary[columns.size()];
+    for (int i = 0; i < dictionaries.length; i++) {
+      if (interned[i]) {
+        dictionaries[i] = new StringDictionary();
+      }
+    }
+    while (rows.size() < batchSize && hasNext()) {
+      rows.add(parse(pending.poll()));
+    }
+    if (errorRatio > 0) {
+      checkErrors();
+    }
+    return rows.build();
+  }
+  
+  @Override
+  public void close() throws IOException {
+    pending.clear();
+    if (!eof) {
+      eof = true;
+      csv.close();
+    }
+  }
+  
+  private Value[] parse(String[] line) {
+    lineNumber++;
+    Value[] values = new Value[columns.size()];
+    if (!lenient) {
+      Checks.isTrue(line.length == columns.size(), 
+          "Error at line %s: expected CSV to have %s columns, got: %s", 
+          lineNumber, columns.size(), line.length
+      );
+    }
+    for (Column col : columns) {
+      String value = col.getIndex() < line.length ? line[col.getIndex()] : null;
+      if (lenient && (value == null || value.trim().length() == 0)) {
+        values[col.getIndex()] = null;
+      } else if (interned[col.getIndex()]) {
+        values[col.getIndex()] = dictionaries[col.getIndex()].intern(value);
+      } else if (errorRatio > 0) {
+        parsed[col.getIndex()]++;
+        try {
+          values[col.getIndex()] = col.getParser().parse(value);
+        } catch (IllegalArgumentException e) {
+          failed[col.getIndex()]++;
+          values[col.getIndex()] = null;
+        }
+      } else {
+        values[col.getIndex()] = col.getParser().parse(value);
+      }
+    }
+    return values;
+  }
+  
+  private void checkErrors() {
+    for (Column col : columns) {
+      Checks.isTrue(failed[col.getIndex()] <= errorRatio * parsed[col.getIndex()], 
+          "Error at line %s: %s of the %s values read so far for column %s could not be parsed as %s (error ratio: %s)", 
+          lineNumber, failed[col.getIndex()], parsed[col.getIndex()], col.getName(), col.getType(), errorRatio
+      );
+    }
+  }
+
+}
@@ -2,21 +2,19 @@ package org.sapia.tad.io.csv;
 
 import au.com.bytecode.opencsv.CSVReader;
 import org.sapia.tad.*;
-import org.sapia.tad.impl.DefaultColumn;
-import org.sapia.tad.impl.DefaultColumnSet;
-import org.sapia.tad.impl.DefaultDataset;
-import org.sapia.tad.impl.DefaultVector;
 import org.sapia.tad.io.DatasetReader;
 import org.sapia.tad.io.helpers.ColumnTypeGuesser;
 import org.sapia.tad.io.helpers.Line;
-import org.sapia.tad.io.helpers.LineBuffer;
+import org.sapia.tad.io.helpers.LineSample;
+import org.sapia.tad.io.helpers.RowCollector;
+import org.sapia.tad.io.helpers.TypeInference;
 import org.sapia.tad.util.Checks;
-import org.sapia.tad.value.Value;
 
 import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Implements a {@link DatasetReader} that reads from CSV files.
@@ -26,8 +24,12 @@ import java.util.List;
  */
 public class CsvReader implements DatasetReader {
   
-  private char      separator = ',';
+  private char      separator  = ',';
   private Character quoteChar;
+  private boolean   columnar;
+  private int       guessLines  = ColumnTypeGuesser.DEFAULT_GUESS_LINES;
+  private int       sampleLines = ColumnTypeGuesser.DEFAULT_SAMPLE_LINES;
+  private double    errorRatio;
   
   public CsvReader() {
   }
@@ -45,118 +47,222 @@ public class CsvReader implements DatasetReader {
     this.quoteChar = quoteChar;
   }
   
+  /**
+   * @param separator the separator character to use (defaults to comma).
+   * @param quoteChar the quote character to use (none by default).
+   * @param columnar if <code>true</code>, indicates that {@link org.sapia.tad.impl.columnar.ColumnarDataset}s
+   * should be created.
+   */
+  public CsvReader(Character separator, Character quoteChar, boolean columnar) {
+    this(separator, quoteChar);
+    this.columnar = columnar;
+  }
+  
   @Override
   public Dataset read(ColumnSet columns, Reader reader) throws IOException {
     return read(columns, reader, 0);
   }
   
+  /**
+   * @param guessLines the number of lines from which to guess column types, when these are not specified
+   * (defaults to {@link ColumnTypeGuesser#DEFAULT_GUESS_LINES}).
+   */
+  public void setGuessLines(int guessLines) {
+    Checks.isTrue(guessLines > 0, "Number of lines from which to guess column types must be greater than 0 (got %s)", guessLines);
+    this.guessLines = guessLines;
+  }
+  
+  /**
+   * @param sampleLines the number of lines to sample at random, beyond the first lines, when inferring column
+   * types with {@link #infer(Reader)} (defaults to {@link ColumnTypeGuesser#DEFAULT_SAMPLE_LINES}).
+   */
+  public void setSampleLines(int sampleLines) {
+    Checks.isTrue(sampleLines >= 0, "Number of lines to sample must be positive (got %s)", sampleLines);
+    this.sampleLines = sampleLines;
+  }
+  
+  /**
+   * Sets the ratio of a column's values that may not be parsed according to the type guessed for that column. 
+   * If greater than 0, such values are read as nulls, rather than causing an error - unless, at the end of
+   * a batch, the ratio of a column's values read so far that could not be parsed exceeds the given ratio.
+   * 
+   * @param errorRatio the ratio of a column's values that may not be parsed (defaults to 0).
+   */
+  public void setErrorRatio(double errorRatio) {
+    Checks.isTrue(errorRatio >= 0 && errorRatio < 1, "Error ratio must be greater than or equal to 0, and less than 1 (got %s)", errorRatio);
+    this.errorRatio = errorRatio;
+  }
+  
+  /**
+   * Infers the columns of the given CSV input without loading it: the first line of the input is expected 
+   * to consist of column names. Column types are inferred from the configured number of first lines, together
+   * with the configured number of lines sampled at random from the rest of the input (the input is read in 
+   * full, but only sampled lines are kept in memory). 
+   * <p>
+   * The result may then be passed to {@link #read(TypeInference, Reader)}, or 
+   * {@link #stream(TypeInference, Reader, int)}.
+   * 
+   * @param reader some CSV input, provided as a {@link Reader}.
+   * @return the {@link TypeInference} holding the inferred columns, and the confidence of their types.
+   * @throws IOException if an error occurs attempting to read the CSV input.
+   * @see #setGuessLines(int)
+   * @see #setSampleLines(int)
+   * @see #setErrorRatio(double)
+   */
+  public TypeInference infer(Reader reader) throws IOException {
+    CSVReader csv = newCsvReader(reader);
+    try {
+      String[] columnNames = csv.readNext();
+      if (columnNames == null) {
+        throw new IOException("Column names could not be determined from input");
+      }
+      // using a fixed seed, so that the same input always results in the same columns
+      LineSample sample = new LineSample(guessLines, sampleLines, new Random(columnNames.length));
+      String[]   line;
+      while ((line = csv.readNext()) != null) {
+        sample.add(new CsvLine(line));
+      }
+      if (sample.getCount() == 0) {
+        throw new IOException("Column data types could not be determined from input");
+      }
+      return new ColumnTypeGuesser().inferColumnTypes(columnNames, sample.getLines(), sample.getCount(), errorRatio);
+    } finally {
+      csv.close();
+    }
+  }
+  
   /**
    * This method attempts to create a {@link Dataset} straight out of a CSV input, assuming that the 
    * first line of the input consists of column names. It also attempts to determine the type of each
-   * column as it reads the data.
+   * column, from the lines that follow (up to the configured number of lines).
    * 
    * @param reader some CSV input, provided as a {@link Reader}.
    * @return the {@link Dataset} that was parsed out from the input.
    * @throws IOException if an error occurs attempting to read the CSV input.
+   * @see #setGuessLines(int)
    */
   public Dataset read(Reader reader) throws IOException {
-    CSVReader csv = null;
-    if (quoteChar != null) {
-      csv = new CSVReader(reader, separator, quoteChar.charValue());
-    } else {
-      csv = new CSVReader(reader, separator);
+    return readAll(stream(reader, Integer.MAX_VALUE));
+  }
+  
+  /**
+   * Creates a {@link Dataset} out of a CSV input whose columns were {@link #infer(Reader) inferred}: the first
+   * line of the input is skipped. As with {@link #read(Reader)}, blank values are read as nulls, and lines are 
+   * not required to have exactly as many values as there are columns.
+   * 
+   * @param inference the {@link TypeInference} holding the inferred columns of the CSV input.
+   * @param reader some CSV input, provided as a {@link Reader}.
+   * @return the {@link Dataset} that was parsed out from the input.
+   * @throws IOException if an error occurs attempting to read the CSV input.
+   */
+  public Dataset read(TypeInference inference, Reader reader) throws IOException {
+    return readAll(stream(inference, reader, Integer.MAX_VALUE));
+  }
+  
+  @Override
+  public Dataset read(ColumnSet columns, Reader reader, int skipLines) throws IOException {
+    return readAll(stream(columns, reader, skipLines, Integer.MAX_VALUE));
+  }
+  
+  /**
+   * Returns a stream over the given CSV input, which is read lazily, one batch at a time. The first
+   * line of the input is expected to consist of column names. The type of each column is determined
+   * from the lines that follow (up to the configured number of lines).
+   * 
+   * @param reader some CSV input, provided as a {@link Reader}.
+   * @param batchSize the maximum number of rows per batch.
+   * @return a new {@link DatasetStream}.
+   * @throws IOException if an error occurs attempting to read the CSV input.
+   * @see #setGuessLines(int)
+   */
+  public DatasetStream stream(Reader reader, int batchSize) throws IOException {
+    CSVReader csv = newCsvReader(reader);
+    try {
+      String[] columnNames = csv.readNext();
+      if (columnNames == null) {
+        throw new IOException("Column names could not be determined from input");
+      }
+      List<String[]> buffered = new ArrayList<>();
+      List<Line>     lines    = new ArrayList<>();
+      String[]       line;
+      while (buffered.size() < guessLines && (line = csv.readNext()) != null) {
+        buffered.add(line);
+        lines.add(new CsvLine(line));
+      }
+      if (lines.isEmpty()) {
+        throw new IOException("Column data types could not be determined from input");
+      }
+      ColumnSet columns = new ColumnTypeGuesser().inferColumnTypes(columnNames, lines, lines.size(), errorRatio).getColumnSet();
+      return new CsvDatasetStream(csv, columns, columnar, true, errorRatio, batchSize, buffered.size() + 1, buffered);
+    } catch (IOException | RuntimeException e) {
+      csv.close();
+      throw e;
     }
-    
-    List<Vector>      rows        = new ArrayList<>();
-    String[]          columnNames = null;
-    Datatype[]        columnTypes = null;
-    ColumnTypeGuesser guesser     = new ColumnTypeGuesser();
-    LineBuffer        buffer      = new LineBuffer();
-    ColumnSet         columnSet   = null;
-    
+  }
+  
+  /**
+   * Returns a stream over the given CSV input, which is read lazily, one batch at a time.
+   * 
+   * @param columns the {@link ColumnSet} corresponding to the columns of the CSV input.
+   * @param reader some CSV input, provided as a {@link Reader}.
+   * @param skipLines the number of lines to skip from the top of the input.
+   * @param batchSize the maximum number of rows per batch.
+   * @return a new {@link DatasetStream}.
+   * @throws IOException if an error occurs attempting to read the CSV input.
+   */
+  public DatasetStream stream(ColumnSet columns, Reader reader, int skipLines, int batchSize) throws IOException {
+    return stream(columns, reader, skipLines, false, batchSize);
+  }
+  
+  /**
+   * Returns a stream over a CSV input whose columns were {@link #infer(Reader) inferred}, which is read lazily, 
+   * one batch at a time: the first line of the input is skipped. As with {@link #stream(Reader, int)}, blank 
+   * values are read as nulls, and lines are not required to have exactly as many values as there are columns.
+   * 
+   * @param inference the {@link TypeInference} holding the inferred columns of the CSV input.
+   * @param reader some CSV input, provided as a {@link Reader}.
+   * @param batchSize the maximum number of rows per batch.
+   * @return a new {@link DatasetStream}.
+   * @throws IOException if an error occurs attempting to read the CSV input.
+   */
+  public DatasetStream stream(TypeInference inference, Reader reader, int batchSize) throws IOException {
+    return stream(inference.getColumnSet(), reader, 1, true, batchSize);
+  }
+  
+  // --------------------------------------------------------------------------
+  // Restricted methods
+  
+  private DatasetStream stream(ColumnSet columns, Reader reader, int skipLines, boolean lenient, int batchSize) throws IOException {
+    CSVReader csv = newCsvReader(reader);
     try {
-      String[] line;
       int lineNumber = 0;
-      while ((line = csv.readNext()) != null) {
-        if (lineNumber == 0) {
-          columnNames = line;
-        } else if (columnTypes == null) {
-          CsvLine csvLine = new CsvLine(line);
-          columnTypes = guesser.guessColumnType(csvLine);
-          if (columnTypes == null) {
-            buffer.append(csvLine);
-          } else {
-            buffer.append(csvLine);
-            List<Column> columns = new ArrayList<>();
-            for (int i = 0; i < columnNames.length; i++) {
-              columns.add(new DefaultColumn(i, columnTypes[i], columnNames[i]));
-            }
-            columnSet = new DefaultColumnSet(columns);
-            for (Line l : buffer.getLines()) {
-              Value[] values = new Value[columnSet.size()];
-              for (Column col : columnSet) {
-                String value = l.get(col.getIndex());
-                if (value == null || value.trim().length() == 0) {
-                  values[col.getIndex()] = null;
-                } else {
-                  values[col.getIndex()] = col.getParser().parse(value);
-                }
-              }
-              rows.add(new DefaultVector(values));
-            }
-          }
-        } else {
-          Value[] values = new Value[columnSet.size()];
-          for (Column col : columnSet) {
-            String value = line[col.getIndex()];
-            if (value == null || value.trim().length() == 0) {
-              values[col.getIndex()] = null;
-            } else {
-              values[col.getIndex()] = col.getParser().parse(line[col.getIndex()]);
-            }
-          }
-          rows.add(new DefaultVector(values));
-        }
+      while (lineNumber < skipLines && csv.readNext() != null) {
         lineNumber++;
       }
-      if (columnTypes == null) {
-        throw new IOException("Column data types could not be determined from input");
-      }
-      return new DefaultDataset(columnSet, rows);
-    } finally {
+      return new CsvDatasetStream(csv, columns, columnar, lenient, errorRatio, batchSize, lineNumber, new ArrayList<String[]>());
+    } catch (IOException | RuntimeException e) {
       csv.close();
-    } 
-    
+      throw e;
+    }
   }
   
-  public Dataset read(ColumnSet columns, Reader reader, int skipLines) throws IOException {
-    CSVReader csv = null;
+  private CSVReader newCsvReader(Reader reader) {
     if (quoteChar != null) {
-      csv = new CSVReader(reader, separator, quoteChar.charValue());
+      return new CSVReader(reader, separator, quoteChar.charValue());
     } else {
-      csv = new CSVReader(reader, separator);
+      return new CSVReader(reader, separator);
     }
-    List<Vector> rows = new ArrayList<>();
+  }
+  
+  // the given stream consists of a single batch, unless its input is empty.
+  private Dataset readAll(DatasetStream stream) throws IOException {
     try {
-      String[] line;
-      int lineNumber = 0;
-      while ((line = csv.readNext()) != null) {
-        if (skipLines == 0 || lineNumber >= skipLines) {
-          Checks.isTrue(line.length == columns.size(), 
-              "Error at line %s: expected CSV to have %s columns, got: %s", 
-              lineNumber + 1, columns.size(), line.length
-          );
-          Value[] values = new Value[columns.size()];
-          for (Column col : columns) {
-            values[col.getIndex()] = col.getParser().parse(line[col.getIndex()]);
-          }
-          rows.add(new DefaultVector(values));
-        }
-        lineNumber++;
+      if (stream.hasNext()) {
+        return stream.next();
       }
-      return new DefaultDataset(columns, rows);
+      return RowCollector.newInstance(stream.getColumnSet(), columnar).build();
     } finally {
-      csv.close();
-    } 
+      stream.close();
+    }
   }
 }
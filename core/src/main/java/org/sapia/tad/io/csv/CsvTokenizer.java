@@ -0,0 +1,205 @@
+package org.sapia.tad.io.csv;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Splits a byte range of a {@link MappedFile} into CSV records and fields. Quoted fields may hold
+ * separators and line breaks, and a quote is escaped within a quoted field by doubling it. Blank lines
+ * are skipped.
+ * <p>
+ * The bytes of the current field are held in a buffer that is reused from one field to the next: no
+ * object is created per field, unless {@link #fieldAsString()} is called.
+ * <p>
+ * An instance of this class is not thread-safe.
+ *
+ * @author yduchesne
+ *
+ */
+class CsvTokenizer {
+
+  private static final byte CR = '\r';
+  private static final byte LF = '\n';
+
+  // the states of the quoting automaton (see nextState())
+  static final int FIELD_START   = 0;
+  static final int UNQUOTED      = 1;
+  static final int QUOTED        = 2;
+  static final int CLOSING_QUOTE = 3;
+  static final int STATE_COUNT   = 4;
+
+  private MappedFile file;
+  private long       pos;
+  private long       end;
+  private byte       separator;
+  private byte       quote;
+  private byte[]     buffer      = new byte[64];
+  private int        length;
+  private boolean    endOfRecord = true;
+
+  /**
+   * @param file the {@link MappedFile} to read from.
+   * @param start the position at which to start reading (inclusive).
+   * @param end the position at which to stop reading (exclusive): it is expected to correspond
+   * to the end of a record.
+   * @param separator the separator character.
+   * @param quote the quote character.
+   */
+  CsvTokenizer(MappedFile file, long start, long end, byte separator, byte quote) {
+    this.file      = file;
+    this.pos       = start;
+    this.end       = end;
+    this.separator = separator;
+    this.quote     = quote;
+  }
+
+  /**
+   * @return the position of the next byte to read.
+   */
+  long position() {
+    return pos;
+  }
+
+  /**
+   * Moves to the next record, skipping the remaining fields of the current one.
+   *
+   * @return <code>true</code> if there is a next record, <code>false</code> if the end of the
+   * range has been reached.
+   */
+  boolean nextRecord() {
+    while (!endOfRecord) {
+      nextField();
+    }
+    while (pos < end && isLineBreak(file.get(pos))) {
+      pos++;
+    }
+    if (pos < end) {
+      endOfRecord = false;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Reads the next field of the current record into this instance's buffer.
+   *
+   * @return <code>true</code> if a field was read, <code>false</code> if the current record has no
+   * more fields.
+   */
+  boolean nextField() {
+    if (endOfRecord) {
+      return false;
+    }
+    length = 0;
+    if (pos < end && file.get(pos) == quote) {
+      pos++;
+      while (pos < end) {
+        byte b = file.get(pos++);
+        if (b == quote) {
+          if (pos < end && file.get(pos) == quote) {
+            append(quote);
+            pos++;
+          } else {
+            break;
+          }
+        } else {
+          append(b);
+        }
+      }
+    }
+    // unquoted field, or characters following the closing quote
+    while (pos < end) {
+      byte b = file.get(pos);
+      if (b == separator) {
+        pos++;
+        return true;
+      } else if (isLineBreak(b)) {
+        break;
+      }
+      append(b);
+      pos++;
+    }
+    endOfRecord = true;
+    return true;
+  }
+
+  /**
+   * @return the buffer holding the bytes of the current field, starting at index 0.
+   */
+  byte[] buffer() {
+    return buffer;
+  }
+
+  /**
+   * @return the number of bytes of the current field.
+   */
+  int length() {
+    return length;
+  }
+
+  /**
+   * @return <code>true</code> if the current field is empty or consists of whitespace only.
+   */
+  boolean isBlank() {
+    for (int i = 0; i < length; i++) {
+      if (buffer[i] > ' ' || buffer[i] < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the current field, as a {@link String} (decoded from UTF-8).
+   */
+  String fieldAsString() {
+    return new String(buffer, 0, length, StandardCharsets.UTF_8);
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  private void append(byte b) {
+    if (length == buffer.length) {
+      buffer = Arrays.copyOf(buffer, length * 2);
+    }
+    buffer[length++] = b;
+  }
+
+  /**
+   * Follows the quoting rules of {@link #nextField()} one byte at a time, without reading fields: a
+   * quote opens a quoted field only at the start of a field, and is otherwise an ordinary character.
+   * Within a quoted field, a quote either closes the field or, if doubled, stands for itself: this is
+   * the {@link #CLOSING_QUOTE} state, which is resolved by the next byte.
+   * <p>
+   * A line break read in any state other than {@link #QUOTED} ends a record.
+   *
+   * @param state the current state.
+   * @param b the next byte.
+   * @param separator the separator character.
+   * @param quote the quote character.
+   * @return the state following the given byte.
+   */
+  static int nextState(int state, byte b, byte separator, byte quote) {
+    switch (state) {
+      case QUOTED:
+        return b == quote ? CLOSING_QUOTE : QUOTED;
+      case CLOSING_QUOTE:
+        if (b == quote) {
+          return QUOTED;
+        }
+        return b == separator || isLineBreak(b) ? FIELD_START : UNQUOTED;
+      case UNQUOTED:
+        return b == separator || isLineBreak(b) ? FIELD_START : UNQUOTED;
+      default:
+        if (b == quote) {
+          return QUOTED;
+        }
+        return b == separator || isLineBreak(b) ? FIELD_START : UNQUOTED;
+    }
+  }
+
+  static boolean isLineBreak(byte b) {
+    return b == LF || b == CR;
+  }
+}
@@ -0,0 +1,322 @@
+package org.sapia.tad.io.csv;
+
+import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.concurrent.ConcurrencyException;
+import org.sapia.tad.concurrent.ThreadInterruptedException;
+import org.sapia.tad.concurrent.Threading;
+import org.sapia.tad.conf.Conf;
+import org.sapia.tad.impl.DefaultColumn;
+import org.sapia.tad.impl.DefaultColumnSet;
+import org.sapia.tad.impl.columnar.ColumnarDataset;
+import org.sapia.tad.impl.columnar.ColumnarDatasetBuilder;
+import org.sapia.tad.io.helpers.ColumnTypeGuesser;
+import org.sapia.tad.io.helpers.Line;
+import org.sapia.tad.parser.DateParser;
+import org.sapia.tad.parser.Doubles;
+import org.sapia.tad.parser.NumericParser;
+import org.sapia.tad.parser.Parser;
+import org.sapia.tad.parser.StringParser;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.util.Time;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Reads CSV files into {@link ColumnarDataset}s, without going through {@link java.io.Reader}s: the file
+ * is memory-mapped, and split into byte ranges that are parsed in parallel, each range ending at a
+ * line break that is not part of a quoted field.
+ * <p>
+ * Values of numeric columns are parsed straight from the mapped bytes into <code>double</code>s,
+ * without intermediate {@link String}s being created. Values of other columns are decoded (as UTF-8)
+ * and handed to their column's {@link Parser}.
+ * <p>
+ * Quoting follows RFC 4180: a quote within a quoted field is escaped by doubling it (backslash escapes are
+ * not supported), and a quote opens a quoted field only at the start of a field: elsewhere, it is read as is
+ * (as in <code>5" screen</code>). Blank lines are ignored.
+ *
+ * @author yduchesne
+ *
+ */
+public class MappedCsvReader {
+
+  private static final int DEFAULT_MIN_RANGE_SIZE = 1024 * 1024;
+  private static final int RANGES_PER_PROCESSOR   = 4;
+
+  private byte separator    = ',';
+  private byte quoteChar    = '"';
+  private int  guessLines   = ColumnTypeGuesser.DEFAULT_GUESS_LINES;
+  private int  minRangeSize = DEFAULT_MIN_RANGE_SIZE;
+
+  public MappedCsvReader() {
+  }
+
+  /**
+   * @param separator the separator character to use (defaults to comma).
+   * @param quoteChar the quote character to use (defaults to double quote).
+   */
+  public MappedCsvReader(Character separator, Character quoteChar) {
+    if (separator != null) {
+      Checks.isTrue(separator < 128, "Separator must be an ASCII character (got: %s)", separator);
+      this.separator = (byte) separator.charValue();
+    }
+    if (quoteChar != null) {
+      Checks.isTrue(quoteChar < 128, "Quote character must be an ASCII character (got: %s)", quoteChar);
+      this.quoteChar = (byte) quoteChar.charValue();
+    }
+  }
+
+  /**
+   * @param guessLines the number of lines from which to guess column types, when these are not specified
+   * (defaults to {@link ColumnTypeGuesser#DEFAULT_GUESS_LINES}).
+   */
+  public void setGuessLines(int guessLines) {
+    Checks.isTrue(guessLines > 0, "Number of lines from which to guess column types must be greater than 0 (got %s)", guessLines);
+    this.guessLines = guessLines;
+  }
+
+  /**
+   * @param minRangeSize the minimum size of the byte ranges into which the file is split.
+   */
+  void setMinRangeSize(int minRangeSize) {
+    this.minRangeSize = minRangeSize;
+  }
+
+  /**
+   * This method assumes that the first line of the given file consists of column names. It determines
+   * the type of each column from the lines that follow (up to the configured number of lines).
+   *
+   * @param file the CSV {@link File} to read.
+   * @return the {@link Dataset} that was read.
+   * @throws IOException if an error occurs attempting to read the file.
+   * @see #setGuessLines(int)
+   */
+  public Dataset read(File file) throws IOException {
+    MappedFile   mapped    = MappedFile.map(file);
+    CsvTokenizer tokenizer = new CsvTokenizer(mapped, 0, mapped.size(), separator, quoteChar);
+    if (!tokenizer.nextRecord()) {
+      throw new IOException("Column names could not be determined from input");
+    }
+    List<String> columnNames = readRecord(tokenizer);
+    long         dataStart   = tokenizer.position();
+    List<Line>   lines       = new ArrayList<>();
+    while (lines.size() < guessLines && tokenizer.nextRecord()) {
+      List<String> line = readRecord(tokenizer);
+      lines.add(new CsvLine(line.toArray(new String[line.size()])));
+    }
+    Datatype[] columnTypes = new ColumnTypeGuesser().guessColumnTypes(columnNames.size(), lines);
+    if (columnTypes == null) {
+      throw new IOException("Column data types could not be determined from input");
+    }
+    List<Column> columns = new ArrayList<>();
+    for (int i = 0; i < columnNames.size(); i++) {
+      columns.add(new DefaultColumn(i, columnTypes[i], columnNames.get(i)));
+    }
+    return read(mapped, new DefaultColumnSet(columns), dataStart, true);
+  }
+
+  /**
+   * @param columns the {@link ColumnSet} corresponding to the columns of the CSV file.
+   * @param file the CSV {@link File} to read.
+   * @param skipLines the number of lines to skip from the top of the file.
+   * @return the {@link Dataset} that was read.
+   * @throws IOException if an error occurs attempting to read the file.
+   */
+  public Dataset read(ColumnSet columns, File file, int skipLines) throws IOException {
+    MappedFile   mapped    = MappedFile.map(file);
+    CsvTokenizer tokenizer = new CsvTokenizer(mapped, 0, mapped.size(), separator, quoteChar);
+    for (int i = 0; i < skipLines && tokenizer.nextRecord(); i++) {
+      readRecord(tokenizer);
+    }
+    return read(mapped, columns, tokenizer.position(), false);
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  private Dataset read(final MappedFile file, final ColumnSet columns, long dataStart, final boolean lenient) {
+    final long[] bounds = splitRanges(file, dataStart);
+    List<Callable<ColumnarDataset>> tasks = new ArrayList<>(bounds.length - 1);
+    for (int i = 0; i < bounds.length - 1; i++) {
+      final int range = i;
+      tasks.add(new Callable<ColumnarDataset>() {
+        @Override
+        public ColumnarDataset call() throws Exception {
+          return parseRange(file, columns, bounds[range], bounds[range + 1], lenient);
+        }
+      });
+    }
+    return ColumnarDataset.concat(invokeAll(tasks));
+  }
+
+  // returns the boundaries of the ranges to parse: range i is [bounds[i], bounds[i + 1]).
+  private long[] splitRanges(final MappedFile file, long dataStart) {
+    long         dataSize   = file.size() - dataStart;
+    int          rangeCount = (int) Math.max(1, Math.min(
+        Runtime.getRuntime().availableProcessors() * RANGES_PER_PROCESSOR, dataSize / minRangeSize));
+    final long[] nominal = new long[rangeCount + 1];
+    for (int i = 0; i < rangeCount; i++) {
+      nominal[i] = dataStart + dataSize * i / rangeCount;
+    }
+    nominal[rangeCount] = file.size();
+    if (rangeCount == 1) {
+      return nominal;
+    }
+
+    // first pass: following the quoting rules of CsvTokenizer over each range, from each possible
+    // starting state, since a range's starting state depends on the ranges that precede it.
+    List<Callable<int[]>> transitions = new ArrayList<>(rangeCount);
+    for (int i = 0; i < rangeCount; i++) {
+      final int range = i;
+      transitions.add(new Callable<int[]>() {
+        @Override
+        public int[] call() throws Exception {
+          int[] states = new int[CsvTokenizer.STATE_COUNT];
+          for (int s = 0; s < states.length; s++) {
+            states[s] = s;
+          }
+          for (long pos = nominal[range]; pos < nominal[range + 1]; pos++) {
+            byte b = file.get(pos);
+            for (int s = 0; s < states.length; s++) {
+              states[s] = CsvTokenizer.nextState(states[s], b, separator, quoteChar);
+            }
+          }
+          return states;
+        }
+      });
+    }
+    List<int[]> endStates = invokeAll(transitions);
+
+    // second pass: moving each range's start past the first line break that ends a record.
+    long[] bounds = new long[rangeCount + 1];
+    int    state  = CsvTokenizer.FIELD_START;
+    bounds[0]          = dataStart;
+    bounds[rangeCount] = file.size();
+    for (int i = 1; i < rangeCount; i++) {
+      state = endStates.get(i - 1)[state];
+      if (bounds[i - 1] >= nominal[i]) {
+        // the previous range extends over this one's nominal start: leaving the previous range empty.
+        bounds[i] = bounds[i - 1];
+        continue;
+      }
+      int  current = state;
+      long pos     = nominal[i];
+      while (pos < file.size()) {
+        byte    b         = file.get(pos++);
+        boolean endRecord = b == '\n' && current != CsvTokenizer.QUOTED;
+        current = CsvTokenizer.nextState(current, b, separator, quoteChar);
+        if (endRecord) {
+          break;
+        }
+      }
+      bounds[i] = pos;
+    }
+    return bounds;
+  }
+
+  private ColumnarDataset parseRange(MappedFile file, ColumnSet columns, long start, long end, boolean lenient) {
+    ColumnarDatasetBuilder builder   = new ColumnarDatasetBuilder(columns);
+    CsvTokenizer           tokenizer = new CsvTokenizer(file, start, end, separator, quoteChar);
+    Parser[]               parsers   = new Parser[columns.size()];
+    boolean[]              numeric   = new boolean[columns.size()];
+    boolean[]              strings   = new boolean[columns.size()];
+    boolean[]              dates     = new boolean[columns.size()];
+    for (Column col : columns) {
+      parsers[col.getIndex()] = col.getParser();
+      // bypassing the parser only if it is the default numeric, string or date one
+      numeric[col.getIndex()] = col.getParser().getClass() == NumericParser.class;
+      strings[col.getIndex()] = col.getParser().getClass() == StringParser.class;
+      dates[col.getIndex()]   = col.getParser().getClass() == DateParser.class;
+    }
+    while (tokenizer.nextRecord()) {
+      long recordStart = tokenizer.position();
+      int  col         = 0;
+      while (tokenizer.nextField()) {
+        if (col < parsers.length) {
+          parseField(tokenizer, builder, col, parsers[col], numeric[col], strings[col], dates[col], lenient);
+        }
+        col++;
+      }
+      if (!lenient) {
+        Checks.isTrue(col == parsers.length,
+            "Error at byte offset %s: expected CSV to have %s columns, got: %s",
+            recordStart, parsers.length, col
+        );
+      }
+      for (; col < parsers.length; col++) {
+        builder.value(col, null);
+      }
+      builder.endRow();
+    }
+    return builder.build();
+  }
+
+  private void parseField(CsvTokenizer tokenizer, ColumnarDatasetBuilder builder, int col, Parser parser,
+      boolean numeric, boolean string, boolean date, boolean lenient) {
+    if (lenient && tokenizer.isBlank()) {
+      builder.value(col, null);
+    } else if (numeric) {
+      if (tokenizer.isBlank()) {
+        builder.number(col, 0);
+      } else {
+        try {
+          builder.number(col, Doubles.parse(tokenizer.buffer(), 0, tokenizer.length()));
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException(String.format("Could not parse value: %s", tokenizer.fieldAsString()));
+        }
+      }
+    } else if (string) {
+      // the string is dictionary-encoded: no value is created for strings that were already encountered
+      builder.string(col, tokenizer.fieldAsString());
+    } else if (date) {
+      // the time is appended as is: no value is created
+      builder.time(col, ((DateParser) parser).parseTime(tokenizer.fieldAsString()));
+    } else {
+      builder.value(col, parser.parse(tokenizer.fieldAsString()));
+    }
+  }
+
+  private static List<String> readRecord(CsvTokenizer tokenizer) {
+    List<String> fields = new ArrayList<>();
+    while (tokenizer.nextField()) {
+      fields.add(tokenizer.fieldAsString());
+    }
+    return fields;
+  }
+
+  private static <T> List<T> invokeAll(List<Callable<T>> tasks) {
+    List<Future<T>> futures = new ArrayList<>(tasks.size());
+    for (Callable<T> t : tasks) {
+      futures.add(Threading.getThreadPool().submit(t));
+    }
+    Time    timeout = Conf.getTaskTimeout();
+    List<T> results = new ArrayList<>(futures.size());
+    try {
+      for (Future<T> f : futures) {
+        results.add(f.get(timeout.getValue(), timeout.getUnit()));
+      }
+    } catch (InterruptedException e) {
+      throw new ThreadInterruptedException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IllegalArgumentException) {
+        throw (IllegalArgumentException) e.getCause();
+      }
+      throw new ConcurrencyException("Error occured parsing CSV file", e);
+    } catch (TimeoutException e) {
+      for (Future<T> f : futures) {
+        f.cancel(true);
+      }
+      throw new ConcurrencyException("Timeout parsing CSV file", e);
+    }
+    return results;
+  }
+}
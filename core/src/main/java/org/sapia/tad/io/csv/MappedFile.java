@@ -0,0 +1,66 @@
+package org.sapia.tad.io.csv;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Memory-maps a file, in read-only mode. Files larger than what a single {@link MappedByteBuffer}
+ * can hold are mapped in multiple segments.
+ * <p>
+ * Reading is done with absolute gets, which do not modify the state of the underlying buffers:
+ * an instance of this class can thus be read by multiple threads concurrently.
+ *
+ * @author yduchesne
+ *
+ */
+class MappedFile {
+
+  private static final int  SEGMENT_BITS = 30;
+  private static final long SEGMENT_SIZE = 1L << SEGMENT_BITS;
+  private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+  private long               size;
+  private MappedByteBuffer[] segments;
+
+  private MappedFile(long size, MappedByteBuffer[] segments) {
+    this.size     = size;
+    this.segments = segments;
+  }
+
+  /**
+   * @return the size of the mapped file, in bytes.
+   */
+  long size() {
+    return size;
+  }
+
+  /**
+   * @param pos the position of the byte to return.
+   * @return the byte at the given position.
+   */
+  byte get(long pos) {
+    return segments[(int) (pos >>> SEGMENT_BITS)].get((int) (pos & SEGMENT_MASK));
+  }
+
+  /**
+   * @param file the {@link File} to map.
+   * @return a new instance of this class.
+   * @throws IOException if an IO error occurs while mapping the file.
+   */
+  static MappedFile map(File file) throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+      FileChannel        channel  = raf.getChannel();
+      long               size     = channel.size();
+      MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_BITS)];
+      for (int i = 0; i < segments.length; i++) {
+        long start  = i * SEGMENT_SIZE;
+        segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+      }
+      // the mappings remain valid once the channel is closed.
+      return new MappedFile(size, segments);
+    }
+  }
+}
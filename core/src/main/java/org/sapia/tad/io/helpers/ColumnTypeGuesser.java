@@ -1,10 +1,25 @@
 package org.sapia.tad.io.helpers;
 
+import org.sapia.tad.Column;
 import org.sapia.tad.Datatype;
+import org.sapia.tad.concurrent.ConcurrencyException;
+import org.sapia.tad.concurrent.Threading;
+import org.sapia.tad.concurrent.ThreadInterruptedException;
+import org.sapia.tad.conf.Conf;
+import org.sapia.tad.impl.DefaultColumn;
+import org.sapia.tad.impl.DefaultColumnSet;
 import org.sapia.tad.parser.DateParser;
 import org.sapia.tad.parser.NumericParser;
-import org.sapia.tad.parser.Parser;
 import org.sapia.tad.parser.WktParser;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.util.Time;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeoutException;
 
 /**
  * A utility class that can be used to attempt determining the data type of
@@ -15,9 +30,26 @@ import org.sapia.tad.parser.WktParser;
  */
 public class ColumnTypeGuesser {
   
-  private DateParser    dateParser    = new DateParser();
-  private NumericParser numericParser = new NumericParser();
-  private WktParser     wktParser     = new WktParser();
+  /**
+   * The default number of lines from which to guess column types.
+   */
+  public static final int DEFAULT_GUESS_LINES = 100;
+  
+  /**
+   * The default number of lines to sample at random, beyond the first lines, when inferring column types.
+   */
+  public static final int DEFAULT_SAMPLE_LINES = 1000;
+  
+  // the indices of the tallies computed for each column
+  private static final int VALUES     = 0;
+  private static final int DATES      = 1;
+  private static final int NUMBERS    = 2;
+  private static final int GEOMETRIES = 3;
+  
+  // one date parser per column, since a date parser tries the pattern that last matched first
+  private List<DateParser> dateParsers   = new ArrayList<>();
+  private NumericParser    numericParser = new NumericParser();
+  private WktParser        wktParser     = new WktParser();
   
   /**
    * @param line a content {@link Line}.
@@ -29,15 +61,7 @@ public class ColumnTypeGuesser {
     for (int i = 0; i < line.length(); i++) {
       String value = line.get(i);
       if (value != null && value.trim().length() > 0) {
-        if (tryParse(dateParser, value)) {
-          types[i] = Datatype.DATE;
-        } else if (tryParse(numericParser, value)) {
-          types[i] = Datatype.NUMERIC;
-        } else if (tryParse(wktParser, value)) {
-          types[i] = Datatype.GEOMETRY;
-        } else {
-          types[i] = Datatype.STRING;
-        }
+        types[i] = guessType(i, value);
       } else {
         return null;
       }
@@ -45,7 +69,143 @@ public class ColumnTypeGuesser {
     return types;
   }
   
-  private boolean tryParse(Parser parser, String value) {
+  /**
+   * Guesses the type of each column, given multiple lines: a column whose values are guessed
+   * to be of different types across lines is deemed to be a {@link Datatype#STRING} column,
+   * and so is a column for which the given lines hold no value.
+   * 
+   * @param columnCount the number of columns.
+   * @param lines the {@link Line}s to guess the column types from.
+   * @return the array of {@link Datatype}s corresponding to the different columns, or
+   * <code>null</code> if no lines were given.
+   */
+  public Datatype[] guessColumnTypes(int columnCount, List<Line> lines) {
+    if (lines.isEmpty()) {
+      return null;
+    }
+    Datatype[] types = new Datatype[columnCount];
+    for (Line line : lines) {
+      for (int i = 0; i < columnCount && i < line.length(); i++) {
+        String value = line.get(i);
+        if (value != null && value.trim().length() > 0 && types[i] != Datatype.STRING) {
+          Datatype type = guessType(i, value);
+          types[i] = types[i] == null || types[i] == type ? type : Datatype.STRING;
+        }
+      }
+    }
+    for (int i = 0; i < columnCount; i++) {
+      if (types[i] == null) {
+        types[i] = Datatype.STRING;
+      }
+    }
+    return types;
+  }
+  
+  /**
+   * Infers the type of each column from the given lines, tolerating a given ratio of values that cannot be
+   * parsed according to the inferred type. The non-blank values of each column are tallied according to
+   * the types they can be parsed as: the type inferred for a column is the first of {@link Datatype#DATE},
+   * {@link Datatype#NUMERIC} and {@link Datatype#GEOMETRY} that the required ratio of its values can be 
+   * parsed as, or {@link Datatype#STRING} if there's none.
+   * <p>
+   * If the number of values to tally is greater than {@link Conf#getParallelRowThreshold()}, columns are 
+   * tallied concurrently.
+   * 
+   * @param columnNames the names of the columns.
+   * @param lines the sampled {@link Line}s from which to infer column types.
+   * @param totalLines the total number of lines from which the given lines were sampled.
+   * @param errorRatio the ratio of a column's non-blank values that may not be parsed according to its
+   * inferred type (0 meaning that all values must be parsed).
+   * @return the {@link TypeInference} holding the inferred columns.
+   */
+  public TypeInference inferColumnTypes(String[] columnNames, List<Line> lines, long totalLines, double errorRatio) {
+    Checks.isTrue(errorRatio >= 0 && errorRatio < 1, "Error ratio must be greater than or equal to 0, and less than 1 (got %s)", errorRatio);
+    long[][] tallies;
+    if ((long) columnNames.length * lines.size() <= Conf.getParallelRowThreshold()) {
+      tallies = tally(lines, 0, columnNames.length);
+    } else {
+      int partitionSize = Math.max(1, Conf.getParallelRowThreshold() / Math.max(1, lines.size()));
+      tallies = await(Threading.getForkJoinPool().submit(new TallyTask(lines, 0, columnNames.length, partitionSize)));
+    }
+    
+    List<Column> columns     = new ArrayList<>(columnNames.length);
+    double[]     confidences = new double[columnNames.length];
+    for (int i = 0; i < columnNames.length; i++) {
+      long[]   tally = tallies[i];
+      Datatype type  = Datatype.STRING;
+      long     count = tally[VALUES];
+      if (tally[VALUES] - tally[DATES] <= errorRatio * tally[VALUES] && tally[DATES] > 0) {
+        type  = Datatype.DATE;
+        count = tally[DATES];
+      } else if (tally[VALUES] - tally[NUMBERS] <= errorRatio * tally[VALUES] && tally[NUMBERS] > 0) {
+        type  = Datatype.NUMERIC;
+        count = tally[NUMBERS];
+      } else if (tally[VALUES] - tally[GEOMETRIES] <= errorRatio * tally[VALUES] && tally[GEOMETRIES] > 0) {
+        type  = Datatype.GEOMETRY;
+        count = tally[GEOMETRIES];
+      }
+      columns.add(new DefaultColumn(i, type, columnNames[i]));
+      confidences[i] = tally[VALUES] == 0 ? 0 : (double) count / tally[VALUES];
+    }
+    return new TypeInference(new DefaultColumnSet(columns), confidences, lines.size(), totalLines);
+  }
+  
+  // --------------------------------------------------------------------------
+  // Restricted methods
+  
+  private Datatype guessType(int column, String value) {
+    if (dateParser(column).isDate(value)) {
+      return Datatype.DATE;
+    } else if (numericParser.isNumeric(value)) {
+      return Datatype.NUMERIC;
+    } else if (isGeometry(wktParser, value)) {
+      return Datatype.GEOMETRY;
+    } else {
+      return Datatype.STRING;
+    }
+  }
+  
+  private DateParser dateParser(int column) {
+    while (dateParsers.size() <= column) {
+      dateParsers.add(new DateParser());
+    }
+    return dateParsers.get(column);
+  }
+  
+  // tallies the values of the given range of columns: a date parser is created per column, and used by a single thread
+  private static long[][] tally(List<Line> lines, int startColumn, int endColumn) {
+    NumericParser numericParser = new NumericParser();
+    WktParser     wktParser     = new WktParser();
+    long[][]      tallies       = new long[endColumn - startColumn][4];
+    for (int c = startColumn; c < endColumn; c++) {
+      DateParser dateParser = new DateParser();
+      long[]     tally      = tallies[c - startColumn];
+      for (Line line : lines) {
+        String value = c < line.length() ? line.get(c) : null;
+        if (value == null || value.trim().length() == 0) {
+          continue;
+        }
+        tally[VALUES]++;
+        if (dateParser.isDate(value)) {
+          tally[DATES]++;
+        }
+        if (numericParser.isNumeric(value)) {
+          tally[NUMBERS]++;
+        } else if (isGeometry(wktParser, value)) {
+          tally[GEOMETRIES]++;
+        }
+      }
+    }
+    return tallies;
+  }
+  
+  private static boolean isGeometry(WktParser parser, String value) {
+    // only attempting to parse geometries out of values that may be WKT (which start with a geometry type), since
+    // failures throw exceptions
+    String trimmed = value.trim();
+    if (trimmed.length() == 0 || !Character.isLetter(trimmed.charAt(0))) {
+      return false;
+    }
     try {
       parser.parse(value);
       return true;
@@ -53,4 +213,57 @@ public class ColumnTypeGuesser {
       return false;
     }
   }
+  
+  private static long[][] await(ForkJoinTask<long[][]> task) {
+    Time timeout = Conf.getTaskTimeout();
+    try {
+      return task.get(timeout.getValue(), timeout.getUnit());
+    } catch (InterruptedException e) {
+      task.cancel(true);
+      throw new ThreadInterruptedException(e);
+    } catch (ExecutionException e) {
+      throw new ConcurrencyException("Error occured awaiting type inference result", e);
+    } catch (TimeoutException e) {
+      task.cancel(true);
+      throw new ConcurrencyException("Timeout awaiting type inference result", e);
+    }
+  }
+  
+  // ==========================================================================
+  
+  /**
+   * Recursively splits a range of columns in two halves, until a range holds no more columns than the
+   * partition size.
+   */
+  private static class TallyTask extends RecursiveTask<long[][]> {
+    
+    private static final long serialVersionUID = 1L;
+    
+    private List<Line> lines;
+    private int        start, end, partitionSize;
+    
+    private TallyTask(List<Line> lines, int start, int end, int partitionSize) {
+      this.lines         = lines;
+      this.start         = start;
+      this.end           = end;
+      this.partitionSize = partitionSize;
+    }
+    
+    @Override
+    protected long[][] compute() {
+      if (end - start <= partitionSize) {
+        return tally(lines, start, end);
+      }
+      int       middle = start + (end - start) / 2;
+      TallyTask left   = new TallyTask(lines, start, middle, partitionSize);
+      TallyTask right  = new TallyTask(lines, middle, end, partitionSize);
+      right.fork();
+      long[][] leftTallies  = left.compute();
+      long[][] rightTallies = right.join();
+      long[][] tallies      = new long[end - start][];
+      System.arraycopy(leftTallies, 0, tallies, 0, leftTallies.length);
+      System.arraycopy(rightTallies, 0, tallies, leftTallies.length, rightTallies.length);
+      return tallies;
+    }
+  }
 }
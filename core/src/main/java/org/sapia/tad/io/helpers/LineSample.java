@@ -0,0 +1,73 @@
+package org.sapia.tad.io.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.sapia.tad.util.Checks;
+
+/**
+ * Samples the {@link Line}s of some input, as they're read: the first lines (the head) are all kept, and
+ * a fixed number of the lines that follow are kept at random (each having the same probability of being
+ * kept), using reservoir sampling. Memory thus remains bounded, whatever the size of the input.
+ *
+ * @author yduchesne
+ *
+ */
+public class LineSample {
+
+  private int        headSize;
+  private int        reservoirSize;
+  private Random     random;
+  private List<Line> head      = new ArrayList<>();
+  private List<Line> reservoir = new ArrayList<>();
+  private long       count;
+
+  /**
+   * @param headSize the number of lines to keep from the head of the input.
+   * @param reservoirSize the number of lines to keep at random, from the lines that follow the head.
+   * @param random the {@link Random} to use to select lines.
+   */
+  public LineSample(int headSize, int reservoirSize, Random random) {
+    Checks.isTrue(headSize >= 0, "Head size must be positive (got %s)", headSize);
+    Checks.isTrue(reservoirSize >= 0, "Reservoir size must be positive (got %s)", reservoirSize);
+    this.headSize      = headSize;
+    this.reservoirSize = reservoirSize;
+    this.random        = random;
+  }
+
+  /**
+   * @param line a {@link Line} to sample.
+   */
+  public void add(Line line) {
+    count++;
+    if (head.size() < headSize) {
+      head.add(line);
+    } else if (reservoir.size() < reservoirSize) {
+      reservoir.add(line);
+    } else if (reservoirSize > 0) {
+      // the n-th line that follows the head replaces a kept line with a probability of reservoirSize / n
+      long index = (long) (random.nextDouble() * (count - headSize));
+      if (index < reservoirSize) {
+        reservoir.set((int) index, line);
+      }
+    }
+  }
+
+  /**
+   * @return the sampled {@link Line}s: the head, followed by the ones that were selected at random.
+   */
+  public List<Line> getLines() {
+    List<Line> lines = new ArrayList<>(head.size() + reservoir.size());
+    lines.addAll(head);
+    lines.addAll(reservoir);
+    return lines;
+  }
+
+  /**
+   * @return the total number of lines that were added to this instance.
+   */
+  public long getCount() {
+    return count;
+  }
+}
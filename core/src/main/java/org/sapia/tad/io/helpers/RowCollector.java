@@ -0,0 +1,84 @@
+package org.sapia.tad.io.helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.Vector;
+import org.sapia.tad.impl.DefaultDataset;
+import org.sapia.tad.impl.DefaultVector;
+import org.sapia.tad.impl.columnar.ColumnarDatasetBuilder;
+import org.sapia.tad.value.Value;
+
+/**
+ * Collects the rows read from a dataset input, and creates the corresponding {@link Dataset}:
+ * either a row-oriented {@link DefaultDataset}, or a {@link org.sapia.tad.impl.columnar.ColumnarDataset}.
+ *
+ * @author yduchesne
+ *
+ */
+public abstract class RowCollector {
+
+  /**
+   * @param values the {@link Value}s of the row to add (<code>null</code>s are accepted).
+   */
+  public abstract void add(Value[] values);
+
+  /**
+   * @return the number of rows collected so far.
+   */
+  public abstract int size();
+
+  /**
+   * @return the {@link Dataset} holding the rows that were collected.
+   */
+  public abstract Dataset build();
+
+  // --------------------------------------------------------------------------
+
+  /**
+   * @param columns the {@link ColumnSet} of the rows to collect.
+   * @param columnar if <code>true</code>, indicates that a columnar dataset should be built.
+   * @return a new instance of this class.
+   */
+  public static RowCollector newInstance(final ColumnSet columns, boolean columnar) {
+    if (columnar) {
+      final ColumnarDatasetBuilder builder = new ColumnarDatasetBuilder(columns);
+      return new RowCollector() {
+        @Override
+        public void add(Value[] values) {
+          builder.row(values);
+        }
+
+        @Override
+        public int size() {
+          return builder.size();
+        }
+
+        @Override
+        public Dataset build() {
+          return builder.build();
+        }
+      };
+    } else {
+      final List<Vector> rows = new ArrayList<>();
+      return new RowCollector() {
+        @Override
+        public void add(Value[] values) {
+          rows.add(new DefaultVector(values));
+        }
+
+        @Override
+        public int size() {
+          return rows.size();
+        }
+
+        @Override
+        public Dataset build() {
+          return new DefaultDataset(columns, rows);
+        }
+      };
+    }
+  }
+}
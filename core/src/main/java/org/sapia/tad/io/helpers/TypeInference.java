@@ -0,0 +1,90 @@
+package org.sapia.tad.io.helpers;
+
+import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
+
+/**
+ * Holds the result of inferring the types of columns from a sample of lines: the inferred {@link ColumnSet},
+ * together with the confidence of the type inferred for each column.
+ * <p>
+ * The confidence of a column is the ratio of its sampled non-blank values that can be parsed according
+ * to its inferred type (it is 0 for columns that have no such values, whose type defaults to string).
+ *
+ * @see ColumnTypeGuesser#inferColumnTypes(String[], java.util.List, long, double)
+ *
+ * @author yduchesne
+ *
+ */
+public class TypeInference {
+
+  private ColumnSet columns;
+  private double[]  confidences;
+  private int       sampledLines;
+  private long      totalLines;
+
+  /**
+   * @param columns the inferred {@link ColumnSet}.
+   * @param confidences the confidence of each column's type, indexed by column.
+   * @param sampledLines the number of lines from which types were inferred.
+   * @param totalLines the total number of lines from which the sampled lines were selected.
+   */
+  public TypeInference(ColumnSet columns, double[] confidences, int sampledLines, long totalLines) {
+    this.columns      = columns;
+    this.confidences  = confidences;
+    this.sampledLines = sampledLines;
+    this.totalLines   = totalLines;
+  }
+
+  /**
+   * @return the inferred {@link ColumnSet}.
+   */
+  public ColumnSet getColumnSet() {
+    return columns;
+  }
+
+  /**
+   * @param columnIndex the index of a column.
+   * @return the confidence of the given column's inferred type, between 0 and 1.
+   */
+  public double getConfidence(int columnIndex) {
+    return confidences[columnIndex];
+  }
+
+  /**
+   * @param columnName the name of a column.
+   * @return the confidence of the given column's inferred type, between 0 and 1.
+   * @throws IllegalArgumentException if no such column exists.
+   */
+  public double getConfidence(String columnName) throws IllegalArgumentException {
+    return confidences[columns.get(columnName).getIndex()];
+  }
+
+  /**
+   * @return the number of lines from which types were inferred.
+   */
+  public int getSampledLines() {
+    return sampledLines;
+  }
+
+  /**
+   * @return the total number of lines from which the sampled lines were selected.
+   */
+  public long getTotalLines() {
+    return totalLines;
+  }
+
+  // --------------------------------------------------------------------------
+  // Object overrides
+
+  @Override
+  public String toString() {
+    StringBuilder s = new StringBuilder();
+    s.append("Sampled ").append(sampledLines).append(" of ").append(totalLines).append(" lines");
+    for (Column c : columns) {
+      s.append(System.lineSeparator())
+       .append(c.getName()).append(": ").append(c.getType())
+       .append(String.format(" (confidence: %.1f%%)", confidences[c.getIndex()] * 100));
+    }
+    return s.toString();
+  }
+}
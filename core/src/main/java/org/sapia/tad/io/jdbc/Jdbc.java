@@ -3,8 +3,7 @@ package org.sapia.tad.io.jdbc;
 import org.sapia.tad.*;
 import org.sapia.tad.impl.DefaultColumn;
 import org.sapia.tad.impl.DefaultColumnSet;
-import org.sapia.tad.impl.DefaultDataset;
-import org.sapia.tad.impl.DefaultVector;
+import org.sapia.tad.io.helpers.RowCollector;
 import org.sapia.tad.util.Checks;
 import org.sapia.tad.value.DateValue;
 import org.sapia.tad.value.NumericValue;
@@ -35,6 +34,10 @@ import java.util.List;
  *    someDbConnection.close();
  * }
  * </pre>
+ * 
+ * Calling {@link #columnar()} on the builder (or using {@link #dataset(ResultSet, boolean)}) results
+ * in the creation of a {@link org.sapia.tad.impl.columnar.ColumnarDataset}, which holds its data
+ * in primitive arrays.
  *   
  * @author yduchesne
  *
@@ -43,6 +46,7 @@ public class Jdbc {
 
   private Connection connection;
   private String     select;
+  private boolean    columnar;
   
   private Jdbc() {
   }
@@ -66,6 +70,16 @@ public class Jdbc {
     return this;
   }
   
+  /**
+   * Indicates that the dataset should be stored column by column, in primitive arrays.
+   * 
+   * @return this instance.
+   */
+  public Jdbc columnar() {
+    this.columnar = true;
+    return this;
+  }
+  
   /**
    * This method builds a {@link Dataset} using the configured database {@link Connection} and
    * select statement.
@@ -81,7 +95,7 @@ public class Jdbc {
     PreparedStatement statement = connection.prepareStatement(select);
     try {
       ResultSet resultset = statement.executeQuery();
-      return dataset(resultset);
+      return dataset(resultset, columnar);
     } finally {
       try {
         statement.close();
@@ -101,8 +115,23 @@ public class Jdbc {
    * @throws SQLException
    */
   public static Dataset dataset(ResultSet resultset) throws SQLException {
+    return dataset(resultset, false);
+  }
+  
+  /**
+   * This method creates a {@link Dataset} out of the given {@link ResultSet}.
+   * <p>
+   * It closes the resultet prior to returning.
+   * 
+   * @param resultset a {@link ResultSet}.
+   * @param columnar if <code>true</code>, indicates that a {@link org.sapia.tad.impl.columnar.ColumnarDataset}
+   * should be created.
+   * @return the {@link Dataset} that created from the given resultset.
+   * @throws SQLException
+   */
+  public static Dataset dataset(ResultSet resultset, boolean columnar) throws SQLException {
     try {
-      return createDataset(resultset);
+      return createDataset(resultset, columnar);
     } finally {
       try {
         resultset.close();
@@ -119,12 +148,12 @@ public class Jdbc {
     return new Jdbc();
   }
   
-  private static Dataset createDataset(ResultSet resultset) throws SQLException {
+  private static Dataset createDataset(ResultSet resultset, boolean columnar) throws SQLException {
     
     int columnCount = resultset.getMetaData().getColumnCount();
     List<Column> columns = new ArrayList<>();
     
-    for (int index = 0, i = 0; i < columnCount; i++) {
+    for (int index = 0, i = 1; i <= columnCount; i++) {
       String name = resultset.getMetaData().getColumnName(i);
       Datatype type;
       int    jdbcType = resultset.getMetaData().getColumnType(i);
@@ -148,6 +177,7 @@ public class Jdbc {
         case Types.TIME:
         case Types.TIMESTAMP:
           type = Datatype.DATE;
+          break;
         default:
           continue;
       }
@@ -156,27 +186,30 @@ public class Jdbc {
     
     ColumnSet columnSet = new DefaultColumnSet(columns);
     
-    List<Vector> rows = new ArrayList<>();
+    RowCollector rows = RowCollector.newInstance(columnSet, columnar);
     while (resultset.next()) {
       Value[] values = new Value[columnSet.size()];
       for (Column col : columnSet) {
         switch (col.getType()) {
           case DATE:
-            values[col.getIndex()] = new DateValue((resultset.getDate(col.getName())));
+            Timestamp time = resultset.getTimestamp(col.getName());
+            values[col.getIndex()] = time == null ? null : new DateValue(time.getTime());
             break;
           case NUMERIC:
-            values[col.getIndex()] = new NumericValue(resultset.getDouble(col.getName()));
+            double number = resultset.getDouble(col.getName());
+            values[col.getIndex()] = resultset.wasNull() ? null : new NumericValue(number);
             break;
           case STRING:
-            values[col.getIndex()] = new StringValue(resultset.getString(col.getName()));
+            String str = resultset.getString(col.getName());
+            values[col.getIndex()] = str == null ? null : new StringValue(str);
             break;
           default:
             throw new IllegalArgumentException(String.format("Datatype %s not handled for column %s", col.getType(), col.getName()));
         }
       }
-      rows.add(new DefaultVector(values));
+      rows.add(values);
     }
     
-    return new DefaultDataset(columnSet, rows);
+    return rows.build();
   }
 }
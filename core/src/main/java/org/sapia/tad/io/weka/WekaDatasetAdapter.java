@@ -22,8 +22,9 @@ import java.util.List;
  */
 public class WekaDatasetAdapter implements Dataset {
   
-  private Instances instances;
-  private ColumnSet columnSet;
+  private Instances          instances;
+  private ColumnSet          columnSet;
+  private NumericColumnCache numericColumns = new NumericColumnCache(this);
   
   /**
    * @param instances the {@link Instances} to wrap.
@@ -53,6 +54,16 @@ public class WekaDatasetAdapter implements Dataset {
     this.columnSet = new DefaultColumnSet(columns);
   }
   
+  @Override
+  public NumericColumn getNumericColumn(int colIndex) throws IllegalArgumentException {
+    return numericColumns.get(colIndex);
+  }
+  
+  @Override
+  public NumericColumn getNumericColumn(String name) throws IllegalArgumentException {
+    return numericColumns.get(columnSet.get(name).getIndex());
+  }
+  
   @Override
   public Vector getColumn(int colIndex) throws IllegalArgumentException {
     return null;
@@ -8,7 +8,6 @@ import org.sapia.tad.value.*;
 import weka.core.Attribute;
 import weka.core.Instance;
 
-import java.util.Date;
 import java.util.Iterator;
 
 /**
@@ -60,7 +59,7 @@ public class WekaVectorAdapter implements Vector {
       value = new NumericValue(instance.value(attr.index()));
     }
     if (!NullValue.isNull(value) && attr.type() == Attribute.DATE) {
-      value = new DateValue(new Date((long) value.get()));
+      value = new DateValue((long) value.get());
     } 
     return value;
   }
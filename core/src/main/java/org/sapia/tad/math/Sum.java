@@ -1,16 +1,19 @@
 package org.sapia.tad.math;
 
 import org.sapia.tad.Dataset;
+import org.sapia.tad.DatasetStream;
 import org.sapia.tad.computation.ComputationResults;
 import org.sapia.tad.computation.ComputationTask;
 import org.sapia.tad.computation.Computations;
-import org.sapia.tad.concurrent.Threading;
+import org.sapia.tad.computation.MergeableComputation;
 import org.sapia.tad.help.Doc;
 import org.sapia.tad.impl.DatasetRowSetAdapter;
 import org.sapia.tad.stat.MedianComputation;
 import org.sapia.tad.stat.MinMaxComputation;
 import org.sapia.tad.stat.SpreadStatsComputation;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -63,7 +66,7 @@ public class Sum {
   @Doc("Computes a sum for the given dataset - and for the specified columns")
   public static ComputationResults sum(@Doc("a dataset") Dataset dataset, @Doc("the column names") String...columnNames) 
       throws IllegalArgumentException, InterruptedException {
-    ComputationTask task = Computations.parallel(Threading.getThreadPool(), Threading.getTimeout());
+    ComputationTask task = Computations.forRows(dataset.size());
     sum(task);
     return task.compute(dataset.getColumnSet().includes(columnNames), new DatasetRowSetAdapter(dataset));
   }
@@ -78,8 +81,39 @@ public class Sum {
   @Doc("Computes a sum for all columns in the given dataset")
   public static ComputationResults sum(@Doc("a dataset") Dataset dataset) 
       throws IllegalArgumentException, InterruptedException {
-    ComputationTask task = Computations.parallel(Threading.getThreadPool(), Threading.getTimeout());
+    ComputationTask task = Computations.forRows(dataset.size());
     sum(task);
     return task.compute(dataset.getColumnSet(), new DatasetRowSetAdapter(dataset));
   }
+  
+  /**
+   * Computes the sum of the given columns over all batches of the given stream, in constant memory.
+   * The stream is closed once it has been consumed.
+   * 
+   * @param stream the {@link DatasetStream} for which to perform sum computation.
+   * @param columnNames the names of the columns to use.
+   * @return the {@link ComputationResults}.
+   * @throws IllegalArgumentException if an invalid argument has been passed.
+   * @throws IOException if an IO error occurs while reading the stream.
+   */
+  @Doc("Computes a sum for the given dataset stream - and for the specified columns")
+  public static ComputationResults sum(@Doc("a dataset stream") DatasetStream stream, @Doc("the column names") String...columnNames) 
+      throws IllegalArgumentException, IOException {
+    List<MergeableComputation<?>> computations = new ArrayList<>();
+    computations.add(new SumComputation());
+    return Computations.compute(stream, stream.getColumnSet().includes(columnNames), computations);
+  }
+  
+  /**
+   * @param stream the {@link DatasetStream} for which to perform sum computation.
+   * @return the {@link ComputationResults}.
+   * @throws IllegalArgumentException if an invalid argument has been passed.
+   * @throws IOException if an IO error occurs while reading the stream.
+   * @see #sum(DatasetStream, String...)
+   */
+  @Doc("Computes a sum for all columns in the given dataset stream")
+  public static ComputationResults sum(@Doc("a dataset stream") DatasetStream stream) 
+      throws IllegalArgumentException, IOException {
+    return sum(stream, stream.getColumnSet().getColumnNames().toArray(new String[stream.getColumnSet().size()]));
+  }
 }
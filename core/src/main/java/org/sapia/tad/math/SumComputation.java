@@ -1,23 +1,54 @@
 package org.sapia.tad.math;
 
 import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.NumericColumn;
+import org.sapia.tad.NumericColumns;
 import org.sapia.tad.RowSet;
-import org.sapia.tad.Vector;
-import org.sapia.tad.computation.Computation;
 import org.sapia.tad.computation.ComputationResult;
 import org.sapia.tad.computation.ComputationResults;
+import org.sapia.tad.computation.MergeableComputation;
 import org.sapia.tad.func.NoArgFunction;
 
 /**
- * Computes sums over dataset rows.
+ * Computes sums over dataset rows. The partial results of this computation consist of
+ * the sum of each column, in the order of the columns.
  * 
  * @author yduchesne
  *
  */
-public class SumComputation implements Computation {
+public class SumComputation implements MergeableComputation<double[]> {
   
   @Override
   public void compute(ComputationResults context, RowSet rowSet) {
+    complete(context, computePartial(context.getColumnSet(), rowSet));
+  }
+  
+  @Override
+  public double[] computePartial(ColumnSet columns, RowSet rows) {
+    double[] totals = new double[columns.size()];
+    int      c      = 0;
+    for (Column col : columns) {
+      NumericColumn values = NumericColumns.of(rows, col.getIndex());
+      double        total  = 0;
+      for (int i = 0; i < values.size(); i++) {
+        total += values.getDouble(i);
+      }
+      totals[c++] = total;
+    }
+    return totals;
+  }
+  
+  @Override
+  public double[] merge(double[] partial, double[] other) {
+    for (int i = 0; i < partial.length; i++) {
+      partial[i] += other[i];
+    }
+    return partial;
+  }
+  
+  @Override
+  public void complete(ComputationResults context, double[] partial) {
     ComputationResult sum = context.get("sum");
     
     NoArgFunction<SumValue> func = new NoArgFunction<SumValue>() {
@@ -27,11 +58,10 @@ public class SumComputation implements Computation {
       }
     };
     
-    for (Vector row : rowSet) {
-      for (Column col : context.getColumnSet()) {
-        SumValue sumValue = sum.get(col, func);
-        sumValue.add(row.get(col.getIndex()));
-      }
+    int c = 0;
+    for (Column col : context.getColumnSet()) {
+      SumValue sumValue = sum.get(col, func);
+      sumValue.increase(partial[c++]);
     }
   }
 
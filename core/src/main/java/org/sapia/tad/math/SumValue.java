@@ -1,10 +1,17 @@
 package org.sapia.tad.math;
 
+import org.sapia.tad.computation.Accumulator;
 import org.sapia.tad.value.MutableNumericValue;
 import org.sapia.tad.value.NumericValue;
 import org.sapia.tad.value.Value;
 
-public class SumValue extends MutableNumericValue {
+/**
+ * An {@link Accumulator} that computes a sum.
+ * 
+ * @author yduchesne
+ *
+ */
+public class SumValue extends MutableNumericValue implements Accumulator<SumValue> {
   
   /**
    * @param value adds the given value to this instance.
@@ -14,5 +21,31 @@ public class SumValue extends MutableNumericValue {
     super.set(get() + NumericValue.doubleOrZero(value).get());
     return this;
   }
+  
+  // --------------------------------------------------------------------------
+  // Accumulator interface
+  
+  @Override
+  public SumValue init() {
+    super.set(0);
+    return this;
+  }
+  
+  @Override
+  public SumValue accumulate(double value) {
+    super.increase(value);
+    return this;
+  }
+  
+  @Override
+  public SumValue mergeWith(SumValue other) {
+    super.increase(other.get());
+    return this;
+  }
+  
+  @Override
+  public Value finish() {
+    return new NumericValue(get());
+  }
 
 }
@@ -1,32 +1,415 @@
 package org.sapia.tad.parser;
 
 import org.sapia.tad.conf.Conf;
+import org.sapia.tad.util.Checks;
 import org.sapia.tad.value.DateValue;
 import org.sapia.tad.value.Value;
 
 import java.text.DateFormat;
-import java.text.ParseException;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQueries;
+import java.time.zone.ZoneOffsetTransition;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
 
 /**
- * Parses date content.
- * 
+ * Parses date content, given the {@link DateFormat}s returned by {@link Conf#getDateFormats()}.
+ * <p>
+ * The patterns of the formats are compiled once: patterns that consist of fixed-width numeric fields only (such
+ * as the ISO-8601-like default ones) are matched by hand-written code, other ones by {@link DateTimeFormatter}s.
+ * In both cases, no exception is thrown internally when content does not match a pattern exactly. Formats that
+ * are not {@link SimpleDateFormat}s, or whose pattern holds letters which {@link DateTimeFormatter} interprets
+ * differently, are used as is (access to them is synchronized).
+ * <p>
+ * Content that matches none of the patterns exactly is then parsed by the formats themselves, in order, as with
+ * {@link DateFormat#parse(String)}: content such as <code>2014-1-5 1:2:3</code>, <code>2014-13-01 00:00:00</code>
+ * (which a lenient format rolls over to the next year) or a date followed by other text is thus still accepted
+ * with the default formats. Only that slower path involves locking, and it is skipped for content that cannot
+ * match a format's pattern: content that lacks the pattern's literals (in order), or that holds fewer digits
+ * than the pattern has numeric fields - as is the case of most numbers and text.
+ * <p>
+ * Times that precede the Gregorian cutover (in 1582) are computed by the formats themselves, as are times
+ * that precede 1900 or the first transition of the format's time zone (before which {@link java.time} uses
+ * local mean time), or that follow 2037, for zones that have transitions: {@link java.time} computes such
+ * times differently.
+ * <p>
+ * An instance remembers the pattern that last matched, and tries it first: since a column's dates usually
+ * share the same pattern, a distinct instance should be used per column. An instance created with
+ * {@link #DateParser()} recompiles its patterns whenever the formats returned by {@link Conf#getDateFormats()}
+ * change (formats are compared by identity: a format modified in place is not detected). Instances are
+ * thread-safe.
+ *
  * @author yduchesne
  *
  */
 public class DateParser implements Parser {
-  
+
+  // the pattern letters that have the same meaning for SimpleDateFormat and DateTimeFormatter
+  private static final String PORTABLE_LETTERS = "GyMdEaHhKkmsSzZX";
+
+  // the pattern letters of numeric fields (M being numeric if repeated less than 3 times)
+  private static final String NUMERIC_LETTERS = "yYMdHhKkmsSDFwWu";
+
+  // 1582-10-15T00:00:00Z
+  private static final long GREGORIAN_CUTOVER = -12219292800000L;
+
+  // 1900-01-01T00:00:00Z
+  private static final long UTC_1900 = -2208988800000L;
+
+  // 2037-01-01T00:00:00Z
+  private static final long UTC_2037 = 2114380800000L;
+
+  private static final long MILLIS_PER_DAY = 86400000L;
+
+  private boolean           configured;
+  private volatile Patterns patterns;
+  private volatile int      last;
+
+  /**
+   * Creates an instance using the {@link DateFormat}s returned by {@link Conf#getDateFormats()}, at the time
+   * of parsing.
+   */
+  public DateParser() {
+    this.configured = true;
+    this.patterns   = new Patterns(Conf.getDateFormats());
+  }
+
+  /**
+   * @param dateFormats the {@link DateFormat}s whose patterns should be used to parse dates, in the order in
+   * which they should be tried.
+   */
+  public DateParser(List<DateFormat> dateFormats) {
+    this.patterns = new Patterns(dateFormats);
+  }
+
   @Override
   public Value parse(String content) {
-    for (DateFormat format : Conf.getDateFormats()) {
-      synchronized (format) {
+    return new DateValue(parseTime(content));
+  }
+
+  /**
+   * @param content some content.
+   * @return the time corresponding to the given content, in milliseconds since the epoch.
+   * @throws IllegalArgumentException if the given content does not correspond to a date.
+   */
+  public long parseTime(String content) throws IllegalArgumentException {
+    long time = time(content);
+    Checks.isTrue(time != DateTemplate.NO_MATCH, "Could not parse date: %s", content);
+    return time;
+  }
+
+  /**
+   * @param content some content.
+   * @return <code>true</code> if the given content corresponds to a date.
+   */
+  public boolean isDate(String content) {
+    return time(content) != DateTemplate.NO_MATCH;
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  private long time(String content) {
+    Patterns current = patterns();
+    Format[] formats = current.formats;
+    if (formats.length == 0) {
+      return DateTemplate.NO_MATCH;
+    }
+    // the last index may stem from patterns that have since been replaced
+    int  start = Math.min(last, formats.length - 1);
+    long time  = formats[start].parseTime(content);
+    for (int i = 0; i < formats.length && time == DateTemplate.NO_MATCH; i++) {
+      if (i != start) {
+        time = formats[i].parseTime(content);
+        if (time != DateTemplate.NO_MATCH) {
+          last = i;
+        }
+      }
+    }
+    for (int i = 0; i < formats.length && time == DateTemplate.NO_MATCH; i++) {
+      if (current.fallbacks[i] != null) {
+        time = current.fallbacks[i].parseTime(content);
+      }
+    }
+    return time;
+  }
+
+  private Patterns patterns() {
+    Patterns current = patterns;
+    if (configured) {
+      List<DateFormat> dateFormats = Conf.getDateFormats();
+      if (!current.isFor(dateFormats)) {
+        current  = new Patterns(dateFormats);
+        patterns = current;
+      }
+    }
+    return current;
+  }
+
+  // returns the given legacy format if its pattern cannot be compiled
+  private static Format compile(LegacyFormat legacy) {
+    if (legacy.format instanceof SimpleDateFormat) {
+      String       pattern  = ((SimpleDateFormat) legacy.format).toPattern();
+      ZoneId       zone     = legacy.format.getTimeZone().toZoneId();
+      DateTemplate template = DateTemplate.compile(pattern, zone);
+      if (template != null) {
+        return new TemplateFormat(template, legacy, legacyBefore(zone), legacyFrom(zone));
+      } else if (isPortable(pattern)) {
         try {
-          return new DateValue(format.parse(content));
-        } catch (ParseException e) {
-          // noop: trying next
+          return new FormatterFormat(new DateTimeFormatterBuilder()
+              .parseCaseInsensitive()
+              .appendPattern(pattern)
+              .toFormatter(Locale.getDefault(Locale.Category.FORMAT))
+              .withZone(zone), legacy, legacyBefore(zone), legacyFrom(zone));
+        } catch (IllegalArgumentException e) {
+          // noop: using the format as is
+        }
+      }
+    }
+    return legacy;
+  }
+
+  // returns the time before which java.time and SimpleDateFormat may disagree, for the given zone: java.time uses
+  // the proleptic Gregorian calendar, and all of the zone's transitions (with local mean time before the first
+  // one), whereas the zones of SimpleDateFormat ignore transitions prior to 1900 (a day is added, to account
+  // for offsets)
+  private static long legacyBefore(ZoneId zone) {
+    long                       before      = GREGORIAN_CUTOVER;
+    List<ZoneOffsetTransition> transitions = zone.getRules().getTransitions();
+    if (!transitions.isEmpty()) {
+      before = Math.max(UTC_1900, transitions.get(0).toEpochSecond() * 1000);
+    }
+    return before + MILLIS_PER_DAY;
+  }
+
+  // returns the time from which java.time and SimpleDateFormat may disagree, for the given zone: the zones of
+  // SimpleDateFormat hold transitions up to 2037 only, and approximate the ones that follow
+  private static long legacyFrom(ZoneId zone) {
+    return zone.getRules().getTransitions().isEmpty() ? Long.MAX_VALUE : UTC_2037 - MILLIS_PER_DAY;
+  }
+
+  private static boolean isPortable(String pattern) {
+    boolean quoted = false;
+    for (int i = 0; i < pattern.length(); i++) {
+      char c = pattern.charAt(i);
+      if (c == '\'') {
+        quoted = !quoted;
+      } else if (!quoted && ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) && PORTABLE_LETTERS.indexOf(c) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // ==========================================================================
+
+  /**
+   * Holds the compiled patterns of given {@link DateFormat}s, as well as the formats with which to parse
+   * content that matches none of these patterns exactly.
+   */
+  private static class Patterns {
+
+    private DateFormat[]   dateFormats;
+    private Format[]       formats;
+    // null where the format is already used as is
+    private LegacyFormat[] fallbacks;
+
+    private Patterns(List<DateFormat> dateFormats) {
+      this.dateFormats = dateFormats.toArray(new DateFormat[dateFormats.size()]);
+      this.formats     = new Format[this.dateFormats.length];
+      this.fallbacks   = new LegacyFormat[this.dateFormats.length];
+      for (int i = 0; i < formats.length; i++) {
+        LegacyFormat legacy = new LegacyFormat(this.dateFormats[i]);
+        formats[i] = compile(legacy);
+        if (formats[i] != legacy) {
+          fallbacks[i] = legacy;
+        }
+      }
+    }
+
+    private boolean isFor(List<DateFormat> others) {
+      if (others.size() != dateFormats.length) {
+        return false;
+      }
+      for (int i = 0; i < dateFormats.length; i++) {
+        if (others.get(i) != dateFormats[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  // --------------------------------------------------------------------------
+
+  /**
+   * Parses times according to a given date pattern.
+   */
+  private static abstract class Format {
+
+    /**
+     * @param content some content.
+     * @return the time corresponding to the given content, in milliseconds since the epoch, or
+     * {@link DateTemplate#NO_MATCH} if the content does not match this instance's pattern.
+     */
+    abstract long parseTime(String content);
+  }
+
+  // --------------------------------------------------------------------------
+
+  private static class TemplateFormat extends Format {
+
+    private DateTemplate template;
+    private LegacyFormat legacy;
+    private long         legacyBefore, legacyFrom;
+
+    private TemplateFormat(DateTemplate template, LegacyFormat legacy, long legacyBefore, long legacyFrom) {
+      this.template     = template;
+      this.legacy       = legacy;
+      this.legacyBefore = legacyBefore;
+      this.legacyFrom   = legacyFrom;
+    }
+
+    @Override
+    long parseTime(String content) {
+      long time = template.parseTime(content);
+      if (time != DateTemplate.NO_MATCH && (time < legacyBefore || time >= legacyFrom)) {
+        return legacy.parseTime(content);
+      }
+      return time;
+    }
+  }
+
+  // --------------------------------------------------------------------------
+
+  private static class FormatterFormat extends Format {
+
+    private DateTimeFormatter formatter;
+    private LegacyFormat      legacy;
+    private long              legacyBefore, legacyFrom;
+
+    private FormatterFormat(DateTimeFormatter formatter, LegacyFormat legacy, long legacyBefore, long legacyFrom) {
+      this.formatter    = formatter;
+      this.legacy       = legacy;
+      this.legacyBefore = legacyBefore;
+      this.legacyFrom   = legacyFrom;
+    }
+
+    @Override
+    long parseTime(String content) {
+      long time = resolve(content);
+      if (time != DateTemplate.NO_MATCH && (time < legacyBefore || time >= legacyFrom)) {
+        return legacy.parseTime(content);
+      }
+      return time;
+    }
+
+    private long resolve(String content) {
+      // checking that the content matches first, since resolving content that does not match throws an exception
+      ParsePosition pos = new ParsePosition(0);
+      if (formatter.parseUnresolved(content, pos) == null || pos.getIndex() != content.length()) {
+        return DateTemplate.NO_MATCH;
+      }
+      try {
+        TemporalAccessor parsed = formatter.parse(content);
+        if (parsed.isSupported(ChronoField.INSTANT_SECONDS)) {
+          return parsed.getLong(ChronoField.INSTANT_SECONDS) * 1000 + parsed.getLong(ChronoField.MILLI_OF_SECOND);
         }
+        LocalDate date = parsed.query(TemporalQueries.localDate());
+        return date == null ? DateTemplate.NO_MATCH : date.atStartOfDay(formatter.getZone()).toInstant().toEpochMilli();
+      } catch (DateTimeException e) {
+        return DateTemplate.NO_MATCH;
       }
     }
-    throw new IllegalArgumentException("Could not parse date: " + content);
   }
 
+  // --------------------------------------------------------------------------
+
+  private static class LegacyFormat extends Format {
+
+    private DateFormat format;
+    // the literals that content must hold, in order, and the minimum number of digits that it must hold
+    private String     literals = "";
+    private int        digits;
+
+    private LegacyFormat(DateFormat format) {
+      this.format = format;
+      if (format instanceof SimpleDateFormat) {
+        scan(((SimpleDateFormat) format).toPattern());
+      }
+    }
+
+    @Override
+    long parseTime(String content) {
+      if (!mayMatch(content)) {
+        return DateTemplate.NO_MATCH;
+      }
+      synchronized (format) {
+        Date date = format.parse(content, new ParsePosition(0));
+        return date == null ? DateTemplate.NO_MATCH : date.getTime();
+      }
+    }
+
+    private void scan(String pattern) {
+      StringBuilder expected = new StringBuilder();
+      for (int i = 0; i < pattern.length(); ) {
+        char c = pattern.charAt(i);
+        if (c == '\'') {
+          int end = pattern.indexOf('\'', i + 1);
+          if (end < 0) {
+            // not expecting anything from a malformed pattern
+            literals = "";
+            digits   = 0;
+            return;
+          } else if (end == i + 1) {
+            expected.append('\'');
+          } else {
+            expected.append(pattern, i + 1, end);
+          }
+          i = end + 1;
+        } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+          int count = 1;
+          while (i + count < pattern.length() && pattern.charAt(i + count) == c) {
+            count++;
+          }
+          if (NUMERIC_LETTERS.indexOf(c) >= 0 && (c != 'M' || count < 3)) {
+            digits++;
+          }
+          i += count;
+        } else {
+          expected.append(c);
+          i++;
+        }
+      }
+      literals = expected.toString();
+    }
+
+    // SimpleDateFormat matches literals exactly, and requires at least one digit per numeric field
+    private boolean mayMatch(String content) {
+      int from = 0;
+      for (int i = 0; i < literals.length(); i++) {
+        from = content.indexOf(literals.charAt(i), from) + 1;
+        if (from == 0) {
+          return false;
+        }
+      }
+      int count = 0;
+      for (int i = 0; i < content.length() && count < digits; i++) {
+        if (Character.isDigit(content.charAt(i))) {
+          count++;
+        }
+      }
+      return count >= digits;
+    }
+
+  }
 }
@@ -0,0 +1,179 @@
+package org.sapia.tad.parser;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.chrono.IsoChronology;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+/**
+ * Parses dates whose pattern consists of fixed-width numeric fields and literals only (such as
+ * <code>yyyy-MM-dd'T'HH:mm:ss.SSS'Z'</code> or <code>yyyyMMddHHmmss</code>), without creating intermediate
+ * objects: the content is matched character by character, and the time is computed arithmetically.
+ * <p>
+ * The following fields are supported: <code>yyyy</code>, <code>MM</code>, <code>dd</code>, <code>HH</code>,
+ * <code>mm</code>, <code>ss</code>, <code>SSS</code>. Fields are validated strictly (a month must be between
+ * 1 and 12, a day must exist in its month, etc.): content that does not match exactly is left to the lenient
+ * {@link java.text.SimpleDateFormat} from which a template is compiled (see {@link DateParser}). Quoted text is matched literally - just as
+ * {@link java.text.SimpleDateFormat} does, a quoted <code>'Z'</code> does not imply UTC: the time zone
+ * with which a template is created always applies.
+ * <p>
+ * Times are computed in the proleptic Gregorian calendar, with the offsets of {@link java.time}: they may thus
+ * differ from the ones of {@link java.text.SimpleDateFormat} before the Gregorian cutover, and before 1900 or
+ * the first transition of a zone, or after 2037 (see {@link DateParser}, which then defers to the format).
+ *
+ * @author yduchesne
+ *
+ */
+class DateTemplate {
+
+  /**
+   * Returned by {@link #parseTime(String)} when the content does not match a template.
+   */
+  static final long NO_MATCH = Long.MIN_VALUE;
+
+  private static final int SECONDS_PER_DAY = 86400;
+
+  private static final int[] DAYS_PER_MONTH = { 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31 };
+
+  // the expected characters, '\0' corresponding to digits
+  private char[]    literals;
+  // the offsets of the fields, -1 corresponding to fields that are absent
+  private int       year, month, day, hour, minute, second, milli;
+  private ZoneRules rules;
+  private int       fixedOffset;
+
+  private DateTemplate(char[] literals, int[] fields, ZoneId zone) {
+    this.literals = literals;
+    this.year     = fields[0];
+    this.month    = fields[1];
+    this.day      = fields[2];
+    this.hour     = fields[3];
+    this.minute   = fields[4];
+    this.second   = fields[5];
+    this.milli    = fields[6];
+    this.rules    = zone.getRules();
+    if (rules.isFixedOffset()) {
+      fixedOffset = rules.getOffset(Instant.EPOCH).getTotalSeconds();
+    }
+  }
+
+  /**
+   * @param pattern a {@link java.text.SimpleDateFormat} pattern.
+   * @param zone the {@link ZoneId} of the times to parse.
+   * @return a new {@link DateTemplate}, or <code>null</code> if the given pattern holds fields other than
+   * fixed-width numeric ones, or if it lacks the year, month or day.
+   */
+  static DateTemplate compile(String pattern, ZoneId zone) {
+    StringBuilder literals = new StringBuilder();
+    int[]         fields   = { -1, -1, -1, -1, -1, -1, -1 };
+    for (int i = 0; i < pattern.length(); ) {
+      char c = pattern.charAt(i);
+      if (c == '\'') {
+        int end = pattern.indexOf('\'', i + 1);
+        if (end < 0) {
+          return null;
+        } else if (end == i + 1) {
+          literals.append('\'');
+        } else if (end + 1 < pattern.length() && pattern.charAt(end + 1) == '\'') {
+          // quotes within quoted text are not supported
+          return null;
+        } else {
+          literals.append(pattern, i + 1, end);
+        }
+        i = end + 1;
+      } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+        int count = 1;
+        while (i + count < pattern.length() && pattern.charAt(i + count) == c) {
+          count++;
+        }
+        int field = "yMdHmsS".indexOf(c);
+        if (field < 0 || count != (c == 'y' ? 4 : c == 'S' ? 3 : 2) || fields[field] >= 0) {
+          return null;
+        }
+        fields[field] = literals.length();
+        for (int j = 0; j < count; j++) {
+          literals.append('\0');
+        }
+        i += count;
+      } else {
+        literals.append(c);
+        i++;
+      }
+    }
+    if (fields[0] < 0 || fields[1] < 0 || fields[2] < 0) {
+      return null;
+    }
+    return new DateTemplate(literals.toString().toCharArray(), fields, zone);
+  }
+
+  /**
+   * @param content the content to parse.
+   * @return the time corresponding to the given content, in milliseconds since the epoch, or {@link #NO_MATCH}
+   * if the content does not match this template.
+   */
+  long parseTime(String content) {
+    if (content.length() != literals.length) {
+      return NO_MATCH;
+    }
+    for (int i = 0; i < literals.length; i++) {
+      char c = content.charAt(i);
+      if (literals[i] == '\0' ? c < '0' || c > '9' : c != literals[i]) {
+        return NO_MATCH;
+      }
+    }
+    int y  = digits(content, year, 4);
+    int mo = digits(content, month, 2);
+    int d  = digits(content, day, 2);
+    int h  = hour < 0 ? 0 : digits(content, hour, 2);
+    int mi = minute < 0 ? 0 : digits(content, minute, 2);
+    int s  = second < 0 ? 0 : digits(content, second, 2);
+    int ms = milli < 0 ? 0 : digits(content, milli, 3);
+    if (mo < 1 || mo > 12 || d < 1 || d > daysInMonth(y, mo) || h > 23 || mi > 59 || s > 59) {
+      return NO_MATCH;
+    }
+    long local = epochDay(y, mo, d) * SECONDS_PER_DAY + h * 3600 + mi * 60 + s;
+    return (local - offset(local)) * 1000 + ms;
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  // returns the offset of the given local time, in seconds
+  private int offset(long local) {
+    if (rules.isFixedOffset()) {
+      return fixedOffset;
+    }
+    LocalDateTime        dateTime   = LocalDateTime.ofEpochSecond(local, 0, ZoneOffset.UTC);
+    ZoneOffsetTransition transition = rules.getTransition(dateTime);
+    // local times that occur twice get the later offset, as with SimpleDateFormat
+    if (transition != null && transition.isOverlap()) {
+      return transition.getOffsetAfter().getTotalSeconds();
+    }
+    return rules.getOffset(dateTime).getTotalSeconds();
+  }
+
+  private static int digits(String content, int from, int count) {
+    int value = 0;
+    for (int i = from; i < from + count; i++) {
+      value = value * 10 + content.charAt(i) - '0';
+    }
+    return value;
+  }
+
+  private static int daysInMonth(int year, int month) {
+    return month == 2 && IsoChronology.INSTANCE.isLeapYear(year) ? 29 : DAYS_PER_MONTH[month - 1];
+  }
+
+  // number of days between 1970-01-01 and the given date, in the proleptic Gregorian calendar
+  private static long epochDay(int year, int month, int day) {
+    long y   = month <= 2 ? year - 1 : year;
+    long era = (y >= 0 ? y : y - 399) / 400;
+    long yoe = y - era * 400;
+    long doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+    long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+    return era * 146097 + doe - 719468;
+  }
+}
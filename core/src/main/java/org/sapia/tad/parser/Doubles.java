@@ -0,0 +1,399 @@
+package org.sapia.tad.parser;
+
+import java.math.BigInteger;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses <code>double</code>s straight out of bytes (holding ASCII/UTF-8 text) or characters, without creating
+ * intermediate {@link String}s.
+ * <p>
+ * Decimal numbers having at most 15 significant digits and a moderate exponent are converted exactly,
+ * with a single floating-point multiplication or division (Clinger's fast path). Other decimal numbers having
+ * at most 18 significant digits are converted with the Eisel-Lemire algorithm: the mantissa is multiplied by a
+ * 128-bit approximation of the power of ten, which yields the correctly rounded result unless the product is
+ * too close to a halfway point. Remaining numbers (as well as <code>NaN</code>, <code>Infinity</code>,
+ * hexadecimal numbers, and numbers with a type suffix) are handed to {@link Double#parseDouble(String)}.
+ * <p>
+ * The <code>isDouble()</code> methods check if text corresponds to a number, without throwing exceptions.
+ *
+ * @author yduchesne
+ *
+ */
+public final class Doubles {
+
+  // 2^53: mantissas below this value are exactly representable as doubles.
+  private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+  // powers of 10 that are exactly representable as doubles.
+  private static final double[] POWERS_OF_TEN = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+    1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
+  private static final int MAX_EXACT_POWER = POWERS_OF_TEN.length - 1;
+
+  // the range of powers of 10 for which 128-bit approximations are kept (beyond it, a number with at
+  // most 19 significant digits is either 0 or infinite).
+  private static final int MIN_POWER = -348;
+  private static final int MAX_POWER = 347;
+
+  // the high and low 64 bits of the 128-bit approximations (rounded down) of the powers of 10, normalized
+  // so that their most significant bit is set.
+  private static final long[] POWERS_HIGH = new long[MAX_POWER - MIN_POWER + 1];
+  private static final long[] POWERS_LOW  = new long[MAX_POWER - MIN_POWER + 1];
+
+  static {
+    BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+    for (int p = MIN_POWER; p <= MAX_POWER; p++) {
+      BigInteger approximation;
+      if (p >= 0) {
+        BigInteger power = BigInteger.TEN.pow(p);
+        int        shift = power.bitLength() - 128;
+        approximation = shift >= 0 ? power.shiftRight(shift) : power.shiftLeft(-shift);
+      } else {
+        BigInteger power = BigInteger.TEN.pow(-p);
+        approximation = BigInteger.ONE.shiftLeft(127 + power.bitLength()).divide(power);
+      }
+      POWERS_HIGH[p - MIN_POWER] = approximation.shiftRight(64).longValue();
+      POWERS_LOW[p - MIN_POWER]  = approximation.and(mask).longValue();
+    }
+  }
+
+  private Doubles() {
+  }
+
+  /**
+   * @param bytes the bytes holding the text to parse.
+   * @param from the index of the first byte to parse (inclusive).
+   * @param to the index of the last byte to parse (exclusive).
+   * @return the <code>double</code> corresponding to the given text (leading and trailing
+   * whitespace is ignored).
+   * @throws NumberFormatException if the given text does not correspond to a number.
+   */
+  public static double parse(byte[] bytes, int from, int to) throws NumberFormatException {
+    double value = decimal(bytes, null, from, to);
+    if (Double.isNaN(value)) {
+      return Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+    }
+    return value;
+  }
+
+  /**
+   * @param chars the characters holding the text to parse.
+   * @param from the index of the first character to parse (inclusive).
+   * @param to the index of the last character to parse (exclusive).
+   * @return the <code>double</code> corresponding to the given text (leading and trailing
+   * whitespace is ignored).
+   * @throws NumberFormatException if the given text does not correspond to a number.
+   */
+  public static double parse(CharSequence chars, int from, int to) throws NumberFormatException {
+    double value = decimal(null, chars, from, to);
+    if (Double.isNaN(value)) {
+      return Double.parseDouble(chars.subSequence(from, to).toString());
+    }
+    return value;
+  }
+
+  /**
+   * @see #parse(CharSequence, int, int)
+   */
+  public static double parse(char[] chars, int from, int to) throws NumberFormatException {
+    return parse(CharBuffer.wrap(chars), from, to);
+  }
+
+  /**
+   * @param bytes the bytes holding the text to check.
+   * @param from the index of the first byte to check (inclusive).
+   * @param to the index of the last byte to check (exclusive).
+   * @return <code>true</code> if the given text corresponds to a number that
+   * {@link #parse(byte[], int, int)} accepts.
+   */
+  public static boolean isDouble(byte[] bytes, int from, int to) {
+    return isDouble(bytes, null, from, to);
+  }
+
+  /**
+   * @param chars the characters holding the text to check.
+   * @param from the index of the first character to check (inclusive).
+   * @param to the index of the last character to check (exclusive).
+   * @return <code>true</code> if the given text corresponds to a number that
+   * {@link #parse(CharSequence, int, int)} accepts.
+   */
+  public static boolean isDouble(CharSequence chars, int from, int to) {
+    return isDouble(null, chars, from, to);
+  }
+
+  /**
+   * @see #isDouble(CharSequence, int, int)
+   */
+  public static boolean isDouble(char[] chars, int from, int to) {
+    return isDouble(CharBuffer.wrap(chars), from, to);
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  // returns the character at the given index, in either the given bytes or characters (one of which is null)
+  private static char charAt(byte[] bytes, CharSequence chars, int i) {
+    return bytes != null ? (char) (bytes[i] & 0xFF) : chars.charAt(i);
+  }
+
+  // returns the value of the given decimal text, or NaN if it is not a decimal number that can be converted
+  // without resorting to Double.parseDouble().
+  private static double decimal(byte[] bytes, CharSequence chars, int from, int to) {
+    int start = from;
+    int end   = to;
+    while (start < end && charAt(bytes, chars, start) <= ' ') {
+      start++;
+    }
+    while (end > start && charAt(bytes, chars, end - 1) <= ' ') {
+      end--;
+    }
+    if (start == end) {
+      return Double.NaN;
+    }
+
+    int     i        = start;
+    boolean negative = false;
+    char    c        = charAt(bytes, chars, i);
+    if (c == '-' || c == '+') {
+      negative = c == '-';
+      i++;
+    }
+
+    long mantissa  = 0;
+    int  digits    = 0;
+    int  exponent  = 0;
+    int  digitsEnd = i;
+
+    // integer part
+    for (; i < end && isDigit(c = charAt(bytes, chars, i)); i++) {
+      if (mantissa != 0 || c != '0') {
+        digits++;
+      }
+      mantissa = mantissa * 10 + (c - '0');
+      if (digits > 18) {
+        return Double.NaN;
+      }
+    }
+    boolean hasDigits = i > digitsEnd;
+
+    // fractional part
+    if (i < end && charAt(bytes, chars, i) == '.') {
+      i++;
+      int fractionStart = i;
+      for (; i < end && isDigit(c = charAt(bytes, chars, i)); i++) {
+        if (mantissa != 0 || c != '0') {
+          digits++;
+        }
+        mantissa = mantissa * 10 + (c - '0');
+        exponent--;
+        if (digits > 18) {
+          return Double.NaN;
+        }
+      }
+      hasDigits = hasDigits || i > fractionStart;
+    }
+    if (!hasDigits) {
+      return Double.NaN;
+    }
+
+    // exponent
+    if (i < end && ((c = charAt(bytes, chars, i)) == 'e' || c == 'E')) {
+      i++;
+      boolean negativeExp = false;
+      if (i < end && ((c = charAt(bytes, chars, i)) == '-' || c == '+')) {
+        negativeExp = c == '-';
+        i++;
+      }
+      int expStart = i;
+      int exp      = 0;
+      for (; i < end && isDigit(c = charAt(bytes, chars, i)); i++) {
+        if (exp < 10000) {
+          exp = exp * 10 + (c - '0');
+        }
+      }
+      if (i == expStart) {
+        return Double.NaN;
+      }
+      exponent += negativeExp ? -exp : exp;
+    }
+    if (i != end) {
+      return Double.NaN;
+    }
+
+    if (mantissa == 0) {
+      return negative ? -0.0 : 0.0;
+    }
+    double value = mantissa < MAX_EXACT_MANTISSA ? fastPath(mantissa, exponent) : Double.NaN;
+    if (Double.isNaN(value)) {
+      value = eiselLemire(mantissa, exponent);
+    }
+    return negative ? -value : value;
+  }
+
+  // returns NaN if the value cannot be computed exactly.
+  private static double fastPath(long mantissa, int exponent) {
+    if (exponent == 0) {
+      return mantissa;
+    } else if (exponent < 0 && exponent >= -MAX_EXACT_POWER) {
+      return mantissa / POWERS_OF_TEN[-exponent];
+    } else if (exponent > 0 && exponent <= MAX_EXACT_POWER) {
+      return mantissa * POWERS_OF_TEN[exponent];
+    } else if (exponent > MAX_EXACT_POWER && exponent <= MAX_EXACT_POWER + 15) {
+      // moving part of the exponent into the mantissa, if it remains exact.
+      long shifted = mantissa;
+      for (int e = exponent; e > MAX_EXACT_POWER; e--) {
+        shifted *= 10;
+        if (shifted >= MAX_EXACT_MANTISSA) {
+          return Double.NaN;
+        }
+      }
+      return shifted * POWERS_OF_TEN[MAX_EXACT_POWER];
+    }
+    return Double.NaN;
+  }
+
+  // computes mantissa * 10^exponent (the mantissa being positive), returning NaN if the result cannot be
+  // determined with certainty, or if it is subnormal or infinite.
+  private static double eiselLemire(long mantissa, int exponent) {
+    if (exponent < MIN_POWER || exponent > MAX_POWER) {
+      return Double.NaN;
+    }
+    int  leadingZeros = Long.numberOfLeadingZeros(mantissa);
+    long normalized   = mantissa << leadingZeros;
+    long binaryExp    = ((217706 * exponent) >> 16) + 64 + 1023 - leadingZeros;
+    long powerHigh    = POWERS_HIGH[exponent - MIN_POWER];
+    long powerLow     = POWERS_LOW[exponent - MIN_POWER];
+
+    // 64 x 128-bit multiplication, the low bits being taken into account only if the high ones are ambiguous
+    long high = unsignedMultiplyHigh(normalized, powerHigh);
+    long low  = normalized * powerHigh;
+    if ((high & 0x1FF) == 0x1FF && Long.compareUnsigned(low + normalized, normalized) < 0) {
+      long lowHigh   = unsignedMultiplyHigh(normalized, powerLow);
+      long lowLow    = normalized * powerLow;
+      long mergedLow = low + lowHigh;
+      if (Long.compareUnsigned(mergedLow, low) < 0) {
+        high++;
+      }
+      if ((high & 0x1FF) == 0x1FF && mergedLow == -1 && Long.compareUnsigned(lowLow + normalized, normalized) < 0) {
+        return Double.NaN;
+      }
+      low = mergedLow;
+    }
+
+    // keeping 54 bits, then rounding to 53
+    long msb    = high >>> 63;
+    long result = high >>> (msb + 9);
+    binaryExp  -= 1 ^ msb;
+    if (low == 0 && (high & 0x1FF) == 0 && (result & 3) == 1) {
+      // exactly halfway between two doubles: the rounding direction cannot be determined
+      return Double.NaN;
+    }
+    result += result & 1;
+    result >>>= 1;
+    if ((result >>> 53) != 0) {
+      result >>>= 1;
+      binaryExp++;
+    }
+    if (binaryExp <= 0 || binaryExp >= 0x7FF) {
+      return Double.NaN;
+    }
+    return Double.longBitsToDouble(binaryExp << 52 | (result & 0x000FFFFFFFFFFFFFL));
+  }
+
+  private static long unsignedMultiplyHigh(long x, long y) {
+    long x0     = x & 0xFFFFFFFFL;
+    long x1     = x >>> 32;
+    long y0     = y & 0xFFFFFFFFL;
+    long y1     = y >>> 32;
+    long middle = x1 * y0 + ((x0 * y0) >>> 32) + ((x0 * y1) & 0xFFFFFFFFL);
+    return x1 * y1 + (middle >>> 32) + ((x0 * y1) >>> 32);
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isDouble(byte[] bytes, CharSequence chars, int from, int to) {
+    int start = from;
+    int end   = to;
+    while (start < end && charAt(bytes, chars, start) <= ' ') {
+      start++;
+    }
+    while (end > start && charAt(bytes, chars, end - 1) <= ' ') {
+      end--;
+    }
+    if (start == end) {
+      return false;
+    }
+    int  i = start;
+    char c = charAt(bytes, chars, i);
+    if (c == '-' || c == '+') {
+      i++;
+    }
+    if (matches(bytes, chars, i, end, "NaN") || matches(bytes, chars, i, end, "Infinity")) {
+      return true;
+    }
+
+    int digits = 0;
+    for (; i < end && isDigit(charAt(bytes, chars, i)); i++) {
+      digits++;
+    }
+    if (i < end && charAt(bytes, chars, i) == '.') {
+      for (i++; i < end && isDigit(charAt(bytes, chars, i)); i++) {
+        digits++;
+      }
+    }
+    if (digits == 0) {
+      return isSpecial(bytes, chars, start, end);
+    }
+    if (i < end && ((c = charAt(bytes, chars, i)) == 'e' || c == 'E')) {
+      i++;
+      if (i < end && ((c = charAt(bytes, chars, i)) == '-' || c == '+')) {
+        i++;
+      }
+      int expStart = i;
+      for (; i < end && isDigit(charAt(bytes, chars, i)); i++) {
+      }
+      if (i == expStart) {
+        return false;
+      }
+    }
+    return i == end || isSpecial(bytes, chars, start, end);
+  }
+
+  private static boolean matches(byte[] bytes, CharSequence chars, int from, int to, String expected) {
+    if (to - from != expected.length()) {
+      return false;
+    }
+    for (int i = 0; i < expected.length(); i++) {
+      if (charAt(bytes, chars, from + i) != expected.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // checks the forms that only Double.parseDouble() accepts: hexadecimal numbers, and type suffixes.
+  private static boolean isSpecial(byte[] bytes, CharSequence chars, int from, int to) {
+    boolean candidate = false;
+    for (int i = from; i < to && !candidate; i++) {
+      candidate = "xXdDfF".indexOf(charAt(bytes, chars, i)) >= 0;
+    }
+    if (!candidate) {
+      return false;
+    }
+    try {
+      if (bytes != null) {
+        Double.parseDouble(new String(bytes, from, to - from, StandardCharsets.US_ASCII));
+      } else {
+        Double.parseDouble(chars.subSequence(from, to).toString());
+      }
+      return true;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+}
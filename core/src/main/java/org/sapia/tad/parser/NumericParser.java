@@ -5,7 +5,7 @@ import org.sapia.tad.value.NumericValue;
 import org.sapia.tad.value.Value;
 
 /**
- * Parses numeric content.
+ * Parses numeric content, using {@link Doubles}.
  * 
  * @author yduchesne
  *
@@ -18,10 +18,19 @@ public class NumericParser implements Parser {
       return NumericValue.zero();
     }
     try {
-      return new NumericValue(Double.parseDouble(content));
+      return new NumericValue(Doubles.parse(content, 0, content.length()));
     } catch (NumberFormatException e) {
       throw new IllegalArgumentException(String.format("Could not parse value: %s", content));
     }
   }
   
+  /**
+   * @param content some content.
+   * @return <code>true</code> if the given content can be parsed by this instance (no exception is thrown 
+   * internally if it cannot).
+   */
+  public boolean isNumeric(String content) {
+    return Strings.isNullOrEmpty(content) || Doubles.isDouble(content, 0, content.length());
+  }
+  
 }
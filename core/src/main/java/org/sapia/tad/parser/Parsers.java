@@ -11,7 +11,6 @@ import org.sapia.tad.Datatype;
 public class Parsers {
 
   private static final Parser NUMERIC = new NumericParser();
-  private static final Parser DATE    = new DateParser();
   private static final Parser STRING  = new StringParser();
   private static final Parser WKT     = new WktParser();
   
@@ -20,12 +19,13 @@ public class Parsers {
   
   /**
    * @param datatype a Datatype.
-   * @return the {@link Parser} corresponding to the given data type.
+   * @return the {@link Parser} corresponding to the given data type. In the case of dates, a new
+   * {@link DateParser} is returned, since such a parser remembers the last pattern that matched.
    */
   public static Parser getParserFor(Datatype datatype) {
     switch (datatype) {
       case DATE: 
-        return DATE;
+        return new DateParser();
       case GEOMETRY: 
         return WKT;
       case NUMERIC: 
@@ -0,0 +1,112 @@
+package org.sapia.tad.stat;
+
+import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.NumericColumn;
+import org.sapia.tad.NumericColumns;
+import org.sapia.tad.RowSet;
+import org.sapia.tad.computation.ComputationResults;
+import org.sapia.tad.computation.MergeableComputation;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.NumericValue;
+
+/**
+ * Computes approximate quantiles for the numeric columns of a {@link RowSet}, in bounded memory, using 
+ * a {@link QuantileSketch} for each column. The partial results of this computation consist of these 
+ * sketches, in the order of the columns: partial results computed over distinct row ranges can thus be
+ * merged.
+ * <p>
+ * The result of each quantile is bound to a distinct name: by default, the name is the corresponding
+ * percentile (see {@link Quantiles#name(double)}). Null values are ignored: if a column holds no value,
+ * its quantiles are null.
+ * 
+ * @see QuantileComputation
+ * 
+ * @author yduchesne
+ *
+ */
+public class ApproximateQuantileComputation implements MergeableComputation<QuantileSketch[]> {
+  
+  private String[] names;
+  private double[] qs;
+  private int      k;
+  
+  /**
+   * @param qs the quantiles to compute, each between 0 and 1 (inclusively).
+   */
+  public ApproximateQuantileComputation(double... qs) {
+    this(Quantiles.names(qs), qs);
+  }
+  
+  /**
+   * @param names the names to which to bind the result of each quantile.
+   * @param qs the quantiles to compute, each between 0 and 1 (inclusively).
+   */
+  public ApproximateQuantileComputation(String[] names, double[] qs) {
+    this(names, qs, QuantileSketch.DEFAULT_K);
+  }
+  
+  /**
+   * @param names the names to which to bind the result of each quantile.
+   * @param qs the quantiles to compute, each between 0 and 1 (inclusively).
+   * @param k the parameter controlling the accuracy of the sketches that are used (see {@link QuantileSketch}).
+   */
+  public ApproximateQuantileComputation(String[] names, double[] qs, int k) {
+    Checks.isTrue(names.length == qs.length, "Got %s names for %s quantiles", names.length, qs.length);
+    this.names = names;
+    this.qs    = qs;
+    this.k     = k;
+  }
+  
+  @Override
+  public void compute(ComputationResults context, RowSet rows) {
+    complete(context, computePartial(context.getColumnSet(), rows));
+  }
+  
+  @Override
+  public QuantileSketch[] computePartial(ColumnSet columns, RowSet rows) {
+    QuantileSketch[] sketches = new QuantileSketch[columns.size()];
+    int              c        = 0;
+    for (Column col : columns) {
+      if (col.getType() == Datatype.NUMERIC) {
+        NumericColumn  values = NumericColumns.of(rows, col.getIndex());
+        QuantileSketch sketch = new QuantileSketch(k);
+        for (int i = 0; i < values.size(); i++) {
+          if (!values.isNull(i)) {
+            sketch.add(values.getDouble(i));
+          }
+        }
+        sketches[c] = sketch;
+      }
+      c++;
+    }
+    return sketches;
+  }
+  
+  @Override
+  public QuantileSketch[] merge(QuantileSketch[] partial, QuantileSketch[] other) {
+    for (int i = 0; i < partial.length; i++) {
+      if (partial[i] != null) {
+        partial[i].mergeWith(other[i]);
+      }
+    }
+    return partial;
+  }
+  
+  @Override
+  public void complete(ComputationResults context, QuantileSketch[] partial) {
+    int c = 0;
+    for (Column col : context.getColumnSet()) {
+      QuantileSketch sketch = partial[c++];
+      if (sketch != null) {
+        double[] quantiles = sketch.getQuantiles(qs);
+        for (int i = 0; i < names.length; i++) {
+          context.get(names[i]).set(col, sketch.getCount() == 0 ? NullValue.getInstance() : new NumericValue(quantiles[i]));
+        }
+      }
+    }
+  }
+
+}
@@ -1,6 +1,9 @@
 package org.sapia.tad.stat;
 
+import org.sapia.tad.computation.Accumulator;
 import org.sapia.tad.value.MutableNumericValue;
+import org.sapia.tad.value.NumericValue;
+import org.sapia.tad.value.Value;
 
 /**
  * Overrides the {@link MutableNumericValue} by allowing the setting of a new value
@@ -9,12 +12,55 @@ import org.sapia.tad.value.MutableNumericValue;
  * @author yduchesne
  *
  */
-public class MaxValue extends MutableNumericValue {
-
+public class MaxValue extends MutableNumericValue implements Accumulator<MaxValue> {
+  
+  private boolean isSet;
+  
+  public MaxValue() {
+  }
+  
   @Override
   public void set(double value) {
-    if (value > super.get()) {
+    if (!isSet || value > super.get()) {
       super.set(value);
+      isSet = true;
     }
   }
+  
+  /**
+   * @return <code>true</code> if a value has been set on this instance.
+   */
+  public boolean isSet() {
+    return isSet;
+  }
+  
+  // --------------------------------------------------------------------------
+  // Accumulator interface
+  
+  @Override
+  public MaxValue init() {
+    super.set(0);
+    isSet = false;
+    return this;
+  }
+  
+  @Override
+  public MaxValue accumulate(double value) {
+    set(value);
+    return this;
+  }
+  
+  @Override
+  public MaxValue mergeWith(MaxValue other) {
+    if (other.isSet) {
+      set(other.get());
+    }
+    return this;
+  }
+  
+  @Override
+  public Value finish() {
+    return new NumericValue(get());
+  }
+
 }
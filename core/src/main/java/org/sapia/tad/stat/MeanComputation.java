@@ -1,48 +1,71 @@
 package org.sapia.tad.stat;
 
 import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
 import org.sapia.tad.Datatype;
+import org.sapia.tad.NumericColumn;
+import org.sapia.tad.NumericColumns;
 import org.sapia.tad.RowSet;
-import org.sapia.tad.Vector;
-import org.sapia.tad.computation.Computation;
 import org.sapia.tad.computation.ComputationResult;
 import org.sapia.tad.computation.ComputationResults;
+import org.sapia.tad.computation.MergeableComputation;
 import org.sapia.tad.func.NoArgFunction;
-import org.sapia.tad.value.NullValue;
-import org.sapia.tad.value.NumericValue;
 
 /**
- * Computes the mean for dataset columns.
+ * Computes the mean for dataset columns. The partial results of this computation consist
+ * of a {@link MeanValue} for each column, in the order of the columns.
  * 
  * @author yduchesne
  *
  */
-public class MeanComputation implements Computation {
+public class MeanComputation implements MergeableComputation<MeanValue[]> {
   
   @Override
   public void compute(ComputationResults context, RowSet rows) {
-    
-    ComputationResult meanResults = context.get(Stats.MEAN);
-    
-    // computing mean for each given column
-    for (Vector row : rows) {
-      for (Column col : meanResults.getColumnSet()) {
-        MeanValue mean = meanResults.get(col, new NoArgFunction<MeanValue>() {
-          @Override
-          public MeanValue call() {
-            return new MeanValue();
-          }
-        });
-        if (col.getType() == Datatype.NUMERIC) {
-          Object value = row.get(col.getIndex());
-          if (NullValue.isNotNull(value)) {
-            double colValue = NumericValue.doubleOrZero(row.get(col.getIndex())).get();
-            mean.increase(colValue);
+    complete(context, computePartial(context.getColumnSet(), rows));
+  }
+  
+  @Override
+  public MeanValue[] computePartial(ColumnSet columns, RowSet rows) {
+    MeanValue[] means = new MeanValue[columns.size()];
+    int         c     = 0;
+    for (Column col : columns) {
+      MeanValue mean = new MeanValue();
+      if (col.getType() == Datatype.NUMERIC) {
+        NumericColumn values = NumericColumns.of(rows, col.getIndex());
+        for (int i = 0; i < values.size(); i++) {
+          if (!values.isNull(i)) {
+            mean.increase(values.getDouble(i));
           }
         }
       }
+      means[c++] = mean;
     }
+    return means;
+  }
+  
+  @Override
+  public MeanValue[] merge(MeanValue[] partial, MeanValue[] other) {
+    for (int i = 0; i < partial.length; i++) {
+      partial[i].mergeWith(other[i]);
+    }
+    return partial;
+  }
+  
+  @Override
+  public void complete(ComputationResults context, MeanValue[] partial) {
+    ComputationResult meanResults = context.get(Stats.MEAN);
     
+    int c = 0;
+    for (Column col : meanResults.getColumnSet()) {
+      MeanValue mean = meanResults.get(col, new NoArgFunction<MeanValue>() {
+        @Override
+        public MeanValue call() {
+          return new MeanValue();
+        }
+      });
+      mean.mergeWith(partial[c++]);
+    }
   }
 
 }
@@ -1,17 +1,32 @@
 package org.sapia.tad.stat;
 
+import org.sapia.tad.computation.Accumulator;
 import org.sapia.tad.value.MutableNumericValue;
+import org.sapia.tad.value.NumericValue;
 import org.sapia.tad.value.Value;
 
 /**
- * Implements mean calculation.
+ * Implements mean calculation: an instance of this class keeps the sum and the count of the values
+ * it is given, so that it can be merged exactly with other instances.
  * 
  * @author yduchesne
  *
  */
-public class MeanValue extends MutableNumericValue {
+public class MeanValue extends MutableNumericValue implements Accumulator<MeanValue> {
 
-  private int count;
+  private long count;
+  
+  public MeanValue() {
+  }
+  
+  /**
+   * @param sum the sum of the values with which to initialize this instance.
+   * @param count the number of values with which to initialize this instance.
+   */
+  public MeanValue(double sum, long count) {
+    super.increase(sum);
+    this.count = count;
+  }
   
   @Override
   public MutableNumericValue increase(double by) {
@@ -20,11 +35,57 @@ public class MeanValue extends MutableNumericValue {
     return this;
   }
   
+  /**
+   * @return the number of values that this instance was given.
+   */
+  public long getCount() {
+    return count;
+  }
+  
   @Override
   public double get() {
     return count == 0 ? 0 : super.get() / count;
   }
   
+  // --------------------------------------------------------------------------
+  // Accumulator interface
+  
+  @Override
+  public MeanValue init() {
+    super.set(0);
+    count = 0;
+    return this;
+  }
+  
+  @Override
+  public MeanValue accumulate(double value) {
+    increase(value);
+    return this;
+  }
+  
+  /**
+   * @param other another {@link MeanValue}, whose sum and count should be added to this instance's.
+   * @return this instance.
+   */
+  @Override
+  public MeanValue mergeWith(MeanValue other) {
+    super.increase(other.getSum());
+    count = count + other.count;
+    return this;
+  }
+  
+  @Override
+  public Value finish() {
+    return new NumericValue(get());
+  }
+  
+  private double getSum() {
+    return super.get();
+  }
+  
+  // --------------------------------------------------------------------------
+  // Object overrides
+  
   @Override
   public int hashCode() {
     return (int) get();
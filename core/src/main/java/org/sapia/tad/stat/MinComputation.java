@@ -1,26 +1,70 @@
 package org.sapia.tad.stat;
 
+import java.util.Arrays;
+
 import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
 import org.sapia.tad.Datatype;
+import org.sapia.tad.NumericColumn;
+import org.sapia.tad.NumericColumns;
 import org.sapia.tad.RowSet;
-import org.sapia.tad.Vector;
 import org.sapia.tad.computation.Computation;
 import org.sapia.tad.computation.ComputationResult;
 import org.sapia.tad.computation.ComputationResults;
+import org.sapia.tad.computation.MergeableComputation;
 import org.sapia.tad.func.NoArgFunction;
-import org.sapia.tad.value.NumericValue;
 
 /**
- * A {@link Computation} that computes the minimum for dataset columns.
+ * A {@link Computation} that computes the minimum for dataset columns. The partial results of this
+ * computation consist of the minimum of each column, in the order of the columns (<code>NaN</code>
+ * is used for columns for which no value has been found).
  * 
  * @author yduchesne
  *
  */
-public class MinComputation implements Computation {
+public class MinComputation implements MergeableComputation<double[]> {
   
   @Override
   public void compute(ComputationResults context, RowSet rows) {
-    
+    complete(context, computePartial(context.getColumnSet(), rows));
+  }
+  
+  @Override
+  public double[] computePartial(ColumnSet columns, RowSet rows) {
+    double[] mins = new double[columns.size()];
+    Arrays.fill(mins, Double.NaN);
+    int c = 0;
+    for (Column col : columns) {
+      if (col.getType() == Datatype.NUMERIC) {
+        NumericColumn values = NumericColumns.of(rows, col.getIndex());
+        double        min    = Double.NaN;
+        for (int i = 0; i < values.size(); i++) {
+          if (!values.isNull(i)) {
+            double v = values.getDouble(i);
+            if (Double.isNaN(min) || v < min) {
+              min = v;
+            }
+          }
+        }
+        mins[c] = min;
+      }
+      c++;
+    }
+    return mins;
+  }
+  
+  @Override
+  public double[] merge(double[] partial, double[] other) {
+    for (int i = 0; i < partial.length; i++) {
+      if (Double.isNaN(partial[i]) || other[i] < partial[i]) {
+        partial[i] = other[i];
+      }
+    }
+    return partial;
+  }
+  
+  @Override
+  public void complete(ComputationResults context, double[] partial) {
     NoArgFunction<MinValue> minFunc = new NoArgFunction<MinValue>() {
       @Override
       public MinValue call() {
@@ -30,13 +74,15 @@ public class MinComputation implements Computation {
     
     ComputationResult minResult = context.get(Stats.MIN);
     
-    for (Vector row : rows) {
-      for (Column col : context.getColumnSet()) {
-        if (col.getType() == Datatype.NUMERIC) {
-          MinValue minVal = minResult.get(col, minFunc);
-          minVal.set(NumericValue.doubleOrZero(row.get(col.getIndex())).get());
+    int c = 0;
+    for (Column col : context.getColumnSet()) {
+      if (col.getType() == Datatype.NUMERIC) {
+        MinValue minVal = minResult.get(col, minFunc);
+        if (!Double.isNaN(partial[c])) {
+          minVal.set(partial[c]);
         }
       }
+      c++;
     }
   }
 }
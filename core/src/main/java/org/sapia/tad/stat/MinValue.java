@@ -1,6 +1,9 @@
 package org.sapia.tad.stat;
 
+import org.sapia.tad.computation.Accumulator;
 import org.sapia.tad.value.MutableNumericValue;
+import org.sapia.tad.value.NumericValue;
+import org.sapia.tad.value.Value;
 
 /**
  * Overrides the {@link MutableNumericValue} by allowing the setting of a new value
@@ -9,7 +12,7 @@ import org.sapia.tad.value.MutableNumericValue;
  * @author yduchesne
  *
  */
-public class MinValue extends MutableNumericValue {
+public class MinValue extends MutableNumericValue implements Accumulator<MinValue> {
   
   private boolean isSet;
   
@@ -23,5 +26,41 @@ public class MinValue extends MutableNumericValue {
       isSet = true;
     }
   }
+  
+  /**
+   * @return <code>true</code> if a value has been set on this instance.
+   */
+  public boolean isSet() {
+    return isSet;
+  }
+  
+  // --------------------------------------------------------------------------
+  // Accumulator interface
+  
+  @Override
+  public MinValue init() {
+    super.set(0);
+    isSet = false;
+    return this;
+  }
+  
+  @Override
+  public MinValue accumulate(double value) {
+    set(value);
+    return this;
+  }
+  
+  @Override
+  public MinValue mergeWith(MinValue other) {
+    if (other.isSet) {
+      set(other.get());
+    }
+    return this;
+  }
+  
+  @Override
+  public Value finish() {
+    return new NumericValue(get());
+  }
 
 }
@@ -0,0 +1,62 @@
+package org.sapia.tad.stat;
+
+import org.sapia.tad.Column;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.NumericColumns;
+import org.sapia.tad.RowSet;
+import org.sapia.tad.computation.Computation;
+import org.sapia.tad.computation.ComputationResults;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.NumericValue;
+
+/**
+ * Computes exact quantiles for the numeric columns of a {@link RowSet}: the values of each column
+ * are copied to a <code>double</code> array, over which quantiles are selected (see {@link Quantiles}).
+ * <p>
+ * The result of each quantile is bound to a distinct name: by default, the name is the corresponding
+ * percentile (see {@link Quantiles#name(double)}). Null values are ignored: if a column holds no value,
+ * its quantiles are null.
+ * <p>
+ * Since all values must be held in memory, {@link ApproximateQuantileComputation} should be used for
+ * large inputs.
+ * 
+ * @author yduchesne
+ *
+ */
+public class QuantileComputation implements Computation {
+  
+  private String[] names;
+  private double[] qs;
+  
+  /**
+   * @param qs the quantiles to compute, each between 0 and 1 (inclusively).
+   */
+  public QuantileComputation(double... qs) {
+    this(Quantiles.names(qs), qs);
+  }
+  
+  /**
+   * @param names the names to which to bind the result of each quantile.
+   * @param qs the quantiles to compute, each between 0 and 1 (inclusively).
+   */
+  public QuantileComputation(String[] names, double[] qs) {
+    Checks.isTrue(names.length == qs.length, "Got %s names for %s quantiles", names.length, qs.length);
+    this.names = names;
+    this.qs    = qs;
+  }
+  
+  @Override
+  public void compute(ComputationResults context, RowSet rows) {
+    for (Column col : context.getColumnSet()) {
+      if (col.getType() == Datatype.NUMERIC) {
+        double[] values    = Quantiles.values(NumericColumns.of(rows, col.getIndex()));
+        double[] quantiles = Quantiles.quantiles(values, qs);
+        for (int i = 0; i < names.length; i++) {
+          context.get(names[i]).set(col, values.length == 0 ? NullValue.getInstance() : new NumericValue(quantiles[i]));
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,283 @@
+package org.sapia.tad.stat;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+
+import org.sapia.tad.util.Checks;
+
+/**
+ * A streaming quantile sketch, implementing the KLL algorithm (Karnin, Lang, Liberty): it computes 
+ * approximate quantiles over an arbitrary number of values, in bounded memory.
+ * <p>
+ * The sketch holds a hierarchy of buffers ("compactors"): each value held in a buffer at level <code>h</code>
+ * stands for <code>2^h</code> values of the input. When a buffer is full, it is sorted and every other value 
+ * is promoted to the next level. The accuracy of the sketch is controlled by the <code>k</code> parameter: with
+ * the default (200), the rank error is typically well below 1%. Memory usage is in <code>O(k)</code>, regardless
+ * of the number of values processed.
+ * <p>
+ * Sketches built over distinct sets of values can be merged (see {@link #mergeWith(QuantileSketch)}): this 
+ * allows computing quantiles over partitioned input. The minimum and maximum values are kept exactly. 
+ * This class is not thread-safe.
+ * 
+ * @see Quantiles
+ * 
+ * @author yduchesne
+ *
+ */
+public class QuantileSketch {
+  
+  /**
+   * The default value for the <code>k</code> parameter.
+   */
+  public static final int DEFAULT_K = 200;
+  
+  private static final double CAPACITY_DECAY = 2.0 / 3.0;
+  private static final int    MIN_CAPACITY   = 2;
+  
+  private int        k;
+  private double[][] compactors = new double[0][];
+  private int[]      sizes      = new int[0];
+  private int        size;
+  private int        maxSize;
+  private long       count;
+  private double     min        = Double.POSITIVE_INFINITY;
+  private double     max        = Double.NEGATIVE_INFINITY;
+  private Random     random;
+
+  public QuantileSketch() {
+    this(DEFAULT_K);
+  }
+  
+  /**
+   * @param k the parameter controlling the accuracy of this instance (the higher, the more accurate).
+   */
+  public QuantileSketch(int k) {
+    this(k, new Random());
+  }
+  
+  /**
+   * @param k the parameter controlling the accuracy of this instance (the higher, the more accurate).
+   * @param random the {@link Random} instance to use when compacting buffers.
+   */
+  public QuantileSketch(int k, Random random) {
+    Checks.isTrue(k >= 8, "k must be at least 8, got: %s", k);
+    this.k      = k;
+    this.random = random;
+    grow();
+  }
+  
+  /**
+   * @param value a value to add to this instance (NaN values are ignored).
+   * @return this instance.
+   */
+  public QuantileSketch add(double value) {
+    if (Double.isNaN(value)) {
+      return this;
+    }
+    if (value < min) {
+      min = value;
+    }
+    if (value > max) {
+      max = value;
+    }
+    count++;
+    append(0, value);
+    size++;
+    if (size >= maxSize) {
+      compress();
+    }
+    return this;
+  }
+  
+  /**
+   * Merges the given sketch into this instance.
+   * 
+   * @param other another {@link QuantileSketch}.
+   * @return this instance.
+   */
+  public QuantileSketch mergeWith(QuantileSketch other) {
+    if (other.count == 0) {
+      return this;
+    }
+    while (compactors.length < other.compactors.length) {
+      grow();
+    }
+    for (int h = 0; h < other.compactors.length; h++) {
+      for (int i = 0; i < other.sizes[h]; i++) {
+        append(h, other.compactors[h][i]);
+      }
+    }
+    size  += other.size;
+    count += other.count;
+    min    = Math.min(min, other.min);
+    max    = Math.max(max, other.max);
+    while (size >= maxSize) {
+      compress();
+    }
+    return this;
+  }
+  
+  /**
+   * @return the number of values that were added to this instance.
+   */
+  public long getCount() {
+    return count;
+  }
+  
+  /**
+   * @return the smallest value added to this instance ({@link Double#NaN} if this instance holds no values).
+   */
+  public double getMin() {
+    return count == 0 ? Double.NaN : min;
+  }
+  
+  /**
+   * @return the largest value added to this instance ({@link Double#NaN} if this instance holds no values).
+   */
+  public double getMax() {
+    return count == 0 ? Double.NaN : max;
+  }
+  
+  /**
+   * @return the number of values currently retained by this instance.
+   */
+  public int getRetained() {
+    return size;
+  }
+  
+  /**
+   * @param q a quantile, between 0 and 1 (inclusively).
+   * @return the approximate value corresponding to the given quantile ({@link Double#NaN} if this instance holds no values).
+   */
+  public double getQuantile(double q) {
+    return getQuantiles(new double[] { q })[0];
+  }
+  
+  /**
+   * @param qs the quantiles to compute, each between 0 and 1 (inclusively).
+   * @return the approximate values corresponding to the given quantiles, in the order of the given <code>qs</code>.
+   */
+  public double[] getQuantiles(double[] qs) {
+    for (double q : qs) {
+      Checks.isTrue(q >= 0 && q <= 1, "Quantile must be between 0 and 1, got: %s", q);
+    }
+    double[] results = new double[qs.length];
+    if (count == 0) {
+      Arrays.fill(results, Double.NaN);
+      return results;
+    }
+    
+    // gathering the retained values, with their weights, sorted by value
+    double[] values  = new double[size];
+    long[]   weights = new long[size];
+    int      n       = 0;
+    for (int h = 0; h < compactors.length; h++) {
+      for (int i = 0; i < sizes[h]; i++) {
+        values[n]  = compactors[h][i];
+        weights[n] = 1L << h;
+        n++;
+      }
+    }
+    Integer[] order = sortedIndices(values);
+    long totalWeight = 0;
+    for (long w : weights) {
+      totalWeight += w;
+    }
+    
+    for (int i = 0; i < qs.length; i++) {
+      if (qs[i] == 0) {
+        results[i] = min;
+      } else if (qs[i] == 1) {
+        results[i] = max;
+      } else {
+        double target     = qs[i] * totalWeight;
+        long   cumulative = 0;
+        double result     = max;
+        for (int index : order) {
+          cumulative += weights[index];
+          if (cumulative >= target) {
+            result = values[index];
+            break;
+          }
+        }
+        results[i] = result;
+      }
+    }
+    return results;
+  }
+  
+  // --------------------------------------------------------------------------
+  // Restricted methods
+  
+  private void append(int level, double value) {
+    if (sizes[level] == compactors[level].length) {
+      compactors[level] = Arrays.copyOf(compactors[level], Math.max(MIN_CAPACITY, compactors[level].length * 2));
+    }
+    compactors[level][sizes[level]++] = value;
+  }
+  
+  private void grow() {
+    int levels = compactors.length + 1;
+    compactors = Arrays.copyOf(compactors, levels);
+    sizes      = Arrays.copyOf(sizes, levels);
+    compactors[levels - 1] = new double[capacity(levels - 1, levels)];
+    maxSize = 0;
+    for (int h = 0; h < levels; h++) {
+      maxSize += capacity(h, levels);
+    }
+  }
+  
+  private int capacity(int level, int levels) {
+    int depth = levels - level - 1;
+    return Math.max(MIN_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+  }
+  
+  private void compress() {
+    for (int h = 0; h < compactors.length; h++) {
+      if (sizes[h] >= capacity(h, compactors.length)) {
+        if (h + 1 >= compactors.length) {
+          grow();
+        }
+        compact(h);
+        return;
+      }
+    }
+  }
+  
+  /**
+   * Sorts the buffer at the given level, and promotes every other value to the next level (starting 
+   * at a random offset). If the buffer holds an odd number of values, its largest value is kept.
+   */
+  private void compact(int level) {
+    double[] buffer = compactors[level];
+    int      length = sizes[level];
+    int      pairs  = length / 2;
+    Arrays.sort(buffer, 0, length);
+    int offset = random.nextBoolean() ? 1 : 0;
+    for (int i = 0; i < pairs; i++) {
+      append(level + 1, buffer[i * 2 + offset]);
+    }
+    if (length % 2 == 1) {
+      buffer[0]    = buffer[length - 1];
+      sizes[level] = 1;
+    } else {
+      sizes[level] = 0;
+    }
+    size -= pairs;
+  }
+  
+  private static Integer[] sortedIndices(final double[] values) {
+    Integer[] indices = new Integer[values.length];
+    for (int i = 0; i < indices.length; i++) {
+      indices[i] = i;
+    }
+    Arrays.sort(indices, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer o1, Integer o2) {
+        return Double.compare(values[o1], values[o2]);
+      }
+    });
+    return indices;
+  }
+}
@@ -0,0 +1,191 @@
+package org.sapia.tad.stat;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.sapia.tad.NumericColumn;
+import org.sapia.tad.util.Checks;
+
+/**
+ * Holds methods for computing exact quantiles over primitive <code>double</code> arrays. Quantiles 
+ * are computed with linear interpolation between the closest ranks (the default method used by R and
+ * NumPy): the median of an even number of values is thus the mean of both middle values.
+ * <p>
+ * The methods of this class rely on quickselect rather than on sorting: selecting a quantile takes
+ * linear time on average. Note that the arrays passed to these methods are reordered.
+ * 
+ * @see QuantileSketch
+ * 
+ * @author yduchesne
+ *
+ */
+public class Quantiles {
+  
+  private Quantiles() {
+  }
+  
+  /**
+   * @param values a {@link NumericColumn}.
+   * @return a new array holding the values of the given column that are not null, and not {@link Double#NaN}.
+   */
+  public static double[] values(NumericColumn values) {
+    double[] copy  = new double[values.size()];
+    int      count = 0;
+    for (int i = 0; i < copy.length; i++) {
+      if (!values.isNull(i)) {
+        double v = values.getDouble(i);
+        if (!Double.isNaN(v)) {
+          copy[count++] = v;
+        }
+      }
+    }
+    return count == copy.length ? copy : Arrays.copyOf(copy, count);
+  }
+  
+  /**
+   * @param q a quantile, between 0 and 1 (inclusively).
+   * @return the name corresponding to the given quantile, as a percentile (for example: <code>p95</code> for 0.95,
+   * <code>p99.9</code> for 0.999).
+   */
+  public static String name(double q) {
+    return "p" + BigDecimal.valueOf(q).movePointRight(2).stripTrailingZeros().toPlainString();
+  }
+  
+  /**
+   * @param qs quantiles, each between 0 and 1 (inclusively).
+   * @return the names corresponding to the given quantiles.
+   * @see #name(double)
+   */
+  public static String[] names(double[] qs) {
+    String[] names = new String[qs.length];
+    for (int i = 0; i < qs.length; i++) {
+      names[i] = name(qs[i]);
+    }
+    return names;
+  }
+  
+  /**
+   * @param values the values for which to compute the given quantile (the array is reordered). 
+   * @param q the quantile to compute, between 0 and 1 (inclusively).
+   * @return the quantile, or {@link Double#NaN} if the given array is empty.
+   */
+  public static double quantile(double[] values, double q) {
+    return quantiles(values, new double[] { q })[0];
+  }
+  
+  /**
+   * @param values the values for which to compute the given quantiles (the array is reordered).
+   * @param qs the quantiles to compute, each between 0 and 1 (inclusively).
+   * @return the quantiles, in the order of the given <code>qs</code> ({@link Double#NaN} is returned for each quantile 
+   * if the given values array is empty).
+   */
+  public static double[] quantiles(double[] values, double[] qs) {
+    for (double q : qs) {
+      Checks.isTrue(q >= 0 && q <= 1, "Quantile must be between 0 and 1, got: %s", q);
+    }
+    double[] results = new double[qs.length];
+    if (values.length == 0) {
+      Arrays.fill(results, Double.NaN);
+      return results;
+    }
+    
+    // processing quantiles in increasing order: once the k-th value has been selected, the values at 
+    // indices greater than k are all greater or equal to it, and the next selection can be restricted to them.
+    Integer[] order = new Integer[qs.length];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    final double[] sortedQs = qs;
+    Arrays.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer o1, Integer o2) {
+        return Double.compare(sortedQs[o1], sortedQs[o2]);
+      }
+    });
+    
+    int from = 0;
+    for (int i : order) {
+      double h     = (values.length - 1) * qs[i];
+      int    k     = (int) Math.floor(h);
+      double lower = select(values, from, values.length, k);
+      if (h > k) {
+        double higher = min(values, k + 1, values.length);
+        results[i] = lower + (h - k) * (higher - lower);
+      } else {
+        results[i] = lower;
+      }
+      from = k;
+    }
+    return results;
+  }
+  
+  /**
+   * Reorders the given array so that the value at index <code>k</code> is the one that would be found at that
+   * index if the array was sorted: values at lower indices are then lower or equal, and values at greater indices
+   * are greater or equal.
+   * 
+   * @param values an array of values.
+   * @param k the index of the value to select.
+   * @return the k-th smallest value (starting from 0).
+   */
+  public static double select(double[] values, int k) {
+    Checks.isTrue(k >= 0 && k < values.length, "Invalid index: %s. Got %s values", k, values.length);
+    return select(values, 0, values.length, k);
+  }
+  
+  // --------------------------------------------------------------------------
+  // Restricted methods
+  
+  private static double select(double[] values, int from, int to, int k) {
+    int left  = from;
+    int right = to - 1;
+    while (right > left) {
+      // median-of-three pivot, which avoids quadratic behavior on sorted input
+      int    middle = (left + right) >>> 1;
+      double pivot  = medianOf(values[left], values[middle], values[right]);
+      int    i      = left;
+      int    j      = right;
+      while (i <= j) {
+        while (values[i] < pivot) {
+          i++;
+        }
+        while (values[j] > pivot) {
+          j--;
+        }
+        if (i <= j) {
+          double tmp = values[i];
+          values[i]  = values[j];
+          values[j]  = tmp;
+          i++;
+          j--;
+        }
+      }
+      if (k <= j) {
+        right = j;
+      } else if (k >= i) {
+        left = i;
+      } else {
+        break;
+      }
+    }
+    return values[k];
+  }
+  
+  private static double medianOf(double a, double b, double c) {
+    if (a < b) {
+      return b < c ? b : (a < c ? c : a);
+    }
+    return a < c ? a : (b < c ? c : b);
+  }
+  
+  private static double min(double[] values, int from, int to) {
+    double min = values[from];
+    for (int i = from + 1; i < to; i++) {
+      if (values[i] < min) {
+        min = values[i];
+      }
+    }
+    return min;
+  }
+}
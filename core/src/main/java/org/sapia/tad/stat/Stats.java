@@ -1,20 +1,26 @@
 package org.sapia.tad.stat;
 
+import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
 import org.sapia.tad.Dataset;
-import org.sapia.tad.Vector;
-import org.sapia.tad.Vectors;
+import org.sapia.tad.DatasetStream;
+import org.sapia.tad.NumericColumn;
+import org.sapia.tad.RowSet;
 import org.sapia.tad.computation.ComputationResult;
 import org.sapia.tad.computation.ComputationResults;
 import org.sapia.tad.computation.ComputationTask;
 import org.sapia.tad.computation.Computations;
-import org.sapia.tad.concurrent.Threading;
+import org.sapia.tad.computation.MergeableComputation;
+import org.sapia.tad.conf.Conf;
 import org.sapia.tad.help.Doc;
 import org.sapia.tad.impl.DatasetRowSetAdapter;
-import org.sapia.tad.impl.DefaultDataset;
-import org.sapia.tad.value.NumericValue;
-import org.sapia.tad.value.Value;
+import org.sapia.tad.impl.columnar.ColumnData;
+import org.sapia.tad.impl.columnar.ColumnarDataset;
+import org.sapia.tad.impl.columnar.NumericColumnData;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 /**
@@ -25,6 +31,16 @@ import java.util.List;
  */
 public class Stats {
 
+  /**
+   * Constant to which the count {@link ComputationResult} is bound.
+   */
+  public static final String COUNT    = "count";
+
+  /**
+   * Constant to which the sum {@link ComputationResult} is bound.
+   */
+  public static final String SUM      = "sum";
+
   /**
    * Constant to which the mean {@link ComputationResult} is bound.
    */
@@ -50,22 +66,27 @@ public class Stats {
    */
   public static final String MAX      = "max";
   
+  /**
+   * Constant to which the median {@link ComputationResult} is bound.
+   */
+  public static final String MEDIAN   = "median";
+  
   private Stats() {
   }
 
   /**
-   * Adds summary stats computations with the given {@link ComputationTask}.
+   * Adds summary stats computations with the given {@link ComputationTask}. The median is computed
+   * exactly: when invoked with a dataset, the <code>summary</code> methods of this class rather 
+   * approximate it if the dataset holds more rows than {@link Conf#getExactQuantileRowLimit()}.
    * 
    * @param task a {@link ComputationTask}.
-   * @see SpreadStatsComputation
+   * @see SummaryStatsComputation
    * @see MedianComputation
-   * @see MinMaxComputation
    */
   @Doc("Internally registers summary stats computations with the given task")
   public static void summary(ComputationTask task) {
-    task.add(new SpreadStatsComputation());
+    task.add(new SummaryStatsComputation());
     task.add(new MedianComputation());
-    task.add(new MinMaxComputation());
   }
 
   /**
@@ -93,9 +114,7 @@ public class Stats {
   @Doc("Computes summary statistics for the given dataset - and for the specified columns")
   public static ComputationResults summary(@Doc("a dataset") Dataset dataset, @Doc("the column names") String...columnNames) 
       throws IllegalArgumentException, InterruptedException {
-    ComputationTask task = Computations.parallel(Threading.getThreadPool(), Threading.getTimeout());
-    summary(task);
-    return task.compute(dataset.getColumnSet().includes(columnNames), new DatasetRowSetAdapter(dataset));
+    return summary(dataset.getColumnSet().includes(columnNames), new DatasetRowSetAdapter(dataset));
   }
 
   /**
@@ -108,53 +127,146 @@ public class Stats {
   @Doc("Computes summary statistics for all columns in the given dataset")
   public static ComputationResults summary(@Doc("a dataset") Dataset dataset) 
       throws IllegalArgumentException, InterruptedException {
-    ComputationTask task = Computations.parallel(Threading.getThreadPool(), Threading.getTimeout());
-    summary(task);
-    return task.compute(dataset.getColumnSet(), new DatasetRowSetAdapter(dataset));
+    return summary(dataset.getColumnSet(), new DatasetRowSetAdapter(dataset));
+  }
+
+  /**
+   * Computes summary statistics for the given columns over all batches of the given stream, in constant
+   * memory: the median is therefore approximated. The stream is closed once it has been consumed.
+   * 
+   * @param stream the {@link DatasetStream} for which to perform summary stats computation.
+   * @param columnNames the names of the columns to use.
+   * @return the {@link ComputationResults}.
+   * @throws IllegalArgumentException if an invalid argument has been passed.
+   * @throws IOException if an IO error occurs while reading the stream.
+   */
+  @Doc("Computes summary statistics for the given dataset stream - and for the specified columns")
+  public static ComputationResults summary(@Doc("a dataset stream") DatasetStream stream, @Doc("the column names") String...columnNames) 
+      throws IllegalArgumentException, IOException {
+    List<MergeableComputation<?>> computations = new ArrayList<>();
+    computations.add(new SummaryStatsComputation());
+    computations.add(new ApproximateQuantileComputation(new String[] { MEDIAN }, new double[] { 0.5 }));
+    return Computations.compute(stream, stream.getColumnSet().includes(columnNames), computations);
+  }
+  
+  /**
+   * @param stream the {@link DatasetStream} for which to perform summary stats computation.
+   * @return the {@link ComputationResults}.
+   * @throws IllegalArgumentException if an invalid argument has been passed.
+   * @throws IOException if an IO error occurs while reading the stream.
+   * @see #summary(DatasetStream, String...)
+   */
+  @Doc("Computes summary statistics for all columns in the given dataset stream")
+  public static ComputationResults summary(@Doc("a dataset stream") DatasetStream stream) 
+      throws IllegalArgumentException, IOException {
+    return summary(stream, stream.getColumnSet().getColumnNames().toArray(new String[stream.getColumnSet().size()]));
   }
 
+  /**
+   * Computes the given quantiles for the specified columns of the given dataset. Quantiles are computed exactly if 
+   * the dataset holds no more rows than {@link Conf#getExactQuantileRowLimit()}: otherwise, they are approximated, 
+   * in bounded memory.
+   * <p>
+   * The result of each quantile is bound to the corresponding percentile (for example, <code>p95</code> for 0.95).
+   * 
+   * @param dataset the dataset for which to compute quantiles.
+   * @param qs the quantiles to compute, each between 0 and 1 (inclusively).
+   * @param columnNames the names of the columns to use.
+   * @return the {@link ComputationResults}.
+   * @throws IllegalArgumentException if an invalid argument has been passed.
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   * for the end of the computation.
+   * @see QuantileComputation
+   * @see ApproximateQuantileComputation
+   */
+  @Doc("Computes the given quantiles (between 0 and 1) for the given dataset - and for the specified columns")
+  public static ComputationResults quantiles(@Doc("a dataset") Dataset dataset, @Doc("the quantiles") double[] qs, 
+      @Doc("the column names") String...columnNames) throws IllegalArgumentException, InterruptedException {
+    return quantiles(dataset.getColumnSet().includes(columnNames), new DatasetRowSetAdapter(dataset), qs);
+  }
+  
+  /**
+   * @param dataset the dataset for which to compute quantiles.
+   * @param qs the quantiles to compute, each between 0 and 1 (inclusively).
+   * @return the {@link ComputationResults}.
+   * @throws IllegalArgumentException if an invalid argument has been passed.
+   * @throws InterruptedException if the calling thread is interrupted while waiting
+   * for the end of the computation.
+   * @see #quantiles(Dataset, double[], String...)
+   */
+  @Doc("Computes the given quantiles (between 0 and 1) for all columns in the given dataset")
+  public static ComputationResults quantiles(@Doc("a dataset") Dataset dataset, @Doc("the quantiles") double[] qs) 
+      throws IllegalArgumentException, InterruptedException {
+    return quantiles(dataset.getColumnSet(), new DatasetRowSetAdapter(dataset), qs);
+  }
+
+  /**
+   * Performs unity-based normalization of the given dataset: each numeric value is replaced by
+   * its position between the minimum and the maximum of its column, from 0 to 1. Null and 
+   * non-numeric values are replaced by 0.
+   * 
+   * @param input the {@link Dataset} to normalize.
+   * @return the normalized {@link Dataset}.
+   */
   @Doc("Performs unity-based normalization of a given dataset")
   public static Dataset normalize(@Doc("a dataset") Dataset input) {
     if (input.size() == 0) {
       return input;
     }
 
-    Double[] minValues = new Double[input.getColumnSet().size()];
-    Double[] maxValues = new Double[input.getColumnSet().size()];
+    ColumnData[] normalized = new ColumnData[input.getColumnSet().size()];
+    for (Column col : input.getColumnSet()) {
+      NumericColumn values = input.getNumericColumn(col.getIndex());
 
-    // finding min and max values.
-    for (Vector v : input) {
-      for (int i = 0; i < v.size(); i++) {
-        Value toCheck = v.get(i);
-        if (toCheck.isNumeric()) {
-          if (minValues[i] == null || toCheck.get() < minValues[i]) {
-            minValues[i] = toCheck.get();
+      // finding min and max values.
+      double min = Double.POSITIVE_INFINITY;
+      double max = Double.NEGATIVE_INFINITY;
+      for (int i = 0; i < values.size(); i++) {
+        if (!values.isNull(i)) {
+          double v = values.getDouble(i);
+          if (v < min) {
+            min = v;
           }
-          if (maxValues[i] == null || toCheck.get() > maxValues[i]) {
-            maxValues[i] = toCheck.get();
+          if (v > max) {
+            max = v;
           }
         }
       }
-    }
 
-    List<Vector> normalizedVectors = new ArrayList<>(input.size());
-
-    for (Vector v : input) {
-      Value[] normalizedValues = new Value[input.getColumnSet().size()];
-      for (int i = 0; i < v.size(); i++) {
-        double min = minValues[i];
-        double max = maxValues[i];
-        Value toNormalize = v.get(i);
-        if (toNormalize.isNumeric()) {
-          normalizedValues[i] = NumericValue.of((toNormalize.get() - min) / (max - min));
-        } else {
-          normalizedValues[i] = NumericValue.zero();
+      double[] normalizedValues = new double[values.size()];
+      for (int i = 0; i < values.size(); i++) {
+        if (!values.isNull(i)) {
+          normalizedValues[i] = (values.getDouble(i) - min) / (max - min);
         }
       }
-      normalizedVectors.add(Vectors.vector(normalizedValues));
+      normalized[col.getIndex()] = new NumericColumnData(normalizedValues, new BitSet());
     }
 
-    return new DefaultDataset(input.getColumnSet(), normalizedVectors);
+    return new ColumnarDataset(input.getColumnSet(), normalized);
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  private static ComputationResults summary(ColumnSet columns, RowSet rows) throws InterruptedException {
+    ComputationTask task = Computations.forRows(rows.size());
+    if (rows.size() > Conf.getExactQuantileRowLimit()) {
+      task.add(new SummaryStatsComputation());
+      task.add(new ApproximateQuantileComputation(new String[] { MEDIAN }, new double[] { 0.5 }));
+    } else {
+      summary(task);
+    }
+    return task.compute(columns, rows);
+  }
+  
+  private static ComputationResults quantiles(ColumnSet columns, RowSet rows, double[] qs) throws InterruptedException {
+    ComputationTask task = Computations.forRows(rows.size());
+    if (rows.size() > Conf.getExactQuantileRowLimit()) {
+      task.add(new ApproximateQuantileComputation(qs));
+    } else {
+      task.add(new QuantileComputation(qs));
+    }
+    return task.compute(columns, rows);
   }
 
 }
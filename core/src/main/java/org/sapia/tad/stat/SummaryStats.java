@@ -0,0 +1,140 @@
+package org.sapia.tad.stat;
+
+/**
+ * Holds the summary statistics of a series of <code>double</code> values: count, sum, min, max, mean
+ * and variance - the latter being maintained with Welford's online algorithm.
+ * <p>
+ * Instances of this class that have been computed over distinct partitions of the same series can be
+ * merged (see {@link #mergeWith(SummaryStats)}): the result is the same as if the whole series had been 
+ * processed by a single instance. This class is not thread-safe.
+ * 
+ * @author yduchesne
+ *
+ */
+public class SummaryStats {
+  
+  private long   count;
+  private double sum;
+  private double min = Double.POSITIVE_INFINITY;
+  private double max = Double.NEGATIVE_INFINITY;
+  private double mean;
+  private double m2;
+  
+  /**
+   * @param value a value to add to this instance's statistics.
+   * @return this instance.
+   */
+  public SummaryStats add(double value) {
+    count++;
+    sum += value;
+    if (value < min) {
+      min = value;
+    }
+    if (value > max) {
+      max = value;
+    }
+    double delta = value - mean;
+    mean += delta / count;
+    m2   += delta * (value - mean);
+    return this;
+  }
+  
+  /**
+   * Merges the statistics of the given instance into this instance.
+   * 
+   * @param other another {@link SummaryStats}, computed over a distinct set of values.
+   * @return this instance.
+   */
+  public SummaryStats mergeWith(SummaryStats other) {
+    if (other.count == 0) {
+      return this;
+    }
+    if (count == 0) {
+      count = other.count;
+      sum   = other.sum;
+      min   = other.min;
+      max   = other.max;
+      mean  = other.mean;
+      m2    = other.m2;
+      return this;
+    }
+    long   total = count + other.count;
+    double delta = other.mean - mean;
+    mean   = mean + delta * other.count / total;
+    m2     = m2 + other.m2 + delta * delta * ((double) count * other.count / total);
+    sum   += other.sum;
+    min    = Math.min(min, other.min);
+    max    = Math.max(max, other.max);
+    count  = total;
+    return this;
+  }
+  
+  /**
+   * @return a new instance of this class, holding a copy of this instance's statistics.
+   */
+  public SummaryStats copy() {
+    SummaryStats copy = new SummaryStats();
+    copy.mergeWith(this);
+    return copy;
+  }
+  
+  /**
+   * @return the number of values that were added to this instance.
+   */
+  public long getCount() {
+    return count;
+  }
+  
+  /**
+   * @return the sum of this instance's values.
+   */
+  public double getSum() {
+    return sum;
+  }
+  
+  /**
+   * @return the smallest of this instance's values ({@link Double#NaN} if this instance holds no values).
+   */
+  public double getMin() {
+    return count == 0 ? Double.NaN : min;
+  }
+  
+  /**
+   * @return the largest of this instance's values ({@link Double#NaN} if this instance holds no values).
+   */
+  public double getMax() {
+    return count == 0 ? Double.NaN : max;
+  }
+  
+  /**
+   * @return the mean of this instance's values ({@link Double#NaN} if this instance holds no values).
+   */
+  public double getMean() {
+    return count == 0 ? Double.NaN : mean;
+  }
+  
+  /**
+   * @return the (population) variance of this instance's values ({@link Double#NaN} if this instance holds no values).
+   */
+  public double getVariance() {
+    return count == 0 ? Double.NaN : m2 / count;
+  }
+  
+  /**
+   * @return the (population) standard deviation of this instance's values.
+   */
+  public double getStdDev() {
+    return Math.sqrt(getVariance());
+  }
+  
+  @Override
+  public String toString() {
+    return new StringBuilder("[count=").append(count)
+        .append(", sum=").append(sum)
+        .append(", min=").append(getMin())
+        .append(", max=").append(getMax())
+        .append(", mean=").append(getMean())
+        .append(", variance=").append(getVariance())
+        .append("]").toString();
+  }
+}
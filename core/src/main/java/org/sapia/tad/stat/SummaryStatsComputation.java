@@ -0,0 +1,92 @@
+package org.sapia.tad.stat;
+
+import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.NumericColumn;
+import org.sapia.tad.NumericColumns;
+import org.sapia.tad.RowSet;
+import org.sapia.tad.computation.Accumulator;
+import org.sapia.tad.computation.ComputationResults;
+import org.sapia.tad.computation.MergeableComputation;
+import org.sapia.tad.math.SumValue;
+import org.sapia.tad.value.NullValue;
+
+/**
+ * Computes count, sum, min, max, mean, variance and standard deviation for the numeric columns
+ * of a {@link RowSet}, in a single pass over each column's values (variance is computed with 
+ * Welford's algorithm, rather than from a previously computed mean).
+ * <p>
+ * The partial results of this computation consist of a {@link SummaryStats} instance for each 
+ * numeric column, in the order of the columns: the partial results computed over distinct
+ * row ranges are merged without loss of precision.
+ * <p>
+ * Results are bound to the following names: {@link Stats#COUNT}, {@link Stats#SUM}, {@link Stats#MEAN},
+ * {@link Stats#VARIANCE}, {@link Stats#STDDEV}, {@link Stats#MIN}, {@link Stats#MAX}. Variance and 
+ * standard deviation are computed over the whole population. The published values are {@link Accumulator}s,
+ * so that results computed over distinct sets of rows can be merged exactly (see {@link ComputationResults#mergeWith(ComputationResults)}).
+ * 
+ * @author yduchesne
+ *
+ */
+public class SummaryStatsComputation implements MergeableComputation<SummaryStats[]> {
+  
+  @Override
+  public void compute(ComputationResults context, RowSet rows) {
+    complete(context, computePartial(context.getColumnSet(), rows));
+  }
+  
+  @Override
+  public SummaryStats[] computePartial(ColumnSet columns, RowSet rows) {
+    SummaryStats[] stats = new SummaryStats[columns.size()];
+    int            c     = 0;
+    for (Column col : columns) {
+      if (col.getType() == Datatype.NUMERIC) {
+        NumericColumn values = NumericColumns.of(rows, col.getIndex());
+        SummaryStats  s      = new SummaryStats();
+        for (int i = 0; i < values.size(); i++) {
+          if (!values.isNull(i)) {
+            s.add(values.getDouble(i));
+          }
+        }
+        stats[c] = s;
+      }
+      c++;
+    }
+    return stats;
+  }
+  
+  @Override
+  public SummaryStats[] merge(SummaryStats[] partial, SummaryStats[] other) {
+    for (int i = 0; i < partial.length; i++) {
+      if (partial[i] != null) {
+        partial[i].mergeWith(other[i]);
+      }
+    }
+    return partial;
+  }
+  
+  @Override
+  public void complete(ComputationResults context, SummaryStats[] partial) {
+    int c = 0;
+    for (Column col : context.getColumnSet()) {
+      SummaryStats s = partial[c++];
+      if (s != null) {
+        context.get(Stats.COUNT).set(col, new SumValue().accumulate(s.getCount()));
+        context.get(Stats.SUM).set(col, new SumValue().accumulate(s.getSum()));
+        if (s.getCount() == 0) {
+          for (String name : new String[] { Stats.MEAN, Stats.VARIANCE, Stats.STDDEV, Stats.MIN, Stats.MAX }) {
+            context.get(name).set(col, NullValue.getInstance());
+          }
+        } else {
+          context.get(Stats.MEAN).set(col, new MeanValue(s.getSum(), s.getCount()));
+          context.get(Stats.VARIANCE).set(col, new VarianceValue(s.copy()));
+          context.get(Stats.STDDEV).set(col, new VarianceValue.StdDevValue(s.copy()));
+          context.get(Stats.MIN).set(col, new MinValue().accumulate(s.getMin()));
+          context.get(Stats.MAX).set(col, new MaxValue().accumulate(s.getMax()));
+        }
+      }
+    }
+  }
+
+}
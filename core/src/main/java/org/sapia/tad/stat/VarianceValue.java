@@ -0,0 +1,124 @@
+package org.sapia.tad.stat;
+
+import org.sapia.tad.computation.Accumulator;
+import org.sapia.tad.value.NumericValue;
+import org.sapia.tad.value.Value;
+
+/**
+ * An {@link Accumulator} that computes the (population) variance of the values it is given. An
+ * instance of this class keeps the count, mean and sum of squared deviations of these values (see
+ * {@link SummaryStats}), so that it can be merged exactly with other instances.
+ * 
+ * @author yduchesne
+ *
+ */
+public class VarianceValue implements Accumulator<VarianceValue> {
+  
+  private SummaryStats stats;
+  
+  public VarianceValue() {
+    this(new SummaryStats());
+  }
+  
+  /**
+   * @param stats the {@link SummaryStats} with which to initialize this instance.
+   */
+  public VarianceValue(SummaryStats stats) {
+    this.stats = stats;
+  }
+  
+  /**
+   * @return the {@link SummaryStats} held by this instance.
+   */
+  public SummaryStats getStats() {
+    return stats;
+  }
+  
+  // --------------------------------------------------------------------------
+  // Value interface
+  
+  @Override
+  public double get() {
+    return stats.getCount() == 0 ? 0 : stats.getVariance();
+  }
+  
+  @Override
+  public boolean isNumeric() {
+    return true;
+  }
+  
+  @Override
+  public Object getInternalValue() {
+    return get();
+  }
+  
+  // --------------------------------------------------------------------------
+  // Accumulator interface
+  
+  @Override
+  public VarianceValue init() {
+    stats = new SummaryStats();
+    return this;
+  }
+  
+  @Override
+  public VarianceValue accumulate(double value) {
+    stats.add(value);
+    return this;
+  }
+  
+  @Override
+  public VarianceValue mergeWith(VarianceValue other) {
+    stats.mergeWith(other.stats);
+    return this;
+  }
+  
+  @Override
+  public Value finish() {
+    return new NumericValue(get());
+  }
+  
+  // --------------------------------------------------------------------------
+  // Object overrides
+  
+  @Override
+  public int hashCode() {
+    return (int) get();
+  }
+  
+  @Override
+  public boolean equals(Object o) {
+    if (o instanceof Value) {
+      return ((Value) o).get() == get();
+    }
+    return false;
+  }
+  
+  @Override
+  public String toString() {
+    return Double.toString(get());
+  }
+  
+  // ==========================================================================
+  
+  /**
+   * A {@link VarianceValue} whose result is the standard deviation (the square root of the variance).
+   */
+  public static class StdDevValue extends VarianceValue {
+    
+    public StdDevValue() {
+    }
+    
+    /**
+     * @param stats the {@link SummaryStats} with which to initialize this instance.
+     */
+    public StdDevValue(SummaryStats stats) {
+      super(stats);
+    }
+    
+    @Override
+    public double get() {
+      return Math.sqrt(super.get());
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package org.sapia.tad.transform.aggregate;
+
+import org.sapia.tad.help.Doc;
+import org.sapia.tad.help.Hide;
+import org.sapia.tad.util.Checks;
+
+/**
+ * Specifies an aggregate to compute over each group of rows: the {@link Function} to apply, the column
+ * to which to apply it, and the name of the resulting column.
+ * <p>
+ * Null values are ignored: the aggregate of a group that has only null values is null (except for counts,
+ * which are then 0).
+ * <p>
+ * Instances of this class are immutable: the {@link #as(String)} method returns a new instance.
+ *
+ * @see Aggregations
+ *
+ * @author yduchesne
+ *
+ */
+@Doc("Specifies an aggregate to compute over each group of rows")
+public class Aggregate {
+
+  /**
+   * The supported aggregate functions: all can be computed in a single pass, keeping constant state
+   * per group, and their partial results can be merged.
+   */
+  public enum Function {
+
+    SUM, COUNT, MIN, MAX, MEAN;
+
+    /**
+     * @return <code>true</code> if this function applies to numeric values only.
+     */
+    public boolean isNumeric() {
+      return this != COUNT;
+    }
+  }
+
+  private Function function;
+  private String   columnName;
+  private String   name;
+
+  /**
+   * @param function the {@link Function} to apply.
+   * @param columnName the name of the column to which to apply the function (<code>null</code> to
+   * count rows).
+   * @param name the name of the resulting column.
+   */
+  Aggregate(Function function, String columnName, String name) {
+    Checks.notNull(function, "Function cannot be null");
+    Checks.isTrue(columnName != null || function == Function.COUNT, "Column name must be specified for %s", function);
+    Checks.notNull(name, "Name cannot be null");
+    this.function   = function;
+    this.columnName = columnName;
+    this.name       = name;
+  }
+
+  /**
+   * @param function the {@link Function} to apply.
+   * @param columnName the name of the column to which to apply the function (<code>null</code> to
+   * count rows).
+   */
+  Aggregate(Function function, String columnName) {
+    this(function, columnName, columnName == null
+        ? function.name().toLowerCase()
+        : function.name().toLowerCase() + "_" + columnName);
+  }
+
+  /**
+   * @param name a column name.
+   * @return a new {@link Aggregate}, identical to this instance, but whose resulting column has the given name.
+   */
+  @Doc("returns a copy of this aggregate, whose resulting column has the given name")
+  public Aggregate as(@Doc("a column name") String name) {
+    return new Aggregate(function, columnName, name);
+  }
+
+  /**
+   * @return the {@link Function} that this instance applies.
+   */
+  @Hide
+  public Function getFunction() {
+    return function;
+  }
+
+  /**
+   * @return the name of the column to which this instance applies (<code>null</code> if this instance
+   * counts rows).
+   */
+  @Hide
+  public String getColumnName() {
+    return columnName;
+  }
+
+  /**
+   * @return the name of the column that holds the result of this instance.
+   */
+  @Hide
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public String toString() {
+    return function.name().toLowerCase() + "(" + (columnName == null ? "*" : columnName) + ") as " + name;
+  }
+}
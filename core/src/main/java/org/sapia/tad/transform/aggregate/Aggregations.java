@@ -0,0 +1,168 @@
+package org.sapia.tad.transform.aggregate;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.sapia.tad.Dataset;
+import org.sapia.tad.DatasetStream;
+import org.sapia.tad.Vector;
+import org.sapia.tad.conf.Conf;
+import org.sapia.tad.help.Doc;
+import org.sapia.tad.transform.aggregate.Aggregate.Function;
+
+/**
+ * Provides methods for grouping rows by key, and computing aggregates (sums, counts, minimums, maximums,
+ * means) over each group.
+ * <p>
+ * As opposed to indexing (see {@link org.sapia.tad.transform.index.Indices}), aggregating does not keep the
+ * rows of each group: only the state of each aggregate is kept, per group. If the groups do not fit within
+ * {@link Conf#getAggregationMemoryBudget()}, they are spilled to temporary files, partitioned by key, and
+ * each partition is then aggregated in turn. This allows aggregating datasets and streams with a high number
+ * of distinct keys.
+ * <p>
+ * Usage:
+ * <pre>
+ * Dataset totals = Aggregations.groupBy(sales, "region", "product").agg(sum("amount"), mean("amount"), count().as("sales"));
+ * </pre>
+ *
+ * @see Aggregate
+ *
+ * @author yduchesne
+ *
+ */
+@Doc("Provides methods for grouping rows by key, and computing aggregates (sum, count, min, max, mean) over each group")
+public class Aggregations {
+
+  private Aggregations() {
+  }
+
+  /**
+   * @param colName the name of a numeric column.
+   * @return a new {@link Aggregate}, computing the sum of the given column's values.
+   */
+  @Doc("returns an aggregate computing the sum of the given column's values")
+  public static Aggregate sum(@Doc("the name of a numeric column") String colName) {
+    return new Aggregate(Function.SUM, colName);
+  }
+
+  /**
+   * @return a new {@link Aggregate}, counting rows.
+   */
+  @Doc("returns an aggregate counting rows")
+  public static Aggregate count() {
+    return new Aggregate(Function.COUNT, null);
+  }
+
+  /**
+   * @param colName the name of a column.
+   * @return a new {@link Aggregate}, counting the non-null values of the given column.
+   */
+  @Doc("returns an aggregate counting the non-null values of the given column")
+  public static Aggregate count(@Doc("the name of a column") String colName) {
+    return new Aggregate(Function.COUNT, colName);
+  }
+
+  /**
+   * @param colName the name of a numeric column.
+   * @return a new {@link Aggregate}, computing the minimum of the given column's values.
+   */
+  @Doc("returns an aggregate computing the minimum of the given column's values")
+  public static Aggregate min(@Doc("the name of a numeric column") String colName) {
+    return new Aggregate(Function.MIN, colName);
+  }
+
+  /**
+   * @param colName the name of a numeric column.
+   * @return a new {@link Aggregate}, computing the maximum of the given column's values.
+   */
+  @Doc("returns an aggregate computing the maximum of the given column's values")
+  public static Aggregate max(@Doc("the name of a numeric column") String colName) {
+    return new Aggregate(Function.MAX, colName);
+  }
+
+  /**
+   * @param colName the name of a numeric column.
+   * @return a new {@link Aggregate}, computing the mean of the given column's values.
+   */
+  @Doc("returns an aggregate computing the mean of the given column's values")
+  public static Aggregate mean(@Doc("the name of a numeric column") String colName) {
+    return new Aggregate(Function.MEAN, colName);
+  }
+
+  /**
+   * @param dataset the {@link Dataset} whose rows should be grouped.
+   * @param keyNames the names of the columns by which to group rows.
+   * @return a new {@link GroupBy}, whose {@link GroupBy#agg(Aggregate...)} method computes aggregates
+   * over each group.
+   */
+  @Doc("groups the rows of the given dataset by the given key columns - call agg() on the result to compute aggregates over each group")
+  public static GroupBy groupBy(
+      @Doc("a dataset") Dataset dataset,
+      @Doc("the names of the columns by which to group rows") String...keyNames) {
+    return new GroupBy(dataset, Arrays.asList(keyNames));
+  }
+
+  /**
+   * @param dataset the {@link Dataset} whose rows should be grouped.
+   * @param keyNames the names of the columns by which to group rows.
+   * @return a new {@link GroupBy}, whose {@link GroupBy#agg(Aggregate...)} method computes aggregates
+   * over each group.
+   */
+  @Doc("groups the rows of the given dataset by the given key columns - call agg() on the result to compute aggregates over each group")
+  public static GroupBy groupBy(
+      @Doc("a dataset") Dataset dataset,
+      @Doc("the names of the columns by which to group rows") List<String> keyNames) {
+    return new GroupBy(dataset, keyNames);
+  }
+
+  /**
+   * @param dataset the {@link Dataset} whose rows should be aggregated.
+   * @param keyNames the names of the columns by which to group rows.
+   * @param aggregates the {@link Aggregate}s to compute over each group.
+   * @return a new {@link Dataset}, holding a row per group: each row holds the values of the key columns,
+   * followed by the results of the aggregates.
+   * @throws IOException if an IO error occurs while spilling groups to temporary files.
+   * @see GroupBy
+   */
+  @Doc("groups the rows of the given dataset by the given key columns, and computes the given aggregates over each group")
+  public static Dataset aggregate(
+      @Doc("a dataset") Dataset dataset,
+      @Doc("the names of the columns by which to group rows") List<String> keyNames,
+      @Doc("the aggregates to compute") Aggregate...aggregates) throws IOException {
+    return groupBy(dataset, keyNames).agg(aggregates);
+  }
+
+  /**
+   * Aggregates the rows of the given stream, which is read completely, and closed.
+   *
+   * @param stream the {@link DatasetStream} whose rows should be aggregated.
+   * @param keyNames the names of the columns by which to group rows.
+   * @param aggregates the {@link Aggregate}s to compute over each group.
+   * @return a new {@link Dataset}, holding a row per group: each row holds the values of the key columns,
+   * followed by the results of the aggregates.
+   * @throws IOException if an IO error occurs while reading the stream, or spilling groups to temporary files.
+   */
+  @Doc("groups the rows of the given dataset stream by the given key columns, and computes the given aggregates over each group")
+  public static Dataset aggregate(
+      @Doc("a dataset stream") DatasetStream stream,
+      @Doc("the names of the columns by which to group rows") List<String> keyNames,
+      @Doc("the aggregates to compute") Aggregate...aggregates) throws IOException {
+    try {
+      HashAggregation aggregation = new HashAggregation(stream.getColumnSet(), keyNames, aggregates, Conf.getAggregationMemoryBudget());
+      try {
+        while (stream.hasNext()) {
+          for (Vector row : stream.next()) {
+            aggregation.add(row);
+          }
+        }
+        return aggregation.finish();
+      } catch (IOException | RuntimeException e) {
+        aggregation.abort();
+        throw e;
+      }
+    } finally {
+      stream.close();
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package org.sapia.tad.transform.aggregate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sapia.tad.Dataset;
+import org.sapia.tad.concurrent.Threading;
+import org.sapia.tad.conf.Conf;
+import org.sapia.tad.help.Doc;
+import org.sapia.tad.util.Checks;
+
+/**
+ * Groups the rows of a dataset by key, in order to compute aggregates over each group (see
+ * {@link #agg(Aggregate...)}). An instance of this class is obtained through
+ * {@link Aggregations#groupBy(Dataset, String...)}.
+ * <p>
+ * All aggregates are computed in a single pass over the rows, without indexing them: each row is
+ * accumulated into the state of its group. If the dataset has more rows than
+ * {@link Conf#getParallelRowThreshold()}, ranges of rows are accumulated concurrently into distinct
+ * tables, which are then merged.
+ * <p>
+ * Memory remains bounded by {@link Conf#getAggregationMemoryBudget()}: half of it is shared by the tables of
+ * the row ranges, which are merged into the resulting groups as soon as they exceed their share. The other
+ * half holds the resulting groups, which are spilled to temporary files if they do not fit.
+ *
+ * @author yduchesne
+ *
+ */
+@Doc("Groups the rows of a dataset by key, in order to compute aggregates over each group")
+public class GroupBy {
+
+  private Dataset      dataset;
+  private List<String> keyNames;
+
+  /**
+   * @param dataset the {@link Dataset} whose rows should be grouped.
+   * @param keyNames the names of the columns by which to group rows.
+   */
+  GroupBy(Dataset dataset, List<String> keyNames) {
+    Checks.isTrue(!keyNames.isEmpty(), "At least one key column must be specified");
+    this.dataset  = dataset;
+    this.keyNames = new ArrayList<>(keyNames);
+  }
+
+  /**
+   * @param aggregates the {@link Aggregate}s to compute over each group. Multiple aggregates may apply
+   * to the same column, provided their names are distinct.
+   * @return a new {@link Dataset}, holding a row per group: each row holds the values of the key columns,
+   * followed by the results of the aggregates. Groups are in the order of their first row, unless they
+   * did not fit within {@link Conf#getAggregationMemoryBudget()}.
+   * @throws IOException if an IO error occurs while spilling groups to temporary files.
+   */
+  @Doc("computes the given aggregates over each group, returning a dataset holding a row per group")
+  public Dataset agg(@Doc("the aggregates to compute") Aggregate...aggregates) throws IOException {
+    long            budget      = Math.max(2, Conf.getAggregationMemoryBudget());
+    HashAggregation aggregation = new HashAggregation(dataset.getColumnSet(), keyNames, aggregates, budget / 2);
+    try {
+      ParallelAggregation parallel = new ParallelAggregation(Threading.getForkJoinPool(), Conf.getTaskTimeout(), Conf.getParallelRowThreshold());
+      parallel.aggregate(dataset, aggregation, aggregates, budget / 2);
+      return aggregation.finish();
+    } catch (IOException | RuntimeException e) {
+      aggregation.abort();
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,363 @@
+package org.sapia.tad.transform.aggregate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.Vector;
+import org.sapia.tad.VectorKey;
+import org.sapia.tad.impl.DefaultColumn;
+import org.sapia.tad.impl.DefaultColumnSet;
+import org.sapia.tad.impl.DefaultVector;
+import org.sapia.tad.transform.aggregate.Aggregate.Function;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.value.DateValue;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.NumericValue;
+import org.sapia.tad.value.StringValue;
+import org.sapia.tad.value.Value;
+
+/**
+ * A hash table that holds the state of a set of {@link Aggregate}s, for each group of rows (a group
+ * corresponding to a distinct combination of values of the key columns). Rows are not kept: each row
+ * is accumulated into the state of its group, as it's added.
+ * <p>
+ * The state of each aggregate consists of two <code>double</code>s: the number of non-null values that
+ * were accumulated, and the running sum, minimum or maximum. The states of all groups are held in a
+ * single array. The partial states of a group, computed by another table, can be merged into this
+ * table's state for the same group.
+ * <p>
+ * Keys are not matched with {@link VectorKey#equals(Object)}: a null value only matches another null value
+ * (whereas a numeric value of 0 is deemed equal to null), and NaN matches NaN. Which rows end up in the same
+ * group thus does not depend on the order in which rows are added, nor on how they are partitioned.
+ *
+ * @author yduchesne
+ *
+ */
+class GroupTable {
+
+  static final int SLOTS_PER_AGGREGATE = 2;
+
+  // approximate memory footprints, in bytes
+  private static final int GROUP_OVERHEAD  = 96;
+  private static final int REFERENCE_SIZE  = 8;
+  private static final int NUMERIC_SIZE    = 16;
+  private static final int DATE_SIZE       = 40;
+  private static final int STRING_OVERHEAD = 56;
+  private static final int DEFAULT_SIZE    = 32;
+
+  private ColumnSet               keyColumns;
+  private Function[]              functions;
+  private int[]                   columnIndices;
+  private int                     stride;
+  private Map<GroupKey, Integer>  groups = new HashMap<>();
+  private List<VectorKey>         keys   = new ArrayList<>();
+  private double[]                states;
+  private long                    estimatedSize;
+
+  /**
+   * @param input the {@link ColumnSet} of the rows to aggregate.
+   * @param keyColumns the {@link ColumnSet} of the key columns, which is a subset of the input columns.
+   * @param aggregates the {@link Aggregate}s to compute.
+   */
+  GroupTable(ColumnSet input, ColumnSet keyColumns, Aggregate[] aggregates) {
+    Checks.isTrue(aggregates.length > 0, "At least one aggregate must be specified");
+    this.keyColumns    = keyColumns;
+    this.functions     = new Function[aggregates.length];
+    this.columnIndices = new int[aggregates.length];
+    this.stride        = aggregates.length * SLOTS_PER_AGGREGATE;
+    this.states        = new double[16 * stride];
+    for (int i = 0; i < aggregates.length; i++) {
+      functions[i] = aggregates[i].getFunction();
+      if (aggregates[i].getColumnName() == null) {
+        columnIndices[i] = -1;
+      } else {
+        Column col = input.get(aggregates[i].getColumnName());
+        Checks.isTrue(!functions[i].isNumeric() || col.getType() == Datatype.NUMERIC,
+            "Cannot compute %s over column %s: column is of type %s, expected %s",
+            functions[i], col.getName(), col.getType(), Datatype.NUMERIC);
+        columnIndices[i] = col.getIndex();
+      }
+    }
+  }
+
+  /**
+   * @param input the {@link ColumnSet} of the rows to aggregate.
+   * @param keyColumns the {@link ColumnSet} of the key columns.
+   * @param aggregates the {@link Aggregate}s to compute.
+   * @return the {@link ColumnSet} of the rows produced by a table, made of the key columns, followed
+   * by one numeric column per aggregate.
+   */
+  static ColumnSet outputColumns(ColumnSet keyColumns, Aggregate[] aggregates) {
+    List<Column> columns = new ArrayList<>();
+    for (Column k : keyColumns) {
+      columns.add(new DefaultColumn(columns.size(), k.getType(), k.getName()));
+    }
+    for (Aggregate a : aggregates) {
+      for (Column c : columns) {
+        Checks.isFalse(c.getName().equals(a.getName()), "Duplicate column name: %s", a.getName());
+      }
+      columns.add(new DefaultColumn(columns.size(), Datatype.NUMERIC, a.getName()));
+    }
+    return new DefaultColumnSet(columns);
+  }
+
+  /**
+   * @return the number of groups in this table.
+   */
+  int size() {
+    return keys.size();
+  }
+
+  /**
+   * @return the approximate amount of memory held by this table, in bytes.
+   */
+  long getEstimatedSize() {
+    return estimatedSize;
+  }
+
+  /**
+   * @param row a row to accumulate into the state of its group.
+   */
+  void accumulate(Vector row) {
+    accumulate(groupOf(new VectorKey(keyColumns, row)), row);
+  }
+
+  /**
+   * @param key the {@link VectorKey} of a group.
+   * @return the index of the given group, which is added to this table if it does not exist.
+   */
+  int groupOf(VectorKey key) {
+    return group(key) / stride;
+  }
+
+  /**
+   * @param group the index of the group of the given row (see {@link #groupOf(VectorKey)}).
+   * @param row a row to accumulate into the state of the given group.
+   */
+  void accumulate(int group, Vector row) {
+    int offset = group * stride;
+    for (int i = 0; i < functions.length; i++, offset += SLOTS_PER_AGGREGATE) {
+      if (columnIndices[i] < 0) {
+        states[offset]++;
+        continue;
+      }
+      Value v = row.get(columnIndices[i]);
+      if (NullValue.isNull(v)) {
+        continue;
+      }
+      double value = functions[i].isNumeric() ? v.get() : 0;
+      states[offset]++;
+      accumulate(functions[i], offset, states[offset] == 1, value);
+    }
+  }
+
+  /**
+   * @param key the {@link VectorKey} of a group.
+   * @param partial the partial state of the given group (as returned by {@link #getState(int)}), to merge
+   * into this instance's state for that group.
+   */
+  void merge(VectorKey key, double[] partial) {
+    merge(key, partial, 0);
+  }
+
+  /**
+   * Merges the states of the given table's groups into this instance's states (the given table is
+   * expected to compute the same aggregates). Groups that are not in this table are added to it, in
+   * the order in which they were added to the given table.
+   *
+   * @param other another {@link GroupTable}.
+   */
+  void mergeAll(GroupTable other) {
+    for (int g = 0; g < other.size(); g++) {
+      merge(other.keys.get(g), other.states, g * other.stride);
+    }
+  }
+
+  /**
+   * @return <code>true</code> if this table holds no groups.
+   */
+  boolean isEmpty() {
+    return keys.isEmpty();
+  }
+
+  /**
+   * @param group the index of a group (groups are indexed in the order in which they were added).
+   * @return the {@link VectorKey} of the given group.
+   */
+  VectorKey getKey(int group) {
+    return keys.get(group);
+  }
+
+  /**
+   * @param group the index of a group.
+   * @return a copy of the state of the given group.
+   */
+  double[] getState(int group) {
+    return Arrays.copyOfRange(states, group * stride, (group + 1) * stride);
+  }
+
+  /**
+   * @param group the index of a group.
+   * @return the row holding the values of the key columns of the given group, followed by the results
+   * of the aggregates.
+   */
+  Vector getResult(int group) {
+    Value[] key    = keys.get(group).getValues();
+    Value[] values = new Value[key.length + functions.length];
+    int     offset = group * stride;
+    System.arraycopy(key, 0, values, 0, key.length);
+    for (int i = 0; i < functions.length; i++, offset += SLOTS_PER_AGGREGATE) {
+      double count = states[offset];
+      double state = states[offset + 1];
+      if (functions[i] == Function.COUNT) {
+        values[key.length + i] = new NumericValue(count);
+      } else if (count == 0) {
+        values[key.length + i] = NullValue.getInstance();
+      } else if (functions[i] == Function.MEAN) {
+        values[key.length + i] = new NumericValue(state / count);
+      } else {
+        values[key.length + i] = new NumericValue(state);
+      }
+    }
+    return new DefaultVector(values);
+  }
+
+  /**
+   * Removes all groups from this table.
+   */
+  void clear() {
+    groups.clear();
+    keys.clear();
+    states        = new double[16 * stride];
+    estimatedSize = 0;
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  private void merge(VectorKey key, double[] partial, int partialOffset) {
+    int offset = group(key);
+    for (int i = 0; i < functions.length; i++, offset += SLOTS_PER_AGGREGATE) {
+      int    p     = partialOffset + i * SLOTS_PER_AGGREGATE;
+      double count = partial[p];
+      if (count == 0) {
+        continue;
+      }
+      boolean first = states[offset] == 0;
+      states[offset] += count;
+      accumulate(functions[i], offset, first, partial[p + 1]);
+    }
+  }
+
+  // returns the offset of the given group's state, adding the group if it does not exist
+  private int group(VectorKey key) {
+    GroupKey groupKey = new GroupKey(key);
+    Integer  group    = groups.get(groupKey);
+    if (group == null) {
+      group = keys.size();
+      groups.put(groupKey, group);
+      keys.add(key);
+      if ((group + 1) * stride > states.length) {
+        states = Arrays.copyOf(states, states.length * 2);
+      }
+      estimatedSize += sizeOf(key) + stride * 8;
+    }
+    return group * stride;
+  }
+
+  private void accumulate(Function function, int offset, boolean first, double value) {
+    switch (function) {
+      case SUM:
+      case MEAN:
+        states[offset + 1] += value;
+        break;
+      case MIN:
+        states[offset + 1] = first ? value : Math.min(states[offset + 1], value);
+        break;
+      case MAX:
+        states[offset + 1] = first ? value : Math.max(states[offset + 1], value);
+        break;
+      default:
+        break;
+    }
+  }
+
+  private static long sizeOf(VectorKey key) {
+    long size = GROUP_OVERHEAD;
+    for (int i = 0; i < key.size(); i++) {
+      Value v = key.get(i);
+      size += REFERENCE_SIZE;
+      if (NullValue.isNull(v)) {
+        continue;
+      } else if (v instanceof DateValue) {
+        size += DATE_SIZE;
+      } else if (v instanceof StringValue) {
+        size += STRING_OVERHEAD + 2 * ((StringValue) v).getValue().length();
+      } else if (v.isNumeric()) {
+        size += NUMERIC_SIZE;
+      } else {
+        size += DEFAULT_SIZE;
+      }
+    }
+    return size;
+  }
+
+  // ==========================================================================
+
+  /**
+   * Wraps a {@link VectorKey}, matching null values and NaNs explicitly.
+   */
+  private static class GroupKey {
+
+    private static final int NULL_HASH = 0x7F4A7C15;
+
+    private Value[] values;
+    private int     hash;
+
+    private GroupKey(VectorKey key) {
+      this.values = new Value[key.size()];
+      for (int i = 0; i < values.length; i++) {
+        values[i] = key.get(i);
+        hash      = hash * 31 + (NullValue.isNull(values[i]) ? NULL_HASH : values[i].hashCode());
+      }
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof GroupKey)) {
+        return false;
+      }
+      GroupKey other = (GroupKey) obj;
+      if (hash != other.hash || values.length != other.values.length) {
+        return false;
+      }
+      for (int i = 0; i < values.length; i++) {
+        if (!matches(values[i], other.values[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static boolean matches(Value v1, Value v2) {
+      boolean null1 = NullValue.isNull(v1), null2 = NullValue.isNull(v2);
+      if (null1 || null2) {
+        return null1 && null2;
+      } else if (v1.isNumeric() && v2.isNumeric() && Double.isNaN(v1.get()) && Double.isNaN(v2.get())) {
+        return true;
+      }
+      return v1.equals(v2);
+    }
+  }
+}
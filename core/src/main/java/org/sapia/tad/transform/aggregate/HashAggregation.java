@@ -0,0 +1,294 @@
+package org.sapia.tad.transform.aggregate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.Vector;
+import org.sapia.tad.VectorKey;
+import org.sapia.tad.impl.DefaultDataset;
+import org.sapia.tad.io.bin.BinaryValues;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.value.Value;
+
+/**
+ * Aggregates rows by key, in bounded memory: rows are accumulated into a {@link GroupTable}, which holds
+ * the state of each group. When the estimated size of the table exceeds a given memory budget, the table
+ * is spilled: the partial states of its groups are written to temporary files (one per hash partition of
+ * the keys), and the table is cleared.
+ * <p>
+ * Once all rows have been added, the groups that are still in memory are spilled as well (if spilling
+ * occurred), and each partition is aggregated in turn, by merging the partial states of its groups. Since
+ * a partition holds a fraction of the groups, it usually fits within the budget: otherwise, it is itself
+ * aggregated recursively, using a different hash function to partition its groups.
+ * <p>
+ * Groups are returned in the order in which they were first encountered, unless spilling occurred.
+ * Since keys may have to be spilled, {@link Datatype#GEOMETRY} key columns are not supported.
+ * An instance of this class is meant to be used once, by a single thread.
+ *
+ * @author yduchesne
+ *
+ */
+class HashAggregation {
+
+  static final int PARTITION_COUNT = 16;
+
+  // the recursion depth beyond which partitions are aggregated in memory regardless of the budget
+  static final int MAX_DEPTH = 6;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private ColumnSet     input;
+  private ColumnSet     keyColumns;
+  private Aggregate[]   aggregates;
+  private ColumnSet     outputColumns;
+  private long          memoryBudget;
+  private int           depth;
+  private GroupTable    table;
+  private Partition[]   partitions;
+
+  /**
+   * @param input the {@link ColumnSet} of the rows to aggregate.
+   * @param keyNames the names of the key columns.
+   * @param aggregates the {@link Aggregate}s to compute.
+   * @param memoryBudget the approximate amount of memory (in bytes) that may be used to hold groups.
+   * @throws IllegalArgumentException if a key column is a {@link Datatype#GEOMETRY} column.
+   */
+  HashAggregation(ColumnSet input, List<String> keyNames, Aggregate[] aggregates, long memoryBudget) 
+      throws IllegalArgumentException {
+    this(input, keyColumns(input, keyNames), aggregates, memoryBudget, 0);
+  }
+
+  private HashAggregation(ColumnSet input, ColumnSet keyColumns, Aggregate[] aggregates, long memoryBudget, int depth) {
+    Checks.isTrue(memoryBudget > 0, "Memory budget must be greater than 0");
+    this.input         = input;
+    this.keyColumns    = keyColumns;
+    this.aggregates    = aggregates;
+    this.outputColumns = GroupTable.outputColumns(keyColumns, aggregates);
+    this.memoryBudget  = memoryBudget;
+    this.depth         = depth;
+    this.table         = new GroupTable(input, keyColumns, aggregates);
+  }
+
+  /**
+   * @return the {@link ColumnSet} of the resulting rows.
+   */
+  ColumnSet getOutputColumns() {
+    return outputColumns;
+  }
+
+  /**
+   * @return the {@link ColumnSet} of the key columns.
+   */
+  ColumnSet getKeyColumns() {
+    return keyColumns;
+  }
+
+  /**
+   * @param row a row to aggregate.
+   * @throws IOException if an IO error occurs while spilling groups to disk.
+   */
+  void add(Vector row) throws IOException {
+    table.accumulate(row);
+    spillIfFull();
+  }
+
+  /**
+   * Adds all the rows of the given dataset.
+   *
+   * @param rows a {@link Dataset} whose rows should be aggregated.
+   * @throws IOException if an IO error occurs while spilling groups to disk.
+   */
+  void addAll(Dataset rows) throws IOException {
+    for (Vector row : rows) {
+      add(row);
+    }
+  }
+
+  /**
+   * Merges the groups of the given table, which must have been created with the same input columns, key
+   * columns and aggregates as this instance. If no groups have been added to this instance yet, and the
+   * given table fits within the memory budget, it is used as is.
+   *
+   * @param partial a {@link GroupTable} holding partial states.
+   * @throws IOException if an IO error occurs while spilling groups to disk.
+   */
+  void addAll(GroupTable partial) throws IOException {
+    if (table.isEmpty() && partial.getEstimatedSize() <= memoryBudget) {
+      table = partial;
+      return;
+    }
+    for (int g = 0; g < partial.size(); g++) {
+      merge(partial.getKey(g), partial.getState(g));
+    }
+  }
+
+  /**
+   * @return a new {@link Dataset}, holding a row per group: each row holds the values of the key columns,
+   * followed by the results of the aggregates.
+   * @throws IOException if an IO error occurs while reading spilled groups.
+   */
+  Dataset finish() throws IOException {
+    List<Vector> rows = new ArrayList<>();
+    finish(rows);
+    return new DefaultDataset(outputColumns, rows);
+  }
+
+  /**
+   * Deletes the files to which groups were spilled, if any: to call if the aggregation cannot be completed.
+   */
+  void abort() {
+    if (partitions != null) {
+      for (Partition p : partitions) {
+        p.delete();
+      }
+      partitions = null;
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  private void finish(List<Vector> rows) throws IOException {
+    try {
+      if (partitions == null) {
+        for (int g = 0; g < table.size(); g++) {
+          rows.add(table.getResult(g));
+        }
+        return;
+      }
+      spill();
+      table = null;
+      for (Partition p : partitions) {
+        p.closeOutput();
+      }
+      for (Partition p : partitions) {
+        HashAggregation child = new HashAggregation(input, keyColumns, aggregates, memoryBudget, depth + 1);
+        try {
+          p.mergeInto(child);
+          child.finish(rows);
+        } finally {
+          child.abort();
+          p.delete();
+        }
+      }
+    } finally {
+      abort();
+    }
+  }
+
+  private void merge(VectorKey key, double[] state) throws IOException {
+    table.merge(key, state);
+    spillIfFull();
+  }
+
+  private void spillIfFull() throws IOException {
+    if (table.getEstimatedSize() > memoryBudget && depth < MAX_DEPTH) {
+      spill();
+      table.clear();
+    }
+  }
+
+  private void spill() throws IOException {
+    if (partitions == null) {
+      partitions = new Partition[PARTITION_COUNT];
+      for (int i = 0; i < partitions.length; i++) {
+        partitions[i] = new Partition(keyColumns.size(), aggregates.length * GroupTable.SLOTS_PER_AGGREGATE);
+      }
+    }
+    for (int g = 0; g < table.size(); g++) {
+      VectorKey key = table.getKey(g);
+      partitions[partition(key.hashCode(), depth)].write(key, table.getState(g));
+    }
+  }
+
+  // validating key types upfront, rather than failing once groups are spilled
+  private static ColumnSet keyColumns(ColumnSet input, List<String> keyNames) {
+    ColumnSet keyColumns = input.includes(keyNames.toArray(new String[keyNames.size()]));
+    for (Column col : keyColumns) {
+      Checks.isTrue(col.getType() != Datatype.GEOMETRY, "Cannot group by column %s: values of type %s cannot be spilled to disk",
+          col.getName(), col.getType());
+    }
+    return keyColumns;
+  }
+
+  // the partition of a given hash code, at a given depth: each depth uses distinct bits of the mixed hash
+  private static int partition(int hashCode, int depth) {
+    int h = hashCode * 0x9E3779B9;
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    h ^= h >>> 13;
+    return Integer.rotateRight(h, depth * 4) & (PARTITION_COUNT - 1);
+  }
+
+  // ==========================================================================
+
+  /**
+   * A temporary file holding the partial states of groups: for each group, the values of its key are
+   * written (see {@link BinaryValues}), followed by its state.
+   */
+  private class Partition {
+
+    private int              keySize, stateSize, groupCount;
+    private File             file;
+    private DataOutputStream output;
+
+    private Partition(int keySize, int stateSize) throws IOException {
+      this.keySize   = keySize;
+      this.stateSize = stateSize;
+      this.file      = File.createTempFile("tad-aggregate-", ".part");
+      this.output    = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+    }
+
+    private void write(VectorKey key, double[] state) throws IOException {
+      for (int i = 0; i < keySize; i++) {
+        BinaryValues.write(output, key.get(i));
+      }
+      for (double s : state) {
+        output.writeDouble(s);
+      }
+      groupCount++;
+    }
+
+    private void closeOutput() throws IOException {
+      output.close();
+    }
+
+    private void mergeInto(HashAggregation aggregation) throws IOException {
+      try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE))) {
+        for (int g = 0; g < groupCount; g++) {
+          Value[] key = new Value[keySize];
+          for (int i = 0; i < keySize; i++) {
+            key[i] = BinaryValues.read(input);
+          }
+          double[] state = new double[stateSize];
+          for (int i = 0; i < stateSize; i++) {
+            state[i] = input.readDouble();
+          }
+          aggregation.merge(new VectorKey(keyColumns, key), state);
+        }
+      }
+    }
+
+    private void delete() {
+      try {
+        output.close();
+      } catch (IOException e) {
+        // ignoring: the file is deleted anyway
+      } finally {
+        file.delete();
+      }
+    }
+  }
+}
@@ -0,0 +1,208 @@
+package org.sapia.tad.transform.aggregate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeoutException;
+
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.Vector;
+import org.sapia.tad.VectorKey;
+import org.sapia.tad.concurrent.ConcurrencyException;
+import org.sapia.tad.concurrent.ThreadInterruptedException;
+import org.sapia.tad.impl.columnar.ColumnData;
+import org.sapia.tad.impl.columnar.ColumnarDataset;
+import org.sapia.tad.impl.columnar.StringColumnData;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.util.Time;
+
+/**
+ * Accumulates the rows of a dataset into a {@link HashAggregation}, in a single pass.
+ * <p>
+ * If the number of rows is greater than the threshold that is passed to an instance of this class, the
+ * rows are split into ranges (each holding at least half that threshold), which are accumulated
+ * concurrently in a {@link ForkJoinPool}: each range is accumulated into its own {@link GroupTable}, by a
+ * single thread, and the tables of adjacent ranges are then merged. Otherwise, the rows are accumulated by
+ * the calling thread. The resulting table is merged into the aggregation: if it did not exceed its share of
+ * the memory budget, groups appear in the aggregation in the order of their first row.
+ * <p>
+ * The memory budget is shared by all ranges: a table whose estimated size exceeds the share of its range
+ * is merged into the aggregation right away (which spills it, if needed), and replaced by an empty one. 
+ * The tables held by the ranges thus remain within the budget altogether.
+ * <p>
+ * When grouping a columnar dataset on a single dictionary-encoded string column, rows are mapped to their
+ * group by comparing dictionary codes, rather than by hashing their key.
+ *
+ * @author yduchesne
+ *
+ */
+class ParallelAggregation {
+
+  private ForkJoinPool pool;
+  private Time         timeout;
+  private int          threshold;
+
+  /**
+   * @param pool the {@link ForkJoinPool} to use to process row ranges.
+   * @param timeout the {@link Time} to wait until the aggregation completes - a {@link ConcurrencyException}
+   * is thrown if the aggregation could not complete within the allowed time.
+   * @param threshold the number of rows above which the rows should be partitioned.
+   */
+  ParallelAggregation(ForkJoinPool pool, Time timeout, int threshold) {
+    Checks.isTrue(threshold > 1, "Threshold must be greater than 1");
+    this.pool      = pool;
+    this.timeout   = timeout;
+    this.threshold = threshold;
+  }
+
+  /**
+   * @param dataset the {@link Dataset} whose rows should be aggregated.
+   * @param aggregation the {@link HashAggregation} into which to merge the groups of the dataset's rows.
+   * @param aggregates the {@link Aggregate}s to compute (the ones with which the aggregation was created).
+   * @param memoryBudget the approximate amount of memory (in bytes) that may be used to hold the tables of
+   * all row ranges (not counting the memory used by the given aggregation).
+   * @throws IOException if an IO error occurs while the aggregation spills groups to disk.
+   */
+  void aggregate(Dataset dataset, HashAggregation aggregation, Aggregate[] aggregates, long memoryBudget) throws IOException {
+    Checks.isTrue(memoryBudget > 0, "Memory budget must be greater than 0");
+    int size = dataset.size();
+    if (size <= threshold) {
+      flush(aggregation, accumulate(dataset, aggregation, aggregates, 0, size, memoryBudget));
+      return;
+    }
+
+    int  partitionSize = Math.max(threshold / 2, size / (pool.getParallelism() * 4) + 1);
+    // ranges are halved until they fit the partition size: there are less than twice as many as partitions
+    long share         = Math.max(1, memoryBudget / (2L * ((size + partitionSize - 1) / partitionSize)));
+    ForkJoinTask<GroupTable> task = pool.submit(new RangeTask(dataset, aggregation, aggregates, 0, size, partitionSize, share));
+    try {
+      flush(aggregation, task.get(timeout.getValue(), timeout.getUnit()));
+    } catch (InterruptedException e) {
+      task.cancel(true);
+      throw new ThreadInterruptedException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      }
+      throw new ConcurrencyException("Error occured awaiting aggregation result", e);
+    } catch (TimeoutException e) {
+      task.cancel(true);
+      throw new ConcurrencyException("Timeout awaiting aggregation result", e);
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  private static GroupTable accumulate(Dataset dataset, HashAggregation aggregation, Aggregate[] aggregates, 
+      int start, int end, long share) throws IOException {
+    ColumnSet        keyColumns = aggregation.getKeyColumns();
+    GroupTable       table      = new GroupTable(dataset.getColumnSet(), keyColumns, aggregates);
+    StringColumnData strings    = encodedKey(dataset, keyColumns);
+    if (strings == null) {
+      for (int r = start; r < end; r++) {
+        table.accumulate(dataset.getRow(r));
+        if (table.getEstimatedSize() > share) {
+          // not clearing the flushed table, since the aggregation may keep it as is
+          flush(aggregation, table);
+          table = new GroupTable(dataset.getColumnSet(), keyColumns, aggregates);
+        }
+      }
+    } else {
+      // rows are mapped to their group by dictionary code: a key is created once per distinct string only
+      int[] groups = new int[strings.getDictionary().size() + 1];
+      Arrays.fill(groups, -1);
+      for (int r = start; r < end; r++) {
+        Vector row  = dataset.getRow(r);
+        int    code = strings.getCode(r);
+        int    slot = code < 0 ? groups.length - 1 : code;
+        if (groups[slot] < 0) {
+          groups[slot] = table.groupOf(new VectorKey(keyColumns, row));
+        }
+        table.accumulate(groups[slot], row);
+        if (table.getEstimatedSize() > share) {
+          flush(aggregation, table);
+          table = new GroupTable(dataset.getColumnSet(), keyColumns, aggregates);
+          Arrays.fill(groups, -1);
+        }
+      }
+    }
+    return table;
+  }
+
+  // the aggregation is not thread-safe: tables are merged into it one at a time
+  private static void flush(HashAggregation aggregation, GroupTable table) throws IOException {
+    if (!table.isEmpty()) {
+      synchronized (aggregation) {
+        aggregation.addAll(table);
+      }
+    }
+  }
+
+  // returns the data of the key column, if there's a single one and it holds dictionary-encoded strings
+  private static StringColumnData encodedKey(Dataset dataset, ColumnSet keyColumns) {
+    if (dataset instanceof ColumnarDataset && keyColumns.size() == 1) {
+      ColumnData data = ((ColumnarDataset) dataset).getColumnData(keyColumns.get(0).getIndex());
+      if (data instanceof StringColumnData) {
+        return (StringColumnData) data;
+      }
+    }
+    return null;
+  }
+
+  // ==========================================================================
+
+  /**
+   * Recursively splits a row range in two halves, until a range is not greater than the partition size.
+   */
+  private static class RangeTask extends RecursiveTask<GroupTable> {
+
+    private static final long serialVersionUID = 1L;
+
+    private Dataset         dataset;
+    private HashAggregation aggregation;
+    private Aggregate[]     aggregates;
+    private int             start, end, partitionSize;
+    private long            share;
+
+    private RangeTask(Dataset dataset, HashAggregation aggregation, Aggregate[] aggregates, int start, int end, int partitionSize, long share) {
+      this.dataset       = dataset;
+      this.aggregation   = aggregation;
+      this.aggregates    = aggregates;
+      this.start         = start;
+      this.end           = end;
+      this.partitionSize = partitionSize;
+      this.share         = share;
+    }
+
+    @Override
+    protected GroupTable compute() {
+      try {
+        if (end - start <= partitionSize) {
+          return accumulate(dataset, aggregation, aggregates, start, end, share);
+        }
+        int       middle = start + (end - start) / 2;
+        RangeTask left   = new RangeTask(dataset, aggregation, aggregates, start, middle, partitionSize, share);
+        RangeTask right  = new RangeTask(dataset, aggregation, aggregates, middle, end, partitionSize, share);
+        right.fork();
+        GroupTable leftTable  = left.compute();
+        GroupTable rightTable = right.join();
+        // merging the right table into the left one, so that groups remain in the order of their first row
+        leftTable.mergeAll(rightTable);
+        if (leftTable.getEstimatedSize() > share) {
+          // not clearing the flushed table, since the aggregation may keep it as is
+          flush(aggregation, leftTable);
+          return new GroupTable(dataset.getColumnSet(), aggregation.getKeyColumns(), aggregates);
+        }
+        return leftTable;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
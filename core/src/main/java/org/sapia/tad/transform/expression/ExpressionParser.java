@@ -0,0 +1,379 @@
+package org.sapia.tad.transform.expression;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.transform.expression.Node.Type;
+
+/**
+ * Parses expressions into trees of {@link Node}s, resolving column references to column indices and
+ * type-checking operands against a given {@link ColumnSet}. The following subset of the MVEL language
+ * is supported:
+ * <ul>
+ *   <li>numeric, string (single or double-quoted), boolean and <code>null</code> literals;
+ *   <li>references to numeric, string and date columns, by name;
+ *   <li>the arithmetic operators <code>+ - * / %</code>, and unary <code>-</code>, on numbers;
+ *   <li>the comparison operators <code>== != &lt; &lt;= &gt; &gt;=</code>, between operands of the same type
+ *   (and <code>== null</code>, <code>!= null</code> on any operand);
+ *   <li>the logical operators <code>&amp;&amp; || !</code>, and parentheses.
+ * </ul>
+ * Any other construct (method calls, property access, assignments, unknown identifiers, operations
+ * between operands of different types, etc.) causes an {@link UnsupportedExpressionException} to be
+ * thrown: such expressions are meant to be evaluated with MVEL.
+ * <p>
+ * An instance of this class is meant to parse a single expression.
+ *
+ * @author yduchesne
+ *
+ */
+class ExpressionParser {
+
+  /**
+   * Thrown when an expression holds a construct that is not supported by this class.
+   */
+  static class UnsupportedExpressionException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    UnsupportedExpressionException(String msg) {
+      super(msg);
+    }
+  }
+
+  // --------------------------------------------------------------------------
+
+  private enum TokenType {
+    NUMBER, STRING, IDENTIFIER, OPERATOR, END
+  }
+
+  private static class Token {
+
+    private TokenType type;
+    private String    text;
+    private Object    value;
+
+    private Token(TokenType type, String text, Object value) {
+      this.type  = type;
+      this.text  = text;
+      this.value = value;
+    }
+
+    private boolean is(String text) {
+      return (type == TokenType.OPERATOR || type == TokenType.IDENTIFIER) && this.text.equals(text);
+    }
+  }
+
+  private static final String[] OPERATORS = {
+    "&&", "||", "==", "!=", "<=", ">=", "<", ">", "!", "+", "-", "*", "/", "%", "(", ")"
+  };
+
+  private ColumnSet   columns;
+  private String      expression;
+  private List<Token> tokens;
+  private int         position;
+
+  /**
+   * @param columns the {@link ColumnSet} against which to resolve column references.
+   * @param expression the expression to parse.
+   */
+  ExpressionParser(ColumnSet columns, String expression) {
+    this.columns    = columns;
+    this.expression = expression;
+  }
+
+  /**
+   * @return the root {@link Node} of the parsed expression.
+   * @throws UnsupportedExpressionException if the expression holds an unsupported construct.
+   */
+  Node parse() throws UnsupportedExpressionException {
+    tokens   = tokenize();
+    position = 0;
+    Node root = parseOr();
+    if (peek().type != TokenType.END) {
+      throw unsupported("Unexpected token: " + peek().text);
+    }
+    return root;
+  }
+
+  // --------------------------------------------------------------------------
+  // Parsing
+
+  private Node parseOr() throws UnsupportedExpressionException {
+    Node left = parseAnd();
+    while (peek().is("||")) {
+      next();
+      left = Node.or(checkBoolean(left), checkBoolean(parseAnd()));
+    }
+    return left;
+  }
+
+  private Node parseAnd() throws UnsupportedExpressionException {
+    Node left = parseComparison();
+    while (peek().is("&&")) {
+      next();
+      left = Node.and(checkBoolean(left), checkBoolean(parseComparison()));
+    }
+    return left;
+  }
+
+  private Node parseComparison() throws UnsupportedExpressionException {
+    Node left = parseAdditive();
+    if (isComparison(peek())) {
+      String operator = next().text;
+      Node   right    = parseAdditive();
+      if (isComparison(peek())) {
+        throw unsupported("Chained comparisons");
+      }
+      return compare(operator, left, right);
+    }
+    return left;
+  }
+
+  private Node parseAdditive() throws UnsupportedExpressionException {
+    Node left = parseMultiplicative();
+    while (peek().is("+") || peek().is("-")) {
+      String operator = next().text;
+      left = Node.arithmetic(operator, checkNumeric(left), checkNumeric(parseMultiplicative()));
+    }
+    return left;
+  }
+
+  private Node parseMultiplicative() throws UnsupportedExpressionException {
+    Node left = parseUnary();
+    while (peek().is("*") || peek().is("/") || peek().is("%")) {
+      String operator = next().text;
+      left = Node.arithmetic(operator, checkNumeric(left), checkNumeric(parseUnary()));
+    }
+    return left;
+  }
+
+  private Node parseUnary() throws UnsupportedExpressionException {
+    if (peek().is("-")) {
+      next();
+      return Node.negate(checkNumeric(parseUnary()));
+    } else if (peek().is("!")) {
+      next();
+      return Node.not(checkBoolean(parseUnary()));
+    }
+    return parsePrimary();
+  }
+
+  private Node parsePrimary() throws UnsupportedExpressionException {
+    Token token = next();
+    switch (token.type) {
+      case NUMBER:
+        return Node.number((Double) token.value);
+      case STRING:
+        return Node.string((String) token.value);
+      case IDENTIFIER:
+        if (token.text.equals("true") || token.text.equals("false")) {
+          return Node.bool(Boolean.parseBoolean(token.text));
+        } else if (token.text.equals("null")) {
+          return Node.nullLiteral();
+        }
+        return column(token.text);
+      case OPERATOR:
+        if (token.is("(")) {
+          Node inner = parseOr();
+          if (!next().is(")")) {
+            throw unsupported("Unbalanced parentheses");
+          }
+          return inner;
+        }
+        throw unsupported("Unexpected operator: " + token.text);
+      default:
+        throw unsupported("Unexpected end of expression");
+    }
+  }
+
+  private Node column(String name) throws UnsupportedExpressionException {
+    if (!columns.getColumnNames().contains(name)) {
+      throw unsupported("Unknown identifier: " + name);
+    }
+    Column col = columns.get(name);
+    switch (col.getType()) {
+      case NUMERIC:
+        return Node.numericColumn(col.getIndex());
+      case STRING:
+        return Node.stringColumn(col.getIndex());
+      case DATE:
+        return Node.dateColumn(col.getIndex());
+      default:
+        throw unsupported("Unsupported column type: " + col.getType());
+    }
+  }
+
+  private Node compare(String operator, Node left, Node right) throws UnsupportedExpressionException {
+    boolean equality = operator.equals("==") || operator.equals("!=");
+    if (left.getType() == Type.NULL || right.getType() == Type.NULL) {
+      if (!equality) {
+        throw unsupported("Ordered comparison with null");
+      }
+      Node operand = left.getType() == Type.NULL ? right : left;
+      return Node.isNull(operand, operator.equals("!="));
+    } else if (left.getType() != right.getType()) {
+      throw unsupported("Comparison between " + left.getType() + " and " + right.getType());
+    }
+    switch (left.getType()) {
+      case NUMERIC:
+        return Node.compareNumbers(operator, left, right);
+      case BOOLEAN:
+        if (!equality) {
+          throw unsupported("Ordered comparison between booleans");
+        }
+        return Node.compareBooleans(operator, left, right);
+      default:
+        return Node.compareObjects(operator, left, right);
+    }
+  }
+
+  private static boolean isComparison(Token token) {
+    return token.is("==") || token.is("!=") || token.is("<") || token.is("<=") || token.is(">") || token.is(">=");
+  }
+
+  private Node checkNumeric(Node node) throws UnsupportedExpressionException {
+    if (node.getType() != Type.NUMERIC) {
+      throw unsupported("Arithmetic on " + node.getType());
+    }
+    return node;
+  }
+
+  private Node checkBoolean(Node node) throws UnsupportedExpressionException {
+    if (node.getType() != Type.BOOLEAN) {
+      throw unsupported("Logical operation on " + node.getType());
+    }
+    return node;
+  }
+
+  private Token peek() {
+    return tokens.get(position);
+  }
+
+  private Token next() {
+    Token token = tokens.get(position);
+    if (token.type != TokenType.END) {
+      position++;
+    }
+    return token;
+  }
+
+  private UnsupportedExpressionException unsupported(String reason) {
+    return new UnsupportedExpressionException(reason + " in expression: " + expression);
+  }
+
+  // --------------------------------------------------------------------------
+  // Tokenizing
+
+  private List<Token> tokenize() throws UnsupportedExpressionException {
+    List<Token> result = new ArrayList<>();
+    int         i      = 0;
+    while (i < expression.length()) {
+      char c = expression.charAt(i);
+      if (Character.isWhitespace(c)) {
+        i++;
+      } else if (Character.isDigit(c) || (c == '.' && i + 1 < expression.length() && Character.isDigit(expression.charAt(i + 1)))) {
+        i = number(i, result);
+      } else if (c == '\'' || c == '"') {
+        i = string(i, result);
+      } else if (Character.isJavaIdentifierStart(c)) {
+        int start = i;
+        while (i < expression.length() && Character.isJavaIdentifierPart(expression.charAt(i))) {
+          i++;
+        }
+        // property access, method calls, indexing, etc.
+        int next = i;
+        while (next < expression.length() && Character.isWhitespace(expression.charAt(next))) {
+          next++;
+        }
+        if (next < expression.length() && ".([{".indexOf(expression.charAt(next)) >= 0) {
+          throw unsupported("Unsupported construct after " + expression.substring(start, i));
+        }
+        result.add(new Token(TokenType.IDENTIFIER, expression.substring(start, i), null));
+      } else {
+        String operator = null;
+        for (String op : OPERATORS) {
+          if (expression.startsWith(op, i)) {
+            operator = op;
+            break;
+          }
+        }
+        if (operator == null) {
+          throw unsupported("Unsupported character: " + c);
+        }
+        result.add(new Token(TokenType.OPERATOR, operator, null));
+        i += operator.length();
+      }
+    }
+    result.add(new Token(TokenType.END, "", null));
+    return result;
+  }
+
+  private int number(int start, List<Token> result) throws UnsupportedExpressionException {
+    int i = start;
+    while (i < expression.length() && (Character.isDigit(expression.charAt(i)) || expression.charAt(i) == '.')) {
+      i++;
+    }
+    if (i < expression.length() && (expression.charAt(i) == 'e' || expression.charAt(i) == 'E')) {
+      i++;
+      if (i < expression.length() && (expression.charAt(i) == '+' || expression.charAt(i) == '-')) {
+        i++;
+      }
+      while (i < expression.length() && Character.isDigit(expression.charAt(i))) {
+        i++;
+      }
+    }
+    // type suffixes, hexadecimal literals, etc.
+    if (i < expression.length() && Character.isJavaIdentifierPart(expression.charAt(i))) {
+      throw unsupported("Unsupported numeric literal");
+    }
+    String text = expression.substring(start, i);
+    try {
+      result.add(new Token(TokenType.NUMBER, text, Double.parseDouble(text)));
+    } catch (NumberFormatException e) {
+      throw unsupported("Invalid numeric literal: " + text);
+    }
+    return i;
+  }
+
+  private int string(int start, List<Token> result) throws UnsupportedExpressionException {
+    char          quote = expression.charAt(start);
+    StringBuilder value = new StringBuilder();
+    int           i     = start + 1;
+    while (i < expression.length() && expression.charAt(i) != quote) {
+      char c = expression.charAt(i++);
+      if (c == '\\') {
+        if (i == expression.length()) {
+          break;
+        }
+        char escaped = expression.charAt(i++);
+        switch (escaped) {
+          case 'n':
+            value.append('\n');
+            break;
+          case 't':
+            value.append('\t');
+            break;
+          case 'r':
+            value.append('\r');
+            break;
+          case '\\':
+          case '\'':
+          case '"':
+            value.append(escaped);
+            break;
+          default:
+            throw unsupported("Unsupported escape sequence: \\" + escaped);
+        }
+      } else {
+        value.append(c);
+      }
+    }
+    if (i == expression.length()) {
+      throw unsupported("Unterminated string literal");
+    }
+    result.add(new Token(TokenType.STRING, expression.substring(start, i + 1), value.toString()));
+    return i + 1;
+  }
+}
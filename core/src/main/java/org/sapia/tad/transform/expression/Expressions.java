@@ -0,0 +1,151 @@
+package org.sapia.tad.transform.expression;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.mvel2.MVEL;
+import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.RowResult;
+import org.sapia.tad.algo.Criteria;
+import org.sapia.tad.transform.expression.ExpressionParser.UnsupportedExpressionException;
+import org.sapia.tad.transform.expression.Node.Type;
+import org.sapia.tad.transform.formula.Formula;
+import org.sapia.tad.value.Value;
+import org.sapia.tad.value.Values;
+
+/**
+ * Compiles filter and formula expressions against a given {@link ColumnSet}.
+ * <p>
+ * Column references are resolved to column indices once, at compile time, and the expression is turned
+ * into a tree of typed nodes over primitive column accessors: evaluating it for a given row involves no map
+ * lookup, and no boxing of numeric values. Expressions holding constructs that the compiler does not support
+ * (see {@link ExpressionParser}) are evaluated with MVEL instead, as they would otherwise be.
+ *
+ * @author yduchesne
+ *
+ */
+public class Expressions {
+
+  private Expressions() {
+  }
+
+  /**
+   * @param columns the {@link ColumnSet} of the rows against which the expression will be evaluated.
+   * @param expression a filter expression.
+   * @return the {@link Criteria} corresponding to the given expression. Note that criteria falling back
+   * to MVEL are not thread-safe.
+   * @throws IllegalArgumentException if the given expression does not evaluate to a boolean.
+   */
+  public static Criteria<RowResult> criteria(ColumnSet columns, final String expression) throws IllegalArgumentException {
+    final Node root = compile(columns, expression);
+    if (root != null) {
+      if (root.getType() != Type.BOOLEAN) {
+        throw new IllegalArgumentException(
+            String.format("Expression doest not evaluate to boolean: %s", expression)
+        );
+      }
+      return new Criteria<RowResult>() {
+        @Override
+        public boolean matches(RowResult row) {
+          return root.test(row);
+        }
+      };
+    }
+
+    final MvelEvaluator evaluator = new MvelEvaluator(columns, expression);
+    return new Criteria<RowResult>() {
+      @Override
+      public boolean matches(RowResult row) {
+        Object returnValue = evaluator.evaluate(row);
+        if (returnValue == null || !(returnValue instanceof Boolean)) {
+          throw new IllegalArgumentException(
+              String.format("Expression doest not evaluate to boolean: %s", expression)
+          );
+        } else {
+          return ((Boolean) returnValue).booleanValue();
+        }
+      }
+    };
+  }
+
+  /**
+   * @param columns the {@link ColumnSet} of the rows against which the expression will be evaluated.
+   * @param expression a formula expression.
+   * @return the {@link Formula} corresponding to the given expression. Note that formulas falling back
+   * to MVEL are not thread-safe.
+   * @throws IllegalArgumentException if the given expression evaluates to a boolean.
+   */
+  public static Formula<RowResult> formula(ColumnSet columns, final String expression) throws IllegalArgumentException {
+    final Node root = compile(columns, expression);
+    if (root != null) {
+      if (root.getType() == Type.BOOLEAN) {
+        throw new IllegalArgumentException(
+            String.format("Formula evaluates to boolean: %s", expression)
+        );
+      }
+      return new Formula<RowResult>() {
+        @Override
+        public Value call(RowResult row) {
+          return root.value(row);
+        }
+      };
+    }
+
+    final MvelEvaluator evaluator = new MvelEvaluator(columns, expression);
+    return new Formula<RowResult>() {
+      @Override
+      public Value call(RowResult row) {
+        return Values.array(evaluator.evaluate(row))[0];
+      }
+    };
+  }
+
+  /**
+   * @param columns a {@link ColumnSet}.
+   * @param expression an expression.
+   * @return <code>true</code> if the given expression is compiled against the given columns,
+   * <code>false</code> if it is evaluated with MVEL.
+   */
+  public static boolean isCompilable(ColumnSet columns, String expression) {
+    return compile(columns, expression) != null;
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  // returns null if the expression is to be evaluated with MVEL.
+  private static Node compile(ColumnSet columns, String expression) {
+    try {
+      return new ExpressionParser(columns, expression).parse();
+    } catch (UnsupportedExpressionException e) {
+      return null;
+    }
+  }
+
+  // ==========================================================================
+
+  /**
+   * Evaluates an expression with MVEL, binding all column values to their column name.
+   */
+  private static class MvelEvaluator {
+
+    private Column[]            columns;
+    private Serializable        compiled;
+    private Map<String, Object> context = new HashMap<>();
+
+    private MvelEvaluator(ColumnSet columns, String expression) {
+      this.columns  = columns.getColumns().toArray(new Column[columns.size()]);
+      this.compiled = MVEL.compileExpression(expression);
+    }
+
+    private Object evaluate(RowResult row) {
+      context.clear();
+      for (Column col : columns) {
+        context.put(col.getName(), row.get(col.getIndex()).getInternalValue());
+      }
+      return MVEL.executeExpression(compiled, context);
+    }
+  }
+}
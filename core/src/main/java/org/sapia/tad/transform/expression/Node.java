@@ -0,0 +1,401 @@
+package org.sapia.tad.transform.expression;
+
+import java.util.Date;
+import java.util.Objects;
+
+import org.sapia.tad.RowResult;
+import org.sapia.tad.value.DateValue;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.NumericValue;
+import org.sapia.tad.value.StringValue;
+import org.sapia.tad.value.Value;
+
+/**
+ * A node of the tree resulting from the compilation of an expression. Nodes are typed: each one implements
+ * the evaluation method corresponding to its {@link Type}, against a given row.
+ * <p>
+ * Numeric nodes evaluate to primitive <code>double</code>s, and tell if they are null through {@link #isNull(RowResult)}:
+ * a null numeric node evaluates to {@link Double#NaN}, which propagates through arithmetic, and for which all
+ * ordered comparisons are <code>false</code> (as is the case with null values in MVEL). A {@link Double#NaN}
+ * that results from arithmetic (as with <code>x % 0</code>) is not null though: it compares as in Java, so
+ * that <code>x == x</code> is then <code>false</code>. String and date nodes evaluate to {@link String}s and
+ * {@link Date}s, or to <code>null</code>.
+ * <p>
+ * Nodes hold no state other than their children: a tree of nodes is thread-safe.
+ *
+ * @author yduchesne
+ *
+ */
+abstract class Node {
+
+  /**
+   * The types of nodes.
+   */
+  enum Type {
+    NUMERIC, STRING, DATE, BOOLEAN, NULL;
+  }
+
+  private Type type;
+
+  Node(Type type) {
+    this.type = type;
+  }
+
+  /**
+   * @return this instance's {@link Type}.
+   */
+  Type getType() {
+    return type;
+  }
+
+  /**
+   * @param row a row.
+   * @return the value of this numeric node, for the given row ({@link Double#NaN} if null, or if so computed).
+   */
+  double number(RowResult row) {
+    throw new UnsupportedOperationException("Node is not numeric: " + type);
+  }
+
+  /**
+   * @param row a row.
+   * @return the value of this boolean node, for the given row.
+   */
+  boolean test(RowResult row) {
+    throw new UnsupportedOperationException("Node is not boolean: " + type);
+  }
+
+  /**
+   * @param row a row.
+   * @return the value of this string or date node, for the given row (<code>null</code> if null).
+   */
+  Object object(RowResult row) {
+    return null;
+  }
+
+  /**
+   * @param row a row.
+   * @return <code>true</code> if this instance evaluates to null for the given row.
+   */
+  boolean isNull(RowResult row) {
+    switch (type) {
+      case NUMERIC:
+      case BOOLEAN:
+        return false;
+      default:
+        return object(row) == null;
+    }
+  }
+
+  /**
+   * @param row a row.
+   * @return the {@link Value} to which this instance evaluates, for the given row.
+   */
+  Value value(RowResult row) {
+    switch (type) {
+      case NUMERIC:
+        double number = number(row);
+        return Double.isNaN(number) && isNull(row) ? NullValue.getInstance() : NumericValue.of(number);
+      case STRING:
+        Object string = object(row);
+        return string == null ? NullValue.getInstance() : StringValue.of((String) string);
+      case DATE:
+        Object date = object(row);
+        return date == null ? NullValue.getInstance() : new DateValue((Date) date);
+      case NULL:
+        return NullValue.getInstance();
+      default:
+        throw new UnsupportedOperationException("Node does not evaluate to a value: " + type);
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  // Leaves
+
+  static Node numericColumn(final int index) {
+    return new Node(Type.NUMERIC) {
+      @Override
+      double number(RowResult row) {
+        Value v = row.get(index);
+        return NullValue.isNull(v) ? Double.NaN : v.get();
+      }
+
+      @Override
+      boolean isNull(RowResult row) {
+        return NullValue.isNull(row.get(index));
+      }
+    };
+  }
+
+  static Node stringColumn(final int index) {
+    return new Node(Type.STRING) {
+      @Override
+      Object object(RowResult row) {
+        Object internal = row.get(index).getInternalValue();
+        return internal == null ? null : internal.toString();
+      }
+    };
+  }
+
+  static Node dateColumn(final int index) {
+    return new Node(Type.DATE) {
+      @Override
+      Object object(RowResult row) {
+        return row.get(index).getInternalValue();
+      }
+    };
+  }
+
+  static Node number(final double value) {
+    return new Node(Type.NUMERIC) {
+      @Override
+      double number(RowResult row) {
+        return value;
+      }
+    };
+  }
+
+  static Node string(final String value) {
+    return new Node(Type.STRING) {
+      @Override
+      Object object(RowResult row) {
+        return value;
+      }
+    };
+  }
+
+  static Node bool(final boolean value) {
+    return new Node(Type.BOOLEAN) {
+      @Override
+      boolean test(RowResult row) {
+        return value;
+      }
+    };
+  }
+
+  static Node nullLiteral() {
+    return new Node(Type.NULL) {
+    };
+  }
+
+  // --------------------------------------------------------------------------
+  // Arithmetic
+
+  static Node negate(final Node operand) {
+    return new Node(Type.NUMERIC) {
+      @Override
+      double number(RowResult row) {
+        return -operand.number(row);
+      }
+
+      @Override
+      boolean isNull(RowResult row) {
+        return operand.isNull(row);
+      }
+    };
+  }
+
+  static Node arithmetic(String operator, final Node left, final Node right) {
+    switch (operator) {
+      case "+":
+        return new Node(Type.NUMERIC) {
+          @Override
+          double number(RowResult row) {
+            return left.number(row) + right.number(row);
+          }
+
+          @Override
+          boolean isNull(RowResult row) {
+            return left.isNull(row) || right.isNull(row);
+          }
+        };
+      case "-":
+        return new Node(Type.NUMERIC) {
+          @Override
+          double number(RowResult row) {
+            return left.number(row) - right.number(row);
+          }
+
+          @Override
+          boolean isNull(RowResult row) {
+            return left.isNull(row) || right.isNull(row);
+          }
+        };
+      case "*":
+        return new Node(Type.NUMERIC) {
+          @Override
+          double number(RowResult row) {
+            return left.number(row) * right.number(row);
+          }
+
+          @Override
+          boolean isNull(RowResult row) {
+            return left.isNull(row) || right.isNull(row);
+          }
+        };
+      case "/":
+        return new Node(Type.NUMERIC) {
+          @Override
+          double number(RowResult row) {
+            return left.number(row) / right.number(row);
+          }
+
+          @Override
+          boolean isNull(RowResult row) {
+            return left.isNull(row) || right.isNull(row);
+          }
+        };
+      case "%":
+        return new Node(Type.NUMERIC) {
+          @Override
+          double number(RowResult row) {
+            return left.number(row) % right.number(row);
+          }
+
+          @Override
+          boolean isNull(RowResult row) {
+            return left.isNull(row) || right.isNull(row);
+          }
+        };
+      default:
+        throw new IllegalArgumentException("Unknown arithmetic operator: " + operator);
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  // Comparisons
+
+  static Node compareNumbers(String operator, final Node left, final Node right) {
+    switch (operator) {
+      case "==":
+        return new Node(Type.BOOLEAN) {
+          @Override
+          boolean test(RowResult row) {
+            double l = left.number(row), r = right.number(row);
+            if (Double.isNaN(l) || Double.isNaN(r)) {
+              // null equals null only: a NaN that is not null equals nothing
+              boolean leftNull = left.isNull(row), rightNull = right.isNull(row);
+              return leftNull && rightNull;
+            }
+            return l == r;
+          }
+        };
+      case "!=":
+        return not(compareNumbers("==", left, right));
+      case "<":
+        return new Node(Type.BOOLEAN) {
+          @Override
+          boolean test(RowResult row) {
+            return left.number(row) < right.number(row);
+          }
+        };
+      case "<=":
+        return new Node(Type.BOOLEAN) {
+          @Override
+          boolean test(RowResult row) {
+            return left.number(row) <= right.number(row);
+          }
+        };
+      case ">":
+        return new Node(Type.BOOLEAN) {
+          @Override
+          boolean test(RowResult row) {
+            return left.number(row) > right.number(row);
+          }
+        };
+      case ">=":
+        return new Node(Type.BOOLEAN) {
+          @Override
+          boolean test(RowResult row) {
+            return left.number(row) >= right.number(row);
+          }
+        };
+      default:
+        throw new IllegalArgumentException("Unknown comparison operator: " + operator);
+    }
+  }
+
+  static Node compareObjects(String operator, final Node left, final Node right) {
+    switch (operator) {
+      case "==":
+        return new Node(Type.BOOLEAN) {
+          @Override
+          boolean test(RowResult row) {
+            return Objects.equals(left.object(row), right.object(row));
+          }
+        };
+      case "!=":
+        return not(compareObjects("==", left, right));
+      case "<":
+      case "<=":
+      case ">":
+      case ">=":
+        final boolean less    = operator.startsWith("<");
+        final boolean greater = operator.startsWith(">");
+        final boolean equal   = operator.endsWith("=");
+        return new Node(Type.BOOLEAN) {
+          @Override
+          @SuppressWarnings({ "unchecked", "rawtypes" })
+          boolean test(RowResult row) {
+            Object l = left.object(row), r = right.object(row);
+            if (l == null || r == null) {
+              return false;
+            }
+            int c = ((Comparable) l).compareTo(r);
+            return c < 0 ? less : (c > 0 ? greater : equal);
+          }
+        };
+      default:
+        throw new IllegalArgumentException("Unknown comparison operator: " + operator);
+    }
+  }
+
+  static Node compareBooleans(String operator, final Node left, final Node right) {
+    Node equals = new Node(Type.BOOLEAN) {
+      @Override
+      boolean test(RowResult row) {
+        return left.test(row) == right.test(row);
+      }
+    };
+    return operator.equals("==") ? equals : not(equals);
+  }
+
+  static Node isNull(final Node operand, boolean negated) {
+    Node isNull = new Node(Type.BOOLEAN) {
+      @Override
+      boolean test(RowResult row) {
+        return operand.isNull(row);
+      }
+    };
+    return negated ? not(isNull) : isNull;
+  }
+
+  // --------------------------------------------------------------------------
+  // Logic
+
+  static Node not(final Node operand) {
+    return new Node(Type.BOOLEAN) {
+      @Override
+      boolean test(RowResult row) {
+        return !operand.test(row);
+      }
+    };
+  }
+
+  static Node and(final Node left, final Node right) {
+    return new Node(Type.BOOLEAN) {
+      @Override
+      boolean test(RowResult row) {
+        return left.test(row) && right.test(row);
+      }
+    };
+  }
+
+  static Node or(final Node left, final Node right) {
+    return new Node(Type.BOOLEAN) {
+      @Override
+      boolean test(RowResult row) {
+        return left.test(row) || right.test(row);
+      }
+    };
+  }
+}
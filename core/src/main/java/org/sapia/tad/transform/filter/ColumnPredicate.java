@@ -0,0 +1,441 @@
+package org.sapia.tad.transform.filter;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.sapia.tad.Column;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.Vector;
+import org.sapia.tad.impl.columnar.ColumnData;
+import org.sapia.tad.impl.columnar.ColumnarDataset;
+import org.sapia.tad.impl.columnar.DateColumnData;
+import org.sapia.tad.impl.columnar.NumericColumnData;
+import org.sapia.tad.impl.columnar.StringColumnData;
+import org.sapia.tad.impl.columnar.StringDictionary;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.value.DateValue;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.Value;
+
+/**
+ * A {@link Predicate} that tests the values of a given column.
+ * <p>
+ * When evaluated over a {@link ColumnarDataset}, the column's block of values is scanned in a single
+ * loop over primitive values (strings being tested once per dictionary entry, rather than once per row),
+ * and the matches are accumulated in the words of the resulting bitmap. Nulls are then handled with a
+ * single bitmap operation against the column's null bitmap. Other datasets are scanned value by value,
+ * column-wise.
+ * <p>
+ * Null values never match, except for the predicates testing for null. As with Java's comparison operators,
+ * comparing a number to NaN (be it the value or the operand) is false, except for <code>!=</code>: a range
+ * with a NaN bound thus matches nothing.
+ *
+ * @author yduchesne
+ *
+ */
+abstract class ColumnPredicate implements Predicate {
+
+  private String   columnName;
+  private Datatype type;
+
+  /**
+   * @param columnName the name of the column to test.
+   * @param type the {@link Datatype} that the column is expected to have (<code>null</code> if the
+   * column can have any type).
+   */
+  protected ColumnPredicate(String columnName, Datatype type) {
+    this.columnName = columnName;
+    this.type       = type;
+  }
+
+  /**
+   * @return the name of the column that this instance tests.
+   */
+  String getColumnName() {
+    return columnName;
+  }
+
+  @Override
+  public BitSet select(Dataset dataset) throws IllegalArgumentException {
+    Column col = dataset.getColumnSet().get(columnName);
+    Checks.isTrue(type == null || col.getType() == type,
+        "Column %s is of type %s, expected type %s", columnName, col.getType(), type);
+    if (dataset instanceof ColumnarDataset) {
+      return select(((ColumnarDataset) dataset).getColumnData(col.getIndex()));
+    }
+    return select(dataset.getColumn(col.getIndex()));
+  }
+
+  /**
+   * @param value a non-null numeric value.
+   * @return <code>true</code> if the value matches.
+   */
+  abstract boolean testNumber(double value);
+
+  /**
+   * @param time a non-null date value, in millis.
+   * @return <code>true</code> if the value matches.
+   */
+  abstract boolean testTime(long time);
+
+  /**
+   * @param value a non-null string value.
+   * @return <code>true</code> if the value matches.
+   */
+  abstract boolean testString(String value);
+
+  /**
+   * @return <code>true</code> if null values match.
+   */
+  boolean matchesNull() {
+    return false;
+  }
+
+  @Override
+  public String toString() {
+    return columnName;
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  private BitSet select(ColumnData data) {
+    int    size  = data.size();
+    long[] words = new long[(size + 63) >>> 6];
+    if (data instanceof NumericColumnData) {
+      NumericColumnData numeric = (NumericColumnData) data;
+      for (int r = 0; r < size; r++) {
+        if (testNumber(numeric.getDouble(r))) {
+          words[r >>> 6] |= 1L << r;
+        }
+      }
+    } else if (data instanceof DateColumnData) {
+      DateColumnData dates = (DateColumnData) data;
+      for (int r = 0; r < size; r++) {
+        if (testTime(dates.getTime(r))) {
+          words[r >>> 6] |= 1L << r;
+        }
+      }
+    } else if (data instanceof StringColumnData) {
+      StringColumnData strings    = (StringColumnData) data;
+      StringDictionary dictionary = strings.getDictionary();
+      boolean[]        matches    = new boolean[dictionary.size()];
+      for (int c = 0; c < matches.length; c++) {
+        matches[c] = testString(dictionary.get(c).getValue());
+      }
+      for (int r = 0; r < size; r++) {
+        int code = strings.getCode(r);
+        if (code >= 0 && matches[code]) {
+          words[r >>> 6] |= 1L << r;
+        }
+      }
+    } else {
+      for (int r = 0; r < size; r++) {
+        Value v = data.get(r);
+        if (!NullValue.isNull(v) && testValue(v)) {
+          words[r >>> 6] |= 1L << r;
+        }
+      }
+    }
+    BitSet selection = BitSet.valueOf(words);
+    if (matchesNull()) {
+      selection.or(data.getNullBitmap());
+    } else {
+      selection.andNot(data.getNullBitmap());
+    }
+    return selection;
+  }
+
+  private BitSet select(Vector column) {
+    BitSet selection = new BitSet(column.size());
+    for (int r = 0; r < column.size(); r++) {
+      Value v = column.get(r);
+      if (NullValue.isNull(v) ? matchesNull() : testValue(v)) {
+        selection.set(r);
+      }
+    }
+    return selection;
+  }
+
+  private boolean testValue(Value value) {
+    if (value instanceof DateValue) {
+      return testTime(((DateValue) value).getTime());
+    } else if (value.isNumeric()) {
+      return testNumber(value.get());
+    }
+    return testString(String.valueOf(value.getInternalValue()));
+  }
+
+  // --------------------------------------------------------------------------
+  // Operands
+
+  static Object unwrap(Object operand) {
+    Checks.notNull(operand, "Operand cannot be null");
+    Object unwrapped = operand instanceof Value ? ((Value) operand).getInternalValue() : operand;
+    Checks.isTrue(unwrapped instanceof Number || unwrapped instanceof String || unwrapped instanceof Date,
+        "Unsupported operand: %s (expected a number, a string or a date)", operand);
+    return unwrapped;
+  }
+
+  static Datatype typeOf(Object unwrapped) {
+    if (unwrapped instanceof Number) {
+      return Datatype.NUMERIC;
+    } else if (unwrapped instanceof Date) {
+      return Datatype.DATE;
+    }
+    return Datatype.STRING;
+  }
+
+  // ==========================================================================
+
+  /**
+   * The comparison operators.
+   */
+  enum Operator {
+
+    EQ("=="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">=");
+
+    private String symbol;
+
+    private Operator(String symbol) {
+      this.symbol = symbol;
+    }
+
+    /**
+     * @param comparison the result of comparing a value to an operand.
+     * @return <code>true</code> if the given comparison result satisfies this operator.
+     */
+    boolean accepts(int comparison) {
+      switch (this) {
+        case EQ:
+          return comparison == 0;
+        case NE:
+          return comparison != 0;
+        case LT:
+          return comparison < 0;
+        case LE:
+          return comparison <= 0;
+        case GT:
+          return comparison > 0;
+        default:
+          return comparison >= 0;
+      }
+    }
+
+    @Override
+    public String toString() {
+      return symbol;
+    }
+  }
+
+  // --------------------------------------------------------------------------
+
+  /**
+   * Compares values to an operand.
+   */
+  static class Comparison extends ColumnPredicate {
+
+    private Operator operator;
+    private Datatype operandType;
+    private Object   operand;
+    private double   number;
+    private long     time;
+
+    Comparison(String columnName, Operator operator, Object operand) {
+      this(columnName, operator, unwrap(operand), typeOf(unwrap(operand)));
+    }
+
+    private Comparison(String columnName, Operator operator, Object operand, Datatype operandType) {
+      super(columnName, operandType);
+      this.operator    = operator;
+      this.operandType = operandType;
+      this.operand     = operand;
+      if (operandType == Datatype.NUMERIC) {
+        number = ((Number) operand).doubleValue();
+      } else if (operandType == Datatype.DATE) {
+        time = ((Date) operand).getTime();
+      }
+    }
+
+    Datatype getOperandType() {
+      return operandType;
+    }
+
+    @Override
+    boolean testNumber(double value) {
+      if (operandType != Datatype.NUMERIC) {
+        return false;
+      } else if (Double.isNaN(value) || Double.isNaN(number)) {
+        return operator == Operator.NE;
+      }
+      return operator.accepts(value < number ? -1 : (value > number ? 1 : 0));
+    }
+
+    @Override
+    boolean testTime(long value) {
+      return operandType == Datatype.DATE && operator.accepts(Long.compare(value, time));
+    }
+
+    @Override
+    boolean testString(String value) {
+      return operandType == Datatype.STRING && operator.accepts(value.compareTo((String) operand));
+    }
+
+    @Override
+    public String toString() {
+      return super.toString() + " " + operator + " " + operand;
+    }
+  }
+
+  // --------------------------------------------------------------------------
+
+  /**
+   * Matches values within a given range (bounds included).
+   */
+  static class Range extends ColumnPredicate {
+
+    private Comparison low, high;
+
+    Range(String columnName, Object low, Object high) {
+      this(new Comparison(columnName, Operator.GE, low), new Comparison(columnName, Operator.LE, high));
+    }
+
+    private Range(Comparison low, Comparison high) {
+      super(low.getColumnName(), low.getOperandType());
+      Checks.isTrue(low.getOperandType() == high.getOperandType(),
+          "Range bounds must be of the same type (got %s and %s)", low.operand, high.operand);
+      this.low  = low;
+      this.high = high;
+    }
+
+    @Override
+    boolean testNumber(double value) {
+      return low.testNumber(value) && high.testNumber(value);
+    }
+
+    @Override
+    boolean testTime(long time) {
+      return low.testTime(time) && high.testTime(time);
+    }
+
+    @Override
+    boolean testString(String value) {
+      return low.testString(value) && high.testString(value);
+    }
+
+    @Override
+    public String toString() {
+      return "(" + low + " && " + high + ")";
+    }
+  }
+
+  // --------------------------------------------------------------------------
+
+  /**
+   * Matches values that are part of a given set.
+   */
+  static class In extends ColumnPredicate {
+
+    private Datatype    operandType;
+    private double[]    numbers;
+    private long[]      times;
+    private Set<String> strings;
+
+    In(String columnName, Object[] operands) {
+      super(columnName, operandType(operands));
+      operandType = operandType(operands);
+      if (operandType == Datatype.NUMERIC) {
+        numbers = new double[operands.length];
+        for (int i = 0; i < operands.length; i++) {
+          numbers[i] = ((Number) unwrap(operands[i])).doubleValue();
+        }
+        Arrays.sort(numbers);
+      } else if (operandType == Datatype.DATE) {
+        times = new long[operands.length];
+        for (int i = 0; i < operands.length; i++) {
+          times[i] = ((Date) unwrap(operands[i])).getTime();
+        }
+        Arrays.sort(times);
+      } else {
+        strings = new HashSet<>();
+        for (Object o : operands) {
+          strings.add((String) unwrap(o));
+        }
+      }
+    }
+
+    private static Datatype operandType(Object[] operands) {
+      Checks.isTrue(operands.length > 0, "At least one value must be specified");
+      Datatype type = typeOf(unwrap(operands[0]));
+      for (Object o : operands) {
+        Checks.isTrue(typeOf(unwrap(o)) == type, "All values must be of the same type (got %s)", Arrays.asList(operands));
+      }
+      return type;
+    }
+
+    @Override
+    boolean testNumber(double value) {
+      return numbers != null && Arrays.binarySearch(numbers, value) >= 0;
+    }
+
+    @Override
+    boolean testTime(long time) {
+      return times != null && Arrays.binarySearch(times, time) >= 0;
+    }
+
+    @Override
+    boolean testString(String value) {
+      return strings != null && strings.contains(value);
+    }
+
+    @Override
+    public String toString() {
+      Object values = numbers != null ? Arrays.toString(numbers) : (times != null ? Arrays.toString(times) : strings);
+      return super.toString() + " in " + values;
+    }
+  }
+
+  // --------------------------------------------------------------------------
+
+  /**
+   * Matches null values (or non-null values, if negated).
+   */
+  static class IsNull extends ColumnPredicate {
+
+    private boolean negated;
+
+    IsNull(String columnName, boolean negated) {
+      super(columnName, null);
+      this.negated = negated;
+    }
+
+    @Override
+    boolean matchesNull() {
+      return !negated;
+    }
+
+    @Override
+    boolean testNumber(double value) {
+      return negated;
+    }
+
+    @Override
+    boolean testTime(long time) {
+      return negated;
+    }
+
+    @Override
+    boolean testString(String value) {
+      return negated;
+    }
+
+    @Override
+    public String toString() {
+      return super.toString() + (negated ? " != null" : " == null");
+    }
+  }
+}
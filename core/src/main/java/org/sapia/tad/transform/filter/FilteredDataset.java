@@ -0,0 +1,218 @@
+package org.sapia.tad.transform.filter;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.Datasets;
+import org.sapia.tad.Index;
+import org.sapia.tad.IndexedDataset;
+import org.sapia.tad.NumericColumn;
+import org.sapia.tad.RowResult;
+import org.sapia.tad.Vector;
+import org.sapia.tad.algo.Criteria;
+import org.sapia.tad.impl.DatasetRowSetAdapter;
+import org.sapia.tad.impl.DefaultColumn;
+import org.sapia.tad.impl.DefaultDataset;
+import org.sapia.tad.impl.DefaultIndex;
+import org.sapia.tad.impl.DefaultRowResult;
+import org.sapia.tad.impl.DefaultVector;
+import org.sapia.tad.impl.IndexDatasetAdapter;
+import org.sapia.tad.impl.NumericColumnCache;
+import org.sapia.tad.impl.columnar.ColumnarDataset;
+import org.sapia.tad.transform.slice.Slices;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.value.Value;
+
+/**
+ * A view over the rows of a given {@link Dataset} that are part of a selection bitmap: no rows are copied.
+ * Random access to rows is supported through an index of the selected row positions, which is built upon
+ * first access.
+ *
+ * @author yduchesne
+ *
+ */
+class FilteredDataset implements Dataset {
+
+  private Dataset            source;
+  private BitSet             selection;
+  private int                size;
+  private volatile int[]     positions;
+  private NumericColumnCache numericColumns = new NumericColumnCache(this);
+
+  /**
+   * @param source the {@link Dataset} whose rows are selected.
+   * @param selection the selection bitmap, whose set bits correspond to the indices of the selected rows.
+   */
+  FilteredDataset(Dataset source, BitSet selection) {
+    Checks.isTrue(selection.length() <= source.size(),
+        "Selection holds row indices beyond dataset size (%s)", source.size());
+    this.source    = source;
+    this.selection = selection;
+    this.size      = selection.cardinality();
+  }
+
+  /**
+   * @return the {@link Dataset} whose rows this instance selects.
+   */
+  Dataset getSource() {
+    return source;
+  }
+
+  /**
+   * @return a copy of this instance's selection bitmap.
+   */
+  BitSet getSelection() {
+    return (BitSet) selection.clone();
+  }
+
+  @Override
+  public ColumnSet getColumnSet() {
+    return source.getColumnSet();
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Vector getRow(int rowIndex) throws IllegalArgumentException {
+    Checks.isTrue(rowIndex >= 0 && rowIndex < size, "Invalid index: %s. Dataset has %s rows", rowIndex, size);
+    return source.getRow(positions()[rowIndex]);
+  }
+
+  @Override
+  public Vector getColumn(int colIndex) throws IllegalArgumentException {
+    source.getColumnSet().get(colIndex);
+    // columnar datasets give access to their columns without copying
+    Vector  column = source instanceof ColumnarDataset ? source.getColumn(colIndex) : null;
+    Value[] values = new Value[size];
+    int     i      = 0;
+    for (int r = selection.nextSetBit(0); r >= 0; r = selection.nextSetBit(r + 1)) {
+      values[i++] = column != null ? column.get(r) : source.getRow(r).get(colIndex);
+    }
+    return new DefaultVector(values);
+  }
+
+  @Override
+  public Vector getColumn(String name) throws IllegalArgumentException {
+    return getColumn(source.getColumnSet().get(name).getIndex());
+  }
+
+  @Override
+  public NumericColumn getNumericColumn(int colIndex) throws IllegalArgumentException {
+    return numericColumns.get(colIndex);
+  }
+
+  @Override
+  public NumericColumn getNumericColumn(String name) throws IllegalArgumentException {
+    return numericColumns.get(source.getColumnSet().get(name).getIndex());
+  }
+
+  @Override
+  public Dataset getColumnSubset(int colIndex, Criteria<Value> filter) throws IllegalArgumentException {
+    Vector       col    = getColumn(colIndex);
+    List<Vector> result = new ArrayList<>();
+    for (Value rowItem : col) {
+      if (filter.matches(rowItem)) {
+        result.add(new DefaultVector(Collections.singletonList(rowItem)));
+      }
+    }
+    Column original = source.getColumnSet().get(colIndex);
+    Column copy     = new DefaultColumn(0, original.getType(), original.getName());
+    return new DefaultDataset(Collections.singleton(copy), result);
+  }
+
+  @Override
+  public Dataset getColumnSubset(String colName, Criteria<Value> filter) throws IllegalArgumentException {
+    return getColumnSubset(source.getColumnSet().get(colName).getIndex(), filter);
+  }
+
+  @Override
+  public Dataset getSubset(Criteria<RowResult> filter) {
+    BitSet           narrowed  = new BitSet();
+    DefaultRowResult rowResult = new DefaultRowResult(source.getColumnSet());
+    for (int r = selection.nextSetBit(0); r >= 0; r = selection.nextSetBit(r + 1)) {
+      rowResult.setVector(source.getRow(r));
+      if (filter.matches(rowResult)) {
+        narrowed.set(r);
+      }
+    }
+    return new FilteredDataset(source, narrowed);
+  }
+
+  @Override
+  public IndexedDataset index(String... colNames) throws IllegalArgumentException {
+    Index index = new DefaultIndex(new DatasetRowSetAdapter(this), getColumnSet(), getColumnSet().includes(colNames));
+    return new IndexDatasetAdapter(index);
+  }
+
+  @Override
+  public IndexedDataset index(List<String> colNames) throws IllegalArgumentException {
+    return index(colNames.toArray(new String[colNames.size()]));
+  }
+
+  @Override
+  public Dataset head() {
+    return Slices.head(this);
+  }
+
+  @Override
+  public Dataset tail() {
+    return Slices.tail(this);
+  }
+
+  @Override
+  public Iterator<Vector> iterator() {
+    return new Iterator<Vector>() {
+      private int next = selection.nextSetBit(0);
+
+      @Override
+      public boolean hasNext() {
+        return next >= 0;
+      }
+
+      @Override
+      public Vector next() {
+        if (next < 0) {
+          throw new NoSuchElementException();
+        }
+        Vector row = source.getRow(next);
+        next = selection.nextSetBit(next + 1);
+        return row;
+      }
+
+      @Override
+      public void remove() {
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return Datasets.toString(this);
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  private int[] positions() {
+    int[] current = positions;
+    if (current == null) {
+      current = new int[size];
+      int i   = 0;
+      for (int r = selection.nextSetBit(0); r >= 0; r = selection.nextSetBit(r + 1)) {
+        current[i++] = r;
+      }
+      positions = current;
+    }
+    return current;
+  }
+}
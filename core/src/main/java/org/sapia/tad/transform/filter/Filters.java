@@ -1,6 +1,5 @@
 package org.sapia.tad.transform.filter;
 
-import org.mvel2.MVEL;
 import org.sapia.tad.*;
 import org.sapia.tad.Vector;
 import org.sapia.tad.algo.Criteria;
@@ -10,6 +9,11 @@ import org.sapia.tad.help.Example;
 import org.sapia.tad.impl.DefaultColumn;
 import org.sapia.tad.impl.DefaultDataset;
 import org.sapia.tad.impl.DefaultVector;
+import org.sapia.tad.impl.columnar.ColumnData;
+import org.sapia.tad.impl.columnar.ColumnarDataset;
+import org.sapia.tad.impl.columnar.StringColumnData;
+import org.sapia.tad.impl.columnar.StringDictionary;
+import org.sapia.tad.transform.expression.Expressions;
 import org.sapia.tad.transform.slice.Slices;
 import org.sapia.tad.util.Checks;
 import org.sapia.tad.util.Data;
@@ -18,7 +22,6 @@ import org.sapia.tad.util.SetMultiMap;
 import org.sapia.tad.value.NullValue;
 import org.sapia.tad.value.Value;
 
-import java.io.Serializable;
 import java.util.*;
 
 /**
@@ -113,6 +116,10 @@ public class Filters {
   }
   
   /**
+   * Nominals are assigned in the lexical order of the distinct values of each column. For columnar datasets,
+   * the nominals of dictionary-encoded string columns are derived from their dictionary: rows are then mapped
+   * to their nominal by code, without comparing strings.
+   * 
    * @param dataset a dataset for which to convert certain columns to nominals.
    * @param columnNames the array of column names from.
    * @return the {@link Dataset}.
@@ -129,21 +136,49 @@ public class Filters {
         Datatype.STRING, datatypes
     );
     
+    // the nominals of dictionary-encoded columns are derived from their dictionary, indexed by code
+    Map<String, NominalSet> nominals       = new HashMap<>();
+    StringColumnData[]      encoded        = new StringColumnData[dataset.getColumnSet().size()];
+    Nominal[][]             nominalsByCode = new Nominal[encoded.length][];
+    Set<String>             toScan         = new HashSet<>(Arrays.asList(columnNames));
+    if (dataset instanceof ColumnarDataset) {
+      for (String n : columnNames) {
+        ColumnData data = ((ColumnarDataset) dataset).getColumnData(n);
+        if (data instanceof StringColumnData) {
+          Nominal[]     byCode      = nominalsByCode((StringColumnData) data);
+          List<Nominal> nominalList = new ArrayList<>();
+          for (Nominal nominal : byCode) {
+            if (nominal != null) {
+              nominalList.add(nominal);
+            }
+          }
+          if (!nominalList.isEmpty()) {
+            int colIndex = dataset.getColumnSet().get(n).getIndex();
+            nominals.put(n, new NominalSet(nominalList));
+            encoded[colIndex]        = (StringColumnData) data;
+            nominalsByCode[colIndex] = byCode;
+          }
+          toScan.remove(n);
+        }
+      }
+    }
+    
     MultiMap<String, Value> nominalsByColumn = SetMultiMap.createTreeSetMultiMap();
     
     // extracting set of all array for each column
-    for (Vector r : dataset) {
-      for (String n : columnNames) {
-        Column c     = dataset.getColumnSet().get(n);
-        Value value = r.get(c.getIndex());
-        if (!NullValue.isNull(value)) {
-          nominalsByColumn.put(c.getName(), value);
+    if (!toScan.isEmpty()) {
+      for (Vector r : dataset) {
+        for (String n : toScan) {
+          Column c     = dataset.getColumnSet().get(n);
+          Value  value = r.get(c.getIndex());
+          if (!NullValue.isNull(value)) {
+            nominalsByColumn.put(c.getName(), value);
+          }
         }
       }
     }
     
     // creating map on nominal sets - on a per-column basis
-    Map<String, NominalSet> nominals = new HashMap<>();
     for (String colName : nominalsByColumn.keySet()) {
       NominalSet nominalSet = NominalSet.newInstance(nominalsByColumn.get(colName));
       nominals.put(colName, nominalSet);
@@ -161,12 +196,16 @@ public class Filters {
     
     // creating list of rows
     List<Vector> rows = new ArrayList<>();
-    for (Vector r : dataset) {
+    for (int i = 0; i < dataset.size(); i++) {
+      Vector  r      = dataset.getRow(i);
       Value[] values = new Value[r.size()];
       for (Column c : cols) {
-        if (!c.getNominalValues().isEmpty()) {
-          String nominal = r.get(c.getIndex()).toString();
-          values[c.getIndex()] = c.getNominalValues().getByName(nominal);
+        if (encoded[c.getIndex()] != null) {
+          int code = encoded[c.getIndex()].getCode(i);
+          values[c.getIndex()] = code < 0 ? NullValue.getInstance() : nominalsByCode[c.getIndex()][code];
+        } else if (!c.getNominalValues().isEmpty()) {
+          Value value = r.get(c.getIndex());
+          values[c.getIndex()] = NullValue.isNull(value) ? value : c.getNominalValues().getByName(value.toString());
         } else {
           values[c.getIndex()] = r.get(c.getIndex());
         }
@@ -266,7 +305,32 @@ public class Filters {
   
   /**
    * @param dataset the {@link Dataset} from which to select a subset.
-   * @param expression the MVEL expression to use as criteria.
+   * @param predicate the {@link Predicate} that rows must match.
+   * @return a new {@link Dataset}, consisting of a view over the rows of the given dataset that match the
+   * given predicate (the rows are not copied).
+   * @see Predicates
+   */
+  @Doc(value = "Selects a subset of the given dataset, using the provided predicate (evaluated over whole columns)",
+       examples=  {
+         @Example(caption = "Selecting all that is within a given range", content = "Predicates.between('salary', 1000, 2000)" )
+       })
+  public static Dataset where(
+    @Doc("a dataset from which to select a subset of data") Dataset dataset, 
+    @Doc("a predicate") Predicate predicate) {
+    if (dataset instanceof FilteredDataset) {
+      // narrowing the existing selection, rather than creating a view over a view
+      FilteredDataset filtered  = (FilteredDataset) dataset;
+      BitSet          selection = predicate.select(filtered.getSource());
+      selection.and(filtered.getSelection());
+      return new FilteredDataset(filtered.getSource(), selection);
+    }
+    return new FilteredDataset(dataset, predicate.select(dataset));
+  }
+  
+  /**
+   * @param dataset the {@link Dataset} from which to select a subset.
+   * @param expression the MVEL expression to use as criteria (compiled against the dataset's columns, if
+   * possible - see {@link Expressions}).
    * @return a new {@link Dataset} holding the rows that matched the given criteria.
    */
   @Doc(value = "Selects a subset of the given dataset, using the provided filter expression",
@@ -277,26 +341,57 @@ public class Filters {
     @Doc("a dataset from which to select a subset of data") final Dataset dataset, 
     @Doc("a filter expression") final String expression) {
     
-    final Map<String, Object> context  = new HashMap<>();
-    final Serializable        compiled = MVEL.compileExpression(expression);
-    
-    return dataset.getSubset(new Criteria<RowResult>() {
-      
+    return dataset.getSubset(Expressions.criteria(dataset.getColumnSet(), expression));
+  }
+  
+  /**
+   * @param stream the {@link DatasetStream} from which to select a subset.
+   * @param expression the MVEL expression to use as criteria.
+   * @return a new {@link DatasetStream}, whose batches hold the rows that matched the given criteria 
+   * (the expression is evaluated lazily, as batches are read).
+   */
+  @Doc(value = "Selects a subset of the given dataset stream, using the provided filter expression",
+       examples=  {
+         @Example(caption = "Selecting all that is greated than a given value", content = "salary >= 1000" )
+       })
+  public static DatasetStream select(
+    @Doc("a dataset stream from which to select a subset of data") final DatasetStream stream, 
+    @Doc("a filter expression") final String expression) {
+    final Criteria<RowResult> criteria = Expressions.criteria(stream.getColumnSet(), expression);
+    return DatasetStreams.map(stream, stream.getColumnSet(), new ArgFunction<Dataset, Dataset>() {
       @Override
-      public boolean matches(RowResult v) {
-        context.clear();
-        for (String colName : dataset.getColumnSet().getColumnNames()) {
-          context.put(colName, v.get(colName).getInternalValue());
-        }
-        Object returnValue = MVEL.executeExpression(compiled, context);
-        if (returnValue == null || !(returnValue instanceof Boolean)) {
-          throw new IllegalArgumentException(
-              String.format("Expression doest not evaluate to boolean: %s", expression)
-          );
-        } else {
-          return ((Boolean) returnValue).booleanValue();
-        }
+      public Dataset call(Dataset batch) {
+        return batch.getSubset(criteria);
+      }
+    });
+  }
+  
+  // --------------------------------------------------------------------------
+  // Restricted methods
+  
+  // returns the nominals corresponding to the codes of the given data, in the lexical order of their strings
+  // (codes that no row holds have no nominal)
+  private static Nominal[] nominalsByCode(StringColumnData data) {
+    final StringDictionary dictionary = data.getDictionary();
+    boolean[]              used       = new boolean[dictionary.size()];
+    List<Integer>          codes      = new ArrayList<>();
+    for (int r = 0; r < data.size(); r++) {
+      int code = data.getCode(r);
+      if (code >= 0 && !used[code]) {
+        used[code] = true;
+        codes.add(code);
+      }
+    }
+    Collections.sort(codes, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer c1, Integer c2) {
+        return dictionary.get(c1).compareTo(dictionary.get(c2));
       }
     });
+    Nominal[] nominals = new Nominal[used.length];
+    for (int i = 0; i < codes.size(); i++) {
+      nominals[codes.get(i)] = new Nominal(dictionary.get(codes.get(i)).getValue(), i);
+    }
+    return nominals;
   }
 }
@@ -0,0 +1,29 @@
+package org.sapia.tad.transform.filter;
+
+import java.util.BitSet;
+
+import org.sapia.tad.Dataset;
+
+/**
+ * Specifies the behavior of predicates that are evaluated over whole datasets, rather than row by row:
+ * the result of the evaluation is a selection bitmap, in which each set bit corresponds to the index of
+ * a matching row.
+ *
+ * @see Predicates
+ * @see Filters#where(Dataset, Predicate)
+ *
+ * @author yduchesne
+ *
+ */
+public interface Predicate {
+
+  /**
+   * @param dataset the {@link Dataset} over which to evaluate this predicate.
+   * @return a new {@link BitSet}, in which each set bit corresponds to the index of a row of the given
+   * dataset that matches this predicate.
+   * @throws IllegalArgumentException if this predicate refers to a column that the given dataset does
+   * not have, or if the type of a given column does not correspond to the one expected by this predicate.
+   */
+  public BitSet select(Dataset dataset) throws IllegalArgumentException;
+
+}
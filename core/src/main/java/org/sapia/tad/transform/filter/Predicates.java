@@ -0,0 +1,235 @@
+package org.sapia.tad.transform.filter;
+
+import java.util.BitSet;
+import java.util.Collection;
+
+import org.sapia.tad.Dataset;
+import org.sapia.tad.help.Doc;
+import org.sapia.tad.transform.filter.ColumnPredicate.Comparison;
+import org.sapia.tad.transform.filter.ColumnPredicate.In;
+import org.sapia.tad.transform.filter.ColumnPredicate.IsNull;
+import org.sapia.tad.transform.filter.ColumnPredicate.Operator;
+import org.sapia.tad.transform.filter.ColumnPredicate.Range;
+import org.sapia.tad.util.Checks;
+
+/**
+ * Provides methods for creating {@link Predicate}s, to use with {@link Filters#where(Dataset, Predicate)}.
+ * <p>
+ * Operands may be numbers, strings or dates (or the corresponding values): their type must correspond to the
+ * type of the column to which they are compared. Combinations of predicates are evaluated as bitmap operations
+ * over the selections of the combined predicates.
+ *
+ * @author yduchesne
+ *
+ */
+@Doc("Provides methods for creating predicates, which are evaluated over whole columns")
+public class Predicates {
+
+  private Predicates() {
+  }
+
+  // --------------------------------------------------------------------------
+  // Comparisons
+
+  /**
+   * @param columnName a column name.
+   * @param operand an operand.
+   * @return a new {@link Predicate}, matching the rows whose value for the given column equals the given operand.
+   */
+  @Doc("returns a predicate matching the rows whose value for the given column equals the given operand")
+  public static Predicate eq(@Doc("a column name") String columnName, @Doc("an operand") Object operand) {
+    return new Comparison(columnName, Operator.EQ, operand);
+  }
+
+  /**
+   * @param columnName a column name.
+   * @param operand an operand.
+   * @return a new {@link Predicate}, matching the rows whose value for the given column is not null, and
+   * does not equal the given operand.
+   */
+  @Doc("returns a predicate matching the rows whose value for the given column is not null, and does not equal the given operand")
+  public static Predicate ne(@Doc("a column name") String columnName, @Doc("an operand") Object operand) {
+    return new Comparison(columnName, Operator.NE, operand);
+  }
+
+  /**
+   * @param columnName a column name.
+   * @param operand an operand.
+   * @return a new {@link Predicate}, matching the rows whose value for the given column is lower than the given operand.
+   */
+  @Doc("returns a predicate matching the rows whose value for the given column is lower than the given operand")
+  public static Predicate lt(@Doc("a column name") String columnName, @Doc("an operand") Object operand) {
+    return new Comparison(columnName, Operator.LT, operand);
+  }
+
+  /**
+   * @param columnName a column name.
+   * @param operand an operand.
+   * @return a new {@link Predicate}, matching the rows whose value for the given column is lower than or equal
+   * to the given operand.
+   */
+  @Doc("returns a predicate matching the rows whose value for the given column is lower than or equal to the given operand")
+  public static Predicate le(@Doc("a column name") String columnName, @Doc("an operand") Object operand) {
+    return new Comparison(columnName, Operator.LE, operand);
+  }
+
+  /**
+   * @param columnName a column name.
+   * @param operand an operand.
+   * @return a new {@link Predicate}, matching the rows whose value for the given column is greater than the given operand.
+   */
+  @Doc("returns a predicate matching the rows whose value for the given column is greater than the given operand")
+  public static Predicate gt(@Doc("a column name") String columnName, @Doc("an operand") Object operand) {
+    return new Comparison(columnName, Operator.GT, operand);
+  }
+
+  /**
+   * @param columnName a column name.
+   * @param operand an operand.
+   * @return a new {@link Predicate}, matching the rows whose value for the given column is greater than or equal
+   * to the given operand.
+   */
+  @Doc("returns a predicate matching the rows whose value for the given column is greater than or equal to the given operand")
+  public static Predicate ge(@Doc("a column name") String columnName, @Doc("an operand") Object operand) {
+    return new Comparison(columnName, Operator.GE, operand);
+  }
+
+  /**
+   * @param columnName a column name.
+   * @param low the lower bound of the range (inclusive).
+   * @param high the upper bound of the range (inclusive).
+   * @return a new {@link Predicate}, matching the rows whose value for the given column is within the given range.
+   */
+  @Doc("returns a predicate matching the rows whose value for the given column is within the given range (bounds included)")
+  public static Predicate between(
+      @Doc("a column name") String columnName,
+      @Doc("the lower bound of the range") Object low,
+      @Doc("the upper bound of the range") Object high) {
+    return new Range(columnName, low, high);
+  }
+
+  /**
+   * @param columnName a column name.
+   * @param values the values to match.
+   * @return a new {@link Predicate}, matching the rows whose value for the given column is one of the given values.
+   */
+  @Doc("returns a predicate matching the rows whose value for the given column is one of the given values")
+  public static Predicate isIn(@Doc("a column name") String columnName, @Doc("the values to match") Object...values) {
+    return new In(columnName, values);
+  }
+
+  /**
+   * @param columnName a column name.
+   * @param values the values to match.
+   * @return a new {@link Predicate}, matching the rows whose value for the given column is one of the given values.
+   */
+  @Doc("returns a predicate matching the rows whose value for the given column is one of the given values")
+  public static Predicate isIn(@Doc("a column name") String columnName, @Doc("the values to match") Collection<?> values) {
+    return new In(columnName, values.toArray());
+  }
+
+  /**
+   * @param columnName a column name.
+   * @return a new {@link Predicate}, matching the rows whose value for the given column is null.
+   */
+  @Doc("returns a predicate matching the rows whose value for the given column is null")
+  public static Predicate isNull(@Doc("a column name") String columnName) {
+    return new IsNull(columnName, false);
+  }
+
+  /**
+   * @param columnName a column name.
+   * @return a new {@link Predicate}, matching the rows whose value for the given column is not null.
+   */
+  @Doc("returns a predicate matching the rows whose value for the given column is not null")
+  public static Predicate isNotNull(@Doc("a column name") String columnName) {
+    return new IsNull(columnName, true);
+  }
+
+  // --------------------------------------------------------------------------
+  // Combinations
+
+  /**
+   * @param predicates the {@link Predicate}s to combine.
+   * @return a new {@link Predicate}, matching the rows that match all the given predicates.
+   */
+  @Doc("returns a predicate matching the rows that match all the given predicates")
+  public static Predicate and(@Doc("the predicates to combine") final Predicate...predicates) {
+    Checks.isTrue(predicates.length > 0, "At least one predicate must be specified");
+    return new Predicate() {
+      @Override
+      public BitSet select(Dataset dataset) throws IllegalArgumentException {
+        BitSet selection = predicates[0].select(dataset);
+        for (int i = 1; i < predicates.length && !selection.isEmpty(); i++) {
+          selection.and(predicates[i].select(dataset));
+        }
+        return selection;
+      }
+
+      @Override
+      public String toString() {
+        return combination(" && ", predicates);
+      }
+    };
+  }
+
+  /**
+   * @param predicates the {@link Predicate}s to combine.
+   * @return a new {@link Predicate}, matching the rows that match at least one of the given predicates.
+   */
+  @Doc("returns a predicate matching the rows that match at least one of the given predicates")
+  public static Predicate or(@Doc("the predicates to combine") final Predicate...predicates) {
+    Checks.isTrue(predicates.length > 0, "At least one predicate must be specified");
+    return new Predicate() {
+      @Override
+      public BitSet select(Dataset dataset) throws IllegalArgumentException {
+        BitSet selection = predicates[0].select(dataset);
+        for (int i = 1; i < predicates.length && selection.cardinality() < dataset.size(); i++) {
+          selection.or(predicates[i].select(dataset));
+        }
+        return selection;
+      }
+
+      @Override
+      public String toString() {
+        return combination(" || ", predicates);
+      }
+    };
+  }
+
+  /**
+   * @param predicate the {@link Predicate} to negate.
+   * @return a new {@link Predicate}, matching the rows that the given predicate does not match (including
+   * rows that it does not match because of nulls).
+   */
+  @Doc("returns a predicate matching the rows that the given predicate does not match")
+  public static Predicate not(@Doc("the predicate to negate") final Predicate predicate) {
+    return new Predicate() {
+      @Override
+      public BitSet select(Dataset dataset) throws IllegalArgumentException {
+        BitSet selection = predicate.select(dataset);
+        selection.flip(0, dataset.size());
+        return selection;
+      }
+
+      @Override
+      public String toString() {
+        return "!(" + predicate + ")";
+      }
+    };
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  private static String combination(String operator, Predicate[] predicates) {
+    StringBuilder s = new StringBuilder("(");
+    for (int i = 0; i < predicates.length; i++) {
+      if (i > 0) {
+        s.append(operator);
+      }
+      s.append(predicates[i]);
+    }
+    return s.append(")").toString();
+  }
+}
@@ -11,9 +11,10 @@ import java.util.*;
 
 class FormulaDataset implements Dataset {
   
-  private Dataset       delegate;
-  private FormulaInfo[] formulas;
-  private ColumnSet     columns;
+  private Dataset            delegate;
+  private FormulaInfo[]      formulas;
+  private ColumnSet          columns;
+  private NumericColumnCache numericColumns = new NumericColumnCache(this);
   
   FormulaDataset(Dataset delegate, ColumnSet columns, List<FormulaInfo> formulas) {
     this.delegate = delegate;
@@ -21,6 +22,16 @@ class FormulaDataset implements Dataset {
     this.formulas = formulas.toArray(new FormulaInfo[formulas.size()]);
   }
   
+  @Override
+  public NumericColumn getNumericColumn(int colIndex) throws IllegalArgumentException {
+    return numericColumns.get(colIndex);
+  }
+  
+  @Override
+  public NumericColumn getNumericColumn(String name) throws IllegalArgumentException {
+    return numericColumns.get(columns.get(name).getIndex());
+  }
+  
   @Override
   public Vector getColumn(String name) throws IllegalArgumentException {
     Column col = this.columns.get(name);
@@ -2,11 +2,16 @@ package org.sapia.tad.transform.formula;
 
 
 import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
 import org.sapia.tad.Dataset;
+import org.sapia.tad.DatasetStream;
+import org.sapia.tad.DatasetStreams;
 import org.sapia.tad.Datatype;
+import org.sapia.tad.func.ArgFunction;
 import org.sapia.tad.help.Doc;
 import org.sapia.tad.impl.DefaultColumn;
 import org.sapia.tad.impl.DefaultColumnSet;
+import org.sapia.tad.transform.expression.Expressions;
 import org.sapia.tad.util.Tuple;
 
 import java.util.ArrayList;
@@ -44,26 +49,71 @@ public class Formulas {
    * 
    * @return a new {@link Dataset}, with new columns added for the given formulas.
    */
-  @SuppressWarnings("unchecked")
   @Doc("returns a dataset that adds the given formulas to the provided dataset")
   public static Dataset addFormulas(
       @Doc("a dataset to which to add formulas") Dataset dataset, 
       @Doc("one or more tuples, each holding: " + 
           "a) a formula column name; b) a formula column type; " + 
           "c) the ArgFunction instance corresponding to the formula") List<Tuple> formulas) {
-    List<Column>      columns = new ArrayList<>();
-    List<FormulaInfo> forms   = new ArrayList<>();
+    List<FormulaInfo> forms = new ArrayList<>();
+    ColumnSet         cs    = formulaColumns(dataset.getColumnSet(), formulas, forms);
+    FormulaDataset    ds    = new FormulaDataset(dataset, cs, forms);
+    return ds;
+  }
+  
+  /**
+   * @param dataset the {@link Dataset} to which to add a formula.
+   * @param name the column name of the formula.
+   * @param type the {@link Datatype} of the formula's result.
+   * @param expression the MVEL expression computing the formula's result (compiled against the dataset's
+   * columns, if possible - see {@link Expressions}).
+   * 
+   * @return a new {@link Dataset}, with a new column added for the given formula.
+   */
+  @Doc("returns a dataset that adds a formula column, computed with the given expression, to the provided dataset")
+  public static Dataset addFormula(
+      @Doc("a dataset to which to add a formula") Dataset dataset, 
+      @Doc("the formula column name") String name, 
+      @Doc("the formula column type") Datatype type, 
+      @Doc("the expression computing the formula's result") String expression) {
+    return addFormulas(dataset, new Tuple(type, name, Expressions.formula(dataset.getColumnSet(), expression)));
+  }
+  
+  /**
+   * @param stream the {@link DatasetStream} to which to add formulas.
+   * @param formulas {@link Tuple} instances holding: a) the {@link Datatype} of the formula's result; 
+   * b) the column name of the formula; c) the {@link Formula} itself.
+   * 
+   * @return a new {@link DatasetStream}, whose batches have new columns added for the given formulas.
+   */
+  @Doc("returns a dataset stream that adds the given formulas to the provided dataset stream")
+  public static DatasetStream addFormulas(
+      @Doc("a dataset stream to which to add formulas") DatasetStream stream, 
+      @Doc("one or more tuples, each holding: " + 
+       "a) a formula column name; b) a formula column type; " + 
+       "c) the ArgFunction instance corresponding to the formula") Tuple...formulas) {
+    final List<FormulaInfo> forms = new ArrayList<>();
+    final ColumnSet         cs    = formulaColumns(stream.getColumnSet(), Arrays.asList(formulas), forms);
+    return DatasetStreams.map(stream, cs, new ArgFunction<Dataset, Dataset>() {
+      @Override
+      public Dataset call(Dataset batch) {
+        return new FormulaDataset(batch, cs, forms);
+      }
+    });
+  }
+  
+  @SuppressWarnings("unchecked")
+  private static ColumnSet formulaColumns(ColumnSet original, List<Tuple> formulas, List<FormulaInfo> forms) {
+    List<Column> columns = new ArrayList<>();
     
-    columns.addAll(dataset.getColumnSet().getColumns());
+    columns.addAll(original.getColumns());
     
     for (int i = 0; i < formulas.size(); i++) {
       Tuple f = formulas.get(i);
-      forms.add(new FormulaInfo(dataset.getColumnSet().size() + i, f.get(Formula.class)));
-      columns.add(new DefaultColumn(dataset.getColumnSet().size() + i, f.getNotNull(Datatype.class), f.getNotNull(String.class)));
+      forms.add(new FormulaInfo(original.size() + i, f.get(Formula.class)));
+      columns.add(new DefaultColumn(original.size() + i, f.getNotNull(Datatype.class), f.getNotNull(String.class)));
     }
     
-    DefaultColumnSet cs = new DefaultColumnSet(columns);
-    FormulaDataset   ds = new FormulaDataset(dataset, cs, forms);
-    return ds;
+    return new DefaultColumnSet(columns);
   }
 }
@@ -32,6 +32,10 @@ public class Indices {
   /**
    * Performs the given computation over the rows corresponding to the given indexed dataset's keys
    * and aggregates the results in a single row, for each key.
+   * <p>
+   * The rows corresponding to a given key are processed sequentially, unless their number is greater 
+   * than {@link Conf#getParallelRowThreshold()}: in such a case, they are split into ranges that are
+   * processed in parallel (provided the computation is a {@link MergeableComputation}).
    * 
    * @param dataset an {@link IndexedDataset}.
    * @param computation a {@link Computation} to apply.
@@ -42,11 +46,16 @@ public class Indices {
   @Doc("Performs the given computation over each group of rows in the provided indexed dataset")
   public static IndexedDataset aggregate(IndexedDataset dataset, Computation computation) throws ThreadInterruptedException {
     
-    ComputationTask task = Computations.parallel(Threading.getThreadPool(), Conf.getTaskTimeout());
-    task.add(computation);
     List<Vector> aggregatedRows = new ArrayList<>();
     for (VectorKey k : dataset.getKeys()) {
       RowSet rows = dataset.getRowset(k);
+      ComputationTask task;
+      if (rows.size() > Conf.getParallelRowThreshold()) {
+        task = Computations.partitioned(Threading.getForkJoinPool(), Conf.getTaskTimeout(), Conf.getParallelRowThreshold());
+      } else {
+        task = Computations.sequential();
+      }
+      task.add(computation);
       try {
         ComputationResults results = task.compute(dataset.getColumnSet(), rows);
         ComputationResult result = results.get(results.getResultNames().get(0));
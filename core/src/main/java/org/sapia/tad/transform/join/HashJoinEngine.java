@@ -0,0 +1,68 @@
+package org.sapia.tad.transform.join;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Implements a build/probe hash join: an open hash table is built over the keys of the right 
+ * dataset, with rows chained per bucket in <code>int</code> arrays. The table is then probed
+ * with the keys of the left dataset, in row order.
+ * 
+ * @author yduchesne
+ *
+ */
+public class HashJoinEngine implements JoinEngine {
+  
+  @Override
+  public JoinPairs join(JoinKeys left, JoinKeys right, Join.Type type) {
+    int tableSize = Integer.highestOneBit(Math.max(right.size(), 1) * 2 - 1) << 1;
+    int mask      = tableSize - 1;
+    int[] heads   = new int[tableSize];
+    int[] next    = new int[right.size()];
+    Arrays.fill(heads, -1);
+    
+    // building: rows are inserted in reverse order, so that chains are in ascending row order.
+    for (int r = right.size() - 1; r >= 0; r--) {
+      if (!right.isNull(r)) {
+        int bucket = right.hash(r) & mask;
+        next[r] = heads[bucket];
+        heads[bucket] = r;
+      }
+    }
+    
+    // probing
+    JoinPairs pairs        = new JoinPairs(left.size());
+    BitSet    rightMatched = type.keepsUnmatchedRight() ? new BitSet(right.size()) : null;
+    for (int l = 0; l < left.size(); l++) {
+      boolean matched = false;
+      if (!left.isNull(l)) {
+        int hash = left.hash(l);
+        for (int r = heads[hash & mask]; r >= 0; r = next[r]) {
+          if (right.hash(r) == hash && left.equals(l, right, r)) {
+            matched = true;
+            if (type.isLeftOnly()) {
+              break;
+            }
+            pairs.add(l, r);
+            if (rightMatched != null) {
+              rightMatched.set(r);
+            }
+          }
+        }
+      }
+      if (type == Join.Type.SEMI && matched || type == Join.Type.ANTI && !matched) {
+        pairs.add(l, JoinPairs.NONE);
+      } else if (!matched && type.keepsUnmatchedLeft()) {
+        pairs.add(l, JoinPairs.NONE);
+      }
+    }
+    
+    if (rightMatched != null) {
+      for (int r = rightMatched.nextClearBit(0); r < right.size(); r = rightMatched.nextClearBit(r + 1)) {
+        pairs.add(JoinPairs.NONE, r);
+      }
+    }
+    return pairs;
+  }
+
+}
@@ -1,6 +1,7 @@
 package org.sapia.tad.transform.join;
 
 import org.sapia.tad.ColumnSet;
+import org.sapia.tad.util.Checks;
 import org.sapia.tad.util.Strings;
 
 /**
@@ -30,13 +31,104 @@ public class Join {
      * Specifies an outer join: rows in the left dataset that match rows in the
      * right dataset and rows that don't match any row in the right dataset are 
      * joined and included in the dataset resulting from the join.
+     * <p>
+     * This is the same as {@link #LEFT_OUTER}, and is kept for backward compatibility.
      */
-    OUTER
+    OUTER,
+    
+    /**
+     * Specifies a left outer join: all rows of the left dataset are included in the
+     * resulting dataset. The right-side values of left rows that don't match any row
+     * in the right dataset are null.
+     */
+    LEFT_OUTER,
+    
+    /**
+     * Specifies a right outer join: all rows of the right dataset are included in the
+     * resulting dataset. The left-side values of right rows that don't match any row
+     * in the left dataset are null.
+     */
+    RIGHT_OUTER,
+    
+    /**
+     * Specifies a full outer join: all rows of both datasets are included in the resulting
+     * dataset, whether they have a match on the other side or not.
+     */
+    FULL_OUTER,
+    
+    /**
+     * Specifies a semi join: the rows of the left dataset that match at least one row in the 
+     * right dataset are included in the resulting dataset, which only holds the left dataset's
+     * columns.
+     */
+    SEMI,
+    
+    /**
+     * Specifies an anti join: the rows of the left dataset that do not match any row in the 
+     * right dataset are included in the resulting dataset, which only holds the left dataset's
+     * columns.
+     */
+    ANTI;
+    
+    /**
+     * @return <code>true</code> if this instance specifies that left rows without a match 
+     * should be kept.
+     */
+    public boolean keepsUnmatchedLeft() {
+      return this == OUTER || this == LEFT_OUTER || this == FULL_OUTER;
+    }
+    
+    /**
+     * @return <code>true</code> if this instance specifies that right rows without a match 
+     * should be kept.
+     */
+    public boolean keepsUnmatchedRight() {
+      return this == RIGHT_OUTER || this == FULL_OUTER;
+    }
+    
+    /**
+     * @return <code>true</code> if this instance specifies that only the left dataset's
+     * columns are part of the resulting dataset.
+     */
+    public boolean isLeftOnly() {
+      return this == SEMI || this == ANTI;
+    }
+  }
+  
+  // ==========================================================================
+  
+  /**
+   * Holds constants corresponding to the different join strategies.
+   * 
+   * @author yduchesne
+   *
+   */
+  public enum Strategy {
+    
+    /**
+     * Lets the strategy be chosen based on the size and order of the joined datasets.
+     */
+    AUTO,
+    
+    /**
+     * Specifies a hash join: a hash table is built over the keys of the right dataset, 
+     * and probed with the keys of the left dataset.
+     */
+    HASH,
+    
+    /**
+     * Specifies a sort-merge join: both datasets are sorted on their keys (unless they are
+     * already sorted), and then merged. This strategy is best suited for pre-sorted inputs.
+     */
+    SORT_MERGE
   }
   
   // ==========================================================================
 
-  private Type      type = Type.OUTER;
+  private Type      type       = Type.OUTER;
+  private Strategy  strategy   = Strategy.AUTO;
+  private boolean   parallel;
+  private boolean   ordered    = true;
   private ColumnSet left, right;
   private String    leftAlias  = "left";
   private String    rightAlias = "right";
@@ -46,6 +138,11 @@ public class Join {
     this.right = right;
   }
   
+  public Join(ColumnSet left, ColumnSet right, Type type) {
+    this(left, right);
+    setType(type);
+  }
+  
   /**
    * @param leftAlias an alias to associate to the "left" dataset.
    */
@@ -95,12 +192,68 @@ public class Join {
     return type;
   }
   
+  /**
+   * @param type the join {@link Type}.
+   */
+  public void setType(Type type) {
+    this.type = Checks.notNull(type, "Join type cannot be null");
+  }
+  
+  /**
+   * @return the join {@link Strategy}.
+   */
+  public Strategy getStrategy() {
+    return strategy;
+  }
+  
+  /**
+   * @param strategy the join {@link Strategy} to use.
+   */
+  public void setStrategy(Strategy strategy) {
+    this.strategy = Checks.notNull(strategy, "Join strategy cannot be null");
+  }
+  
+  /**
+   * @param parallel if <code>true</code>, indicates that the join should be performed in parallel:
+   * both datasets are partitioned by key hash, and the partitions are joined concurrently.
+   */
+  public void setParallel(boolean parallel) {
+    this.parallel = parallel;
+  }
+  
+  /**
+   * @return <code>true</code> if the join should be performed in parallel.
+   */
+  public boolean isParallel() {
+    return parallel;
+  }
+  
+  /**
+   * @param ordered if <code>true</code> (the default), indicates that the rows resulting from the 
+   * join should be in left row order. Otherwise, and in the case of parallel joins, the rows are 
+   * grouped by partition, which saves sorting them (but the resulting order then depends on the 
+   * number of partitions, and thus on the number of available processors).
+   */
+  public void setOrdered(boolean ordered) {
+    this.ordered = ordered;
+  }
+  
+  /**
+   * @return <code>true</code> if the rows resulting from the join should be in left row order.
+   */
+  public boolean isOrdered() {
+    return ordered;
+  }
+  
   @Override
   public String toString() {
     return Strings.toString(
         "left", left, 
         "right", right, 
         "type", type, 
+        "strategy", strategy,
+        "parallel", parallel,
+        "ordered", ordered,
         "leftAlias", leftAlias,
         "rightAlias", rightAlias);
   }
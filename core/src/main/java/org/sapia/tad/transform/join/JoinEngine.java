@@ -0,0 +1,27 @@
+package org.sapia.tad.transform.join;
+
+/**
+ * Specifies the behavior of join algorithms: an engine matches the keys of the left and right
+ * datasets, and returns the pairs of rows to join.
+ * <p>
+ * The returned pairs are expected to be sorted by left row index, then by right row index. The
+ * right rows that have no match (when relevant, given the join type) are expected to come last,
+ * in ascending order.
+ * 
+ * @see Join.Strategy
+ * 
+ * @author yduchesne
+ *
+ */
+public interface JoinEngine {
+
+  /**
+   * @param left the {@link JoinKeys} of the left dataset.
+   * @param right the {@link JoinKeys} of the right dataset.
+   * @param type the join {@link Join.Type}. For semi and anti joins, the right index of the 
+   * returned pairs is always {@link JoinPairs#NONE}.
+   * @return the {@link JoinPairs} holding the pairs of rows to join.
+   */
+  public JoinPairs join(JoinKeys left, JoinKeys right, Join.Type type);
+  
+}
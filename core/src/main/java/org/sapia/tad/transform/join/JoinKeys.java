@@ -0,0 +1,323 @@
+package org.sapia.tad.transform.join;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.NumericColumn;
+import org.sapia.tad.Vector;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.Value;
+
+/**
+ * Holds the join keys of one side of a join, encoded as primitives: each key column is held in
+ * a <code>long</code> array, in which numeric values are stored as their (normalized) bits, and other
+ * values as codes assigned through a dictionary that is shared by both sides of the join.
+ * <p>
+ * Keys can thus be hashed and compared for equality without any {@link Value} being involved.
+ * A row having at least one null key value does not match any other row.
+ *
+ * @see JoinEngine
+ *
+ * @author yduchesne
+ *
+ */
+public class JoinKeys {
+
+  private int        size;
+  private Datatype[] types;
+  private long[][]   codes;
+  private Value[][]  values;
+  private int[]      hashes;
+  private BitSet     nulls;
+  private Boolean    sorted;
+
+  private JoinKeys(int size, Datatype[] types) {
+    this.size   = size;
+    this.types  = types;
+    this.codes  = new long[types.length][];
+    this.values = new Value[types.length][];
+    this.hashes = new int[size];
+    this.nulls  = new BitSet(size);
+  }
+
+  /**
+   * @return the number of rows (that is: of keys) held by this instance.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * @param row a row index.
+   * @return <code>true</code> if the key of the given row has at least one null value.
+   */
+  public boolean isNull(int row) {
+    return nulls.get(row);
+  }
+
+  /**
+   * @param row a row index.
+   * @return the hash code of the given row's key.
+   */
+  public int hash(int row) {
+    return hashes[row];
+  }
+
+  /**
+   * @param row a row index.
+   * @param other another instance (possibly this one).
+   * @param otherRow the index of a row held by the other instance.
+   * @return <code>true</code> if the keys of both rows are equal.
+   */
+  public boolean equals(int row, JoinKeys other, int otherRow) {
+    for (int c = 0; c < codes.length; c++) {
+      if (codes[c][row] != other.codes[c][otherRow]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param row a row index.
+   * @param other another instance (possibly this one).
+   * @param otherRow the index of a row held by the other instance.
+   * @return a negative number, 0, or a positive number, depending on if the key of the given row
+   * is lower, equal to, or greater than the key of the other row.
+   */
+  public int compare(int row, JoinKeys other, int otherRow) {
+    for (int c = 0; c < codes.length; c++) {
+      int cmp;
+      if (values[c] == null) {
+        cmp = Double.compare(Double.longBitsToDouble(codes[c][row]), Double.longBitsToDouble(other.codes[c][otherRow]));
+      } else if (codes[c][row] == other.codes[c][otherRow]) {
+        cmp = 0;
+      } else {
+        cmp = types[c].strategy().compareTo(values[c][row], other.values[c][otherRow]);
+      }
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * @return <code>true</code> if the rows with a non-null key are in ascending key order.
+   */
+  public synchronized boolean isSorted() {
+    if (sorted == null) {
+      boolean result = true;
+      int     last   = -1;
+      for (int r = 0; r < size && result; r++) {
+        if (!nulls.get(r)) {
+          result = last < 0 || compare(last, this, r) <= 0;
+          last   = r;
+        }
+      }
+      sorted = result;
+    }
+    return sorted;
+  }
+
+  /**
+   * @return the indices of the rows with a non-null key, in ascending key order (rows with
+   * equal keys are kept in their original order).
+   */
+  public int[] sortedRows() {
+    int[] rows  = new int[size - nulls.cardinality()];
+    int   count = 0;
+    for (int r = 0; r < size; r++) {
+      if (!nulls.get(r)) {
+        rows[count++] = r;
+      }
+    }
+    if (!isSorted()) {
+      mergeSort(rows, rows.clone(), 0, rows.length);
+    }
+    return rows;
+  }
+
+  /**
+   * Partitions the rows of this instance by key hash, into <code>2^bits</code> partitions: rows having
+   * equal keys are always assigned to the same partition.
+   *
+   * @param bits the number of hash bits to partition on.
+   * @return the indices of the rows of each partition, in ascending order.
+   */
+  public int[][] partition(int bits) {
+    Checks.isTrue(bits >= 0 && bits < 31, "Partition bits must be between 0 and 30 (got %s)", bits);
+    int     partitionCount = 1 << bits;
+    int[]   partitionOfRow = new int[size];
+    int[]   counts         = new int[partitionCount];
+    for (int r = 0; r < size; r++) {
+      // using the high bits of the mixed hash: the low bits are the ones used for hash table buckets.
+      partitionOfRow[r] = bits == 0 ? 0 : (hashes[r] * 0x9E3779B9) >>> (32 - bits);
+      counts[partitionOfRow[r]]++;
+    }
+    int[][] partitions = new int[partitionCount][];
+    for (int p = 0; p < partitionCount; p++) {
+      partitions[p] = new int[counts[p]];
+      counts[p]     = 0;
+    }
+    for (int r = 0; r < size; r++) {
+      int p = partitionOfRow[r];
+      partitions[p][counts[p]++] = r;
+    }
+    return partitions;
+  }
+
+  /**
+   * @param rows the indices of the rows to select.
+   * @return a new instance, holding the keys of the given rows (the row at index <code>i</code>
+   * in the returned instance corresponds to <code>rows[i]</code>).
+   */
+  public JoinKeys select(int[] rows) {
+    JoinKeys selected = new JoinKeys(rows.length, types);
+    for (int c = 0; c < types.length; c++) {
+      selected.codes[c] = new long[rows.length];
+      if (values[c] != null) {
+        selected.values[c] = new Value[rows.length];
+      }
+    }
+    for (int i = 0; i < rows.length; i++) {
+      int r = rows[i];
+      for (int c = 0; c < types.length; c++) {
+        selected.codes[c][i] = codes[c][r];
+        if (values[c] != null) {
+          selected.values[c][i] = values[c][r];
+        }
+      }
+      selected.hashes[i] = hashes[r];
+      if (nulls.get(r)) {
+        selected.nulls.set(i);
+      }
+    }
+    return selected;
+  }
+
+  // --------------------------------------------------------------------------
+
+  /**
+   * @param left the "left" {@link Dataset}.
+   * @param leftKeys the key columns of the left dataset.
+   * @param right the "right" {@link Dataset}.
+   * @param rightKeys the key columns of the right dataset.
+   * @return an array holding the left and right {@link JoinKeys}, in that order.
+   * @throws IllegalArgumentException if the key columns do not correspond in number and type.
+   */
+  public static JoinKeys[] encode(Dataset left, ColumnSet leftKeys, Dataset right, ColumnSet rightKeys)
+      throws IllegalArgumentException {
+    Checks.isTrue(leftKeys.size() == rightKeys.size(), "Got %s left key columns, but %s right key columns",
+        leftKeys.size(), rightKeys.size());
+    Checks.isTrue(leftKeys.size() > 0, "At least one key column must be specified");
+
+    Datatype[] types = new Datatype[leftKeys.size()];
+    for (int c = 0; c < types.length; c++) {
+      Column l = leftKeys.get(c);
+      Column r = rightKeys.get(c);
+      Checks.isTrue(l.getType() == r.getType(), "Type of left key column %s (%s) does not match type of right key column %s (%s)",
+          l.getName(), l.getType(), r.getName(), r.getType());
+      types[c] = l.getType();
+    }
+
+    List<Map<Value, Long>> dictionaries = new ArrayList<>(types.length);
+    for (int c = 0; c < types.length; c++) {
+      dictionaries.add(types[c] != Datatype.NUMERIC ? new HashMap<Value, Long>() : null);
+    }
+
+    JoinKeys rightResult = encode(right, rightKeys, types, dictionaries);
+    JoinKeys leftResult  = encode(left, leftKeys, types, dictionaries);
+    return new JoinKeys[] { leftResult, rightResult };
+  }
+
+  private static JoinKeys encode(Dataset dataset, ColumnSet keys, Datatype[] types, List<Map<Value, Long>> dictionaries) {
+    JoinKeys result = new JoinKeys(dataset.size(), types);
+    for (int c = 0; c < types.length; c++) {
+      long[] colCodes = new long[result.size];
+      result.codes[c] = colCodes;
+      if (types[c] == Datatype.NUMERIC) {
+        NumericColumn col = dataset.getNumericColumn(keys.get(c).getIndex());
+        for (int r = 0; r < result.size; r++) {
+          if (col.isNull(r)) {
+            result.nulls.set(r);
+          } else {
+            // normalizing -0.0 to 0.0
+            colCodes[r] = Double.doubleToLongBits(col.getDouble(r) + 0.0);
+          }
+        }
+      } else {
+        result.values[c] = new Value[result.size];
+      }
+    }
+
+    if (hasValueColumns(result)) {
+      int r = 0;
+      for (Vector row : dataset) {
+        for (int c = 0; c < types.length; c++) {
+          if (result.values[c] != null) {
+            Value value = row.get(keys.get(c).getIndex());
+            if (NullValue.isNull(value)) {
+              result.nulls.set(r);
+            } else {
+              Map<Value, Long> dictionary = dictionaries.get(c);
+              Long             code       = dictionary.get(value);
+              if (code == null) {
+                code = (long) dictionary.size();
+                dictionary.put(value, code);
+              }
+              result.codes[c][r]  = code;
+              result.values[c][r] = value;
+            }
+          }
+        }
+        r++;
+      }
+    }
+
+    for (int r = 0; r < result.size; r++) {
+      int hash = 1;
+      for (int c = 0; c < types.length; c++) {
+        long code = result.codes[c][r];
+        hash = 31 * hash + (int) (code ^ (code >>> 32));
+      }
+      result.hashes[r] = hash ^ (hash >>> 16);
+    }
+    return result;
+  }
+
+  private static boolean hasValueColumns(JoinKeys keys) {
+    for (Value[] v : keys.values) {
+      if (v != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // sorts src[from, to) into dest, using buf as scratch space: both arrays hold the same values on entry.
+  private void mergeSort(int[] dest, int[] buf, int from, int to) {
+    if (to - from < 2) {
+      return;
+    }
+    int mid = (from + to) >>> 1;
+    mergeSort(buf, dest, from, mid);
+    mergeSort(buf, dest, mid, to);
+    int i = from, j = mid;
+    for (int k = from; k < to; k++) {
+      if (j >= to || (i < mid && compare(buf[i], this, buf[j]) <= 0)) {
+        dest[k] = buf[i++];
+      } else {
+        dest[k] = buf[j++];
+      }
+    }
+  }
+}
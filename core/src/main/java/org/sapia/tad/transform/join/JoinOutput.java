@@ -0,0 +1,118 @@
+package org.sapia.tad.transform.join;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.Vector;
+import org.sapia.tad.impl.DefaultColumnSet;
+import org.sapia.tad.impl.DefaultDataset;
+import org.sapia.tad.transform.join.VectorTable.VectorType;
+
+/**
+ * Creates the rows resulting from a join, given the {@link JoinPairs} computed by a {@link JoinEngine}.
+ * <p>
+ * For semi and anti joins, the rows are the ones of the left dataset. Otherwise, they're
+ * {@link JoinVector}s, holding the non-key columns of the left dataset, followed by the key 
+ * columns and the non-key columns of the right dataset.
+ * 
+ * @author yduchesne
+ *
+ */
+class JoinOutput {
+  
+  private Dataset     left, right;
+  private boolean     leftOnly;
+  private ColumnSet   columns;
+  private VectorTable table;
+  
+  JoinOutput(Dataset left, Dataset right, Join join) {
+    this.left     = left;
+    this.right    = right;
+    this.leftOnly = join.getType().isLeftOnly();
+    if (leftOnly) {
+      columns = left.getColumnSet();
+    } else {
+      init(join);
+    }
+  }
+  
+  /**
+   * @return the {@link ColumnSet} of the datasets created by this instance.
+   */
+  ColumnSet getColumnSet() {
+    return columns;
+  }
+  
+  /**
+   * @param pairs the {@link JoinPairs} to create rows from.
+   * @param from the index of the first pair to process (inclusive).
+   * @param to the index of the last pair to process (exclusive).
+   * @return a new {@link Dataset}, holding the rows corresponding to the given range of pairs.
+   */
+  Dataset createDataset(JoinPairs pairs, int from, int to) {
+    List<Vector> rows = new ArrayList<>(to - from);
+    for (int i = from; i < to; i++) {
+      int l = pairs.getLeft(i);
+      if (leftOnly) {
+        rows.add(left.getRow(l));
+      } else {
+        int r = pairs.getRight(i);
+        rows.add(new JoinVector(
+            table, 
+            l == JoinPairs.NONE ? null : left.getRow(l), 
+            r == JoinPairs.NONE ? null : right.getRow(r)
+        ));
+      }
+    }
+    return new DefaultDataset(columns, rows);
+  }
+  
+  private void init(Join join) {
+    List<Column> joinCols = new ArrayList<>(left.getColumnSet().size() + right.getColumnSet().size());
+
+    List<Integer>    colIndices     = new ArrayList<>();
+    List<Integer>    leftKeyIndices = new ArrayList<>();
+    List<VectorType> vectorTypes    = new ArrayList<>();
+    
+    int index = 0;
+
+    for (Column col : left.getColumnSet().excludes(join.getLeft().getColumnNames())) {
+      joinCols.add(new JoinColumn(index++, col));
+      colIndices.add(col.getIndex());
+      leftKeyIndices.add(-1);
+      vectorTypes.add(VectorType.LEFT);
+    }
+    for (int i = 0; i < join.getRight().size(); i++) {
+      Column col = join.getRight().get(i);
+      joinCols.add(new JoinColumn(index++, col));
+      colIndices.add(col.getIndex());
+      leftKeyIndices.add(join.getLeft().get(i).getIndex());
+      vectorTypes.add(VectorType.KEY);
+    }
+    for (Column col : right.getColumnSet().excludes(join.getRight().getColumnNames())) {
+      joinCols.add(new JoinColumn(index++, col));
+      colIndices.add(col.getIndex());
+      leftKeyIndices.add(-1);
+      vectorTypes.add(VectorType.RIGHT);
+    }
+    
+    int[] colIndiceArray     = new int[colIndices.size()];
+    int[] leftKeyIndiceArray = new int[colIndices.size()];
+    for (int i = 0; i < colIndices.size(); i++) {
+      colIndiceArray[i]     = colIndices.get(i);
+      leftKeyIndiceArray[i] = leftKeyIndices.get(i);
+    }
+    
+    VectorType[] vectorTypeArray = new VectorType[vectorTypes.size()];
+    for (int i = 0; i < vectorTypes.size(); i++) {
+      vectorTypeArray[i] = vectorTypes.get(i);
+    }
+    
+    columns = new DefaultColumnSet(joinCols);
+    table   = new VectorTable(colIndiceArray, vectorTypeArray, leftKeyIndiceArray);
+  }
+
+}
@@ -0,0 +1,123 @@
+package org.sapia.tad.transform.join;
+
+import java.util.Arrays;
+
+import org.sapia.tad.util.Checks;
+
+/**
+ * Holds the pairs of row indices resulting from a join, as computed by a {@link JoinEngine}: 
+ * a pair consists of the index of a left row, and the index of the right row to which it is
+ * joined. In the case of outer joins, a side for which there is no match is indicated by
+ * an index of <code>-1</code>. 
+ * 
+ * @author yduchesne
+ *
+ */
+public class JoinPairs {
+  
+  /**
+   * Corresponds to the index of a missing row.
+   */
+  public static final int NONE = -1;
+  
+  private static final long NONE_BITS = 0xffffffffL;
+  
+  private int[] left, right;
+  private int   size;
+  
+  public JoinPairs() {
+    this(16);
+  }
+  
+  /**
+   * @param capacity the initial capacity of this instance.
+   */
+  public JoinPairs(int capacity) {
+    left  = new int[Math.max(capacity, 1)];
+    right = new int[left.length];
+  }
+  
+  /**
+   * @param leftRow the index of a left row (or {@link #NONE}).
+   * @param rightRow the index of a right row (or {@link #NONE}).
+   */
+  public void add(int leftRow, int rightRow) {
+    if (size == left.length) {
+      left  = Arrays.copyOf(left, size * 2);
+      right = Arrays.copyOf(right, size * 2);
+    }
+    left[size]  = leftRow;
+    right[size] = rightRow;
+    size++;
+  }
+  
+  /**
+   * @param other another instance, whose pairs should be appended to this instance.
+   */
+  public void addAll(JoinPairs other) {
+    for (int i = 0; i < other.size; i++) {
+      add(other.left[i], other.right[i]);
+    }
+  }
+  
+  /**
+   * @param leftRows the actual left row indices, by index of left row held by this instance.
+   * @param rightRows the actual right row indices, by index of right row held by this instance.
+   * @return a new instance, holding the pairs of this instance, translated through the given arrays.
+   */
+  public JoinPairs translate(int[] leftRows, int[] rightRows) {
+    JoinPairs translated = new JoinPairs(size);
+    for (int i = 0; i < size; i++) {
+      translated.add(
+          left[i] == NONE ? NONE : leftRows[left[i]], 
+          right[i] == NONE ? NONE : rightRows[right[i]]
+      );
+    }
+    return translated;
+  }
+  
+  /**
+   * @return the number of pairs held by this instance.
+   */
+  public int size() {
+    return size;
+  }
+  
+  /**
+   * @param index the index of a pair.
+   * @return the index of the pair's left row, or {@link #NONE}.
+   */
+  public int getLeft(int index) {
+    Checks.isTrue(index >= 0 && index < size, "Invalid index: %s. Got %s pairs", index, size);
+    return left[index];
+  }
+  
+  /**
+   * @param index the index of a pair.
+   * @return the index of the pair's right row, or {@link #NONE}.
+   */
+  public int getRight(int index) {
+    Checks.isTrue(index >= 0 && index < size, "Invalid index: %s. Got %s pairs", index, size);
+    return right[index];
+  }
+  
+  /**
+   * Sorts the pairs of this instance by left row index, and then by right row index. Pairs that
+   * have no left row come last, sorted by right row index.
+   */
+  public void sort() {
+    long[] packed = new long[size];
+    for (int i = 0; i < size; i++) {
+      long l = left[i] == NONE ? Integer.MAX_VALUE : left[i];
+      packed[i] = (l << 32) | (right[i] & NONE_BITS);
+    }
+    Arrays.sort(packed);
+    for (int i = 0; i < size; i++) {
+      int  l  = (int) (packed[i] >>> 32);
+      long r  = packed[i] & NONE_BITS;
+      left[i]  = l == Integer.MAX_VALUE ? NONE : l;
+      right[i] = r == NONE_BITS ? NONE : (int) r;
+    }
+  }
+
+}
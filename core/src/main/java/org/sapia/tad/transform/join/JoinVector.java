@@ -4,13 +4,16 @@ import org.sapia.tad.Vector;
 import org.sapia.tad.Vectors;
 import org.sapia.tad.impl.DefaultVector;
 import org.sapia.tad.transform.join.VectorTable.VectorType;
+import org.sapia.tad.value.NullValue;
 import org.sapia.tad.value.Value;
 
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 /**
- * Implements the {@link Vector} interface over two other vectors.
+ * Implements the {@link Vector} interface over two other vectors. Either vector may be
+ * <code>null</code> (in the case of outer joins), in which case the values it would 
+ * otherwise provide are null.
  * 
  * @author yduchesne
  *
@@ -25,15 +28,18 @@ class JoinVector implements Vector {
     this.table = table;
     this.left  = left;
     this.right = right;
-    totalSize = left.size() + right.size();
+    totalSize  = table.size();
   }
   
   @Override
   public Value get(int index) throws IllegalArgumentException {
-    if (table.resolveVectorType(index) == VectorType.LEFT) {
-      return left.get(table.resolveVectorIndex(index));
+    VectorType type = table.resolveVectorType(index);
+    if (type == VectorType.LEFT) {
+      return left == null ? NullValue.getInstance() : left.get(table.resolveVectorIndex(index));
+    } else if (type == VectorType.RIGHT || right != null) {
+      return right == null ? NullValue.getInstance() : right.get(table.resolveVectorIndex(index));
     } else {
-      return right.get(table.resolveVectorIndex(index));
+      return left.get(table.resolveLeftKeyIndex(index));
     }
   }
   
@@ -1,14 +1,20 @@
 package org.sapia.tad.transform.join;
 
-import groovy.sql.DataSet;
-import org.sapia.tad.*;
-import org.sapia.tad.impl.DefaultColumnSet;
-import org.sapia.tad.impl.DefaultDataset;
-import org.sapia.tad.transform.join.VectorTable.VectorType;
-import org.sapia.tad.value.Value;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.IndexedDataset;
+import org.sapia.tad.concurrent.ConcurrencyException;
+import org.sapia.tad.concurrent.ThreadInterruptedException;
+import org.sapia.tad.concurrent.Threading;
+import org.sapia.tad.conf.Conf;
+import org.sapia.tad.transform.merge.Merges;
+import org.sapia.tad.util.Time;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Provides methods for joining datasets.
@@ -22,86 +28,144 @@ public class Joins {
   }
 
   /**
+   * Joins the given datasets, using the {@link Join.Strategy} specified by the given {@link Join}. If
+   * the strategy is {@link Join.Strategy#AUTO}, the cheapest one is selected based on the size of the
+   * datasets and on whether they're already sorted on their keys.
+   * <p>
+   * The rows of the resulting dataset are in left row order. For right and full outer joins, the right
+   * rows that have no match come last, in right row order.
+   * <p>
+   * If the join is {@link Join#isParallel() parallel}, both datasets are partitioned by key hash, and
+   * the partitions are joined concurrently. The resulting dataset then consists of the concatenation 
+   * of multiple datasets. Unless the join is {@link Join#isOrdered() ordered}, its rows are grouped by
+   * partition.
+   * 
    * @param left the "left" {@link Dataset}.
    * @param right the "right" {@link Dataset}.
    * @param join the {@link Join} describing which columns in the left dataset
    * map to which ones in the right dataset.
-   * @return a new {@link DataSet}.
+   * @return a new {@link Dataset}. For semi and anti joins, it holds the columns of the left dataset; 
+   * otherwise, it holds the non-key columns of the left dataset, followed by the key columns and the
+   * non-key columns of the right dataset.
    */
   public static Dataset join(Dataset left, Dataset right, Join join) {
-    return join(left, right.index(join.getRight().getColumnNames()), join);
+    JoinKeys[] keys   = JoinKeys.encode(left, join.getLeft(), right, join.getRight());
+    JoinEngine engine = engineFor(keys[0], keys[1], join.getStrategy());
+    JoinOutput output = new JoinOutput(left, right, join);
+    
+    if (join.isParallel()) {
+      return parallelJoin(keys[0], keys[1], join, engine, output);
+    }
+    JoinPairs pairs = engine.join(keys[0], keys[1], join.getType());
+    return output.createDataset(pairs, 0, pairs.size());
   }
+  
   /**
    * @param left the "left" {@link Dataset}.
-   * @param right the "right" {@link Dataset}.
+   * @param right the "right" {@link IndexedDataset}.
    * @param join the {@link Join} describing which columns in the left dataset
    * map to which ones in the right dataset.
-   * @return a new {@link DataSet}.
+   * @return a new {@link Dataset}.
+   * @see #join(Dataset, Dataset, Join)
    */  
   public static Dataset join(Dataset left, IndexedDataset right, Join join) {
+    return join(left, (Dataset) right, join);
+  }
+  
+  // --------------------------------------------------------------------------
+  // Restricted methods
+  
+  // both sides are partitioned by key hash: each partition is then joined in its own task, on the
+  // thread pool, and the resulting datasets are concatenated.
+  private static Dataset parallelJoin(final JoinKeys left, final JoinKeys right, final Join join, 
+      final JoinEngine engine, JoinOutput output) {
+    final int[][] leftPartitions  = left.partition(partitionBits());
+    final int[][] rightPartitions = right.partition(partitionBits());
     
-    List<Column> joinCols = new ArrayList<>(left.getColumnSet().size() + right.getColumnSet().size());
-
-    List<Integer>    colIndices  = new ArrayList<>();
-    List<VectorType> vectorTypes = new ArrayList<>();
-    
-    int index = 0;
-
-    for (Column col : left.getColumnSet().excludes(join.getLeft().getColumnNames())) {
-      joinCols.add(new JoinColumn(index++, col));
-      colIndices.add(col.getIndex());
-      vectorTypes.add(VectorType.LEFT);
-    }
-    for (Column col : join.getRight()) {
-      joinCols.add(new JoinColumn(index++, col));
-      colIndices.add(col.getIndex());
-      vectorTypes.add(VectorType.RIGHT);
-    }
-    for (Column col : right.getColumnSet().excludes(join.getRight().getColumnNames())) {
-      joinCols.add(new JoinColumn(index++, col));
-      colIndices.add(col.getIndex());
-      vectorTypes.add(VectorType.RIGHT);
-    }
-    
-    int[] colIndiceArray = new int[colIndices.size()];
-    for (int i = 0; i < colIndices.size(); i++) {
-      colIndiceArray[i] = colIndices.get(i);
+    List<Future<JoinPairs>> futures = new ArrayList<>(leftPartitions.length);
+    for (int p = 0; p < leftPartitions.length; p++) {
+      final int partition = p;
+      futures.add(Threading.getThreadPool().submit(new Callable<JoinPairs>() {
+        @Override
+        public JoinPairs call() throws Exception {
+          JoinPairs pairs = engine.join(
+              left.select(leftPartitions[partition]), 
+              right.select(rightPartitions[partition]), 
+              join.getType()
+          );
+          return pairs.translate(leftPartitions[partition], rightPartitions[partition]);
+        }
+      }));
     }
     
-    VectorType[] vectorTypeArray = new VectorType[vectorTypes.size()];
-    for (int i = 0; i < vectorTypes.size(); i++) {
-      vectorTypeArray[i] = vectorTypes.get(i);
+    Time            timeout        = Conf.getTaskTimeout();
+    List<JoinPairs> partitionPairs = new ArrayList<>(futures.size());
+    int             total          = 0;
+    try {
+      for (Future<JoinPairs> f : futures) {
+        JoinPairs pairs = f.get(timeout.getValue(), timeout.getUnit());
+        partitionPairs.add(pairs);
+        total += pairs.size();
+      }
+    } catch (InterruptedException e) {
+      throw new ThreadInterruptedException(e);
+    } catch (ExecutionException e) {
+      throw new ConcurrencyException("Error occured awaiting join result", e);
+    } catch (TimeoutException e) {
+      for (Future<JoinPairs> f : futures) {
+        f.cancel(true);
+      }
+      throw new ConcurrencyException("Timeout awaiting join result", e);
     }
     
-    VectorTable table = new VectorTable(colIndiceArray, vectorTypeArray);
-
-    List<Vector> joinRows = new ArrayList<>();
-    
-    for (Vector lrow : left) {
-      
-      Value[] keyValues = new Value[right.getIndexedColumnSet().size()];
-      
-      for (int  i = 0; i < join.getLeft().size(); i++) {
-        Column l = join.getLeft().get(i);
-        keyValues[i] = lrow.get(l.getIndex());
+    List<Dataset> segments = new ArrayList<>(partitionPairs.size());
+    if (join.isOrdered()) {
+      JoinPairs all = new JoinPairs(total);
+      for (JoinPairs pairs : partitionPairs) {
+        all.addAll(pairs);
       }
-      
-      VectorKey key = new VectorKey(right.getIndexedColumnSet(), keyValues);
-      RowSet rrows = right.getRowset(key);
-      
-      switch (join.getType()) {
-        case INNER:
-          if (rrows.size() == 0) {
-            continue;
-          }
-        case OUTER:
-          for (Vector rrow : rrows) {
-            JoinVector joinRow = new JoinVector(table, lrow, rrow);
-            joinRows.add(joinRow);
-          }
+      all.sort();
+      int segmentSize = Math.max(1, total / partitionPairs.size() + 1);
+      for (int start = 0; start < total; start += segmentSize) {
+        segments.add(output.createDataset(all, start, Math.min(start + segmentSize, total)));
       }
+    } else {
+      for (JoinPairs pairs : partitionPairs) {
+        if (pairs.size() > 0) {
+          segments.add(output.createDataset(pairs, 0, pairs.size()));
+        }
+      }
+    }
+    if (segments.isEmpty()) {
+      segments.add(output.createDataset(new JoinPairs(), 0, 0));
+    }
+    return Merges.mergeRows(segments);
+  }
+  
+  private static int partitionBits() {
+    int partitions = Runtime.getRuntime().availableProcessors() * 4;
+    return 32 - Integer.numberOfLeadingZeros(partitions - 1);
+  }
+  
+  static JoinEngine engineFor(JoinKeys left, JoinKeys right, Join.Strategy strategy) {
+    switch (strategy) {
+      case HASH:
+        return new HashJoinEngine();
+      case SORT_MERGE:
+        return new SortMergeJoinEngine();
+      default:
+        // building the hash table is costlier than probing it: hence the factor of 2 applied to the right side.
+        double hashCost  = left.size() + 2.0 * right.size();
+        double mergeCost = left.size() + right.size() + sortCost(left) + sortCost(right);
+        return mergeCost <= hashCost ? new SortMergeJoinEngine() : new HashJoinEngine();
+    }
+  }
+  
+  private static double sortCost(JoinKeys keys) {
+    if (keys.size() < 2 || keys.isSorted()) {
+      return 0;
     }
-    return new DefaultDataset(new DefaultColumnSet(joinCols), joinRows);
+    return keys.size() * (Math.log(keys.size()) / Math.log(2));
   }
 
 }
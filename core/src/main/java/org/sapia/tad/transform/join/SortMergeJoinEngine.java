@@ -0,0 +1,73 @@
+package org.sapia.tad.transform.join;
+
+import java.util.BitSet;
+
+/**
+ * Implements a sort-merge join: the rows of both sides are put in key order (which is free
+ * if they are already sorted), and then merged in a single pass. The resulting pairs are
+ * finally sorted back into left row order.
+ * 
+ * @author yduchesne
+ *
+ */
+public class SortMergeJoinEngine implements JoinEngine {
+
+  @Override
+  public JoinPairs join(JoinKeys left, JoinKeys right, Join.Type type) {
+    int[]     leftRows     = left.sortedRows();
+    int[]     rightRows    = right.sortedRows();
+    JoinPairs pairs        = new JoinPairs(left.size());
+    BitSet    leftMatched  = new BitSet(left.size());
+    BitSet    rightMatched = new BitSet(right.size());
+    
+    int i = 0, j = 0;
+    while (i < leftRows.length && j < rightRows.length) {
+      int cmp = left.compare(leftRows[i], right, rightRows[j]);
+      if (cmp < 0) {
+        i++;
+      } else if (cmp > 0) {
+        j++;
+      } else {
+        int leftEnd = i + 1;
+        while (leftEnd < leftRows.length && left.equals(leftRows[leftEnd], left, leftRows[i])) {
+          leftEnd++;
+        }
+        int rightEnd = j + 1;
+        while (rightEnd < rightRows.length && right.equals(rightRows[rightEnd], right, rightRows[j])) {
+          rightEnd++;
+        }
+        for (int l = i; l < leftEnd; l++) {
+          leftMatched.set(leftRows[l]);
+          if (!type.isLeftOnly()) {
+            for (int r = j; r < rightEnd; r++) {
+              pairs.add(leftRows[l], rightRows[r]);
+            }
+          }
+        }
+        for (int r = j; r < rightEnd; r++) {
+          rightMatched.set(rightRows[r]);
+        }
+        i = leftEnd;
+        j = rightEnd;
+      }
+    }
+    
+    if (type == Join.Type.SEMI) {
+      for (int l = leftMatched.nextSetBit(0); l >= 0; l = leftMatched.nextSetBit(l + 1)) {
+        pairs.add(l, JoinPairs.NONE);
+      }
+    } else if (type == Join.Type.ANTI || type.keepsUnmatchedLeft()) {
+      for (int l = leftMatched.nextClearBit(0); l < left.size(); l = leftMatched.nextClearBit(l + 1)) {
+        pairs.add(l, JoinPairs.NONE);
+      }
+    }
+    if (type.keepsUnmatchedRight()) {
+      for (int r = rightMatched.nextClearBit(0); r < right.size(); r = rightMatched.nextClearBit(r + 1)) {
+        pairs.add(JoinPairs.NONE, r);
+      }
+    }
+    pairs.sort();
+    return pairs;
+  }
+  
+}
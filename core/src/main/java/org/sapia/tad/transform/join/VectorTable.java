@@ -4,23 +4,42 @@ class VectorTable {
   
   enum VectorType {
     LEFT,
-    RIGHT;
+    RIGHT,
+    /**
+     * Corresponds to a join key column: its value is taken from the right vector, or from the 
+     * left one if there is no right vector.
+     */
+    KEY;
   }
 
   private int[]        joinToVectorIndices;
+  private int[]        joinToLeftKeyIndices;
   private VectorType[] vectorTypes;
   
   VectorTable(int[] joinToVectorIndices, VectorType[] vectorTypes) {
-    this.joinToVectorIndices = joinToVectorIndices;
-    this.vectorTypes         = vectorTypes;
+    this(joinToVectorIndices, vectorTypes, joinToVectorIndices);
+  }
+  
+  VectorTable(int[] joinToVectorIndices, VectorType[] vectorTypes, int[] joinToLeftKeyIndices) {
+    this.joinToVectorIndices  = joinToVectorIndices;
+    this.vectorTypes          = vectorTypes;
+    this.joinToLeftKeyIndices = joinToLeftKeyIndices;
   }
  
   int resolveVectorIndex(int index) {
     return joinToVectorIndices[index];
   }
   
+  int resolveLeftKeyIndex(int index) {
+    return joinToLeftKeyIndices[index];
+  }
+  
   VectorType resolveVectorType(int index) {
     return vectorTypes[index];
   }
+  
+  int size() {
+    return vectorTypes.length;
+  }
  
 }
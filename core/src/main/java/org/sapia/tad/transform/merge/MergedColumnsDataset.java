@@ -157,6 +157,16 @@ class MergedColumnsDataset implements Dataset {
     return ref.dataset.getColumn(ref(name).index);
   }
   
+  @Override
+  public NumericColumn getNumericColumn(int colIndex) throws IllegalArgumentException {
+    return ref(colIndex).dataset.getNumericColumn(ref(colIndex).index);
+  }
+  
+  @Override
+  public NumericColumn getNumericColumn(String name) throws IllegalArgumentException {
+    return ref(name).dataset.getNumericColumn(ref(name).index);
+  }
+  
   @Override
   public ColumnSet getColumnSet() {
     return columnSet;
@@ -40,6 +40,7 @@ class MergedRowsDataset implements Dataset {
   private List<Dataset>                 datasets;
   private int                           size;
   private TreeMap<Integer, DatasetInfo> datasetsByOffset = new TreeMap<>();
+  private NumericColumnCache            numericColumns   = new NumericColumnCache(this);
  
   MergedRowsDataset(ColumnSet columns, List<Dataset> datasets) {
     this.columns  = columns;
@@ -56,6 +57,16 @@ class MergedRowsDataset implements Dataset {
     return columns;
   }
   
+  @Override
+  public NumericColumn getNumericColumn(int colIndex) throws IllegalArgumentException {
+    return numericColumns.get(colIndex);
+  }
+  
+  @Override
+  public NumericColumn getNumericColumn(String name) throws IllegalArgumentException {
+    return numericColumns.get(columns.get(name).getIndex());
+  }
+  
   @Override
   public Vector getColumn(int colIndex) throws IllegalArgumentException {
     List<Value> values = new ArrayList<>(size);
@@ -0,0 +1,428 @@
+package org.sapia.tad.transform.pipeline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.RowResult;
+import org.sapia.tad.Vector;
+import org.sapia.tad.algo.Criteria;
+import org.sapia.tad.conf.Conf;
+import org.sapia.tad.help.Doc;
+import org.sapia.tad.help.Hide;
+import org.sapia.tad.impl.DefaultDataset;
+import org.sapia.tad.transform.pipeline.PlanStep.Filter;
+import org.sapia.tad.transform.pipeline.PlanStep.Formulas;
+import org.sapia.tad.transform.pipeline.PlanStep.Limit;
+import org.sapia.tad.transform.pipeline.PlanStep.Project;
+import org.sapia.tad.transform.pipeline.PlanStep.RowOperator;
+import org.sapia.tad.transform.pipeline.PlanStep.RowStep;
+import org.sapia.tad.transform.pipeline.PlanStep.Sort;
+import org.sapia.tad.util.Tuple;
+
+/**
+ * Records transformations over a given {@link Dataset} (filtering, projection, formulas, sorting and slicing),
+ * without executing them: the transformations form a logical plan, which is executed only when a terminal
+ * operation ({@link #collect()} or {@link #count()}) is invoked.
+ * <p>
+ * Prior to execution, the plan is optimized (see {@link PlanOptimizer}): filters and projections are pushed
+ * towards the source. Then, consecutive row-wise steps (filters, projections and formulas) are fused into a
+ * single pass over the rows, and a sort followed by a slice is executed by keeping only the top rows, in a
+ * bounded heap. A slice that does not follow a sort stops the pass that it ends as soon as it is filled.
+ * <p>
+ * Usage:
+ * <pre>
+ * Dataset result = DatasetPipeline.from(dataset)
+ *     .select("salary &gt;= 1000")
+ *     .include("name", "salary")
+ *     .desc("salary")
+ *     .head(10)
+ *     .collect();
+ * </pre>
+ * The result of a pipeline is the same as the one obtained by applying the corresponding transformations
+ * (see {@link org.sapia.tad.transform.filter.Filters}, {@link org.sapia.tad.transform.view.Views},
+ * {@link org.sapia.tad.transform.formula.Formulas}, {@link org.sapia.tad.transform.sort.Sorts} and
+ * {@link org.sapia.tad.transform.slice.Slices}) one after the other.
+ *
+ * @author yduchesne
+ *
+ */
+@Doc("A lazy pipeline of transformations over a dataset, which is optimized and executed in as few passes as possible")
+public class DatasetPipeline {
+
+  private Dataset        source;
+  private ColumnSet      columns;
+  private List<PlanStep> steps = new ArrayList<>();
+
+  private DatasetPipeline(Dataset source) {
+    this.source  = source;
+    this.columns = source.getColumnSet();
+  }
+
+  /**
+   * @param source the {@link Dataset} over which to create a pipeline.
+   * @return a new {@link DatasetPipeline}.
+   */
+  @Doc("Creates a pipeline over the given dataset")
+  public static DatasetPipeline from(@Doc("a dataset") Dataset source) {
+    return new DatasetPipeline(source);
+  }
+
+  /**
+   * @param expression the MVEL expression to use as criteria.
+   * @return this instance.
+   * @see org.sapia.tad.transform.filter.Filters#select(Dataset, String)
+   */
+  @Hide
+  public DatasetPipeline select(String expression) {
+    return add(new Filter(expression));
+  }
+
+  /**
+   * @param criteria the {@link Criteria} that rows must match.
+   * @return this instance.
+   */
+  @Hide
+  public DatasetPipeline select(Criteria<RowResult> criteria) {
+    return add(new Filter(criteria));
+  }
+
+  /**
+   * @param columnNames the names of the columns to keep.
+   * @return this instance.
+   * @see org.sapia.tad.transform.view.Views#include(Dataset, String...)
+   */
+  @Hide
+  public DatasetPipeline include(String...columnNames) {
+    return include(Arrays.asList(columnNames));
+  }
+
+  /**
+   * @param columnNames the names of the columns to keep.
+   * @return this instance.
+   * @see org.sapia.tad.transform.view.Views#include(Dataset, List)
+   */
+  @Hide
+  public DatasetPipeline include(List<String> columnNames) {
+    return add(new Project(new ArrayList<>(columnNames)));
+  }
+
+  /**
+   * @param columnNames the names of the columns to remove.
+   * @return this instance.
+   */
+  @Hide
+  public DatasetPipeline exclude(String...columnNames) {
+    return add(new Project(columns.excludes(columnNames).getColumnNames()));
+  }
+
+  /**
+   * @param formulas {@link Tuple} instances holding: a) the {@link org.sapia.tad.Datatype} of the formula's result;
+   * b) the column name of the formula; c) the {@link org.sapia.tad.transform.formula.Formula} itself.
+   * @return this instance.
+   * @see org.sapia.tad.transform.formula.Formulas#addFormulas(Dataset, Tuple...)
+   */
+  @Hide
+  public DatasetPipeline addFormulas(Tuple...formulas) {
+    return add(new Formulas(Arrays.asList(formulas)));
+  }
+
+  /**
+   * @param columnNames the names of the columns on which to sort, in ascending order.
+   * @return this instance.
+   * @see org.sapia.tad.transform.sort.Sorts#asc(Dataset, String...)
+   */
+  @Hide
+  public DatasetPipeline asc(String...columnNames) {
+    return add(new Sort(Arrays.asList(columnNames), false));
+  }
+
+  /**
+   * @param columnNames the names of the columns on which to sort, in descending order.
+   * @return this instance.
+   * @see org.sapia.tad.transform.sort.Sorts#desc(Dataset, String...)
+   */
+  @Hide
+  public DatasetPipeline desc(String...columnNames) {
+    return add(new Sort(Arrays.asList(columnNames), true));
+  }
+
+  /**
+   * @param start the row index at which to start slicing (inclusive).
+   * @param end the row index at which to stop slicing (exclusive).
+   * @return this instance.
+   * @see org.sapia.tad.transform.slice.Slices#slice(Dataset, int, int)
+   */
+  @Hide
+  public DatasetPipeline slice(int start, int end) {
+    return add(new Limit(start, end));
+  }
+
+  /**
+   * @param length the number of rows to keep, from the top.
+   * @return this instance.
+   */
+  @Hide
+  public DatasetPipeline head(int length) {
+    return slice(0, length);
+  }
+
+  /**
+   * Keeps the configured number of rows, from the top.
+   *
+   * @return this instance.
+   * @see org.sapia.tad.transform.slice.Slices#head(Dataset)
+   */
+  @Hide
+  public DatasetPipeline head() {
+    return head(Conf.getHeadLength());
+  }
+
+  /**
+   * @return the {@link ColumnSet} of the datasets that this instance produces.
+   */
+  @Hide
+  public ColumnSet getColumnSet() {
+    return columns;
+  }
+
+  /**
+   * Executes this pipeline.
+   *
+   * @return a new {@link Dataset}, holding the result of this pipeline's transformations.
+   */
+  @Hide
+  public Dataset collect() {
+    List<PlanStep>    plan      = PlanOptimizer.optimize(source.getColumnSet(), steps);
+    ColumnSet         current   = source.getColumnSet();
+    Iterable<Vector>  input     = source;
+    List<RowOperator> operators = new ArrayList<>();
+    for (int i = 0; i < plan.size(); i++) {
+      PlanStep step = plan.get(i);
+      if (step instanceof RowStep) {
+        operators.add(((RowStep) step).bind(current));
+      } else if (step instanceof Limit) {
+        input = run(input, operators, new SliceSink((Limit) step));
+        operators.clear();
+      } else if (step instanceof Sort) {
+        Comparator<Vector> comparator = ((Sort) step).comparator(current);
+        RowSink            sink;
+        if (i + 1 < plan.size() && plan.get(i + 1) instanceof Limit) {
+          sink = new TopSink(comparator, (Limit) plan.get(++i));
+        } else {
+          sink = new SortSink(comparator);
+        }
+        input = run(input, operators, sink);
+        operators.clear();
+      }
+      current = step.getOutputColumns(current);
+    }
+    List<Vector> rows = run(input, operators, new SliceSink(new Limit(0, Integer.MAX_VALUE)));
+    return new DefaultDataset(current, rows);
+  }
+
+  /**
+   * Executes this pipeline.
+   *
+   * @return the number of rows resulting from this pipeline's transformations.
+   */
+  @Hide
+  public int count() {
+    return collect().size();
+  }
+
+  /**
+   * @return a description of the optimized plan of this instance, showing how it will be executed: each
+   * pass over the rows is enclosed in brackets.
+   */
+  @Hide
+  public String explain() {
+    List<PlanStep> plan  = PlanOptimizer.optimize(source.getColumnSet(), steps);
+    StringBuilder  s     = new StringBuilder("scan");
+    List<String>   fused = new ArrayList<>();
+    for (int i = 0; i < plan.size(); i++) {
+      PlanStep step = plan.get(i);
+      fused.add(step.toString());
+      if (step instanceof Sort && i + 1 < plan.size() && plan.get(i + 1) instanceof Limit) {
+        fused.set(fused.size() - 1, "top(" + step + ", " + plan.get(++i) + ")");
+      }
+      if (!(step instanceof RowStep)) {
+        s.append(" -> [").append(String.join(" -> ", fused)).append("]");
+        fused.clear();
+      }
+    }
+    if (!fused.isEmpty()) {
+      s.append(" -> [").append(String.join(" -> ", fused)).append("]");
+    }
+    return s.toString();
+  }
+
+  @Override
+  public String toString() {
+    return explain();
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  private DatasetPipeline add(PlanStep step) {
+    columns = step.getOutputColumns(columns);
+    steps.add(step);
+    return this;
+  }
+
+  // applies the given operators to each input row, in a single pass, feeding the result to the given sink.
+  private static List<Vector> run(Iterable<Vector> input, List<RowOperator> operators, RowSink sink) {
+    RowOperator[] ops = operators.toArray(new RowOperator[operators.size()]);
+    for (Vector row : input) {
+      Vector result = row;
+      for (int i = 0; i < ops.length && result != null; i++) {
+        result = ops[i].apply(result);
+      }
+      if (result != null && !sink.add(result)) {
+        break;
+      }
+    }
+    return sink.getRows();
+  }
+
+  // ==========================================================================
+
+  /**
+   * Receives the rows resulting from a pass.
+   */
+  private interface RowSink {
+
+    /**
+     * @param row a row {@link Vector}.
+     * @return <code>false</code> if no more rows are needed.
+     */
+    boolean add(Vector row);
+
+    /**
+     * @return the rows that this instance holds.
+     */
+    List<Vector> getRows();
+  }
+
+  // --------------------------------------------------------------------------
+
+  private static class SliceSink implements RowSink {
+
+    private Limit        limit;
+    private List<Vector> rows = new ArrayList<>();
+    private int          count;
+
+    private SliceSink(Limit limit) {
+      this.limit = limit;
+    }
+
+    @Override
+    public boolean add(Vector row) {
+      if (count >= limit.getStart() && count < limit.getEnd()) {
+        rows.add(row);
+      }
+      count++;
+      return count < limit.getEnd();
+    }
+
+    @Override
+    public List<Vector> getRows() {
+      return rows;
+    }
+  }
+
+  // --------------------------------------------------------------------------
+
+  private static class SortSink implements RowSink {
+
+    private Comparator<Vector> comparator;
+    private List<Vector>       rows = new ArrayList<>();
+
+    private SortSink(Comparator<Vector> comparator) {
+      this.comparator = comparator;
+    }
+
+    @Override
+    public boolean add(Vector row) {
+      rows.add(row);
+      return true;
+    }
+
+    @Override
+    public List<Vector> getRows() {
+      Collections.sort(rows, comparator);
+      return rows;
+    }
+  }
+
+  // --------------------------------------------------------------------------
+
+  /**
+   * Keeps the first rows (in sort order) in a bounded heap, whose top is the greatest of these rows.
+   * Rows that compare equal are kept in order of arrival, as with a stable sort.
+   */
+  private static class TopSink implements RowSink {
+
+    private Limit                 limit;
+    private Comparator<Ranked>    order;
+    private PriorityQueue<Ranked> heap;
+    private long                  sequence;
+
+    private TopSink(final Comparator<Vector> comparator, Limit limit) {
+      this.limit = limit;
+      this.order = new Comparator<Ranked>() {
+        @Override
+        public int compare(Ranked r1, Ranked r2) {
+          int cmp = comparator.compare(r1.row, r2.row);
+          return cmp != 0 ? cmp : Long.compare(r1.sequence, r2.sequence);
+        }
+      };
+      this.heap = new PriorityQueue<>(Math.max(1, Math.min(limit.getEnd(), 1024)), Collections.reverseOrder(order));
+    }
+
+    @Override
+    public boolean add(Vector row) {
+      if (limit.getEnd() == 0) {
+        return false;
+      }
+      Ranked ranked = new Ranked(row, sequence++);
+      if (heap.size() < limit.getEnd()) {
+        heap.add(ranked);
+      } else if (order.compare(ranked, heap.peek()) < 0) {
+        heap.poll();
+        heap.add(ranked);
+      }
+      return true;
+    }
+
+    @Override
+    public List<Vector> getRows() {
+      List<Ranked> ranked = new ArrayList<>(heap);
+      Collections.sort(ranked, order);
+      List<Vector> rows = new ArrayList<>(Math.max(0, ranked.size() - limit.getStart()));
+      for (int i = limit.getStart(); i < ranked.size(); i++) {
+        rows.add(ranked.get(i).row);
+      }
+      return rows;
+    }
+  }
+
+  // --------------------------------------------------------------------------
+
+  private static class Ranked {
+
+    private Vector row;
+    private long   sequence;
+
+    private Ranked(Vector row, long sequence) {
+      this.row      = row;
+      this.sequence = sequence;
+    }
+  }
+}
@@ -0,0 +1,106 @@
+package org.sapia.tad.transform.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.transform.pipeline.PlanStep.Filter;
+import org.sapia.tad.transform.pipeline.PlanStep.Formulas;
+import org.sapia.tad.transform.pipeline.PlanStep.Limit;
+import org.sapia.tad.transform.pipeline.PlanStep.Project;
+import org.sapia.tad.transform.pipeline.PlanStep.Sort;
+
+/**
+ * Rewrites the logical plan of a {@link DatasetPipeline}, by applying the following rules to pairs
+ * of consecutive steps, until no rule applies:
+ * <ul>
+ *   <li>predicate pushdown: filters are moved before sorts, and filter expressions are moved before
+ *   projections that keep the columns they refer to, and before formulas whose columns they do not refer to;
+ *   <li>projection pushdown: projections are moved before sorts whose columns they keep, and formulas
+ *   whose columns are projected out are removed;
+ *   <li>consecutive slices are merged, and so are consecutive projections, when the second one keeps a
+ *   subset of the columns that the first one keeps.
+ * </ul>
+ * Moving filters towards the source reduces the number of rows that subsequent steps process; moving
+ * projections towards the source reduces the number of values that are copied.
+ *
+ * @author yduchesne
+ *
+ */
+final class PlanOptimizer {
+
+  private PlanOptimizer() {
+  }
+
+  /**
+   * @param source the {@link ColumnSet} of the pipeline's source.
+   * @param steps the steps of the logical plan to optimize.
+   * @return the optimized plan.
+   */
+  static List<PlanStep> optimize(ColumnSet source, List<PlanStep> steps) {
+    List<PlanStep> plan    = new ArrayList<>(steps);
+    boolean        changed = true;
+    while (changed) {
+      changed = false;
+      ColumnSet input = source;
+      for (int i = 0; i + 1 < plan.size() && !changed; i++) {
+        List<PlanStep> rewritten = rewrite(plan.get(i), plan.get(i + 1), input);
+        if (rewritten != null) {
+          plan.remove(i + 1);
+          plan.remove(i);
+          plan.addAll(i, rewritten);
+          changed = true;
+        } else {
+          input = plan.get(i).getOutputColumns(input);
+        }
+      }
+    }
+    return plan;
+  }
+
+  // returns null if no rule applies.
+  private static List<PlanStep> rewrite(PlanStep first, PlanStep second, ColumnSet input) {
+    if (first instanceof Limit && second instanceof Limit) {
+      return Collections.<PlanStep>singletonList(((Limit) first).merge((Limit) second));
+
+    } else if (first instanceof Project && second instanceof Project) {
+      if (((Project) first).getNames().containsAll(((Project) second).getNames())) {
+        return Collections.singletonList(second);
+      }
+
+    } else if (first instanceof Sort && second instanceof Filter) {
+      return swap(first, second);
+
+    } else if (first instanceof Project && second instanceof Filter && ((Filter) second).isExpression()) {
+      if (((Project) first).getNames().containsAll(((Filter) second).getReferencedColumns(input))) {
+        return swap(first, second);
+      }
+
+    } else if (first instanceof Formulas && second instanceof Filter && ((Filter) second).isExpression()) {
+      Formulas formulas = (Formulas) first;
+      Filter   filter   = (Filter) second;
+      if (Collections.disjoint(filter.getReferencedColumns(formulas.getOutputColumns(input)), formulas.getNames())) {
+        return swap(first, second);
+      }
+
+    } else if (first instanceof Formulas && second instanceof Project) {
+      if (Collections.disjoint(((Project) second).getNames(), ((Formulas) first).getNames())) {
+        return Collections.singletonList(second);
+      }
+
+    } else if (first instanceof Sort && second instanceof Project) {
+      if (((Project) second).getNames().containsAll(((Sort) first).getNames())) {
+        return swap(first, second);
+      }
+    }
+    return null;
+  }
+
+  private static List<PlanStep> swap(PlanStep first, PlanStep second) {
+    List<PlanStep> swapped = new ArrayList<>(2);
+    swapped.add(second);
+    swapped.add(first);
+    return swapped;
+  }
+}
@@ -0,0 +1,348 @@
+package org.sapia.tad.transform.pipeline;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.mvel2.MVEL;
+import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.RowResult;
+import org.sapia.tad.Vector;
+import org.sapia.tad.algo.Criteria;
+import org.sapia.tad.algo.ReverseComparator;
+import org.sapia.tad.impl.DefaultColumn;
+import org.sapia.tad.impl.DefaultColumnSet;
+import org.sapia.tad.impl.DefaultRowResult;
+import org.sapia.tad.impl.DefaultVector;
+import org.sapia.tad.transform.expression.Expressions;
+import org.sapia.tad.transform.formula.Formula;
+import org.sapia.tad.transform.sort.VectorComparator;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.util.Tuple;
+import org.sapia.tad.value.Value;
+
+/**
+ * Models a step of the logical plan of a {@link DatasetPipeline}. Each step transforms rows having a given
+ * {@link ColumnSet} (its input columns) into rows having another one (its output columns).
+ * <p>
+ * Row-wise steps (filters, projections and formulas) are {@link RowStep}s: they can be fused, that is:
+ * applied one after the other to each row, in a single pass over the data.
+ *
+ * @author yduchesne
+ *
+ */
+abstract class PlanStep {
+
+  /**
+   * @param input the input {@link ColumnSet} of this step.
+   * @return the output {@link ColumnSet} of this step.
+   * @throws IllegalArgumentException if this step refers to columns that are not part of the given ones.
+   */
+  abstract ColumnSet getOutputColumns(ColumnSet input) throws IllegalArgumentException;
+
+  // ==========================================================================
+
+  /**
+   * Specifies the behavior of row-wise steps.
+   */
+  static abstract class RowStep extends PlanStep {
+
+    /**
+     * @param input the input {@link ColumnSet} of this step.
+     * @return a new {@link RowOperator}, applying this step to rows having the given columns.
+     */
+    abstract RowOperator bind(ColumnSet input);
+  }
+
+  /**
+   * Applies a row-wise step to a given row: an instance of this interface is not thread-safe.
+   */
+  interface RowOperator {
+
+    /**
+     * @param row a row {@link Vector}.
+     * @return the resulting row, or <code>null</code> if the given row is filtered out.
+     */
+    Vector apply(Vector row);
+  }
+
+  // ==========================================================================
+
+  /**
+   * Filters rows, based either on a MVEL expression, or on {@link Criteria}.
+   */
+  static class Filter extends RowStep {
+
+    private String              expression;
+    private Criteria<RowResult> criteria;
+
+    Filter(String expression) {
+      // validating the syntax upfront: the expression is compiled against the input columns when bound
+      MVEL.compileExpression(expression);
+      this.expression = expression;
+    }
+
+    Filter(Criteria<RowResult> criteria) {
+      this.criteria = criteria;
+    }
+
+    /**
+     * @return <code>true</code> if this instance's predicate is an expression, which refers to columns by name
+     * only (it may then be moved across steps that do not change the columns to which it refers).
+     */
+    boolean isExpression() {
+      return expression != null;
+    }
+
+    /**
+     * @param columns a {@link ColumnSet}.
+     * @return the names of the given columns that this instance's expression refers to (all column names,
+     * if this instance does not correspond to an expression).
+     */
+    Set<String> getReferencedColumns(ColumnSet columns) {
+      Set<String> referenced = new LinkedHashSet<>();
+      for (String name : columns.getColumnNames()) {
+        if (expression == null || Pattern.compile("(?<![\\w$.])" + Pattern.quote(name) + "(?![\\w$])").matcher(expression).find()) {
+          referenced.add(name);
+        }
+      }
+      return referenced;
+    }
+
+    @Override
+    ColumnSet getOutputColumns(ColumnSet input) {
+      return input;
+    }
+
+    @Override
+    RowOperator bind(ColumnSet input) {
+      final Criteria<RowResult> predicate;
+      if (criteria != null) {
+        predicate = criteria;
+      } else if (Expressions.isCompilable(input, expression)) {
+        predicate = Expressions.criteria(input, expression);
+      } else {
+        // only binding the columns that the expression refers to, when evaluating it with MVEL
+        predicate = Expressions.criteria(input.includes(new ArrayList<>(getReferencedColumns(input))), expression);
+      }
+      final DefaultRowResult result = new DefaultRowResult(input);
+      return new RowOperator() {
+        @Override
+        public Vector apply(Vector row) {
+          result.setVector(row);
+          return predicate.matches(result) ? row : null;
+        }
+      };
+    }
+
+    @Override
+    public String toString() {
+      return "filter(" + (expression != null ? expression : criteria) + ")";
+    }
+  }
+
+  // --------------------------------------------------------------------------
+
+  /**
+   * Keeps the given columns, in the given order.
+   */
+  static class Project extends RowStep {
+
+    private List<String> names;
+
+    Project(List<String> names) {
+      Checks.isFalse(names.isEmpty(), "At least one column must be specified");
+      this.names = names;
+    }
+
+    /**
+     * @return the names of the columns that this instance keeps.
+     */
+    List<String> getNames() {
+      return names;
+    }
+
+    @Override
+    ColumnSet getOutputColumns(ColumnSet input) {
+      return input.includes(names).detach();
+    }
+
+    @Override
+    RowOperator bind(ColumnSet input) {
+      final int[] indices = input.getColumnIndices(names.toArray(new String[names.size()]));
+      return new RowOperator() {
+        @Override
+        public Vector apply(Vector row) {
+          Value[] values = new Value[indices.length];
+          for (int i = 0; i < indices.length; i++) {
+            values[i] = row.get(indices[i]);
+          }
+          return new DefaultVector(values);
+        }
+      };
+    }
+
+    @Override
+    public String toString() {
+      return "project(" + String.join(", ", names) + ")";
+    }
+  }
+
+  // --------------------------------------------------------------------------
+
+  /**
+   * Adds formula columns.
+   */
+  static class Formulas extends RowStep {
+
+    private List<Tuple> formulas;
+
+    Formulas(List<Tuple> formulas) {
+      this.formulas = formulas;
+    }
+
+    /**
+     * @return the names of the columns that this instance adds.
+     */
+    List<String> getNames() {
+      List<String> names = new ArrayList<>(formulas.size());
+      for (Tuple f : formulas) {
+        names.add(f.getNotNull(String.class));
+      }
+      return names;
+    }
+
+    @Override
+    ColumnSet getOutputColumns(ColumnSet input) {
+      List<Column> columns = new ArrayList<>(input.getColumns());
+      for (int i = 0; i < formulas.size(); i++) {
+        Tuple f = formulas.get(i);
+        columns.add(new DefaultColumn(input.size() + i, f.getNotNull(Datatype.class), f.getNotNull(String.class)));
+      }
+      return new DefaultColumnSet(columns);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    RowOperator bind(ColumnSet input) {
+      final DefaultRowResult         result    = new DefaultRowResult(input);
+      final List<Formula<RowResult>> functions = new ArrayList<>(formulas.size());
+      for (Tuple f : formulas) {
+        functions.add((Formula<RowResult>) f.get(Formula.class));
+      }
+      return new RowOperator() {
+        @Override
+        public Vector apply(Vector row) {
+          result.setVector(row);
+          Value[] values = Arrays.copyOf(row.toArray(), row.size() + functions.size());
+          for (int i = 0; i < functions.size(); i++) {
+            values[row.size() + i] = functions.get(i).call(result);
+          }
+          return new DefaultVector(values);
+        }
+      };
+    }
+
+    @Override
+    public String toString() {
+      return "formulas(" + String.join(", ", getNames()) + ")";
+    }
+  }
+
+  // --------------------------------------------------------------------------
+
+  /**
+   * Sorts rows on given columns.
+   */
+  static class Sort extends PlanStep {
+
+    private List<String> names;
+    private boolean      descending;
+
+    Sort(List<String> names, boolean descending) {
+      Checks.isFalse(names.isEmpty(), "At least one column must be specified");
+      this.names      = names;
+      this.descending = descending;
+    }
+
+    /**
+     * @return the names of the columns on which this instance sorts.
+     */
+    List<String> getNames() {
+      return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * @param input the input {@link ColumnSet} of this step.
+     * @return the comparator to use to sort rows having the given columns.
+     */
+    Comparator<Vector> comparator(ColumnSet input) {
+      VectorComparator comparator = new VectorComparator(input.includes(names));
+      if (descending) {
+        return new ReverseComparator<>(comparator);
+      }
+      return comparator;
+    }
+
+    @Override
+    ColumnSet getOutputColumns(ColumnSet input) {
+      input.includes(names);
+      return input;
+    }
+
+    @Override
+    public String toString() {
+      return (descending ? "desc(" : "asc(") + String.join(", ", names) + ")";
+    }
+  }
+
+  // --------------------------------------------------------------------------
+
+  /**
+   * Keeps a slice of the rows.
+   */
+  static class Limit extends PlanStep {
+
+    private int start, end;
+
+    Limit(int start, int end) {
+      Checks.isTrue(end >= start, "End index must be greater than or equal to start index");
+      this.start = Math.max(0, start);
+      this.end   = Math.max(0, end);
+    }
+
+    int getStart() {
+      return start;
+    }
+
+    int getEnd() {
+      return end;
+    }
+
+    /**
+     * @param next a {@link Limit} applied to the output of this instance.
+     * @return a new {@link Limit}, equivalent to this instance followed by the given one.
+     */
+    Limit merge(Limit next) {
+      int newEnd = Math.min(end, start + next.end);
+      return new Limit(Math.min(start + next.start, newEnd), newEnd);
+    }
+
+    @Override
+    ColumnSet getOutputColumns(ColumnSet input) {
+      return input;
+    }
+
+    @Override
+    public String toString() {
+      return "slice(" + start + ", " + end + ")";
+    }
+  }
+}
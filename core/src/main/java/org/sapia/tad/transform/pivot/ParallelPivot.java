@@ -0,0 +1,173 @@
+package org.sapia.tad.transform.pivot;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeoutException;
+
+import org.sapia.tad.Dataset;
+import org.sapia.tad.concurrent.ConcurrencyException;
+import org.sapia.tad.concurrent.ThreadInterruptedException;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.util.Time;
+
+/**
+ * Computes {@link PivotTable}s, and merges them, using a {@link ForkJoinPool}.
+ * <p>
+ * If the number of rows to pivot is greater than the threshold that is passed to an instance of this
+ * class, the rows are split into ranges (each holding at least half that threshold), which are accumulated
+ * concurrently into distinct tables: the tables of adjacent ranges are then merged. Otherwise, the rows
+ * are accumulated by the calling thread. Tables are merged pairwise, concurrently.
+ *
+ * @author yduchesne
+ *
+ */
+class ParallelPivot {
+
+  private ForkJoinPool pool;
+  private Time         timeout;
+  private int          threshold;
+
+  /**
+   * @param pool the {@link ForkJoinPool} to use.
+   * @param timeout the {@link Time} to wait until a computation completes - a {@link ConcurrencyException}
+   * is thrown if the computation could not complete within the allowed time.
+   * @param threshold the number of rows above which the rows should be partitioned.
+   */
+  ParallelPivot(ForkJoinPool pool, Time timeout, int threshold) {
+    Checks.isTrue(threshold > 1, "Threshold must be greater than 1");
+    this.pool      = pool;
+    this.timeout   = timeout;
+    this.threshold = threshold;
+  }
+
+  /**
+   * @param dataset the {@link Dataset} to pivot.
+   * @param prototype an empty {@link PivotTable}, specifying the dimensions, summary column and function of the pivot.
+   * @return the {@link PivotTable} holding the cells of the pivot.
+   */
+  PivotTable pivot(Dataset dataset, PivotTable prototype) {
+    int size = dataset.size();
+    if (size <= threshold) {
+      return accumulate(dataset, prototype, 0, size);
+    }
+    int partitionSize = Math.max(threshold / 2, size / (pool.getParallelism() * 4) + 1);
+    return await(new RangeTask(dataset, prototype, 0, size, partitionSize), "pivot");
+  }
+
+  /**
+   * @param tables the {@link PivotTable}s to merge (these are not modified).
+   * @return a new {@link PivotTable}, holding the merged cells of the given tables.
+   * @throws IllegalArgumentException if the given tables do not have the same dimensions, summary column
+   * and function.
+   */
+  PivotTable merge(List<PivotTable> tables) throws IllegalArgumentException {
+    Checks.isFalse(tables.isEmpty(), "No pivot tables specified: one must at least be provided");
+    for (PivotTable t : tables) {
+      tables.get(0).checkMergeable(t);
+    }
+    return await(new MergeTask(tables, 0, tables.size()), "merge");
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  private PivotTable await(ForkJoinTask<PivotTable> toSubmit, String operation) {
+    ForkJoinTask<PivotTable> task = pool.submit(toSubmit);
+    try {
+      return task.get(timeout.getValue(), timeout.getUnit());
+    } catch (InterruptedException e) {
+      task.cancel(true);
+      throw new ThreadInterruptedException(e);
+    } catch (ExecutionException e) {
+      throw new ConcurrencyException("Error occured awaiting " + operation + " result", e);
+    } catch (TimeoutException e) {
+      task.cancel(true);
+      throw new ConcurrencyException("Timeout awaiting " + operation + " result", e);
+    }
+  }
+
+  private static PivotTable accumulate(Dataset dataset, PivotTable prototype, int start, int end) {
+    PivotTable table = prototype.newTable();
+    for (int r = start; r < end; r++) {
+      table.accumulate(dataset.getRow(r));
+    }
+    return table;
+  }
+
+  // ==========================================================================
+
+  /**
+   * Recursively splits a row range in two halves, until a range is not greater than the partition size.
+   */
+  private static class RangeTask extends RecursiveTask<PivotTable> {
+
+    private static final long serialVersionUID = 1L;
+
+    private Dataset    dataset;
+    private PivotTable prototype;
+    private int        start, end, partitionSize;
+
+    private RangeTask(Dataset dataset, PivotTable prototype, int start, int end, int partitionSize) {
+      this.dataset       = dataset;
+      this.prototype     = prototype;
+      this.start         = start;
+      this.end           = end;
+      this.partitionSize = partitionSize;
+    }
+
+    @Override
+    protected PivotTable compute() {
+      if (end - start <= partitionSize) {
+        return accumulate(dataset, prototype, start, end);
+      }
+      int       middle = start + (end - start) / 2;
+      RangeTask left   = new RangeTask(dataset, prototype, start, middle, partitionSize);
+      RangeTask right  = new RangeTask(dataset, prototype, middle, end, partitionSize);
+      right.fork();
+      PivotTable leftTable  = left.compute();
+      PivotTable rightTable = right.join();
+      leftTable.merge(rightTable);
+      return leftTable;
+    }
+  }
+
+  // --------------------------------------------------------------------------
+
+  /**
+   * Recursively splits a list of tables in two halves, merging the tables of each half into a new table.
+   */
+  private static class MergeTask extends RecursiveTask<PivotTable> {
+
+    private static final long serialVersionUID = 1L;
+
+    private List<PivotTable> tables;
+    private int              start, end;
+
+    private MergeTask(List<PivotTable> tables, int start, int end) {
+      this.tables = tables;
+      this.start  = start;
+      this.end    = end;
+    }
+
+    @Override
+    protected PivotTable compute() {
+      if (end - start == 1) {
+        // copying the table, so that it is not modified by subsequent merges
+        PivotTable copy = tables.get(start).newTable();
+        copy.merge(tables.get(start));
+        return copy;
+      }
+      int       middle = start + (end - start) / 2;
+      MergeTask left   = new MergeTask(tables, start, middle);
+      MergeTask right  = new MergeTask(tables, middle, end);
+      right.fork();
+      PivotTable leftTable  = left.compute();
+      PivotTable rightTable = right.join();
+      leftTable.merge(rightTable);
+      return leftTable;
+    }
+  }
+}
@@ -16,8 +16,18 @@ import java.util.*;
 
 class PivotDataset extends IndexDatasetAdapter {
   
-  PivotDataset(Index index) {
-    super(index);
+  private PivotTable pivotTable;
+  
+  PivotDataset(PivotTable pivotTable) {
+    super(pivotTable.toIndex());
+    this.pivotTable = pivotTable;
+  }
+  
+  /**
+   * @return the {@link PivotTable} holding the cells of this pivot.
+   */
+  PivotTable getTable() {
+    return pivotTable;
   }
   
   @Override
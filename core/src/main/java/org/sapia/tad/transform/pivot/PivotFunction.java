@@ -0,0 +1,33 @@
+package org.sapia.tad.transform.pivot;
+
+import org.sapia.tad.help.Doc;
+
+/**
+ * Enumerates the functions that may be used to aggregate the values of the fact column, in each cell
+ * of a pivot. Null values are ignored: a cell that has no values holds a null value (or 0, in the case
+ * of counts).
+ *
+ * @see Pivots
+ *
+ * @author yduchesne
+ *
+ */
+@Doc("The functions that may be used to aggregate the values of each cell of a pivot")
+public enum PivotFunction {
+
+  SUM, COUNT, MEAN, MIN, MAX, DISTINCT_COUNT;
+
+  /**
+   * @return <code>true</code> if this function applies to numeric values only.
+   */
+  public boolean isNumeric() {
+    return this != COUNT && this != DISTINCT_COUNT;
+  }
+
+  /**
+   * @return <code>true</code> if this function's result is a number of values.
+   */
+  public boolean isCount() {
+    return this == COUNT || this == DISTINCT_COUNT;
+  }
+}
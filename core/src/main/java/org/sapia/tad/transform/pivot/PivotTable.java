@@ -0,0 +1,335 @@
+package org.sapia.tad.transform.pivot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.Index;
+import org.sapia.tad.Vector;
+import org.sapia.tad.VectorKey;
+import org.sapia.tad.impl.DefaultColumn;
+import org.sapia.tad.impl.DefaultColumnSet;
+import org.sapia.tad.impl.DefaultIndex;
+import org.sapia.tad.impl.DefaultRowSet;
+import org.sapia.tad.impl.DefaultVector;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.NumericValue;
+import org.sapia.tad.value.StringValue;
+import org.sapia.tad.value.Value;
+
+/**
+ * Holds the cells of a pivot, in a dense matrix: the rows of the matrix correspond to the distinct
+ * values of the dimension columns (except the last one, which is the fact column), and its columns to
+ * the distinct values of the summary column.
+ * <p>
+ * Each cell holds the state of the {@link PivotFunction} applied to the values of the fact column: the
+ * number of values that were accumulated, and their running sum, minimum or maximum. The states of each
+ * column of the matrix are held in two arrays of <code>double</code>s, indexed by row. The values counted
+ * by {@link PivotFunction#DISTINCT_COUNT} are additionally kept in a set, per cell.
+ * <p>
+ * The cells of a table that was computed from other rows (with the same dimensions, summary column and
+ * function) can be merged into another table's cells: see {@link #merge(PivotTable)}.
+ *
+ * @author yduchesne
+ *
+ */
+class PivotTable {
+
+  static final String FACT_COLUMN_NAME = "fact_column";
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private ColumnSet               keyColumns;
+  private Column                  summaryColumn;
+  private String                  factColumnName;
+  private int                     factColumnIndex;
+  private PivotFunction           function;
+  private Map<VectorKey, Integer> rowIndices    = new HashMap<>();
+  private List<VectorKey>         rowKeys       = new ArrayList<>();
+  private Map<Value, Integer>     columnIndices = new HashMap<>();
+  private List<Value>             columnValues  = new ArrayList<>();
+  private List<double[]>          counts        = new ArrayList<>();
+  private List<double[]>          states        = new ArrayList<>();
+  private Map<Long, Set<Value>>   distinct      = new HashMap<>();
+  private int                     rowCapacity   = INITIAL_CAPACITY;
+
+  /**
+   * @param input the {@link ColumnSet} of the rows to pivot.
+   * @param summaryColumnName the name of the summary column, whose distinct values become columns.
+   * @param dimensionColumnNames the names of the dimension columns: the last one is the fact column, whose
+   * values are aggregated in each cell.
+   * @param function the {@link PivotFunction} to apply to the values of each cell.
+   */
+  PivotTable(ColumnSet input, String summaryColumnName, String[] dimensionColumnNames, PivotFunction function) {
+    Checks.isTrue(dimensionColumnNames.length > 0, "At least one dimension column must be specified");
+    Checks.notNull(function, "Pivot function cannot be null");
+    Column factColumn = input.get(dimensionColumnNames[dimensionColumnNames.length - 1]);
+    Checks.isTrue(!function.isNumeric() || factColumn.getType() == Datatype.NUMERIC,
+        "Cannot compute %s over column %s: column is of type %s, expected %s",
+        function, factColumn.getName(), factColumn.getType(), Datatype.NUMERIC);
+    this.keyColumns      = input.includes(Arrays.copyOf(dimensionColumnNames, dimensionColumnNames.length - 1));
+    this.summaryColumn   = input.get(summaryColumnName);
+    this.factColumnName  = factColumn.getName();
+    this.factColumnIndex = factColumn.getIndex();
+    this.function        = function;
+  }
+
+  private PivotTable(PivotTable prototype) {
+    this.keyColumns      = prototype.keyColumns;
+    this.summaryColumn   = prototype.summaryColumn;
+    this.factColumnName  = prototype.factColumnName;
+    this.factColumnIndex = prototype.factColumnIndex;
+    this.function        = prototype.function;
+  }
+
+  /**
+   * @return a new, empty {@link PivotTable}, with the same dimensions, summary column and function as
+   * this instance.
+   */
+  PivotTable newTable() {
+    return new PivotTable(this);
+  }
+
+  /**
+   * @return the number of rows of this table.
+   */
+  int getRowCount() {
+    return rowKeys.size();
+  }
+
+  /**
+   * @return the number of columns of this table (corresponding to the distinct values of the summary column).
+   */
+  int getColumnCount() {
+    return columnValues.size();
+  }
+
+  /**
+   * @param row a row to accumulate into its cell. Rows whose summary value is null are ignored.
+   */
+  void accumulate(Vector row) {
+    Value summaryValue = row.get(summaryColumn.getIndex());
+    if (NullValue.isNull(summaryValue)) {
+      return;
+    }
+    int   r    = row(new VectorKey(keyColumns, row));
+    int   c    = column(summaryValue);
+    Value fact = row.get(factColumnIndex);
+    if (NullValue.isNull(fact)) {
+      return;
+    }
+    double[] cellCounts = counts.get(c);
+    double[] cellStates = states.get(c);
+    switch (function) {
+      case SUM:
+      case MEAN:
+        cellStates[r] += fact.get();
+        break;
+      case MIN:
+        cellStates[r] = cellCounts[r] == 0 ? fact.get() : Math.min(cellStates[r], fact.get());
+        break;
+      case MAX:
+        cellStates[r] = cellCounts[r] == 0 ? fact.get() : Math.max(cellStates[r], fact.get());
+        break;
+      case DISTINCT_COUNT:
+        if (!distinctValues(c, r).add(fact)) {
+          return;
+        }
+        break;
+      default:
+        break;
+    }
+    cellCounts[r]++;
+  }
+
+  /**
+   * Merges the cells of the given table into this instance's cells. Rows and columns that are not in this
+   * table are added to it.
+   *
+   * @param other another {@link PivotTable}.
+   * @throws IllegalArgumentException if the given table does not have the same dimensions, summary column
+   * and function as this instance.
+   */
+  void merge(PivotTable other) throws IllegalArgumentException {
+    checkMergeable(other);
+    int[] rowMapping = new int[other.getRowCount()];
+    for (int r = 0; r < rowMapping.length; r++) {
+      rowMapping[r] = row(other.rowKeys.get(r));
+    }
+    for (int oc = 0; oc < other.getColumnCount(); oc++) {
+      int      c           = column(other.columnValues.get(oc));
+      double[] cellCounts  = counts.get(c);
+      double[] cellStates  = states.get(c);
+      double[] otherCounts = other.counts.get(oc);
+      double[] otherStates = other.states.get(oc);
+      for (int or = 0; or < rowMapping.length; or++) {
+        if (otherCounts[or] == 0) {
+          continue;
+        }
+        int r = rowMapping[or];
+        switch (function) {
+          case SUM:
+          case MEAN:
+            cellStates[r] += otherStates[or];
+            break;
+          case MIN:
+            cellStates[r] = cellCounts[r] == 0 ? otherStates[or] : Math.min(cellStates[r], otherStates[or]);
+            break;
+          case MAX:
+            cellStates[r] = cellCounts[r] == 0 ? otherStates[or] : Math.max(cellStates[r], otherStates[or]);
+            break;
+          case DISTINCT_COUNT:
+            Set<Value> values = distinctValues(c, r);
+            values.addAll(other.distinctValues(oc, or));
+            cellCounts[r] = values.size();
+            continue;
+          default:
+            break;
+        }
+        cellCounts[r] += otherCounts[or];
+      }
+    }
+  }
+
+  /**
+   * @param other another {@link PivotTable}.
+   * @throws IllegalArgumentException if the given table does not have the same dimensions, summary column
+   * and function as this instance.
+   */
+  void checkMergeable(PivotTable other) throws IllegalArgumentException {
+    Checks.isTrue(function == other.function,
+        "Cannot merge pivots computed with different functions: %s and %s", function, other.function);
+    Checks.isTrue(factColumnName.equals(other.factColumnName)
+        && summaryColumn.getName().equals(other.summaryColumn.getName())
+        && keyColumns.getColumnNames().equals(other.keyColumns.getColumnNames()),
+        "Cannot merge pivots with different dimensions");
+  }
+
+  /**
+   * @return a new {@link Index}, holding a row per row of this table, sorted by key. Each row holds the
+   * values of the dimension columns (except the fact column), the name of the fact column, and the result
+   * of each cell - columns being sorted by summary value.
+   */
+  Index toIndex() {
+    List<Column> columns = new ArrayList<>();
+    for (Column k : keyColumns) {
+      columns.add(new DefaultColumn(columns.size(), k.getType(), k.getName()));
+    }
+    columns.add(new DefaultColumn(columns.size(), Datatype.STRING, FACT_COLUMN_NAME));
+
+    List<Integer> sortedColumns = sortedIndices(columnValues.size(), new Comparator<Integer>() {
+      @Override
+      public int compare(Integer c1, Integer c2) {
+        return summaryColumn.getType().strategy().compareTo(columnValues.get(c1), columnValues.get(c2));
+      }
+    });
+    for (int c : sortedColumns) {
+      columns.add(new DefaultColumn(
+          columns.size(),
+          Datatype.NUMERIC,
+          summaryColumn.getFormat().formatValue(summaryColumn.getType(), columnValues.get(c)).trim()
+      ));
+    }
+
+    List<Integer> sortedRows = sortedIndices(rowKeys.size(), new Comparator<Integer>() {
+      @Override
+      public int compare(Integer r1, Integer r2) {
+        return rowKeys.get(r1).compareTo(rowKeys.get(r2));
+      }
+    });
+    StringValue  factName = new StringValue(factColumnName);
+    List<Vector> rows     = new ArrayList<>(rowKeys.size());
+    for (int r : sortedRows) {
+      Value[] values = new Value[columns.size()];
+      int     i      = 0;
+      for (Value v : rowKeys.get(r).getValues()) {
+        values[i++] = v;
+      }
+      values[i++] = factName;
+      for (int c : sortedColumns) {
+        values[i++] = result(c, r);
+      }
+      rows.add(new DefaultVector(values));
+    }
+
+    ColumnSet    columnSet    = new DefaultColumnSet(columns);
+    List<String> indexColumns = new ArrayList<>(keyColumns.getColumnNames());
+    indexColumns.add(FACT_COLUMN_NAME);
+    return new DefaultIndex(new DefaultRowSet(rows), columnSet, columnSet.includes(indexColumns));
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  private Value result(int c, int r) {
+    double count = counts.get(c)[r];
+    if (function.isCount()) {
+      return new NumericValue(count);
+    } else if (count == 0) {
+      return NullValue.getInstance();
+    } else if (function == PivotFunction.MEAN) {
+      return new NumericValue(states.get(c)[r] / count);
+    }
+    return new NumericValue(states.get(c)[r]);
+  }
+
+  // returns the index of the given row, adding it if it does not exist
+  private int row(VectorKey key) {
+    Integer r = rowIndices.get(key);
+    if (r == null) {
+      r = rowKeys.size();
+      rowIndices.put(key, r);
+      rowKeys.add(key);
+      if (r == rowCapacity) {
+        rowCapacity *= 2;
+        for (int c = 0; c < counts.size(); c++) {
+          counts.set(c, Arrays.copyOf(counts.get(c), rowCapacity));
+          states.set(c, Arrays.copyOf(states.get(c), rowCapacity));
+        }
+      }
+    }
+    return r;
+  }
+
+  // returns the index of the column corresponding to the given summary value, adding it if it does not exist
+  private int column(Value summaryValue) {
+    Integer c = columnIndices.get(summaryValue);
+    if (c == null) {
+      c = columnValues.size();
+      columnIndices.put(summaryValue, c);
+      columnValues.add(summaryValue);
+      counts.add(new double[rowCapacity]);
+      states.add(new double[rowCapacity]);
+    }
+    return c;
+  }
+
+  private Set<Value> distinctValues(int c, int r) {
+    Long       cell   = ((long) c << 32) | r;
+    Set<Value> values = distinct.get(cell);
+    if (values == null) {
+      values = new HashSet<>();
+      distinct.put(cell, values);
+    }
+    return values;
+  }
+
+  private static List<Integer> sortedIndices(int size, Comparator<Integer> comparator) {
+    List<Integer> indices = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      indices.add(i);
+    }
+    Collections.sort(indices, comparator);
+    return indices;
+  }
+}
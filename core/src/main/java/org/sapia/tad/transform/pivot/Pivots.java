@@ -1,18 +1,15 @@
 package org.sapia.tad.transform.pivot;
 
-import org.sapia.tad.*;
-import org.sapia.tad.Vector;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.IndexedDataset;
+import org.sapia.tad.concurrent.Threading;
+import org.sapia.tad.conf.Conf;
 import org.sapia.tad.help.Doc;
-import org.sapia.tad.impl.*;
 import org.sapia.tad.util.Checks;
 import org.sapia.tad.util.Data;
-import org.sapia.tad.value.NullValue;
-import org.sapia.tad.value.NumericValue;
-import org.sapia.tad.value.StringValue;
-import org.sapia.tad.value.Value;
 
-import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Given a dataset with the following structure:
@@ -31,7 +28,13 @@ import java.util.concurrent.atomic.AtomicInteger;
  *   ...
  * </pre>
  * 
+ * Pivots are computed in a single pass over the rows of the dataset: each row is accumulated into a cell
+ * of a dense matrix, whose rows correspond to the distinct values of the dimension columns, and whose columns
+ * correspond to the distinct values of the summary column. The values of each cell are aggregated using a
+ * {@link PivotFunction} (sum, by default). If the dataset has more rows than {@link Conf#getParallelRowThreshold()}, 
+ * ranges of rows are accumulated concurrently into distinct matrices, which are then merged.
  * 
+ * @see PivotFunction
  * 
  * @author yduchesne
  *
@@ -42,7 +45,10 @@ public class Pivots {
   }
 
   /**
-   * @param datasets one or more {@link Dataset}s to merge.
+   * Merges the cells of the given pivots, which must have been computed with the same dimension columns,
+   * summary column and {@link PivotFunction} (the pivots are merged concurrently, pairwise).
+   * 
+   * @param datasets one or more pivot {@link Dataset}s to merge (as returned by this class' pivot methods).
    * @return the {@link IndexedDataset} resulting from the merge operation.
    */
   @Doc("Merges one or more pivot datasets")
@@ -51,14 +57,11 @@ public class Pivots {
     if (datasets.size() == 1) {
       return datasets.get(0);
     }
-    PivotDataset toMergeTo = datasets.get(0);
-    List<Index> toMerge = new ArrayList<Index>();
-    
-    for (PivotDataset ds : Data.slice(datasets, 1, datasets.size())) {
-      toMerge.add(ds.getIndex());
+    List<PivotTable> tables = new ArrayList<>(datasets.size());
+    for (PivotDataset ds : datasets) {
+      tables.add(ds.getTable());
     }
-    Index newIndex = toMergeTo.getIndex().mergeWith(toMerge);
-    return new PivotDataset(newIndex);
+    return new PivotDataset(parallelPivot().merge(tables));
   }
   
   /**
@@ -84,6 +87,8 @@ public class Pivots {
   }
 
   /**
+   * Creates a pivot whose cells hold the sum of the values of the fact column.
+   * 
    * @param dataset a {@link Dataset} for which to create a pivot.
    * @param summaryColumnName the name of the column acting as summary column.
    * @param dimensionColumnNames the names of the columns acting as so-called "dimensions", or fact columns.
@@ -93,91 +98,45 @@ public class Pivots {
       @Doc("dataset for which to create a pivot") Dataset dataset, 
       @Doc("summary column name") String summaryColumnName,
       @Doc("dimensions/fact column names") String...dimensionColumnNames) {
-    List<String>   indexColumnNames    = Arrays.asList(dimensionColumnNames);
-    IndexedDataset indexed             = dataset.index(dimensionColumnNames);
-    String         valueColumnName     = dimensionColumnNames[dimensionColumnNames.length - 1];
-    Map<VectorKey, Map<Value, Value>> dimensionValuesBySummaryColumnValues = new TreeMap<>();
-    Set<Value>    summaryColumnValues = new HashSet<>();
-    
-    for (VectorKey key : indexed.getKeys()) {
-      for (Vector row : indexed.getRowset(key)) {
-        Value summaryColumnValue = row.get(indexed.getColumnSet().get(summaryColumnName).getIndex());
-        if (NullValue.isNotNull(summaryColumnValue)) {
-          Map<Value, Value> dimensionValues = dimensionValuesBySummaryColumnValues.get(key);
-          if (dimensionValues == null) {
-            dimensionValues = new HashMap<>();
-            dimensionValuesBySummaryColumnValues.put(key, dimensionValues);
-          }
-          summaryColumnValues.add(summaryColumnValue);
-          Value dimensionColumnValue = row.get(indexed.getColumnSet().get(valueColumnName).getIndex());
-          Value currentValue = dimensionValues.get(summaryColumnValue);
-          if (currentValue == null) {
-            currentValue = NumericValue.zero();
-            dimensionValues.put(summaryColumnValue, currentValue);
-          }
-          currentValue = NumericValue.sum(currentValue, dimensionColumnValue);
-          dimensionValues.put(summaryColumnValue, currentValue);
-        }
-      }
-    }
-    
-    AtomicInteger columnCount = new AtomicInteger();
-    List<Column> columns = new ArrayList<>();
-    for (String dimensionColumnName : dimensionColumnNames) {
-      Column toCopy = indexed.getColumnSet().get(dimensionColumnName);
-      if (dimensionColumnName.equals(dimensionColumnNames[dimensionColumnNames.length -1])) {
-        columns.add(new DefaultColumn(columnCount.getAndIncrement(), Datatype.STRING, "fact_column"));
-      } else {
-        columns.add(new DefaultColumn(columnCount.getAndIncrement(), toCopy.getType(), toCopy.getName()));
-      }
-    }
-    final Column summaryColumn = indexed.getColumnSet().get(summaryColumnName);
-    Map<Value, Column> columnsBySummaryColumnValues = new HashMap<>();
-    List<Value> sortedSummaryColumnValues = new ArrayList<>(summaryColumnValues);
-    Collections.sort(sortedSummaryColumnValues, new Comparator<Value>() {
-      @Override
-      public int compare(Value o1, Value o2) {
-        return summaryColumn.getType().strategy().compareTo(o1, o2);
-      }
-    });
-    for (Value summaryColumnValue : sortedSummaryColumnValues) {
-      Column newColumn = new DefaultColumn(
-          columnCount.getAndIncrement(), 
-          Datatype.NUMERIC, 
-          summaryColumn.getFormat().formatValue(
-              summaryColumn.getType(), 
-              summaryColumnValue
-          ).trim()
-      );
-      columns.add(newColumn);
-      columnsBySummaryColumnValues.put(summaryColumnValue, newColumn);
-    }
-    
-    ColumnSet    columnSet = new DefaultColumnSet(columns);
-    List<Vector> rows      = new ArrayList<>(dimensionValuesBySummaryColumnValues.size());
-    for (Map.Entry<VectorKey, Map<Value, Value>> entry : dimensionValuesBySummaryColumnValues.entrySet()) {
-      Value[] keyValues    = entry.getKey().getValues();
-      Value[] vectorValues = new Value[columns.size()];
-      for (int i = 0; i < keyValues.length; i++) {
-        if (i == keyValues.length - 1) {
-          vectorValues[i] = new StringValue(dimensionColumnNames[i]);
-        } else {
-          vectorValues[i] = keyValues[i];
-        }
-      }
-      Map<Value,Value> dimensionValues = entry.getValue();
-      for (Map.Entry<Value, Value> dimensionValue : dimensionValues.entrySet()) {
-        Column dimensionValueCol = columnsBySummaryColumnValues.get(dimensionValue.getKey());
-        vectorValues[dimensionValueCol.getIndex()] = dimensionValue.getValue();
-      }
-      rows.add(new DefaultVector(vectorValues));
-    }
-    
-    List<String> newIndexColumnNames = Data.slice(indexColumnNames, indexColumnNames.size() - 1);
-    newIndexColumnNames.add("fact_column");
+    return pivot(dataset, summaryColumnName, PivotFunction.SUM, dimensionColumnNames);
+  }
+  
+  /**
+   * @param dataset a {@link Dataset} for which to create a pivot.
+   * @param summaryColumnName the name of the column acting as summary (or pivot) column.
+   * @param function the {@link PivotFunction} to apply to the values of the fact column, in each cell.
+   * @param dimensionColumnNames the names of the columns acting as so-called "dimensions".
+   * @return the {@link IndexedDataset} resulting from the "pivoting" of the given dataset.
+   */
+  public static IndexedDataset pivot(
+      @Doc("dataset for which to create a pivot") Dataset dataset, 
+      @Doc("summary column name") String summaryColumnName,
+      @Doc("function to apply to the values of each cell (see PivotFunction)") PivotFunction function,
+      @Doc("dimension (or fact) column names") List<String> dimensionColumnNames) {
+    return pivot(dataset, summaryColumnName, function, dimensionColumnNames.toArray(new String[dimensionColumnNames.size()]));
+  }
 
-    Index index = new DefaultIndex(new DefaultRowSet(rows), columnSet, columnSet.includes(newIndexColumnNames));
-    return new PivotDataset(index);
+  /**
+   * @param dataset a {@link Dataset} for which to create a pivot.
+   * @param summaryColumnName the name of the column acting as summary column.
+   * @param function the {@link PivotFunction} to apply to the values of the fact column, in each cell.
+   * @param dimensionColumnNames the names of the columns acting as so-called "dimensions", the last one 
+   * being the fact column.
+   * @return the {@link IndexedDataset} resulting from the "pivoting" of the given dataset.
+   */
+  public static IndexedDataset pivot(
+      @Doc("dataset for which to create a pivot") Dataset dataset, 
+      @Doc("summary column name") String summaryColumnName,
+      @Doc("function to apply to the values of each cell (see PivotFunction)") PivotFunction function,
+      @Doc("dimensions/fact column names") String...dimensionColumnNames) {
+    PivotTable prototype = new PivotTable(dataset.getColumnSet(), summaryColumnName, dimensionColumnNames, function);
+    return new PivotDataset(parallelPivot().pivot(dataset, prototype));
   }
   
+  // --------------------------------------------------------------------------
+  // Restricted methods
+  
+  private static ParallelPivot parallelPivot() {
+    return new ParallelPivot(Threading.getForkJoinPool(), Conf.getTaskTimeout(), Conf.getParallelRowThreshold());
+  }
 }
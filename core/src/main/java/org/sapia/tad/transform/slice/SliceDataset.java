@@ -13,6 +13,7 @@ class SliceDataset implements Dataset {
   
   protected final Dataset delegate;
   private int start, end, size;
+  private NumericColumnCache numericColumns = new NumericColumnCache(this);
   
   SliceDataset(Dataset delegate, int start, int end) {
     Checks.isTrue(
@@ -46,6 +47,16 @@ class SliceDataset implements Dataset {
     return new DefaultVector(items);
   }
 
+  @Override
+  public NumericColumn getNumericColumn(int colIndex) throws IllegalArgumentException {
+    return numericColumns.get(colIndex);
+  }
+  
+  @Override
+  public NumericColumn getNumericColumn(String name) throws IllegalArgumentException {
+    return numericColumns.get(delegate.getColumnSet().get(name).getIndex());
+  }
+  
   @Override
   public Dataset getColumnSubset(int colIndex, Criteria<Value> filter)
       throws IllegalArgumentException {
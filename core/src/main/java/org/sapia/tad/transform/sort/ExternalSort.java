@@ -0,0 +1,269 @@
+package org.sapia.tad.transform.sort;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.DatasetStream;
+import org.sapia.tad.DatasetStreams;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.Vector;
+import org.sapia.tad.impl.DefaultDataset;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.value.DateValue;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.StringValue;
+import org.sapia.tad.value.Value;
+
+/**
+ * Sorts the rows of a {@link DatasetStream} in bounded memory: rows are accumulated until their estimated
+ * size reaches a given memory budget, at which point they are sorted and spilled to a temporary file, as
+ * a {@link SortRun}. The runs are then merged into a stream of sorted batches: if there are more runs
+ * than can be merged at once, groups of consecutive runs are first merged into larger runs.
+ * <p>
+ * If all rows fit within the memory budget, they are sorted in memory and no file is written.
+ * <p>
+ * Sorts are stable: since the runs hold consecutive rows, rows with equal values are taken from earlier
+ * runs first.
+ * <p>
+ * Streams with {@link Datatype#GEOMETRY} columns are rejected, whether or not their rows would fit within
+ * the memory budget, since geometry values cannot be written to runs.
+ *
+ * @author yduchesne
+ *
+ */
+class ExternalSort {
+
+  // the maximum number of runs that are merged at once
+  static final int MAX_MERGE_WIDTH = 64;
+
+  // approximate memory footprints, in bytes
+  private static final int ROW_OVERHEAD    = 32;
+  private static final int REFERENCE_SIZE  = 8;
+  private static final int NUMERIC_SIZE    = 16;
+  private static final int DATE_SIZE       = 40;
+  private static final int STRING_OVERHEAD = 56;
+  private static final int DEFAULT_SIZE    = 32;
+
+  private long memoryBudget;
+  private int  batchSize;
+
+  /**
+   * @param memoryBudget the approximate amount of memory (in bytes) that may be used to hold rows.
+   * @param batchSize the number of rows per batch, in the resulting stream.
+   */
+  ExternalSort(long memoryBudget, int batchSize) {
+    Checks.isTrue(memoryBudget > 0, "Memory budget must be greater than 0");
+    Checks.isTrue(batchSize > 0, "Batch size must be greater than 0 (got %s)", batchSize);
+    this.memoryBudget = memoryBudget;
+    this.batchSize    = batchSize;
+  }
+
+  /**
+   * Reads all batches of the given stream, and closes it.
+   *
+   * @param stream the {@link DatasetStream} to sort.
+   * @param orders the {@link SortOrder}s that specify on which columns to sort, and in which order.
+   * @return a new {@link DatasetStream}, returning the rows of the given stream in sorted order - it must
+   * be closed in order for temporary files to be deleted.
+   * @throws IOException if an IO error occurs while reading the given stream, or writing temporary files.
+   * @throws IllegalArgumentException if the given stream has {@link Datatype#GEOMETRY} columns.
+   */
+  DatasetStream sort(DatasetStream stream, SortOrder...orders) throws IOException, IllegalArgumentException {
+    ColumnSet     columns    = stream.getColumnSet();
+    List<SortRun> runs       = new ArrayList<>();
+    List<Vector>  rows       = new ArrayList<>();
+    long          used       = 0;
+    try {
+      for (Column col : columns) {
+        Checks.isTrue(col.getType() != Datatype.GEOMETRY, "Cannot sort stream: values of column %s (of type %s) cannot be spilled to disk",
+            col.getName(), col.getType());
+      }
+      RowComparator comparator = new RowComparator(columns, orders);
+      while (stream.hasNext()) {
+        for (Vector row : stream.next()) {
+          rows.add(row);
+          used += sizeOf(row);
+          if (used >= memoryBudget) {
+            runs.add(SortRun.spill(Sorts.sort(new DefaultDataset(columns, rows), orders), columns.size()));
+            rows = new ArrayList<>();
+            used = 0;
+          }
+        }
+      }
+      if (runs.isEmpty()) {
+        return DatasetStreams.stream(Sorts.sort(new DefaultDataset(columns, rows), orders), batchSize);
+      }
+      if (!rows.isEmpty()) {
+        runs.add(SortRun.spill(Sorts.sort(new DefaultDataset(columns, rows), orders), columns.size()));
+      }
+      while (runs.size() > MAX_MERGE_WIDTH) {
+        runs = mergeRuns(columns, comparator, runs);
+      }
+      return new MergedRunStream(columns, comparator, runs, batchSize);
+    } catch (IOException | RuntimeException e) {
+      for (SortRun r : runs) {
+        r.close();
+      }
+      throw e;
+    } finally {
+      stream.close();
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  // merges groups of consecutive runs (preserving their order, for stability)
+  private List<SortRun> mergeRuns(ColumnSet columns, RowComparator comparator, List<SortRun> runs) throws IOException {
+    List<SortRun> merged = new ArrayList<>();
+    try {
+      for (int start = 0; start < runs.size(); start += MAX_MERGE_WIDTH) {
+        List<SortRun>   group  = runs.subList(start, Math.min(start + MAX_MERGE_WIDTH, runs.size()));
+        MergedRunStream stream = new MergedRunStream(columns, comparator, group, batchSize);
+        SortRun.Writer  writer = new SortRun.Writer(columns.size());
+        try {
+          while (stream.hasNext()) {
+            for (Vector row : stream.next()) {
+              writer.write(row);
+            }
+          }
+          merged.add(writer.finish());
+        } catch (IOException | RuntimeException e) {
+          writer.abort();
+          throw e;
+        } finally {
+          stream.close();
+        }
+      }
+      return merged;
+    } catch (IOException | RuntimeException e) {
+      for (SortRun r : merged) {
+        r.close();
+      }
+      throw e;
+    }
+  }
+
+  private static long sizeOf(Vector row) {
+    long size = ROW_OVERHEAD;
+    for (int i = 0; i < row.size(); i++) {
+      Value v = row.get(i);
+      size += REFERENCE_SIZE;
+      if (NullValue.isNull(v)) {
+        continue;
+      } else if (v instanceof DateValue) {
+        size += DATE_SIZE;
+      } else if (v instanceof StringValue) {
+        size += STRING_OVERHEAD + 2 * ((StringValue) v).getValue().length();
+      } else if (v.isNumeric()) {
+        size += NUMERIC_SIZE;
+      } else {
+        size += DEFAULT_SIZE;
+      }
+    }
+    return size;
+  }
+
+  // ==========================================================================
+
+  /**
+   * Merges sorted runs, by repeatedly taking the lowest of the current rows of the runs.
+   */
+  private static class MergedRunStream implements DatasetStream {
+
+    private ColumnSet                columns;
+    private List<SortRun>            runs;
+    private int                      batchSize;
+    private PriorityQueue<RunCursor> cursors;
+
+    private MergedRunStream(ColumnSet columns, final RowComparator comparator, List<SortRun> runs, int batchSize) throws IOException {
+      this.columns   = columns;
+      this.runs      = runs;
+      this.batchSize = batchSize;
+      this.cursors   = new PriorityQueue<>(runs.size(), new Comparator<RunCursor>() {
+        @Override
+        public int compare(RunCursor c1, RunCursor c2) {
+          int cmp = comparator.compare(c1.row, c2.row);
+          return cmp != 0 ? cmp : Integer.compare(c1.runIndex, c2.runIndex);
+        }
+      });
+      for (int i = 0; i < runs.size(); i++) {
+        RunCursor cursor = new RunCursor(runs.get(i), i);
+        if (cursor.advance()) {
+          cursors.add(cursor);
+        }
+      }
+    }
+
+    @Override
+    public ColumnSet getColumnSet() {
+      return columns;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !cursors.isEmpty();
+    }
+
+    @Override
+    public Dataset next() throws IOException, NoSuchElementException {
+      if (cursors.isEmpty()) {
+        throw new NoSuchElementException();
+      }
+      List<Vector> batch = new ArrayList<>(batchSize);
+      while (batch.size() < batchSize && !cursors.isEmpty()) {
+        RunCursor cursor = cursors.poll();
+        batch.add(cursor.row);
+        if (cursor.advance()) {
+          cursors.add(cursor);
+        }
+      }
+      return new DefaultDataset(columns, batch);
+    }
+
+    @Override
+    public void close() throws IOException {
+      cursors.clear();
+      IOException error = null;
+      for (SortRun r : runs) {
+        try {
+          r.close();
+        } catch (IOException e) {
+          error = e;
+        }
+      }
+      if (error != null) {
+        throw error;
+      }
+    }
+  }
+
+  // --------------------------------------------------------------------------
+
+  /**
+   * Holds the current row of a run.
+   */
+  private static class RunCursor {
+
+    private SortRun run;
+    private int     runIndex;
+    private Vector  row;
+
+    private RunCursor(SortRun run, int runIndex) {
+      this.run      = run;
+      this.runIndex = runIndex;
+    }
+
+    private boolean advance() throws IOException {
+      row = run.next();
+      return row != null;
+    }
+  }
+}
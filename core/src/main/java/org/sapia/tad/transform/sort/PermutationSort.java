@@ -0,0 +1,160 @@
+package org.sapia.tad.transform.sort;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeoutException;
+
+import org.sapia.tad.concurrent.ConcurrencyException;
+import org.sapia.tad.concurrent.ThreadInterruptedException;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.util.Time;
+
+/**
+ * Sorts the row indices of a dataset, given the {@link SortKeys} of its rows: the result is a permutation,
+ * holding the indices of the rows in their sort order.
+ * <p>
+ * The permutation is sorted using a merge sort. If the number of rows is greater than the threshold that
+ * is passed to an instance of this class, the halves of the permutation are sorted concurrently, in a
+ * {@link ForkJoinPool}, until they are not greater than half that threshold. Otherwise, the sort is
+ * performed by the calling thread.
+ *
+ * @author yduchesne
+ *
+ */
+class PermutationSort {
+
+  private static final int INSERTION_SORT_THRESHOLD = 16;
+
+  private ForkJoinPool pool;
+  private Time         timeout;
+  private int          threshold;
+
+  /**
+   * @param pool the {@link ForkJoinPool} to use to sort halves of the permutation concurrently.
+   * @param timeout the {@link Time} to wait until the sort completes - a {@link ConcurrencyException}
+   * is thrown if the sort could not complete within the allowed time.
+   * @param threshold the number of rows above which the sort should be performed concurrently.
+   */
+  PermutationSort(ForkJoinPool pool, Time timeout, int threshold) {
+    Checks.isTrue(threshold > 1, "Threshold must be greater than 1");
+    this.pool      = pool;
+    this.timeout   = timeout;
+    this.threshold = threshold;
+  }
+
+  /**
+   * @param keys the {@link SortKeys} of the rows to sort.
+   * @return the indices of the rows, in their sort order.
+   */
+  int[] sort(SortKeys keys) {
+    int   size   = keys.size();
+    int[] rows   = new int[size];
+    for (int i = 0; i < size; i++) {
+      rows[i] = i;
+    }
+    int[] buffer = rows.clone();
+    if (size <= threshold) {
+      mergeSort(keys, buffer, rows, 0, size);
+      return rows;
+    }
+
+    ForkJoinTask<Void> task = pool.submit(new SortTask(keys, buffer, rows, 0, size, threshold / 2));
+    try {
+      task.get(timeout.getValue(), timeout.getUnit());
+    } catch (InterruptedException e) {
+      task.cancel(true);
+      throw new ThreadInterruptedException(e);
+    } catch (ExecutionException e) {
+      throw new ConcurrencyException("Error occured awaiting sort completion", e);
+    } catch (TimeoutException e) {
+      task.cancel(true);
+      throw new ConcurrencyException("Timeout awaiting sort completion", e);
+    }
+    return rows;
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  // sorts the given range of dest, using src as a buffer: both arrays must initially hold the same range
+  private static void mergeSort(SortKeys keys, int[] src, int[] dest, int start, int end) {
+    if (end - start <= INSERTION_SORT_THRESHOLD) {
+      insertionSort(keys, dest, start, end);
+      return;
+    }
+    int middle = (start + end) >>> 1;
+    mergeSort(keys, dest, src, start, middle);
+    mergeSort(keys, dest, src, middle, end);
+    merge(keys, src, dest, start, middle, end);
+  }
+
+  private static void insertionSort(SortKeys keys, int[] rows, int start, int end) {
+    for (int i = start + 1; i < end; i++) {
+      int row = rows[i];
+      int j   = i - 1;
+      while (j >= start && keys.compare(rows[j], row) > 0) {
+        rows[j + 1] = rows[j];
+        j--;
+      }
+      rows[j + 1] = row;
+    }
+  }
+
+  // merges the sorted halves of the given range of src into dest
+  private static void merge(SortKeys keys, int[] src, int[] dest, int start, int middle, int end) {
+    // halves already in order: copying as is
+    if (keys.compare(src[middle - 1], src[middle]) < 0) {
+      System.arraycopy(src, start, dest, start, end - start);
+      return;
+    }
+    int left  = start;
+    int right = middle;
+    for (int i = start; i < end; i++) {
+      if (right >= end || (left < middle && keys.compare(src[left], src[right]) < 0)) {
+        dest[i] = src[left++];
+      } else {
+        dest[i] = src[right++];
+      }
+    }
+  }
+
+  // ==========================================================================
+
+  /**
+   * Sorts both halves of a range concurrently, until a range is not greater than the partition size.
+   */
+  private static class SortTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private SortKeys keys;
+    private int[]    src, dest;
+    private int      start, end, partitionSize;
+
+    private SortTask(SortKeys keys, int[] src, int[] dest, int start, int end, int partitionSize) {
+      this.keys          = keys;
+      this.src           = src;
+      this.dest          = dest;
+      this.start         = start;
+      this.end           = end;
+      this.partitionSize = partitionSize;
+    }
+
+    @Override
+    protected void compute() {
+      if (end - start <= partitionSize) {
+        mergeSort(keys, src, dest, start, end);
+      } else {
+        int      middle = (start + end) >>> 1;
+        SortTask left   = new SortTask(keys, dest, src, start, middle, partitionSize);
+        SortTask right  = new SortTask(keys, dest, src, middle, end, partitionSize);
+        right.fork();
+        left.compute();
+        right.join();
+        merge(keys, src, dest, start, middle, end);
+      }
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package org.sapia.tad.transform.sort;
+
+import java.util.Comparator;
+
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.Vector;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.value.DateValue;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.Value;
+
+/**
+ * Compares rows in the order specified by given {@link SortOrder}s: the comparison is consistent with
+ * the one performed on {@link SortKeys}, except that rows with equal values are considered equal.
+ *
+ * @author yduchesne
+ *
+ */
+class RowComparator implements Comparator<Vector> {
+
+  private int[]      indices;
+  private Datatype[] types;
+  private boolean[]  descending;
+  private boolean[]  nullsFirst;
+
+  /**
+   * @param columns the {@link ColumnSet} of the rows to compare.
+   * @param orders the {@link SortOrder}s that specify on which columns to compare rows, and in which order.
+   */
+  RowComparator(ColumnSet columns, SortOrder...orders) {
+    Checks.isTrue(orders.length > 0, "At least one column must be specified");
+    this.indices    = new int[orders.length];
+    this.types      = new Datatype[orders.length];
+    this.descending = new boolean[orders.length];
+    this.nullsFirst = new boolean[orders.length];
+    for (int i = 0; i < orders.length; i++) {
+      Datatype type = columns.get(orders[i].getColumnName()).getType();
+      Checks.isTrue(type != Datatype.GEOMETRY, "Cannot sort on column %s: values of type %s are not comparable",
+          orders[i].getColumnName(), type);
+      indices[i]    = columns.get(orders[i].getColumnName()).getIndex();
+      types[i]      = type;
+      descending[i] = orders[i].isDescending();
+      nullsFirst[i] = orders[i].isNullsFirst();
+    }
+  }
+
+  @Override
+  public int compare(Vector row, Vector other) {
+    for (int i = 0; i < indices.length; i++) {
+      Value   v           = row.get(indices[i]);
+      Value   otherV      = other.get(indices[i]);
+      boolean isNull      = NullValue.isNull(v);
+      boolean isOtherNull = NullValue.isNull(otherV);
+      if (isNull != isOtherNull) {
+        return isNull == nullsFirst[i] ? -1 : 1;
+      } else if (!isNull) {
+        int cmp = compareValues(types[i], v, otherV);
+        if (cmp != 0) {
+          return descending[i] ? -cmp : cmp;
+        }
+      }
+    }
+    return 0;
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  // values are compared as they are by sort keys: depending on the column's type, rather than on the values' class
+  private static int compareValues(Datatype type, Value v, Value other) {
+    if (v instanceof DateValue) {
+      return Long.compare(((DateValue) v).getTime(), ((DateValue) other).getTime());
+    } else if (type == Datatype.STRING) {
+      return String.valueOf(v.getInternalValue()).compareTo(String.valueOf(other.getInternalValue()));
+    }
+    double d      = v.get();
+    double otherD = other.get();
+    // normalizing -0.0 to 0.0, consistently with sort keys
+    return Double.compare(d == 0 ? 0.0 : d, otherD == 0 ? 0.0 : otherD);
+  }
+}
@@ -0,0 +1,193 @@
+package org.sapia.tad.transform.sort;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+
+import org.sapia.tad.Column;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.Vector;
+import org.sapia.tad.impl.columnar.ColumnData;
+import org.sapia.tad.impl.columnar.ColumnarDataset;
+import org.sapia.tad.impl.columnar.DateColumnData;
+import org.sapia.tad.impl.columnar.NumericColumnData;
+import org.sapia.tad.impl.columnar.StringColumnData;
+import org.sapia.tad.impl.columnar.StringDictionary;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.value.DateValue;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.Value;
+
+/**
+ * Holds the sort keys of the rows of a given dataset: the keys are extracted once, prior to sorting, as
+ * <code>long</code> values whose natural order corresponds to the desired sort order of the rows:
+ * <ul>
+ *   <li>numbers are encoded as longs that compare like the original doubles;
+ *   <li>dates are encoded as their time, in millis;
+ *   <li>strings are encoded as the rank of their value, among the distinct values of their column (for
+ *   columnar datasets, the ranks are computed once per dictionary entry);
+ *   <li>keys corresponding to a descending order are inverted.
+ * </ul>
+ * Null values are kept track of in a distinct bitmap, per column: they are placed before or after
+ * non-null values, as specified by the corresponding {@link SortOrder}.
+ * <p>
+ * Rows whose keys are all equal are compared on their original position, which makes the resulting
+ * order stable.
+ *
+ * @author yduchesne
+ *
+ */
+class SortKeys {
+
+  private int       size;
+  private long[][]  keys;
+  private BitSet[]  nulls;
+  private boolean[] nullsFirst;
+
+  /**
+   * @param dataset the {@link Dataset} whose rows are to be sorted.
+   * @param orders the {@link SortOrder}s that specify on which columns to sort, and in which order.
+   */
+  SortKeys(Dataset dataset, SortOrder...orders) {
+    Checks.isTrue(orders.length > 0, "At least one column must be specified");
+    this.size       = dataset.size();
+    this.keys       = new long[orders.length][];
+    this.nulls      = new BitSet[orders.length];
+    this.nullsFirst = new boolean[orders.length];
+    for (int i = 0; i < orders.length; i++) {
+      Column col = dataset.getColumnSet().get(orders[i].getColumnName());
+      Checks.isTrue(col.getType() != Datatype.GEOMETRY, "Cannot sort on column %s: values of type %s are not comparable",
+          col.getName(), col.getType());
+      BitSet columnNulls = new BitSet(size);
+      if (dataset instanceof ColumnarDataset) {
+        keys[i] = extract(((ColumnarDataset) dataset).getColumnData(col.getIndex()), columnNulls);
+      }
+      if (keys[i] == null) {
+        keys[i] = extract(dataset.getColumn(col.getIndex()), col.getType(), columnNulls);
+      }
+      if (orders[i].isDescending()) {
+        long[] k = keys[i];
+        for (int r = 0; r < size; r++) {
+          k[r] = ~k[r];
+        }
+      }
+      nulls[i]      = columnNulls.isEmpty() ? null : columnNulls;
+      nullsFirst[i] = orders[i].isNullsFirst();
+    }
+  }
+
+  /**
+   * @return the number of rows for which this instance holds keys.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * @param row a row index.
+   * @param other another row index.
+   * @return a negative value, zero or a positive value, if the first row is respectively to come before,
+   * at the same position, or after the second row.
+   */
+  int compare(int row, int other) {
+    for (int k = 0; k < keys.length; k++) {
+      if (nulls[k] != null) {
+        boolean isNull      = nulls[k].get(row);
+        boolean isOtherNull = nulls[k].get(other);
+        if (isNull != isOtherNull) {
+          return isNull == nullsFirst[k] ? -1 : 1;
+        } else if (isNull) {
+          continue;
+        }
+      }
+      long key      = keys[k][row];
+      long otherKey = keys[k][other];
+      if (key != otherKey) {
+        return key < otherKey ? -1 : 1;
+      }
+    }
+    return row < other ? -1 : (row > other ? 1 : 0);
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  // returns null if the given column data does not hold primitive values
+  private long[] extract(ColumnData data, BitSet columnNulls) {
+    long[] columnKeys = new long[size];
+    if (data instanceof NumericColumnData) {
+      NumericColumnData numeric = (NumericColumnData) data;
+      for (int r = 0; r < size; r++) {
+        columnKeys[r] = numberKey(numeric.getDouble(r));
+      }
+    } else if (data instanceof DateColumnData) {
+      DateColumnData dates = (DateColumnData) data;
+      for (int r = 0; r < size; r++) {
+        columnKeys[r] = dates.getTime(r);
+      }
+    } else if (data instanceof StringColumnData) {
+      StringColumnData strings = (StringColumnData) data;
+      int[]            ranks   = ranks(strings.getDictionary());
+      for (int r = 0; r < size; r++) {
+        int code = strings.getCode(r);
+        columnKeys[r] = code >= 0 ? ranks[code] : 0;
+      }
+    } else {
+      return null;
+    }
+    columnNulls.or(data.getNullBitmap());
+    return columnKeys;
+  }
+
+  private long[] extract(Vector column, Datatype type, BitSet columnNulls) {
+    long[]           columnKeys = new long[size];
+    StringDictionary dictionary = type == Datatype.STRING ? new StringDictionary() : null;
+    for (int r = 0; r < size; r++) {
+      Value v = column.get(r);
+      if (NullValue.isNull(v)) {
+        columnNulls.set(r);
+      } else if (v instanceof DateValue) {
+        columnKeys[r] = ((DateValue) v).getTime();
+      } else if (dictionary != null) {
+        columnKeys[r] = dictionary.encode(String.valueOf(v.getInternalValue()));
+      } else {
+        columnKeys[r] = numberKey(v.get());
+      }
+    }
+    if (dictionary != null) {
+      int[] ranks = ranks(dictionary);
+      for (int r = 0; r < size; r++) {
+        if (!columnNulls.get(r)) {
+          columnKeys[r] = ranks[(int) columnKeys[r]];
+        }
+      }
+    }
+    return columnKeys;
+  }
+
+  private static long numberKey(double value) {
+    // normalizing -0.0 to 0.0, so that both are considered equal
+    long bits = Double.doubleToLongBits(value == 0 ? 0.0 : value);
+    // flipping the non-sign bits of negative values, so that the longs compare like the doubles
+    return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+  }
+
+  private static int[] ranks(final StringDictionary dictionary) {
+    Integer[] codes = new Integer[dictionary.size()];
+    for (int c = 0; c < codes.length; c++) {
+      codes[c] = c;
+    }
+    Arrays.sort(codes, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer c1, Integer c2) {
+        return dictionary.get(c1).getValue().compareTo(dictionary.get(c2).getValue());
+      }
+    });
+    int[] ranks = new int[codes.length];
+    for (int i = 0; i < codes.length; i++) {
+      ranks[codes[i]] = i;
+    }
+    return ranks;
+  }
+}
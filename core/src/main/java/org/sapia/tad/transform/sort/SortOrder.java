@@ -0,0 +1,100 @@
+package org.sapia.tad.transform.sort;
+
+import org.sapia.tad.help.Doc;
+import org.sapia.tad.help.Hide;
+import org.sapia.tad.util.Checks;
+
+/**
+ * Specifies the order in which the values of a given column are to be sorted: ascending or descending,
+ * with null values either first or last.
+ * <p>
+ * By default, null values are considered lower than any other value: they come first in ascending
+ * order, and last in descending order.
+ * <p>
+ * Instances of this class are immutable: the {@link #nullsFirst()} and {@link #nullsLast()} methods
+ * return new instances.
+ *
+ * @see Sorts#sort(org.sapia.tad.Dataset, SortOrder...)
+ *
+ * @author yduchesne
+ *
+ */
+@Doc("Specifies the order in which the values of a given column are to be sorted")
+public class SortOrder {
+
+  private String  columnName;
+  private boolean descending;
+  private boolean nullsFirst;
+
+  private SortOrder(String columnName, boolean descending, boolean nullsFirst) {
+    Checks.notNull(columnName, "Column name cannot be null");
+    this.columnName = columnName;
+    this.descending = descending;
+    this.nullsFirst = nullsFirst;
+  }
+
+  /**
+   * @param columnName a column name.
+   * @return a new {@link SortOrder}, for sorting the values of the given column in ascending order
+   * (with nulls first).
+   */
+  @Doc("returns a sort order for sorting the values of the given column in ascending order (nulls first)")
+  public static SortOrder asc(@Doc("a column name") String columnName) {
+    return new SortOrder(columnName, false, true);
+  }
+
+  /**
+   * @param columnName a column name.
+   * @return a new {@link SortOrder}, for sorting the values of the given column in descending order
+   * (with nulls last).
+   */
+  @Doc("returns a sort order for sorting the values of the given column in descending order (nulls last)")
+  public static SortOrder desc(@Doc("a column name") String columnName) {
+    return new SortOrder(columnName, true, false);
+  }
+
+  /**
+   * @return a new {@link SortOrder}, identical to this instance, but putting null values first.
+   */
+  @Doc("returns a copy of this sort order, which puts null values first")
+  public SortOrder nullsFirst() {
+    return new SortOrder(columnName, descending, true);
+  }
+
+  /**
+   * @return a new {@link SortOrder}, identical to this instance, but putting null values last.
+   */
+  @Doc("returns a copy of this sort order, which puts null values last")
+  public SortOrder nullsLast() {
+    return new SortOrder(columnName, descending, false);
+  }
+
+  /**
+   * @return the name of the column to which this instance corresponds.
+   */
+  @Hide
+  public String getColumnName() {
+    return columnName;
+  }
+
+  /**
+   * @return <code>true</code> if values are to be sorted in descending order.
+   */
+  @Hide
+  public boolean isDescending() {
+    return descending;
+  }
+
+  /**
+   * @return <code>true</code> if null values are to come first.
+   */
+  @Hide
+  public boolean isNullsFirst() {
+    return nullsFirst;
+  }
+
+  @Override
+  public String toString() {
+    return (descending ? "desc(" : "asc(") + columnName + (nullsFirst ? ", nulls first)" : ", nulls last)");
+  }
+}
@@ -0,0 +1,150 @@
+package org.sapia.tad.transform.sort;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.sapia.tad.Vector;
+import org.sapia.tad.impl.DefaultVector;
+import org.sapia.tad.io.bin.BinaryValues;
+import org.sapia.tad.value.Value;
+
+/**
+ * A run of sorted rows, spilled to a temporary file by an {@link ExternalSort}. The rows are written
+ * one after the other, value by value (see {@link BinaryValues}). The rows of a run are then read back
+ * in order, one at a time. Closing a run deletes its file.
+ *
+ * @author yduchesne
+ *
+ */
+class SortRun implements Closeable {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private File            file;
+  private int             rowCount, columnCount, rowsRead;
+  private DataInputStream input;
+
+  private SortRun(File file, int rowCount, int columnCount) {
+    this.file        = file;
+    this.rowCount    = rowCount;
+    this.columnCount = columnCount;
+  }
+
+  /**
+   * @param rows the sorted rows to write.
+   * @param columnCount the number of columns of the given rows.
+   * @return a new {@link SortRun}, holding the given rows.
+   * @throws IOException if an IO error occurs while writing the rows.
+   */
+  static SortRun spill(Iterable<Vector> rows, int columnCount) throws IOException {
+    Writer writer = new Writer(columnCount);
+    try {
+      for (Vector row : rows) {
+        writer.write(row);
+      }
+      return writer.finish();
+    } catch (IOException | RuntimeException e) {
+      writer.abort();
+      throw e;
+    }
+  }
+
+  /**
+   * @return the number of rows in this run.
+   */
+  int size() {
+    return rowCount;
+  }
+
+  /**
+   * @return the next row of this run, or <code>null</code> if all rows have been read.
+   * @throws IOException if an IO error occurs while reading the row.
+   */
+  Vector next() throws IOException {
+    if (rowsRead >= rowCount) {
+      return null;
+    }
+    if (input == null) {
+      input = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+    }
+    Value[] values = new Value[columnCount];
+    for (int i = 0; i < columnCount; i++) {
+      values[i] = BinaryValues.read(input);
+    }
+    rowsRead++;
+    return new DefaultVector(values);
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (input != null) {
+        input.close();
+      }
+    } finally {
+      file.delete();
+    }
+  }
+
+  // ==========================================================================
+
+  /**
+   * Writes sorted rows to a new run, one row at a time.
+   */
+  static class Writer {
+
+    private File             file;
+    private int              columnCount, rowCount;
+    private DataOutputStream output;
+
+    /**
+     * @param columnCount the number of columns of the rows to write.
+     * @throws IOException if the temporary file of the run could not be created.
+     */
+    Writer(int columnCount) throws IOException {
+      this.columnCount = columnCount;
+      this.file        = File.createTempFile("tad-sort-", ".run");
+      this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE));
+    }
+
+    /**
+     * @param row a row to write (rows must be written in sorted order).
+     * @throws IOException if an IO error occurs while writing the row.
+     */
+    void write(Vector row) throws IOException {
+      for (int i = 0; i < columnCount; i++) {
+        BinaryValues.write(output, row.get(i));
+      }
+      rowCount++;
+    }
+
+    /**
+     * @return a new {@link SortRun}, holding the rows that were written.
+     * @throws IOException if an IO error occurs while flushing the rows.
+     */
+    SortRun finish() throws IOException {
+      output.close();
+      return new SortRun(file, rowCount, columnCount);
+    }
+
+    /**
+     * Deletes the file of the run that was being written.
+     */
+    void abort() {
+      try {
+        output.close();
+      } catch (IOException e) {
+        // ignoring: the file is deleted anyway
+      } finally {
+        file.delete();
+      }
+    }
+  }
+}
@@ -0,0 +1,199 @@
+package org.sapia.tad.transform.sort;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.Datasets;
+import org.sapia.tad.Index;
+import org.sapia.tad.IndexedDataset;
+import org.sapia.tad.NumericColumn;
+import org.sapia.tad.RowResult;
+import org.sapia.tad.Vector;
+import org.sapia.tad.algo.Criteria;
+import org.sapia.tad.impl.DatasetRowSetAdapter;
+import org.sapia.tad.impl.DefaultColumn;
+import org.sapia.tad.impl.DefaultDataset;
+import org.sapia.tad.impl.DefaultIndex;
+import org.sapia.tad.impl.DefaultRowResult;
+import org.sapia.tad.impl.DefaultVector;
+import org.sapia.tad.impl.IndexDatasetAdapter;
+import org.sapia.tad.impl.NumericColumnCache;
+import org.sapia.tad.impl.columnar.ColumnarDataset;
+import org.sapia.tad.transform.slice.Slices;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.value.Value;
+
+/**
+ * A view over the rows of a given {@link Dataset}, in the order specified by a permutation of their
+ * indices: no rows are copied.
+ *
+ * @author yduchesne
+ *
+ */
+class SortedDataset implements Dataset {
+
+  private Dataset            source;
+  private int[]              rows;
+  private NumericColumnCache numericColumns = new NumericColumnCache(this);
+
+  /**
+   * @param source the {@link Dataset} whose rows are viewed.
+   * @param rows the indices of the source rows, in the order in which they should be viewed.
+   */
+  SortedDataset(Dataset source, int[] rows) {
+    this.source = source;
+    this.rows   = rows;
+  }
+
+  /**
+   * @return the {@link Dataset} whose rows this instance views.
+   */
+  Dataset getSource() {
+    return source;
+  }
+
+  /**
+   * @param viewRows the indices of rows of this instance.
+   * @return the indices of the corresponding rows in the source dataset.
+   */
+  int[] toSourceRows(int[] viewRows) {
+    int[] sourceRows = new int[viewRows.length];
+    for (int i = 0; i < viewRows.length; i++) {
+      sourceRows[i] = rows[viewRows[i]];
+    }
+    return sourceRows;
+  }
+
+  @Override
+  public ColumnSet getColumnSet() {
+    return source.getColumnSet();
+  }
+
+  @Override
+  public int size() {
+    return rows.length;
+  }
+
+  @Override
+  public Vector getRow(int rowIndex) throws IllegalArgumentException {
+    Checks.isTrue(rowIndex >= 0 && rowIndex < rows.length, "Invalid index: %s. Dataset has %s rows", rowIndex, rows.length);
+    return source.getRow(rows[rowIndex]);
+  }
+
+  @Override
+  public Vector getColumn(int colIndex) throws IllegalArgumentException {
+    source.getColumnSet().get(colIndex);
+    // columnar datasets give access to their columns without copying
+    Vector  column = source instanceof ColumnarDataset ? source.getColumn(colIndex) : null;
+    Value[] values = new Value[rows.length];
+    for (int i = 0; i < rows.length; i++) {
+      values[i] = column != null ? column.get(rows[i]) : source.getRow(rows[i]).get(colIndex);
+    }
+    return new DefaultVector(values);
+  }
+
+  @Override
+  public Vector getColumn(String name) throws IllegalArgumentException {
+    return getColumn(source.getColumnSet().get(name).getIndex());
+  }
+
+  @Override
+  public NumericColumn getNumericColumn(int colIndex) throws IllegalArgumentException {
+    return numericColumns.get(colIndex);
+  }
+
+  @Override
+  public NumericColumn getNumericColumn(String name) throws IllegalArgumentException {
+    return numericColumns.get(source.getColumnSet().get(name).getIndex());
+  }
+
+  @Override
+  public Dataset getColumnSubset(int colIndex, Criteria<Value> filter) throws IllegalArgumentException {
+    Vector       col    = getColumn(colIndex);
+    List<Vector> result = new ArrayList<>();
+    for (Value rowItem : col) {
+      if (filter.matches(rowItem)) {
+        result.add(new DefaultVector(Collections.singletonList(rowItem)));
+      }
+    }
+    Column original = source.getColumnSet().get(colIndex);
+    Column copy     = new DefaultColumn(0, original.getType(), original.getName());
+    return new DefaultDataset(Collections.singleton(copy), result);
+  }
+
+  @Override
+  public Dataset getColumnSubset(String colName, Criteria<Value> filter) throws IllegalArgumentException {
+    return getColumnSubset(source.getColumnSet().get(colName).getIndex(), filter);
+  }
+
+  @Override
+  public Dataset getSubset(Criteria<RowResult> filter) {
+    int[]            narrowed  = new int[rows.length];
+    int              count     = 0;
+    DefaultRowResult rowResult = new DefaultRowResult(source.getColumnSet());
+    for (int r : rows) {
+      rowResult.setVector(source.getRow(r));
+      if (filter.matches(rowResult)) {
+        narrowed[count++] = r;
+      }
+    }
+    return new SortedDataset(source, Arrays.copyOf(narrowed, count));
+  }
+
+  @Override
+  public IndexedDataset index(String... colNames) throws IllegalArgumentException {
+    Index index = new DefaultIndex(new DatasetRowSetAdapter(this), getColumnSet(), getColumnSet().includes(colNames));
+    return new IndexDatasetAdapter(index);
+  }
+
+  @Override
+  public IndexedDataset index(List<String> colNames) throws IllegalArgumentException {
+    return index(colNames.toArray(new String[colNames.size()]));
+  }
+
+  @Override
+  public Dataset head() {
+    return Slices.head(this);
+  }
+
+  @Override
+  public Dataset tail() {
+    return Slices.tail(this);
+  }
+
+  @Override
+  public Iterator<Vector> iterator() {
+    return new Iterator<Vector>() {
+      private int next;
+
+      @Override
+      public boolean hasNext() {
+        return next < rows.length;
+      }
+
+      @Override
+      public Vector next() {
+        if (next >= rows.length) {
+          throw new NoSuchElementException();
+        }
+        return source.getRow(rows[next++]);
+      }
+
+      @Override
+      public void remove() {
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return Datasets.toString(this);
+  }
+}
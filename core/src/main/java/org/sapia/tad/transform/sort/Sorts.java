@@ -1,17 +1,34 @@
 package org.sapia.tad.transform.sort;
 
 import org.sapia.tad.Dataset;
+import org.sapia.tad.DatasetStream;
+import org.sapia.tad.DatasetStreams;
 import org.sapia.tad.Vector;
-import org.sapia.tad.algo.ReverseComparator;
+import org.sapia.tad.concurrent.Threading;
+import org.sapia.tad.conf.Conf;
 import org.sapia.tad.help.Doc;
 import org.sapia.tad.impl.DefaultDataset;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 /**
  * Helper class used for sorting.
+ * <p>
+ * Sorting does not copy rows: the sort keys of the rows are extracted once, as primitive values, and
+ * the indices of the rows are sorted on these keys (concurrently, if the number of rows is greater than
+ * {@link Conf#getParallelRowThreshold()}). The resulting datasets are views over the rows of the sorted
+ * datasets, in the desired order. Sorts are stable: rows with equal keys keep their relative order.
+ * <p>
+ * The first rows of a dataset, in a given order, can be obtained without sorting all rows: see 
+ * {@link #top(Dataset, int, String...)}, {@link #bottom(Dataset, int, String...)} and 
+ * {@link #first(Dataset, int, SortOrder...)}, which are also provided for {@link DatasetStream}s.
+ * <p>
+ * {@link DatasetStream}s are sorted externally: their rows are sorted in runs that fit within 
+ * {@link Conf#getSortMemoryBudget()}, which are spilled to temporary files, and then merged.
+ * 
+ * @see SortOrder
  * 
  * @author yduchesne
  *
@@ -47,12 +64,7 @@ public class Sorts {
    */
   @Doc("Sorts the given dataset in ascending order, on the given columns (returns a new sorted dataset)")
   public static Dataset asc(@Doc("a dataset") Dataset toSort, @Doc("the names of the columns on which to sort") String...colNames) {
-    List<Vector> rows = new ArrayList<>();
-    for (Vector row : toSort) {
-      rows.add(row);
-    }
-    Collections.sort(rows, new VectorComparator(toSort.getColumnSet().includes(colNames)));
-    return new DefaultDataset(toSort.getColumnSet(), rows);
+    return sort(toSort, orders(false, colNames));
   }
   
   /**
@@ -80,16 +92,242 @@ public class Sorts {
    */
   @Doc("Sorts the given dataset in descending order, on the given columns (returns a new sorted dataset)")
   public static Dataset desc(@Doc("a dataset") Dataset toSort, @Doc("the names of the columns on which to sort") String...colNames) {
-    List<Vector> rows = new ArrayList<>();
-    for (Vector row : toSort) {
-      rows.add(row);
+    return sort(toSort, orders(true, colNames));
+  }
+  
+  /**
+   * Sorts the given dataset's rows in the given order.
+   * 
+   * @param toSort a {@link Dataset} to sort.
+   * @param orders one or more {@link SortOrder}s, specifying on which columns to sort, and in which order.
+   * @return a new {@link Dataset}, holding the same rows as the given one, but
+   * in the desired sort order.
+   */
+  @Doc("Sorts the given dataset in the given order (see SortOrder - returns a new sorted dataset)")
+  public static Dataset sort(@Doc("a dataset") Dataset toSort, @Doc("the sort orders of the columns on which to sort") List<SortOrder> orders) {
+    return sort(toSort, orders.toArray(new SortOrder[orders.size()]));
+  }
+  
+  /**
+   * Sorts the given dataset's rows in the given order.
+   * 
+   * @param toSort a {@link Dataset} to sort.
+   * @param orders one or more {@link SortOrder}s, specifying on which columns to sort, and in which order.
+   * @return a new {@link Dataset}, holding the same rows as the given one, but
+   * in the desired sort order.
+   */
+  @Doc("Sorts the given dataset in the given order (see SortOrder - returns a new sorted dataset)")
+  public static Dataset sort(@Doc("a dataset") Dataset toSort, @Doc("the sort orders of the columns on which to sort") SortOrder...orders) {
+    SortKeys        keys   = new SortKeys(toSort, orders);
+    PermutationSort sorter = new PermutationSort(Threading.getForkJoinPool(), Conf.getTaskTimeout(), Conf.getParallelRowThreshold());
+    int[]           rows   = sorter.sort(keys);
+    // sorting a sorted view: the new view directly refers to the rows of the original dataset
+    if (toSort instanceof SortedDataset) {
+      SortedDataset view = (SortedDataset) toSort;
+      return new SortedDataset(view.getSource(), view.toSourceRows(rows));
+    }
+    return new SortedDataset(toSort, rows);
+  }
+  
+  // --------------------------------------------------------------------------
+  // Streams
+  
+  /**
+   * Sorts the rows of the given stream in ascending order, in bounded memory (see {@link Conf#getSortMemoryBudget()}).
+   * The given stream is read completely, and closed.
+   * 
+   * @param stream a {@link DatasetStream} to sort.
+   * @param colNames one or more column names corresponding to the columns on
+   * which to do the sorting.
+   * @return a new {@link DatasetStream}, returning the rows of the given stream in the desired sort order:
+   * it must be closed once it's not needed anymore, in order for temporary files to be deleted.
+   * @throws IOException if an IO error occurs while reading the stream, or writing temporary files.
+   */
+  @Doc("Sorts the given dataset stream in ascending order, on the given columns (returns a new sorted stream)")
+  public static DatasetStream asc(
+      @Doc("a dataset stream") DatasetStream stream, 
+      @Doc("the names of the columns on which to sort") String...colNames) throws IOException {
+    return sort(stream, orders(false, colNames));
+  }
+  
+  /**
+   * Sorts the rows of the given stream in descending order, in bounded memory (see {@link Conf#getSortMemoryBudget()}).
+   * The given stream is read completely, and closed.
+   * 
+   * @param stream a {@link DatasetStream} to sort.
+   * @param colNames one or more column names corresponding to the columns on
+   * which to do the sorting.
+   * @return a new {@link DatasetStream}, returning the rows of the given stream in the desired sort order:
+   * it must be closed once it's not needed anymore, in order for temporary files to be deleted.
+   * @throws IOException if an IO error occurs while reading the stream, or writing temporary files.
+   */
+  @Doc("Sorts the given dataset stream in descending order, on the given columns (returns a new sorted stream)")
+  public static DatasetStream desc(
+      @Doc("a dataset stream") DatasetStream stream, 
+      @Doc("the names of the columns on which to sort") String...colNames) throws IOException {
+    return sort(stream, orders(true, colNames));
+  }
+  
+  /**
+   * Sorts the rows of the given stream in the given order, in bounded memory (see {@link Conf#getSortMemoryBudget()}).
+   * The given stream is read completely, and closed.
+   * 
+   * @param stream a {@link DatasetStream} to sort.
+   * @param orders one or more {@link SortOrder}s, specifying on which columns to sort, and in which order.
+   * @return a new {@link DatasetStream}, returning the rows of the given stream in the desired sort order:
+   * it must be closed once it's not needed anymore, in order for temporary files to be deleted.
+   * @throws IOException if an IO error occurs while reading the stream, or writing temporary files.
+   */
+  @Doc("Sorts the given dataset stream in the given order (see SortOrder - returns a new sorted stream)")
+  public static DatasetStream sort(
+      @Doc("a dataset stream") DatasetStream stream, 
+      @Doc("the sort orders of the columns on which to sort") SortOrder...orders) throws IOException {
+    return new ExternalSort(Conf.getSortMemoryBudget(), DatasetStreams.DEFAULT_BATCH_SIZE).sort(stream, orders);
+  }
+  
+  // --------------------------------------------------------------------------
+  // Top rows
+  
+  /**
+   * Returns the rows of the given dataset that have the greatest values, in descending order: this is
+   * equivalent to sorting the dataset in descending order and keeping the given number of rows, but
+   * does not require sorting all rows.
+   * 
+   * @param toSelect a {@link Dataset} from which to select rows.
+   * @param count the maximum number of rows to select.
+   * @param colNames one or more column names corresponding to the columns on
+   * which to compare rows.
+   * @return a new {@link Dataset}, holding the selected rows, in descending order.
+   */
+  @Doc("Returns the given number of rows with the greatest values for the given columns, in descending order")
+  public static Dataset top(
+      @Doc("a dataset") Dataset toSelect, 
+      @Doc("the number of rows to select") int count, 
+      @Doc("the names of the columns on which to compare rows") String...colNames) {
+    return first(toSelect, count, orders(true, colNames));
+  }
+  
+  /**
+   * Returns the rows of the given dataset that have the lowest values, in ascending order: this is
+   * equivalent to sorting the dataset in ascending order and keeping the given number of rows, but
+   * does not require sorting all rows.
+   * 
+   * @param toSelect a {@link Dataset} from which to select rows.
+   * @param count the maximum number of rows to select.
+   * @param colNames one or more column names corresponding to the columns on
+   * which to compare rows.
+   * @return a new {@link Dataset}, holding the selected rows, in ascending order.
+   */
+  @Doc("Returns the given number of rows with the lowest values for the given columns, in ascending order")
+  public static Dataset bottom(
+      @Doc("a dataset") Dataset toSelect, 
+      @Doc("the number of rows to select") int count, 
+      @Doc("the names of the columns on which to compare rows") String...colNames) {
+    return first(toSelect, count, orders(false, colNames));
+  }
+  
+  /**
+   * Returns the first rows of the given dataset, in the given order: this is equivalent to sorting the
+   * dataset and keeping the given number of rows, but does not require sorting all rows.
+   * 
+   * @param toSelect a {@link Dataset} from which to select rows.
+   * @param count the maximum number of rows to select.
+   * @param orders one or more {@link SortOrder}s, specifying on which columns to compare rows, and in which order.
+   * @return a new {@link Dataset}, holding the selected rows, in the given order.
+   */
+  @Doc("Returns the given number of first rows of the given dataset, in the given order (see SortOrder)")
+  public static Dataset first(
+      @Doc("a dataset") Dataset toSelect, 
+      @Doc("the number of rows to select") int count, 
+      @Doc("the sort orders of the columns on which to compare rows") SortOrder...orders) {
+    SortKeys        keys      = new SortKeys(toSelect, orders);
+    TopRowSelection selection = new TopRowSelection(Threading.getForkJoinPool(), Conf.getTaskTimeout(), Conf.getParallelRowThreshold());
+    return new SortedDataset(toSelect, selection.select(keys, count));
+  }
+  
+  /**
+   * Returns the rows of the given stream that have the greatest values, in descending order. Only the 
+   * selected rows are kept in memory, in addition to the current batch. The stream is closed once it
+   * has been read.
+   * 
+   * @param stream a {@link DatasetStream} from which to select rows.
+   * @param count the maximum number of rows to select.
+   * @param colNames one or more column names corresponding to the columns on
+   * which to compare rows.
+   * @return a new {@link Dataset}, holding the selected rows, in descending order.
+   * @throws IOException if an IO error occurs while reading the stream.
+   */
+  @Doc("Returns the given number of rows of the given stream with the greatest values for the given columns, in descending order")
+  public static Dataset top(
+      @Doc("a dataset stream") DatasetStream stream, 
+      @Doc("the number of rows to select") int count, 
+      @Doc("the names of the columns on which to compare rows") String...colNames) throws IOException {
+    return first(stream, count, orders(true, colNames));
+  }
+  
+  /**
+   * Returns the rows of the given stream that have the lowest values, in ascending order. Only the 
+   * selected rows are kept in memory, in addition to the current batch. The stream is closed once it
+   * has been read.
+   * 
+   * @param stream a {@link DatasetStream} from which to select rows.
+   * @param count the maximum number of rows to select.
+   * @param colNames one or more column names corresponding to the columns on
+   * which to compare rows.
+   * @return a new {@link Dataset}, holding the selected rows, in ascending order.
+   * @throws IOException if an IO error occurs while reading the stream.
+   */
+  @Doc("Returns the given number of rows of the given stream with the lowest values for the given columns, in ascending order")
+  public static Dataset bottom(
+      @Doc("a dataset stream") DatasetStream stream, 
+      @Doc("the number of rows to select") int count, 
+      @Doc("the names of the columns on which to compare rows") String...colNames) throws IOException {
+    return first(stream, count, orders(false, colNames));
+  }
+  
+  /**
+   * Returns the first rows of the given stream, in the given order. Only the selected rows are kept in 
+   * memory, in addition to the current batch: the first rows of each batch are merged with the ones 
+   * selected so far. The stream is closed once it has been read.
+   * 
+   * @param stream a {@link DatasetStream} from which to select rows.
+   * @param count the maximum number of rows to select.
+   * @param orders one or more {@link SortOrder}s, specifying on which columns to compare rows, and in which order.
+   * @return a new {@link Dataset}, holding the selected rows, in the given order.
+   * @throws IOException if an IO error occurs while reading the stream.
+   */
+  @Doc("Returns the given number of first rows of the given stream, in the given order (see SortOrder)")
+  public static Dataset first(
+      @Doc("a dataset stream") DatasetStream stream, 
+      @Doc("the number of rows to select") int count, 
+      @Doc("the sort orders of the columns on which to compare rows") SortOrder...orders) throws IOException {
+    try {
+      List<Vector> selected = new ArrayList<>();
+      while (stream.hasNext()) {
+        // the rows selected so far come first, so that the rows of a later batch are selected last in case of ties
+        List<Vector> candidates = new ArrayList<>(selected);
+        for (Vector row : first(stream.next(), count, orders)) {
+          candidates.add(row);
+        }
+        selected = new ArrayList<>();
+        for (Vector row : first(new DefaultDataset(stream.getColumnSet(), candidates), count, orders)) {
+          selected.add(row);
+        }
+      }
+      return new DefaultDataset(stream.getColumnSet(), selected);
+    } finally {
+      stream.close();
+    }
+  }
+  
+  // --------------------------------------------------------------------------
+  // Restricted methods
+  
+  private static SortOrder[] orders(boolean descending, String...colNames) {
+    SortOrder[] orders = new SortOrder[colNames.length];
+    for (int i = 0; i < colNames.length; i++) {
+      orders[i] = descending ? SortOrder.desc(colNames[i]) : SortOrder.asc(colNames[i]);
     }
-    Collections.sort(
-        rows, 
-        new ReverseComparator<>(
-            new VectorComparator(toSort.getColumnSet().includes(colNames))
-        )
-    );
-    return new DefaultDataset(toSort.getColumnSet(), rows);
+    return orders;
   }
 }
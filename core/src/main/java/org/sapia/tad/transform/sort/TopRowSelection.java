@@ -0,0 +1,179 @@
+package org.sapia.tad.transform.sort;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeoutException;
+
+import org.sapia.tad.concurrent.ConcurrencyException;
+import org.sapia.tad.concurrent.ThreadInterruptedException;
+import org.sapia.tad.util.Checks;
+import org.sapia.tad.util.Time;
+
+/**
+ * Selects the indices of the first rows of a dataset, in the sort order given by the {@link SortKeys}
+ * of its rows, without sorting all rows: the selected rows are kept in a heap that is bounded by the
+ * number of rows to select, so that each row is compared to the "worst" selected row only.
+ * <p>
+ * If the number of rows is greater than the threshold that is passed to an instance of this class, the
+ * rows are split into ranges (each holding at least half that threshold) whose first rows are selected
+ * concurrently, in a {@link ForkJoinPool}: the selections of the ranges are then merged. Otherwise, the
+ * selection is performed by the calling thread.
+ *
+ * @author yduchesne
+ *
+ */
+class TopRowSelection {
+
+  private ForkJoinPool pool;
+  private Time         timeout;
+  private int          threshold;
+
+  /**
+   * @param pool the {@link ForkJoinPool} to use to process row ranges.
+   * @param timeout the {@link Time} to wait until the selection completes - a {@link ConcurrencyException}
+   * is thrown if the selection could not complete within the allowed time.
+   * @param threshold the number of rows above which the rows should be partitioned.
+   */
+  TopRowSelection(ForkJoinPool pool, Time timeout, int threshold) {
+    Checks.isTrue(threshold > 1, "Threshold must be greater than 1");
+    this.pool      = pool;
+    this.timeout   = timeout;
+    this.threshold = threshold;
+  }
+
+  /**
+   * @param keys the {@link SortKeys} of the rows from which to select.
+   * @param count the maximum number of rows to select.
+   * @return the indices of the selected rows, in their sort order.
+   */
+  int[] select(SortKeys keys, int count) {
+    Checks.isTrue(count >= 0, "Number of rows to select must be positive (got %s)", count);
+    int size = keys.size();
+    if (size <= threshold) {
+      return select(keys, count, 0, size);
+    }
+
+    int partitionSize = Math.max(threshold / 2, size / (pool.getParallelism() * 4) + 1);
+    ForkJoinTask<int[]> task = pool.submit(new RangeTask(keys, count, 0, size, partitionSize));
+    try {
+      return task.get(timeout.getValue(), timeout.getUnit());
+    } catch (InterruptedException e) {
+      task.cancel(true);
+      throw new ThreadInterruptedException(e);
+    } catch (ExecutionException e) {
+      throw new ConcurrencyException("Error occured awaiting selection result", e);
+    } catch (TimeoutException e) {
+      task.cancel(true);
+      throw new ConcurrencyException("Timeout awaiting selection result", e);
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  // Restricted methods
+
+  // selects the first rows of the given range, returning them in their sort order
+  private static int[] select(SortKeys keys, int count, int start, int end) {
+    int[] heap = new int[Math.min(count, end - start)];
+    int   size = 0;
+    for (int r = start; r < end; r++) {
+      if (size < heap.length) {
+        heap[size] = r;
+        siftUp(keys, heap, size++);
+      } else if (size > 0 && keys.compare(r, heap[0]) < 0) {
+        heap[0] = r;
+        siftDown(keys, heap, size);
+      }
+    }
+    // removing the greatest row from the heap, until it is empty: the rows end up in ascending order
+    for (int last = size - 1; last > 0; last--) {
+      int greatest = heap[0];
+      heap[0]    = heap[last];
+      heap[last] = greatest;
+      siftDown(keys, heap, last);
+    }
+    return heap;
+  }
+
+  // the heap is a max-heap: its root holds the greatest of the selected rows
+  private static void siftUp(SortKeys keys, int[] heap, int index) {
+    int row = heap[index];
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (keys.compare(heap[parent], row) >= 0) {
+        break;
+      }
+      heap[index] = heap[parent];
+      index       = parent;
+    }
+    heap[index] = row;
+  }
+
+  private static void siftDown(SortKeys keys, int[] heap, int size) {
+    int row   = heap[0];
+    int index = 0;
+    int child;
+    while ((child = 2 * index + 1) < size) {
+      if (child + 1 < size && keys.compare(heap[child + 1], heap[child]) > 0) {
+        child++;
+      }
+      if (keys.compare(row, heap[child]) >= 0) {
+        break;
+      }
+      heap[index] = heap[child];
+      index       = child;
+    }
+    heap[index] = row;
+  }
+
+  // merges the given sorted selections, keeping the given number of rows at most
+  private static int[] merge(SortKeys keys, int count, int[] left, int[] right) {
+    int[] merged = new int[Math.min(count, left.length + right.length)];
+    int   l      = 0;
+    int   r      = 0;
+    for (int i = 0; i < merged.length; i++) {
+      if (r >= right.length || (l < left.length && keys.compare(left[l], right[r]) < 0)) {
+        merged[i] = left[l++];
+      } else {
+        merged[i] = right[r++];
+      }
+    }
+    return merged;
+  }
+
+  // ==========================================================================
+
+  /**
+   * Recursively splits a row range in two halves, until a range is not greater than the partition size.
+   */
+  private static class RangeTask extends RecursiveTask<int[]> {
+
+    private static final long serialVersionUID = 1L;
+
+    private SortKeys keys;
+    private int      count, start, end, partitionSize;
+
+    private RangeTask(SortKeys keys, int count, int start, int end, int partitionSize) {
+      this.keys          = keys;
+      this.count         = count;
+      this.start         = start;
+      this.end           = end;
+      this.partitionSize = partitionSize;
+    }
+
+    @Override
+    protected int[] compute() {
+      if (end - start <= partitionSize) {
+        return select(keys, count, start, end);
+      }
+      int       middle = start + (end - start) / 2;
+      RangeTask left   = new RangeTask(keys, count, start, middle, partitionSize);
+      RangeTask right  = new RangeTask(keys, count, middle, end, partitionSize);
+      right.fork();
+      int[] leftRows  = left.compute();
+      int[] rightRows = right.join();
+      return merge(keys, count, leftRows, rightRows);
+    }
+  }
+}
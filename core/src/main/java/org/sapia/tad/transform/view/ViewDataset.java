@@ -46,6 +46,16 @@ public class ViewDataset implements Dataset {
     return delegate.getColumn(realIndex(columns.get(name).getIndex()));
   }
   
+  @Override
+  public NumericColumn getNumericColumn(int colIndex) throws IllegalArgumentException {
+    return delegate.getNumericColumn(realIndex(colIndex));
+  }
+  
+  @Override
+  public NumericColumn getNumericColumn(String name) throws IllegalArgumentException {
+    return delegate.getNumericColumn(realIndex(columns.get(name).getIndex()));
+  }
+  
   @Override
   public Dataset getColumnSubset(int colIndex, Criteria<Value> filter)
       throws IllegalArgumentException {
@@ -22,15 +22,15 @@ public class DateDatatypeStrategy implements DatatypeStrategy {
 
   @Override
   public boolean isType(Value value) {
-    return value instanceof DateDatatypeStrategy;
+    return value instanceof DateValue;
   }
 
   @Override
   public Value getValueFor(Object obj) {
-    Checks.isTrue(obj instanceof  Date, "Passed in object is not a %s instance: %s", Date.class, obj.getClass().getName());
     if (NullValue.isNull(obj)) {
       return NullValue.getInstance();
     }
+    Checks.isTrue(obj instanceof  Date, "Passed in object is not a %s instance: %s", Date.class, obj.getClass().getName());
     return new DateValue((Date) obj);
   }
 
@@ -40,11 +40,10 @@ public class DateDatatypeStrategy implements DatatypeStrategy {
       return currentValue;
     } else if (NullValue.isNull(currentValue)) {
       if (isAssignableFrom(toAdd)) {
-        return ((Date) toAdd).getTime();
+        return toAdd;
       } else if (Datatype.STRING.strategy().isAssignableFrom(toAdd)) {
         String toAddStr = (String) toAdd;
-        Date toAddDate = (Date) PARSER.parse(toAddStr);
-        return toAddDate;
+        return new Date(PARSER.parseTime(toAddStr));
       } else if (Datatype.NUMERIC.strategy().isAssignableFrom(toAdd)) {
         Number toAddNumber = (Number) toAdd;
         return toAddNumber;
@@ -55,8 +54,7 @@ public class DateDatatypeStrategy implements DatatypeStrategy {
       return new Date(((Date) currentValue).getTime() + ((Date) toAdd).getTime());
     } else if (Datatype.STRING.strategy().isAssignableFrom(toAdd)) {
       String toAddStr = (String) toAdd;
-      Date toAddDate = (Date) PARSER.parse(toAddStr);
-      return new Date(((Date) currentValue).getTime() + toAddDate.getTime());
+      return new Date(((Date) currentValue).getTime() + PARSER.parseTime(toAddStr));
     } else if (Datatype.NUMERIC.strategy().isAssignableFrom(toAdd)) {
       Number toAddNumber = (Number) toAdd;
       return new Date(((Date) currentValue).getTime() + toAddNumber.longValue());
@@ -66,13 +64,16 @@ public class DateDatatypeStrategy implements DatatypeStrategy {
   }
   
   public int compareTo(Value value, Value operand) {
-    Checks.isTrue(isType(operand) || NullValue.isNull(operand), "Date %s cannot be compared with %s", value, operand);
+    Checks.isTrue(isType(value) || NullValue.isNull(value), "Date %s cannot be compared with %s", value, operand);
+    Checks.isTrue(isType(operand) || NullValue.isNull(operand), "Date %s cannot be compared with %s", operand, value);
     if (NullValue.isNull(value) && NullValue.isNull(operand)) {
       return 0;
+    } else if (NullValue.isNull(value)) {
+      return -1;
+    } else if (NullValue.isNull(operand)) {
+      return 1;
     } else {
-      Date dateValue = (Date) value;
-      Date dateOperand = (Date) operand;
-      return dateValue.compareTo(dateOperand);
+      return ((DateValue) value).compareTo((DateValue) operand);
     }
   }
 
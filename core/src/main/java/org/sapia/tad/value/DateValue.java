@@ -1,25 +1,39 @@
 package org.sapia.tad.value;
 
 import lombok.EqualsAndHashCode;
-import lombok.RequiredArgsConstructor;
 
 import java.util.Date;
 
 /**
+ * Holds a date, as a number of milliseconds since the epoch.
+ *
  * @author yduchesne.
  */
-@RequiredArgsConstructor
-@EqualsAndHashCode(of = "value")
+@EqualsAndHashCode(of = "time")
 public class DateValue implements Value, Comparable<DateValue> {
 
-  private final Date value;
+  private final long time;
+
+  /**
+   * @param time a time, in milliseconds since the epoch.
+   */
+  public DateValue(long time) {
+    this.time = time;
+  }
+
+  /**
+   * @param value a {@link Date}.
+   */
+  public DateValue(Date value) {
+    this(value.getTime());
+  }
 
   // --------------------------------------------------------------------------
   // Value interface
 
   @Override
   public double get() throws NonNumericValueException {
-    throw new NonNumericValueException("Value is a date: " + value);
+    throw new NonNumericValueException("Value is a date: " + getValue());
   }
 
   @Override
@@ -29,7 +43,7 @@ public class DateValue implements Value, Comparable<DateValue> {
 
   @Override
   public Object getInternalValue() {
-    return value;
+    return getValue();
   }
 
   // --------------------------------------------------------------------------
@@ -37,14 +51,24 @@ public class DateValue implements Value, Comparable<DateValue> {
 
   @Override
   public int compareTo(DateValue o) {
-    return value.compareTo(o.value);
+    return Long.compare(time, o.time);
   }
 
   // --------------------------------------------------------------------------
   // Misc instance methods
 
+  /**
+   * @return the time held by this instance, in milliseconds since the epoch.
+   */
+  public long getTime() {
+    return time;
+  }
+
+  /**
+   * @return a new {@link Date}, corresponding to this instance's time.
+   */
   public Date getValue() {
-    return value;
+    return new Date(time);
   }
 
   // --------------------------------------------------------------------------
@@ -52,6 +76,6 @@ public class DateValue implements Value, Comparable<DateValue> {
 
   @Override
   public String toString() {
-    return value.toString();
+    return getValue().toString();
   }
 }
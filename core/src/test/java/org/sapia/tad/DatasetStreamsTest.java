@@ -0,0 +1,80 @@
+package org.sapia.tad;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sapia.tad.func.ArgFunction;
+import org.sapia.tad.transform.slice.Slices;
+import org.sapia.tad.value.NumericValue;
+
+public class DatasetStreamsTest {
+  
+  private Dataset dataset;
+
+  @Before
+  public void setUp() {
+    List<Vector> rows = new ArrayList<>();
+    for (int i = 0; i < 25; i++) {
+      rows.add(Vectors.vector(i, "s" + i));
+    }
+    dataset = Datasets.dataset(ColumnSets.columnSet("col0", Datatype.NUMERIC, "col1", Datatype.STRING), rows);
+  }
+
+  @Test
+  public void testStream() throws Exception {
+    DatasetStream stream = DatasetStreams.stream(dataset, 10);
+    assertEquals(dataset.getColumnSet(), stream.getColumnSet());
+    
+    assertTrue(stream.hasNext());
+    Dataset batch = stream.next();
+    assertEquals(10, batch.size());
+    assertEquals(NumericValue.of(0), batch.getRow(0).get(0));
+    
+    assertEquals(10, stream.next().size());
+    
+    batch = stream.next();
+    assertEquals(5, batch.size());
+    assertEquals(NumericValue.of(24), batch.getRow(4).get(0));
+    assertFalse(stream.hasNext());
+  }
+  
+  @Test(expected = NoSuchElementException.class)
+  public void testStream_noMoreBatches() throws Exception {
+    DatasetStream stream = DatasetStreams.stream(dataset, 100);
+    stream.next();
+    stream.next();
+  }
+  
+  @Test
+  public void testMap() throws Exception {
+    DatasetStream stream = DatasetStreams.map(DatasetStreams.stream(dataset, 10), dataset.getColumnSet(), new ArgFunction<Dataset, Dataset>() {
+      @Override
+      public Dataset call(Dataset batch) {
+        return Slices.slice(batch, 0, 2);
+      }
+    });
+    assertEquals(6, DatasetStreams.count(stream));
+  }
+  
+  @Test
+  public void testCollect() throws Exception {
+    Dataset collected = DatasetStreams.collect(DatasetStreams.stream(dataset, 7));
+    assertEquals(25, collected.size());
+    for (int i = 0; i < dataset.size(); i++) {
+      assertEquals(dataset.getRow(i).get(0), collected.getRow(i).get(0));
+    }
+  }
+  
+  @Test
+  public void testCount() throws Exception {
+    assertEquals(25, DatasetStreams.count(DatasetStreams.stream(dataset, 4)));
+  }
+
+}
@@ -0,0 +1,80 @@
+package org.sapia.tad;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sapia.tad.impl.DatasetRowSetAdapter;
+import org.sapia.tad.util.Data;
+
+public class NumericColumnsTest {
+  
+  private Dataset dataset;
+
+  @Before
+  public void setUp() {
+    dataset = Datasets.dataset(
+        ColumnSets.columnSet("num", Datatype.NUMERIC, "str", Datatype.STRING),
+        Data.list(
+            Vectors.vector(1, "s1"),
+            Vectors.vector(null, "s2"),
+            Vectors.vector(3, "s3")
+        )
+    );
+  }
+
+  @Test
+  public void testOfDataset() {
+    NumericColumn col = NumericColumns.of(dataset, 0);
+    assertEquals(3, col.size());
+    assertEquals(1, col.getDouble(0), 0);
+    assertTrue(col.isNull(1));
+    assertEquals(0, col.getDouble(1), 0);
+    assertEquals(3, col.getDouble(2), 0);
+  }
+  
+  @Test
+  public void testNonNumericValues() {
+    NumericColumn col = NumericColumns.of(dataset, 1);
+    for (int i = 0; i < col.size(); i++) {
+      assertTrue(col.isNull(i));
+      assertEquals(0, col.getDouble(i), 0);
+    }
+  }
+  
+  @Test
+  public void testGetNumericColumnIsCached() {
+    assertSame(dataset.getNumericColumn("num"), dataset.getNumericColumn(0));
+  }
+  
+  @Test
+  public void testOfRowSetWrappingDataset() {
+    assertSame(dataset.getNumericColumn(0), NumericColumns.of(new DatasetRowSetAdapter(dataset), 0));
+  }
+  
+  @Test
+  public void testOfVector() {
+    NumericColumn col = NumericColumns.of(Vectors.vector(1, 2, null));
+    assertFalse(col.isNull(0));
+    assertTrue(col.isNull(2));
+    assertArrayEquals(new double[] { 1, 2, 0 }, col.toDoubleArray(), 0);
+  }
+  
+  @Test
+  public void testOfColumnarVector() {
+    Vector vector = Datasets.columnar(dataset).getColumn("num");
+    assertSame(vector, NumericColumns.of(vector));
+  }
+  
+  @Test
+  public void testCopyTo() {
+    double[] dest = new double[4];
+    dataset.getNumericColumn(0).copyTo(1, dest, 2, 2);
+    assertArrayEquals(new double[] { 0, 0, 0, 3 }, dest, 0);
+  }
+
+}
@@ -3,6 +3,10 @@ package org.sapia.tad.computation;
 import static org.junit.Assert.assertEquals;
 
 import org.junit.Before;
+import org.sapia.tad.Column;
+import org.sapia.tad.math.SumValue;
+import org.sapia.tad.stat.MaxValue;
+import org.sapia.tad.stat.MeanValue;
 import org.junit.Test;
 import org.sapia.tad.ColumnSets;
 import org.sapia.tad.Datatype;
@@ -26,4 +30,35 @@ public class ComputationResultsTest {
     result = context.get("test");
     assertEquals(new NumericValue(1), result.get(context.getColumnSet().get("col0")));
   }
+  
+  @Test
+  public void testMergeWith_accumulators() {
+    Column col = context.getColumnSet().get("col0");
+    context.get("sum").set(col, new SumValue().accumulate(10));
+    context.get("mean").set(col, new MeanValue().accumulate(1).accumulate(2).accumulate(3));
+    context.get("max").set(col, new MaxValue().accumulate(-5));
+    
+    ComputationResults other = ComputationResults.newInstance(context.getColumnSet());
+    other.get("sum").set(col, new SumValue().accumulate(5));
+    other.get("mean").set(col, new MeanValue().accumulate(10));
+    other.get("max").set(col, new MaxValue().accumulate(-1));
+    
+    context.mergeWith(other);
+    assertEquals(new NumericValue(15), context.get("sum").get(col));
+    assertEquals(new NumericValue(4), context.get("mean").get(col));
+    assertEquals(new NumericValue(-1), context.get("max").get(col));
+  }
+  
+  @Test
+  public void testMergeWith_nonAccumulators() {
+    Column col = context.getColumnSet().get("col0");
+    context.get("test").set(col, new NumericValue(2));
+    
+    ComputationResults other = ComputationResults.newInstance(context.getColumnSet());
+    other.get("test").set(col, new NumericValue(4));
+    
+    context.mergeWith(other);
+    assertEquals(new NumericValue(3), context.get("test").get(col));
+  }
+
 }
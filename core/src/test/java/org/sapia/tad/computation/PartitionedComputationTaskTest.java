@@ -0,0 +1,93 @@
+package org.sapia.tad.computation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.ColumnSets;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.RowSet;
+import org.sapia.tad.RowSets;
+import org.sapia.tad.math.SumComputation;
+import org.sapia.tad.stat.MaxComputation;
+import org.sapia.tad.stat.MeanComputation;
+import org.sapia.tad.stat.MedianComputation;
+import org.sapia.tad.stat.MinComputation;
+import org.sapia.tad.stat.Stats;
+import org.sapia.tad.util.Time;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.Value;
+import org.sapia.tad.value.Values;
+
+public class PartitionedComputationTaskTest {
+  
+  private ForkJoinPool pool;
+  private ColumnSet    columns;
+  private RowSet       rows;
+  
+  @Before
+  public void setUp() {
+    pool    = new ForkJoinPool(4);
+    columns = ColumnSets.columnSet("col0", Datatype.NUMERIC, "col1", Datatype.STRING);
+    List<Value[]> data = new ArrayList<>();
+    for (int i = 0; i < 1001; i++) {
+      if (i % 10 == 0) {
+        data.add(new Value[] { NullValue.getInstance(), Values.array("row" + i)[0] });
+      } else {
+        data.add(Values.array(i % 2 == 0 ? i : -i, "row" + i));
+      }
+    }
+    rows = RowSets.rowSet(data.toArray(new Value[data.size()][]));
+  }
+  
+  @After
+  public void tearDown() {
+    pool.shutdownNow();
+  }
+
+  @Test
+  public void testCompute() throws Exception {
+    ComputationTask sequential = Computations.sequential();
+    ComputationTask partitioned = new PartitionedComputationTask(pool, new Time(30, TimeUnit.SECONDS), 100);
+    for (ComputationTask task : new ComputationTask[] { sequential, partitioned }) {
+      task.add(new SumComputation());
+      task.add(new MeanComputation());
+      task.add(new MedianComputation());
+      task.add(new MinComputation());
+      task.add(new MaxComputation());
+    }
+    
+    ComputationResults expected = sequential.compute(columns, rows);
+    ComputationResults actual   = partitioned.compute(columns, rows);
+    
+    assertEquals(expected.getResultNames(), actual.getResultNames());
+    for (String name : expected.getResultNames()) {
+      assertEquals(name, 
+          expected.get(name).get(columns.get("col0")).get(), 
+          actual.get(name).get(columns.get("col0")).get(), 
+          0.000001
+      );
+    }
+    assertEquals(-999, actual.get(Stats.MIN).get(columns.get("col0")).get(), 0);
+  }
+  
+  @Test
+  public void testCompute_belowThreshold() throws Exception {
+    ComputationTask task = new PartitionedComputationTask(pool, new Time(30, TimeUnit.SECONDS), 2000);
+    task.add(new SumComputation());
+    ComputationResults results = task.compute(columns, rows);
+    
+    double expected = 0;
+    for (int i = 0; i < rows.size(); i++) {
+      expected += rows.get(i).get(0).get();
+    }
+    assertEquals(expected, results.get("sum").get(columns.get("col0")).get(), 0);
+  }
+}
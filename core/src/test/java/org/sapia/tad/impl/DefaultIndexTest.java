@@ -3,15 +3,20 @@ package org.sapia.tad.impl;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.sapia.tad.Column;
 import org.sapia.tad.ColumnSet;
+import org.sapia.tad.ColumnSets;
 import org.sapia.tad.Datatype;
+import org.sapia.tad.Index;
 import org.sapia.tad.RowSet;
 import org.sapia.tad.Vector;
+import org.sapia.tad.VectorKey;
 import org.sapia.tad.util.Data;
 import org.sapia.tad.util.Numbers;
 import org.sapia.tad.value.Values;
@@ -155,5 +160,74 @@ public class DefaultIndexTest {
       assertEquals(expected.get(i), result.get(i));
     }
   }
+  
+  @Test
+  public void testGetRowSetByKey_noMatch() {
+    RowSet result = singleIndex.getRowSet(Data.array("col1"), Values.array("02"));
+    assertEquals(0, result.size());
+  }
+  
+  @Test
+  public void testGetKeys_sorted() {
+    List<Vector> rows = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      rows.add(new DefaultVector((i * 7) % 100, i));
+    }
+    ColumnSet columns = ColumnSets.columnSet("key", Datatype.NUMERIC, "value", Datatype.NUMERIC);
+    DefaultIndex index = new DefaultIndex(new DefaultRowSet(rows), columns, columns.includes("key"));
+    
+    assertEquals(100, index.getGroupCount());
+    int expected = 0;
+    for (VectorKey key : index.getKeys()) {
+      assertEquals(expected, key.get(0).get(), 0);
+      assertEquals(10, index.getRowset(key).size());
+      expected++;
+    }
+    
+    // rows are returned in key order, and in insertion order within each key
+    Vector previous = null;
+    for (int i = 0; i < index.size(); i++) {
+      Vector current = index.get(i);
+      if (previous != null) {
+        assertTrue(previous.get(0).get() < current.get(0).get() 
+            || (previous.get(0).get() == current.get(0).get() && previous.get(1).get() < current.get(1).get()));
+      }
+      previous = current;
+    }
+    assertEquals(1000, Data.list(index.getRowSet().iterator()).size());
+  }
+  
+  @Test
+  public void testNullZeroAndNaNKeys() {
+    ColumnSet columns = ColumnSets.columnSet("key", Datatype.NUMERIC, "value", Datatype.NUMERIC);
+    Double[]  keys    = { 0d, null, Double.NaN, 0d, Double.NaN, null };
+    for (boolean reversed : new boolean[] { false, true }) {
+      List<Vector> rows = new ArrayList<>();
+      for (int i = 0; i < keys.length; i++) {
+        rows.add(new DefaultVector(keys[reversed ? keys.length - 1 - i : i], i));
+      }
+      DefaultIndex index = new DefaultIndex(new DefaultRowSet(rows), columns, columns.includes("key"));
+      assertEquals(3, index.getGroupCount());
+      assertEquals(3, index.getKeys().size());
+      assertEquals(2, index.getRowSet(Data.array("key"), Values.array((Object) null)).size());
+      assertEquals(2, index.getRowSet(Data.array("key"), Values.array(0d)).size());
+      assertEquals(2, index.getRowSet(Data.array("key"), Values.array(Double.NaN)).size());
+    }
+  }
+  
+  @Test
+  public void testMergeWith() {
+    ColumnSet columns = singleIndex.getColumnSet();
+    DefaultIndex other = new DefaultIndex(
+        new DefaultRowSet(Data.list((Vector) new DefaultVector("02", "02", "02", "00"))), 
+        columns, 
+        columns.includes("col1")
+    );
+    Index merged = singleIndex.mergeWith(other);
+    assertEquals(13, merged.size());
+    assertEquals(3, merged.getKeys().size());
+    assertEquals(1, merged.getRowSet(Data.array("col1"), Values.array("02")).size());
+    assertEquals(new DefaultVector("02", "02", "02", "00"), merged.getRowSet().get(12));
+  }
 
 }
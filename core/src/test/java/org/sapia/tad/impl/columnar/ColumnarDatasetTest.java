@@ -0,0 +1,205 @@
+package org.sapia.tad.impl.columnar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sapia.tad.ColumnSets;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.Datasets;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.Nominal;
+import org.sapia.tad.Vector;
+import org.sapia.tad.Vectors;
+import org.sapia.tad.algo.Criteria;
+import org.sapia.tad.util.Data;
+import org.sapia.tad.value.DateValue;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.NumericValue;
+import org.sapia.tad.value.StringValue;
+import org.sapia.tad.value.Value;
+
+public class ColumnarDatasetTest {
+
+  private Dataset         rows;
+  private ColumnarDataset dataset;
+
+  @Before
+  public void setUp() {
+    rows = Datasets.dataset(
+        ColumnSets.columnSet("num", Datatype.NUMERIC, "str", Datatype.STRING, "date", Datatype.DATE),
+        Data.list(
+            Vectors.vector(1, "s1", new Date(1000)),
+            Vectors.vector(2, null, new Date(2000)),
+            Vectors.vector(null, "s1", null),
+            Vectors.vector(4, "s2", new Date(4000))
+        )
+    );
+    dataset = Datasets.columnar(rows);
+  }
+
+  @Test
+  public void testSize() {
+    assertEquals(4, dataset.size());
+  }
+
+  @Test
+  public void testColumnStorage() {
+    assertTrue(dataset.getColumnData("num") instanceof NumericColumnData);
+    assertTrue(dataset.getColumnData("str") instanceof StringColumnData);
+    assertTrue(dataset.getColumnData("date") instanceof DateColumnData);
+  }
+
+  @Test
+  public void testGetRow() {
+    for (int i = 0; i < rows.size(); i++) {
+      assertEquals(rows.getRow(i), dataset.getRow(i));
+    }
+  }
+
+  @Test
+  public void testNulls() {
+    assertTrue(dataset.getColumnData("num").isNull(2));
+    assertTrue(dataset.getColumnData("str").isNull(1));
+    assertTrue(dataset.getColumnData("date").isNull(2));
+    assertEquals(1, dataset.getColumnData("num").getNullCount());
+    assertTrue(NullValue.isNull(dataset.getRow(2).get(0)));
+  }
+
+  @Test
+  public void testGetColumn() {
+    Vector col = dataset.getColumn("num");
+    assertEquals(4, col.size());
+    assertEquals(new NumericValue(1), col.get(0));
+    assertEquals(new NumericValue(4), col.get(3));
+    assertEquals(new DateValue(new Date(2000)), dataset.getColumn(2).get(1));
+  }
+
+  @Test
+  public void testDictionaryEncoding() {
+    StringColumnData str = (StringColumnData) dataset.getColumnData("str");
+    assertEquals(2, str.getDictionary().size());
+    assertEquals(str.getCode(0), str.getCode(2));
+    assertTrue(str.get(0) == str.get(2));
+    assertEquals(-1, str.getCode(1));
+  }
+
+  @Test
+  public void testDictionaryInterning() {
+    StringDictionary dictionary = new StringDictionary();
+    StringValue      s1         = new StringValue("s1");
+    assertEquals(0, dictionary.encode(s1));
+    assertEquals(0, dictionary.encode(new StringValue("s1")));
+    assertSame(s1, dictionary.get(0));
+    assertSame(s1, dictionary.intern("s1"));
+    assertEquals(new StringValue("s2"), dictionary.intern("s2"));
+    assertEquals(2, dictionary.size());
+  }
+
+  @Test
+  public void testConcatSharesStrings() {
+    ColumnarDataset concat = ColumnarDataset.concat(Arrays.asList(
+        dataset.select(new int[] { 0, 1 }),
+        dataset.select(new int[] { 2, 3 })
+    ));
+    StringColumnData str = (StringColumnData) concat.getColumnData("str");
+    assertEquals(2, str.getDictionary().size());
+    assertSame(dataset.getRow(0).get(1), concat.getRow(2).get(1));
+  }
+
+  @Test
+  public void testGetColumnSubset() {
+    Dataset subset = dataset.getColumnSubset("str", new Criteria<Value>() {
+      @Override
+      public boolean matches(Value v) {
+        return StringValue.of("s1").equals(v);
+      }
+    });
+    assertEquals(1, subset.getColumnSet().size());
+    assertEquals(2, subset.size());
+  }
+
+  @Test
+  public void testSelect() {
+    ColumnarDataset selected = dataset.select(new int[] { 3, 1 });
+    assertEquals(2, selected.size());
+    assertEquals(rows.getRow(3), selected.getRow(0));
+    assertEquals(rows.getRow(1), selected.getRow(1));
+  }
+
+  @Test
+  public void testIterator() {
+    int count = 0;
+    for (Vector row : dataset) {
+      assertEquals(rows.getRow(count++), row);
+    }
+    assertEquals(4, count);
+  }
+
+  @Test
+  public void testFallbackToValueStorage() {
+    ColumnarDataset nominals = new ColumnarDatasetBuilder(ColumnSets.columnSet("nom", Datatype.NUMERIC))
+        .row(new NumericValue(1))
+        .row(new Nominal("n", 2))
+        .build();
+    assertTrue(nominals.getColumnData(0) instanceof ValueColumnData);
+    assertEquals(new NumericValue(1), nominals.getRow(0).get(0));
+    assertEquals(new Nominal("n", 2), nominals.getRow(1).get(0));
+  }
+
+  @Test
+  public void testConcat() {
+    ColumnarDataset concat = ColumnarDataset.concat(Arrays.asList(
+        dataset.select(new int[] { 0, 1 }), 
+        dataset.select(new int[] { 2, 3 })
+    ));
+    assertEquals(4, concat.size());
+    assertTrue(concat.getColumnData("num") instanceof NumericColumnData);
+    assertTrue(concat.getColumnData("str") instanceof StringColumnData);
+    assertTrue(concat.getColumnData("date") instanceof DateColumnData);
+    for (int i = 0; i < rows.size(); i++) {
+      assertEquals(rows.getRow(i), concat.getRow(i));
+    }
+  }
+
+  @Test
+  public void testConcatWithValueStorage() {
+    ColumnarDataset nominals = new ColumnarDatasetBuilder(ColumnSets.columnSet("nom", Datatype.NUMERIC))
+        .row(new Nominal("n", 2))
+        .build();
+    ColumnarDataset numbers = new ColumnarDatasetBuilder(ColumnSets.columnSet("nom", Datatype.NUMERIC))
+        .row(new NumericValue(1))
+        .build();
+    ColumnarDataset concat = ColumnarDataset.concat(Arrays.asList(numbers, nominals));
+    assertTrue(concat.getColumnData(0) instanceof ValueColumnData);
+    assertEquals(new NumericValue(1), concat.getRow(0).get(0));
+    assertEquals(new Nominal("n", 2), concat.getRow(1).get(0));
+  }
+
+  @Test
+  public void testBuildByColumn() {
+    ColumnarDataset built = new ColumnarDatasetBuilder(rows.getColumnSet())
+        .number(0, 1).string(1, "s1").value(2, new DateValue(new Date(1000))).endRow()
+        .value(0, null).string(1, null).value(2, null).endRow()
+        .build();
+    assertEquals(2, built.size());
+    assertTrue(built.getColumnData("num") instanceof NumericColumnData);
+    assertEquals(rows.getRow(0), built.getRow(0));
+    assertEquals(Vectors.vector(NullValue.getInstance(), NullValue.getInstance(), NullValue.getInstance()), built.getRow(1));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testBuildByColumnIncompleteRow() {
+    new ColumnarDatasetBuilder(rows.getColumnSet()).number(0, 1).endRow();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetRowInvalidIndex() {
+    dataset.getRow(4);
+  }
+}
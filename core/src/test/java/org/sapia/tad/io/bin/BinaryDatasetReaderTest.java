@@ -0,0 +1,146 @@
+package org.sapia.tad.io.bin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sapia.tad.ColumnSets;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.Datasets;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.Nominal;
+import org.sapia.tad.Vector;
+import org.sapia.tad.Vectors;
+import org.sapia.tad.impl.columnar.ColumnarDataset;
+import org.sapia.tad.impl.columnar.ColumnarDatasetBuilder;
+import org.sapia.tad.impl.columnar.DateColumnData;
+import org.sapia.tad.impl.columnar.NumericColumnData;
+import org.sapia.tad.impl.columnar.StringColumnData;
+import org.sapia.tad.impl.columnar.ValueColumnData;
+import org.sapia.tad.value.NumericValue;
+import org.sapia.tad.value.Value;
+
+public class BinaryDatasetReaderTest {
+
+  private Dataset rows;
+  private File    file;
+
+  @Before
+  public void setUp() throws IOException {
+    List<Vector> vectors = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      vectors.add(Vectors.vector(
+          i % 10 == 0 ? null : i * 1.5,
+          i % 7 == 0 ? null : "s" + (i % 13) + "\u00e9",
+          i % 11 == 0 ? null : new Date(i * 1000L)
+      ));
+    }
+    rows = Datasets.dataset(
+        ColumnSets.columnSet("num", Datatype.NUMERIC, "str", Datatype.STRING, "date", Datatype.DATE),
+        vectors
+    );
+    file = File.createTempFile("dataset", ".bin");
+  }
+
+  @After
+  public void tearDown() {
+    file.delete();
+  }
+
+  @Test
+  public void testWriteRead() throws IOException {
+    new BinaryDatasetWriter().write(rows, file);
+    ColumnarDataset read = new BinaryDatasetReader().read(file);
+
+    assertEquals(rows.getColumnSet(), read.getColumnSet());
+    assertTrue(read.getColumnData("num") instanceof NumericColumnData);
+    assertTrue(read.getColumnData("str") instanceof StringColumnData);
+    assertTrue(read.getColumnData("date") instanceof DateColumnData);
+    assertEquals(rows.size(), read.size());
+    for (int i = 0; i < rows.size(); i++) {
+      assertEquals(rows.getRow(i), read.getRow(i));
+    }
+    assertEquals(100, read.getColumnData("num").getNullCount());
+    assertEquals(rows.getNumericColumn(0).getDouble(1), read.getNumericColumn(0).getDouble(1), 0);
+  }
+
+  @Test
+  public void testWriteReadValueColumn() throws IOException {
+    ColumnarDataset nominals = new ColumnarDatasetBuilder(ColumnSets.columnSet("nom", Datatype.NUMERIC))
+        .row(new NumericValue(1))
+        .row(new Nominal("n", 2))
+        .row((Value) null)
+        .build();
+    new BinaryDatasetWriter().write(nominals, file);
+    ColumnarDataset read = new BinaryDatasetReader().read(file);
+
+    assertTrue(read.getColumnData(0) instanceof ValueColumnData);
+    for (int i = 0; i < nominals.size(); i++) {
+      assertEquals(nominals.getRow(i), read.getRow(i));
+    }
+  }
+
+  @Test
+  public void testWriteReadEmpty() throws IOException {
+    Dataset empty = Datasets.dataset(rows.getColumnSet(), new ArrayList<Vector>());
+    new BinaryDatasetWriter().write(empty, file);
+    ColumnarDataset read = new BinaryDatasetReader().read(file);
+    assertEquals(rows.getColumnSet(), read.getColumnSet());
+    assertEquals(0, read.size());
+  }
+
+  @Test
+  public void testSaveLoad() throws IOException {
+    Datasets.save(rows, file.getAbsolutePath());
+    Dataset loaded = Datasets.load(file.getAbsolutePath());
+    assertEquals(rows.size(), loaded.size());
+    for (int i = 0; i < rows.size(); i++) {
+      assertEquals(rows.getRow(i), loaded.getRow(i));
+    }
+  }
+
+  @Test
+  public void testSaveOverLoaded() throws IOException {
+    Datasets.save(rows, file.getAbsolutePath());
+    Dataset loaded = Datasets.load(file.getAbsolutePath());
+    Datasets.save(loaded, file.getAbsolutePath());
+    for (int i = 0; i < rows.size(); i++) {
+      assertEquals(rows.getRow(i), loaded.getRow(i));
+    }
+    Dataset reloaded = Datasets.load(file.getAbsolutePath());
+    assertEquals(rows.size(), reloaded.size());
+    for (int i = 0; i < rows.size(); i++) {
+      assertEquals(rows.getRow(i), reloaded.getRow(i));
+    }
+    assertEquals(1, file.getParentFile().listFiles((dir, name) -> name.startsWith(file.getName())).length);
+  }
+
+  @Test
+  public void testSaveGeometryColumn() throws IOException {
+    Files.write(file.toPath(), "existing".getBytes(StandardCharsets.UTF_8));
+    Dataset geometries = Datasets.dataset(ColumnSets.columnSet("geom", Datatype.GEOMETRY), new ArrayList<Vector>());
+    try {
+      Datasets.save(geometries, file.getAbsolutePath());
+      fail("Geometry columns should not be saved");
+    } catch (IllegalArgumentException e) {
+      assertEquals("existing", new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testReadInvalidFile() throws IOException {
+    Files.write(file.toPath(), "col1,col2\n1,2\n3,4\n".getBytes(StandardCharsets.UTF_8));
+    new BinaryDatasetReader().read(file);
+  }
+}
@@ -2,14 +2,26 @@ package org.sapia.tad.io.csv;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 import org.junit.Test;
 import org.sapia.tad.ColumnSet;
 import org.sapia.tad.ColumnSets;
 import org.sapia.tad.Dataset;
+import org.sapia.tad.DatasetStream;
 import org.sapia.tad.Datatype;
+import org.sapia.tad.computation.ComputationResults;
+import org.sapia.tad.conf.Conf;
+import org.sapia.tad.impl.columnar.ColumnarDataset;
+import org.sapia.tad.impl.columnar.StringColumnData;
+import org.sapia.tad.io.helpers.TypeInference;
+import org.sapia.tad.math.Sum;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.NumericValue;
 
 public class CsvReaderTest {
   
@@ -64,5 +76,242 @@ public class CsvReaderTest {
     Dataset ds = csv.read(columns, reader, 1);
     assertEquals(3, ds.size());
   }
+  
+  @Test
+  public void testStringsInterned() throws IOException {
+    String repeated = 
+        "col1,col2" + System.lineSeparator()
+        + "1,s1" + System.lineSeparator()
+        + "2,s2" + System.lineSeparator()
+        + "3,s1"; 
+    Dataset ds = new CsvReader().read(new StringReader(repeated));
+    assertSame(ds.getRow(0).get(1), ds.getRow(2).get(1));
+    assertNotSame(ds.getRow(0).get(1), ds.getRow(1).get(1));
+    
+    ColumnarDataset columnar = (ColumnarDataset) new CsvReader(',', null, true).read(new StringReader(repeated));
+    StringColumnData strings = (StringColumnData) columnar.getColumnData("col2");
+    assertEquals(2, strings.getDictionary().size());
+    assertEquals(strings.getCode(0), strings.getCode(2));
+  }
+  
+  @Test
+  public void testGuessCsvContentColumnar() throws IOException {
+    StringReader reader = new StringReader(contentWithNull);
+    CsvReader csv = new CsvReader(',', null, true);
+    Dataset ds = csv.read(reader);
+    
+    assertTrue(ds instanceof ColumnarDataset);
+    assertEquals(Datatype.DATE, ds.getColumnSet().get("col3").getType());
+    assertEquals(3, ds.size());
+    assertTrue(NullValue.isNull(ds.getRow(0).get(2)));
+    assertTrue(NullValue.isNull(ds.getRow(1).get(1)));
+  }
+  
+  @Test
+  public void testStream() throws IOException {
+    StringBuilder csv = new StringBuilder("col1,col2");
+    for (int i = 0; i < 25; i++) {
+      csv.append(System.lineSeparator()).append(i).append(",s").append(i);
+    }
+    DatasetStream stream = Csv.obj().reader(new StringReader(csv.toString())).batchSize(10).stream();
+    assertEquals(Datatype.NUMERIC, stream.getColumnSet().get("col1").getType());
+    assertEquals(Datatype.STRING, stream.getColumnSet().get("col2").getType());
+    
+    assertEquals(10, stream.next().size());
+    assertEquals(10, stream.next().size());
+    Dataset last = stream.next();
+    assertEquals(5, last.size());
+    assertEquals(NumericValue.of(24), last.getRow(4).get(0));
+    assertFalse(stream.hasNext());
+    stream.close();
+  }
+  
+  @Test
+  public void testStreamWithSpecifiedColumnSet() throws IOException {
+    ColumnSet columns = ColumnSets.columnSet(
+        "col1", Datatype.NUMERIC,
+        "col2", Datatype.STRING,
+        "col3", Datatype.DATE
+    );
+    DatasetStream stream = Csv.obj().reader(new StringReader(content)).columns(columns).skipLines(1).batchSize(2).columnar().stream();
+    Dataset first = stream.next();
+    assertTrue(first instanceof ColumnarDataset);
+    assertEquals(2, first.size());
+    assertEquals(1, stream.next().size());
+    assertFalse(stream.hasNext());
+  }
+  
+  @Test
+  public void testStreamSum() throws Exception {
+    StringBuilder csv = new StringBuilder("col1,col2");
+    for (int i = 0; i < 100; i++) {
+      csv.append(System.lineSeparator()).append(i).append(",").append(i % 2 == 0 ? "" : "1");
+    }
+    ComputationResults results = Sum.sum(Csv.obj().reader(new StringReader(csv.toString())).batchSize(7).stream());
+    assertEquals(4950, results.get("sum").get(results.getColumnSet().get("col1")).get(), 0);
+    assertEquals(50, results.get("sum").get(results.getColumnSet().get("col2")).get(), 0);
+  }
+  
+  @Test
+  public void testGuessLines() throws IOException {
+    String csv = "col1,col2" + System.lineSeparator()
+        + "1," + System.lineSeparator()
+        + "2," + System.lineSeparator()
+        + "s3,4";
+    
+    CsvReader reader = new CsvReader();
+    reader.setGuessLines(2);
+    ColumnSet cs = reader.stream(new StringReader(csv), 10).getColumnSet();
+    assertEquals(Datatype.NUMERIC, cs.get("col1").getType());
+    assertEquals(Datatype.STRING, cs.get("col2").getType());
+    
+    cs = new CsvReader().read(new StringReader(csv)).getColumnSet();
+    assertEquals(Datatype.STRING, cs.get("col1").getType());
+    assertEquals(Datatype.NUMERIC, cs.get("col2").getType());
+  }
+  
+  @Test
+  public void testInfer() throws IOException {
+    CsvReader reader = new CsvReader();
+    reader.setGuessLines(10);
+    reader.setSampleLines(500);
+    TypeInference inference = reader.infer(new StringReader(lateErrors(10000, 20)));
+    
+    assertEquals(10000, inference.getTotalLines());
+    assertEquals(510, inference.getSampledLines());
+    ColumnSet cs = inference.getColumnSet();
+    assertEquals(Datatype.NUMERIC, cs.get("col1").getType());
+    assertEquals(Datatype.DATE, cs.get("col3").getType());
+    assertEquals(Datatype.STRING, cs.get("col4").getType());
+    assertEquals(1, inference.getConfidence("col1"), 0);
+    assertEquals(1, inference.getConfidence("col3"), 0);
+    assertEquals(0, inference.getConfidence("col4"), 0);
+    assertTrue(inference.toString().contains("col1: NUMERIC (confidence: 100.0%)"));
+  }
+  
+  @Test
+  public void testInferWithErrorRatio() throws IOException {
+    String csv = lateErrors(10000, 20);
+    CsvReader reader = new CsvReader();
+    reader.setGuessLines(10);
+    reader.setSampleLines(2000);
+    assertEquals(Datatype.STRING, reader.infer(new StringReader(csv)).getColumnSet().get("col2").getType());
+    
+    reader.setErrorRatio(0.1);
+    TypeInference inference = reader.infer(new StringReader(csv));
+    assertEquals(Datatype.NUMERIC, inference.getColumnSet().get("col2").getType());
+    assertTrue(inference.getConfidence("col2") < 1);
+    assertTrue(inference.getConfidence("col2") > 0.9);
+    
+    Dataset ds = reader.read(inference.getColumnSet(), new StringReader(csv), 1);
+    assertEquals(10000, ds.size());
+    assertTrue(NullValue.isNull(ds.getRow(9980).get(1)));
+    assertEquals(NumericValue.of(9979), ds.getRow(9979).get(1));
+  }
+  
+  @Test(expected = IllegalArgumentException.class)
+  public void testReadExceedingErrorRatio() throws IOException {
+    CsvReader reader = new CsvReader();
+    reader.setErrorRatio(0.1);
+    ColumnSet columns = reader.infer(new StringReader(lateErrors(10000, 20))).getColumnSet();
+    assertEquals(Datatype.NUMERIC, columns.get("col2").getType());
+    reader.read(columns, new StringReader(lateErrors(1000, 200)), 1);
+  }
+  
+  @Test
+  public void testInferWithManyColumns() throws IOException {
+    int columns = Conf.getParallelRowThreshold() / 100 + 1;
+    StringBuilder csv = new StringBuilder();
+    for (int c = 0; c < columns; c++) {
+      csv.append(c == 0 ? "" : ",").append("col").append(c);
+    }
+    for (int i = 0; i < 200; i++) {
+      csv.append(System.lineSeparator());
+      for (int c = 0; c < columns; c++) {
+        csv.append(c == 0 ? "" : ",").append(c % 2 == 0 ? Integer.toString(i) : "s" + i);
+      }
+    }
+    TypeInference inference = new CsvReader().infer(new StringReader(csv.toString()));
+    assertEquals(200, inference.getSampledLines());
+    assertEquals(columns, inference.getColumnSet().size());
+    for (int c = 0; c < columns; c++) {
+      assertEquals(c % 2 == 0 ? Datatype.NUMERIC : Datatype.STRING, inference.getColumnSet().get(c).getType());
+    }
+  }
+  
+  @Test(expected = IOException.class)
+  public void testInferEmpty() throws IOException {
+    new CsvReader().infer(new StringReader("col1,col2"));
+  }
+  
+  @Test
+  public void testReadWithErrorRatio() throws IOException {
+    String csv = "col1,col2" + System.lineSeparator()
+        + "1,2" + System.lineSeparator()
+        + "2,3" + System.lineSeparator()
+        + "3,n/a" + System.lineSeparator()
+        + "4,5";
+    Dataset ds = Csv.obj().reader(new StringReader(csv)).errorRatio(0.3).build();
+    assertEquals(Datatype.NUMERIC, ds.getColumnSet().get("col2").getType());
+    assertTrue(NullValue.isNull(ds.getRow(2).get(1)));
+    assertEquals(NumericValue.of(5), ds.getRow(3).get(1));
+  }
+  
+  @Test
+  public void testBlankValues() throws IOException {
+    StringBuilder csv = new StringBuilder("num,str,date");
+    for (int i = 0; i < 30; i++) {
+      csv.append(System.lineSeparator())
+         .append(i % 3 == 0 ? "" : Integer.toString(i)).append(",")
+         .append(i % 3 == 1 ? " " : "s" + i).append(",")
+         .append(i % 3 == 2 ? "" : String.format("2013-10-%02d 11:10:21.345", i % 28 + 1));
+    }
+    File file = File.createTempFile("blanks", ".csv");
+    try {
+      Files.write(file.toPath(), csv.toString().getBytes(StandardCharsets.UTF_8));
+      Csv[] builders = {
+          Csv.obj().file(file),
+          Csv.obj().file(file).sampleLines(10),
+          Csv.obj().file(file).sampleLines(10).errorRatio(0.1)
+      };
+      for (Csv builder : builders) {
+        assertBlanksAreNulls(builder.build(), 0);
+        try (DatasetStream stream = builder.batchSize(7).stream()) {
+          int offset = 0;
+          while (stream.hasNext()) {
+            Dataset batch = stream.next();
+            assertBlanksAreNulls(batch, offset);
+            offset += batch.size();
+          }
+          assertEquals(30, offset);
+        }
+      }
+    } finally {
+      file.delete();
+    }
+  }
+  
+  private void assertBlanksAreNulls(Dataset ds, int offset) {
+    assertEquals(Datatype.NUMERIC, ds.getColumnSet().get("num").getType());
+    assertEquals(Datatype.STRING, ds.getColumnSet().get("str").getType());
+    assertEquals(Datatype.DATE, ds.getColumnSet().get("date").getType());
+    for (int r = 0; r < ds.size(); r++) {
+      for (int c = 0; c < 3; c++) {
+        assertEquals("row " + (offset + r) + ", column " + c, (offset + r) % 3 == c, NullValue.isNull(ds.getRow(r).get(c)));
+      }
+    }
+  }
+  
+  // the values of the second column are numeric, except for the last ones
+  private String lateErrors(int lines, int errors) {
+    StringBuilder csv = new StringBuilder("col1,col2,col3,col4");
+    for (int i = 0; i < lines; i++) {
+      csv.append(System.lineSeparator())
+         .append(i).append(",")
+         .append(i < lines - errors ? Integer.toString(i) : "n/a").append(",")
+         .append(String.format("2013-10-%02d 11:10:21.345", i % 28 + 1)).append(",");
+    }
+    return csv.toString();
+  }
 
 }
@@ -0,0 +1,185 @@
+package org.sapia.tad.io.csv;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Test;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.ColumnSets;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.impl.columnar.ColumnarDataset;
+import org.sapia.tad.impl.columnar.StringColumnData;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.NumericValue;
+import org.sapia.tad.value.StringValue;
+
+public class MappedCsvReaderTest {
+
+  @Test
+  public void testRead() throws IOException {
+    String content = csv(1000);
+    MappedCsvReader reader = new MappedCsvReader();
+    reader.setMinRangeSize(64);
+    Dataset ds = reader.read(write(content));
+    Dataset expected = new CsvReader().read(new StringReader(content));
+
+    assertTrue(ds instanceof ColumnarDataset);
+    assertEquals(expected.getColumnSet(), ds.getColumnSet());
+    assertEquals(Datatype.NUMERIC, ds.getColumnSet().get("num").getType());
+    assertEquals(Datatype.STRING, ds.getColumnSet().get("str").getType());
+    assertEquals(Datatype.DATE, ds.getColumnSet().get("date").getType());
+    assertEquals(expected.size(), ds.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.getRow(i), ds.getRow(i));
+    }
+  }
+
+  @Test
+  public void testReadStringsDictionaryEncoded() throws IOException {
+    MappedCsvReader reader = new MappedCsvReader();
+    reader.setMinRangeSize(64);
+    ColumnarDataset ds = (ColumnarDataset) reader.read(write(csv(1000)));
+    assertTrue(ds.getColumnData("str") instanceof StringColumnData);
+    StringColumnData strings = (StringColumnData) ds.getColumnData("str");
+    for (int i = 0; i < ds.size(); i++) {
+      if (!strings.isNull(i)) {
+        assertSame(strings.getDictionary().get(strings.getCode(i)), ds.getRow(i).get(1));
+      }
+    }
+  }
+
+  @Test
+  public void testReadSingleRange() throws IOException {
+    String content = csv(10);
+    Dataset ds = new MappedCsvReader().read(write(content));
+    Dataset expected = new CsvReader().read(new StringReader(content));
+    assertEquals(10, ds.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.getRow(i), ds.getRow(i));
+    }
+  }
+
+  @Test
+  public void testReadWithSpecifiedColumnSet() throws IOException {
+    ColumnSet columns = ColumnSets.columnSet(
+        "num", Datatype.NUMERIC,
+        "str", Datatype.STRING,
+        "date", Datatype.DATE
+    );
+    String content = csv(500);
+    MappedCsvReader reader = new MappedCsvReader();
+    reader.setMinRangeSize(32);
+    Dataset ds = reader.read(columns, write(content), 1);
+    Dataset expected = new CsvReader().read(columns, new StringReader(content), 1);
+    assertEquals(expected.size(), ds.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.getRow(i), ds.getRow(i));
+    }
+  }
+
+  @Test
+  public void testReadQuotedFields() throws IOException {
+    String content = "a;b\r\n"
+        + "1;'x;y'\r\n"
+        + "\r\n"
+        + "2;'it''s\r\nmultiline'\r\n"
+        + "3;";
+    Dataset ds = new MappedCsvReader(';', '\'').read(write(content));
+    assertEquals(3, ds.size());
+    assertEquals(NumericValue.of(1), ds.getRow(0).get(0));
+    assertEquals(StringValue.of("x;y"), ds.getRow(0).get(1));
+    assertEquals(StringValue.of("it's\r\nmultiline"), ds.getRow(1).get(1));
+    assertTrue(NullValue.isNull(ds.getRow(2).get(1)));
+  }
+
+  @Test
+  public void testReadStrayQuotesMultipleRanges() throws IOException {
+    StringBuilder content = new StringBuilder("num,str");
+    for (int i = 0; i < 200; i++) {
+      content.append("\n").append(i).append(",");
+      if (i % 10 == 3) {
+        content.append("5\" screen");
+      } else if (i % 5 == 0) {
+        content.append("\"multi,\nline ").append(i).append("\"");
+      } else {
+        content.append("s").append(i);
+      }
+    }
+    File file = write(content.toString());
+    MappedCsvReader reader = new MappedCsvReader();
+    reader.setMinRangeSize(16);
+    Dataset ds = reader.read(file);
+    Dataset expected = new MappedCsvReader().read(file);
+
+    assertEquals(200, expected.size());
+    assertEquals(StringValue.of("5\" screen"), expected.getRow(3).get(1));
+    assertEquals(StringValue.of("multi,\nline 5"), expected.getRow(5).get(1));
+    assertEquals(expected.size(), ds.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.getRow(i), ds.getRow(i));
+    }
+  }
+
+  @Test
+  public void testReadEmpty() throws IOException {
+    Dataset ds = new MappedCsvReader().read(write("num,str" + System.lineSeparator() + "1,s"));
+    assertEquals(1, ds.size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testReadInvalidColumnCount() throws IOException {
+    ColumnSet columns = ColumnSets.columnSet("num", Datatype.NUMERIC, "str", Datatype.STRING);
+    new MappedCsvReader().read(columns, write("1,s" + System.lineSeparator() + "2"), 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testReadInvalidNumber() throws IOException {
+    ColumnSet columns = ColumnSets.columnSet("num", Datatype.NUMERIC);
+    new MappedCsvReader().read(columns, write("1" + System.lineSeparator() + "x"), 0);
+  }
+
+  @Test
+  public void testCsvMapped() throws IOException {
+    String content = csv(100);
+    Dataset ds = Csv.obj().file(write(content)).mapped().build();
+    assertTrue(ds instanceof ColumnarDataset);
+    assertEquals(100, ds.size());
+  }
+
+  private String csv(int rows) {
+    StringBuilder csv = new StringBuilder("num,str,date");
+    for (int i = 0; i < rows; i++) {
+      csv.append(System.lineSeparator()).append(i % 7 == 0 ? "" : i * 1.25).append(",");
+      switch (i % 4) {
+        case 0:
+          csv.append("s").append(i);
+          break;
+        case 1:
+          csv.append("\"quoted, with comma ").append(i).append("\"");
+          break;
+        case 2:
+          csv.append("\"quoted \"\"with\"\" quotes\nand a line break\"");
+          break;
+        default:
+          csv.append("");
+      }
+      csv.append(",2013-10-31 11:10:").append(10 + i % 50).append(".345");
+    }
+    return csv.toString();
+  }
+
+  private File write(String content) throws IOException {
+    File f = File.createTempFile("mapped", ".csv");
+    f.deleteOnExit();
+    Files.write(f.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    return f;
+  }
+}
@@ -0,0 +1,67 @@
+package org.sapia.tad.io.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+import org.sapia.tad.io.csv.CsvLine;
+
+public class LineSampleTest {
+
+  @Test
+  public void testHeadOnly() {
+    LineSample sample = new LineSample(10, 5, new Random(1));
+    for (int i = 0; i < 8; i++) {
+      sample.add(line(i));
+    }
+    List<Line> lines = sample.getLines();
+    assertEquals(8, sample.getCount());
+    assertEquals(8, lines.size());
+    for (int i = 0; i < 8; i++) {
+      assertEquals(Integer.toString(i), lines.get(i).get(0));
+    }
+  }
+
+  @Test
+  public void testReservoir() {
+    LineSample sample = new LineSample(10, 50, new Random(1));
+    for (int i = 0; i < 10000; i++) {
+      sample.add(line(i));
+    }
+    List<Line> lines = sample.getLines();
+    assertEquals(10000, sample.getCount());
+    assertEquals(60, lines.size());
+    for (int i = 0; i < 10; i++) {
+      assertEquals(Integer.toString(i), lines.get(i).get(0));
+    }
+    Set<String> distinct = new HashSet<>();
+    int         late     = 0;
+    for (Line l : lines.subList(10, 60)) {
+      int value = Integer.parseInt(l.get(0));
+      assertTrue(value >= 10);
+      late += value >= 5000 ? 1 : 0;
+      distinct.add(l.get(0));
+    }
+    assertEquals(50, distinct.size());
+    assertTrue("Expected lines sampled from the whole input, got " + late + " late lines", late > 10 && late < 40);
+  }
+
+  @Test
+  public void testNoReservoir() {
+    LineSample sample = new LineSample(2, 0, new Random(1));
+    for (int i = 0; i < 100; i++) {
+      sample.add(line(i));
+    }
+    assertEquals(2, sample.getLines().size());
+    assertEquals(100, sample.getCount());
+  }
+
+  private Line line(int i) {
+    return new CsvLine(new String[] { Integer.toString(i) });
+  }
+}
@@ -0,0 +1,187 @@
+package org.sapia.tad.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.conf.Conf;
+import org.sapia.tad.conf.ConfProvider;
+import org.sapia.tad.conf.DefaultConfProvider;
+import org.sapia.tad.value.DateValue;
+import org.sapia.tad.util.DefaultRef;
+import org.sapia.tad.value.NullValue;
+
+public class DateParserTest {
+
+  @Test
+  public void testParseDefaultFormats() throws ParseException {
+    DateParser parser = new DateParser();
+    Random     rand   = new Random(7);
+    for (int i = 0; i < 1000; i++) {
+      Date date = new Date((long) (rand.nextDouble() * 4000000000000L));
+      for (DateFormat f : Conf.getDateFormats()) {
+        SimpleDateFormat format   = (SimpleDateFormat) f.clone();
+        String           content  = format.format(date);
+        long             expected = format.parse(content).getTime();
+        assertEquals(content, expected, parser.parseTime(content));
+        assertEquals(new DateValue(expected), parser.parse(content));
+      }
+    }
+  }
+
+  @Test
+  public void testParseWithTimeZone() {
+    SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+    format.setTimeZone(TimeZone.getTimeZone("UTC"));
+    DateParser parser = new DateParser(Arrays.<DateFormat>asList(format));
+    assertEquals(0, parser.parseTime("1970-01-01T00:00:00.000Z"));
+    assertEquals(951782400123L, parser.parseTime("2000-02-29T00:00:00.123Z"));
+  }
+
+  @Test
+  public void testParseWithFormatter() throws ParseException {
+    SimpleDateFormat format = new SimpleDateFormat("d/M/yyyy H:mm");
+    DateParser       parser = new DateParser(Arrays.<DateFormat>asList(format));
+    assertEquals(format.parse("5/3/2014 7:05").getTime(), parser.parseTime("5/3/2014 7:05"));
+    assertEquals(format.parse("25/12/2014 17:45").getTime(), parser.parseTime("25/12/2014 17:45"));
+    assertEquals(format.parse("5/3/2014 7:05 and more").getTime(), parser.parseTime("5/3/2014 7:05 and more"));
+    assertEquals(format.parse("32/3/2014 7:05").getTime(), parser.parseTime("32/3/2014 7:05"));
+    assertFalse(parser.isDate("5/March/2014 7:05"));
+  }
+
+  @Test
+  public void testParseDateOnlyWithFormatter() throws ParseException {
+    SimpleDateFormat format = new SimpleDateFormat("d/M/yyyy");
+    DateParser       parser = new DateParser(Arrays.<DateFormat>asList(format));
+    assertEquals(format.parse("5/3/2014").getTime(), parser.parseTime("5/3/2014"));
+  }
+
+  @Test
+  public void testParseWithLegacyFormat() throws ParseException {
+    SimpleDateFormat format = new SimpleDateFormat("yyyy-DDD");
+    DateParser       parser = new DateParser(Arrays.<DateFormat>asList(format));
+    assertEquals(format.parse("2014-064").getTime(), parser.parseTime("2014-064"));
+  }
+
+  @Test
+  public void testPatternSwitch() throws ParseException {
+    SimpleDateFormat slashes = new SimpleDateFormat("yyyy/MM/dd");
+    SimpleDateFormat dashes  = new SimpleDateFormat("yyyy-MM-dd");
+    DateParser       parser  = new DateParser(Arrays.<DateFormat>asList(slashes, dashes));
+    assertEquals(dashes.parse("2014-03-05").getTime(), parser.parseTime("2014-03-05"));
+    assertEquals(dashes.parse("2014-03-06").getTime(), parser.parseTime("2014-03-06"));
+    assertEquals(slashes.parse("2014/03/07").getTime(), parser.parseTime("2014/03/07"));
+  }
+
+  @Test
+  public void testParseLenient() throws ParseException {
+    SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    DateParser       parser = new DateParser();
+    for (String content : new String[] {
+        "2014-1-5 1:2:3", "2014-01-01 10:00:00 extra", "2014-13-01 00:00:00",
+        "2013-02-29 11:10:21", "2013-10-31 24:10:21" }) {
+      assertEquals(content, format.parse(content).getTime(), parser.parseTime(content));
+    }
+    assertEquals(
+        new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").parse("2013-13-31 11:10:21.345").getTime(),
+        parser.parseTime("2013-13-31 11:10:21.345")
+    );
+  }
+
+  @Test
+  public void testParseLenientSkipsNonDates() throws ParseException {
+    final AtomicInteger calls  = new AtomicInteger();
+    SimpleDateFormat    format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss") {
+      @Override
+      public Date parse(String text, ParsePosition pos) {
+        calls.incrementAndGet();
+        return super.parse(text, pos);
+      }
+    };
+    DateParser parser = new DateParser(Arrays.<DateFormat>asList(format));
+    for (String content : new String[] { "1.5", "123", "-42", "some text", "n/a", "2014-01-01", "2014-01-01 10:00" }) {
+      assertFalse(content, parser.isDate(content));
+    }
+    assertTrue(parser.isDate("2014-01-01 10:00:00"));
+    assertEquals(0, calls.get());
+    assertEquals(format.parse("2014-1-5 1:2:3").getTime(), parser.parseTime("2014-1-5 1:2:3"));
+    assertFalse(parser.isDate("2014-01-0x 10:00:00"));
+  }
+
+  @Test
+  public void testParseEarlyAndLateDates() throws ParseException {
+    Random rand = new Random(11);
+    for (String zone : new String[] { "UTC", "America/New_York", "Europe/Paris", "Asia/Kolkata", "Africa/Casablanca" }) {
+      SimpleDateFormat template  = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+      SimpleDateFormat formatter = new SimpleDateFormat("d/M/yyyy H:mm:ss");
+      template.setTimeZone(TimeZone.getTimeZone(zone));
+      formatter.setTimeZone(TimeZone.getTimeZone(zone));
+      for (SimpleDateFormat format : Arrays.asList(template, formatter)) {
+        DateParser parser = new DateParser(Arrays.<DateFormat>asList(format));
+        for (int i = 0; i < 1000; i++) {
+          // from the 11th century to the 22nd
+          Date   date    = new Date((long) ((rand.nextDouble() * 1.2 - 1) * 30000000000000L));
+          String content = format.format(date);
+          assertEquals(zone + ": " + content, format.parse(content).getTime(), parser.parseTime(content));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testIsDate() {
+    DateParser parser = new DateParser();
+    assertTrue(parser.isDate("2013-10-31 11:10:21.345"));
+    assertTrue(parser.isDate("20131031111021"));
+    assertTrue(parser.isDate("2013-10-31 1:10:21"));
+    assertFalse(parser.isDate("2013-10-31"));
+    assertFalse(parser.isDate("1.5"));
+    assertFalse(parser.isDate("123"));
+    assertFalse(parser.isDate(""));
+  }
+
+  @Test
+  public void testFormatAddedToConf() throws ParseException {
+    DefaultConfProvider conf = new DefaultConfProvider();
+    Conf.setProvider(new DefaultRef<ConfProvider>(conf));
+    try {
+      DateParser parser = new DateParser();
+      assertFalse(parser.isDate("05.03.2014"));
+      SimpleDateFormat format = new SimpleDateFormat("dd.MM.yyyy");
+      conf.addDateFormat(format);
+      assertEquals(format.parse("05.03.2014").getTime(), parser.parseTime("05.03.2014"));
+      assertTrue(parser.isDate("2013-10-31 11:10:21.345"));
+    } finally {
+      Conf.setProvider(new DefaultRef<ConfProvider>(new DefaultConfProvider()));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testParseInvalid() {
+    new DateParser().parse("not a date");
+  }
+
+  @Test
+  public void testCompare() {
+    DateValue d1 = new DateValue(1000);
+    DateValue d2 = new DateValue(new Date(2000));
+    assertTrue(Datatype.DATE.strategy().isType(d1));
+    assertTrue(Datatype.DATE.strategy().compareTo(d1, d2) < 0);
+    assertTrue(Datatype.DATE.strategy().compareTo(d2, d1) > 0);
+    assertEquals(0, Datatype.DATE.strategy().compareTo(d1, new DateValue(1000)));
+    assertTrue(Datatype.DATE.strategy().compareTo(NullValue.getInstance(), d1) < 0);
+    assertTrue(Datatype.DATE.strategy().compareTo(d1, NullValue.getInstance()) > 0);
+  }
+}
@@ -0,0 +1,130 @@
+package org.sapia.tad.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DoublesTest {
+
+  @Test
+  public void testParse() {
+    String[] values = {
+        "0", "-0", "1", "-1", "+1", "0.1", ".5", "5.", "123.456", "-123.456", "1e10", "1E-10", "1.5e+3",
+        "9007199254740993", "123456789012345678901234567890", "0.30000000000000004", "1e22", "1e23",
+        "1.7976931348623157e308", "4.9e-324", "2.2250738585072014E-308", "1e400", "1e-400",
+        "NaN", "Infinity", "-Infinity", "  42  ", "000123.4500"
+    };
+    for (String v : values) {
+      assertParsed(v);
+    }
+  }
+
+  @Test
+  public void testParseRandom() {
+    Random rand = new Random(42);
+    for (int i = 0; i < 100000; i++) {
+      double d;
+      switch (i % 4) {
+        case 0:
+          d = rand.nextDouble();
+          break;
+        case 1:
+          d = (rand.nextDouble() - 0.5) * Math.pow(10, rand.nextInt(40) - 20);
+          break;
+        case 2:
+          d = rand.nextInt(1000000) / 100.0;
+          break;
+        default:
+          d = Double.longBitsToDouble(rand.nextLong());
+      }
+      assertParsed(Double.toString(d));
+      assertParsed(String.format("%.6f", d));
+    }
+  }
+
+  @Test
+  public void testParseSubrange() {
+    byte[] bytes = "abc,12.5,def".getBytes(StandardCharsets.US_ASCII);
+    assertEquals(12.5, Doubles.parse(bytes, 4, 8), 0);
+  }
+
+  @Test
+  public void testParseChars() {
+    Random rand = new Random(7);
+    for (int i = 0; i < 10000; i++) {
+      String value = Double.toString(Double.longBitsToDouble(rand.nextLong()));
+      double expected = Double.parseDouble(value);
+      assertEquals(value, Double.doubleToLongBits(expected), Double.doubleToLongBits(Doubles.parse(value, 0, value.length())));
+      assertEquals(value, Double.doubleToLongBits(expected), Double.doubleToLongBits(Doubles.parse(value.toCharArray(), 0, value.length())));
+    }
+    assertEquals(12.5, Doubles.parse("abc,12.5,def".toCharArray(), 4, 8), 0);
+  }
+
+  @Test
+  public void testParseHardCases() {
+    String[] values = {
+        // halfway cases, and cases close to halfway points
+        "9007199254740993", "9007199254740995", "2.2250738585072011e-308", "2.2250738585072012e-308",
+        "1.00000000000000011102230246251565404236316680908203125", "7.2057594037927933e16",
+        "123456789012345678", "0.000000000000000000000000000000000000783", "1e-45", "1e-320", "5e-324",
+        "1.7976931348623157e308", "1.7976931348623159e308", "179769313486231580793728971405301e276",
+        "3.4028236692093846346337460743176821145e38", "8.98846567431158e307", "1e-348", "1e347"
+    };
+    for (String v : values) {
+      assertParsed(v);
+      assertEquals(v, Double.doubleToLongBits(Double.parseDouble(v)), Double.doubleToLongBits(Doubles.parse(v, 0, v.length())));
+    }
+  }
+
+  @Test
+  public void testIsDouble() {
+    String[] valid = {
+        "0", "-1", "+1.5", ".5", "5.", "1e10", "1E-10", " 42 ", "NaN", "-Infinity", "1.5d", "2f", "0x1p3", "-0x1.8p1",
+        "123456789012345678901234567890"
+    };
+    for (String v : valid) {
+      assertTrue(v, Doubles.isDouble(v, 0, v.length()));
+      byte[] bytes = v.getBytes(StandardCharsets.US_ASCII);
+      assertTrue(v, Doubles.isDouble(bytes, 0, bytes.length));
+    }
+    String[] invalid = { "", "  ", "-", ".", "e5", "1e", "1e+", "12a", "1.2.3", "--1", "nan", "Inf", "0x", "1 2", "2013-10-31" };
+    for (String v : invalid) {
+      assertFalse(v, Doubles.isDouble(v, 0, v.length()));
+      assertFalse(v, Doubles.isDouble(v.toCharArray(), 0, v.length()));
+    }
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void testParseInvalidChars() {
+    Doubles.parse("12a", 0, 3);
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void testParseInvalid() {
+    parse("12a");
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void testParseEmpty() {
+    parse("  ");
+  }
+
+  @Test(expected = NumberFormatException.class)
+  public void testParseSignOnly() {
+    parse("-");
+  }
+
+  private void assertParsed(String value) {
+    assertEquals(value, Double.doubleToLongBits(Double.parseDouble(value)), Double.doubleToLongBits(parse(value)));
+  }
+
+  private double parse(String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+    return Doubles.parse(bytes, 0, bytes.length);
+  }
+}
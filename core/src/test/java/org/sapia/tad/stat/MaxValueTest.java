@@ -23,5 +23,22 @@ public class MaxValueTest {
     max.set(20);
     assertEquals(20, max.get(), 0);
   }
+  
+  @Test
+  public void testSet_negative() {
+    max.set(-10);
+    assertEquals(-10, max.get(), 0);
+    max.set(-20);
+    assertEquals(-10, max.get(), 0);
+  }
+  
+  @Test
+  public void testMergeWith() {
+    max.accumulate(-5);
+    max.mergeWith(new MaxValue().accumulate(-3));
+    assertEquals(-3, max.get(), 0);
+    max.mergeWith(new MaxValue());
+    assertEquals(-3, max.get(), 0);
+  }
 
 }
@@ -33,5 +33,21 @@ public class MeanValueTest {
     value.increase(2);
     assertEquals(new NumericValue(2), value);
   }
+  
+  @Test
+  public void testMergeWith() {
+    value.accumulate(1).accumulate(2).accumulate(3);
+    value.mergeWith(new MeanValue().accumulate(10));
+    assertEquals(4d, value.get(), 0);
+    assertEquals(4, value.getCount());
+  }
+  
+  @Test
+  public void testInit() {
+    value.accumulate(1);
+    value.init();
+    assertEquals(0, value.getCount());
+    assertEquals(0d, value.get(), 0);
+  }
 
 }
@@ -14,5 +14,14 @@ public class MinValueTest {
     min.set(3);
     assertEquals(3d, min.get(), 0);
   }
+  
+  @Test
+  public void testMergeWith() {
+    MinValue min = new MinValue().accumulate(5);
+    min.mergeWith(new MinValue().accumulate(3));
+    assertEquals(3d, min.get(), 0);
+    min.mergeWith(new MinValue());
+    assertEquals(3d, min.get(), 0);
+  }
 
 }
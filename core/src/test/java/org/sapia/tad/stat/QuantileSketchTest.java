@@ -0,0 +1,62 @@
+package org.sapia.tad.stat;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class QuantileSketchTest {
+
+  private static final int SIZE = 200000;
+
+  @Test
+  public void testGetQuantile() {
+    QuantileSketch sketch = new QuantileSketch(QuantileSketch.DEFAULT_K, new Random(1));
+    for (int i = 0; i < SIZE; i++) {
+      sketch.add((i * 7919L) % SIZE);
+    }
+    assertEquals(SIZE, sketch.getCount());
+    assertTrue("Retained: " + sketch.getRetained(), sketch.getRetained() < 2000);
+    for (double q : new double[] { 0.01, 0.25, 0.5, 0.95, 0.99 }) {
+      assertEquals("Quantile " + q, q * SIZE, sketch.getQuantile(q), SIZE * 0.02);
+    }
+    assertEquals(0, sketch.getQuantile(0), 0);
+    assertEquals(SIZE - 1, sketch.getQuantile(1), 0);
+  }
+  
+  @Test
+  public void testMergeWith() {
+    Random         random = new Random(1);
+    QuantileSketch merged = new QuantileSketch(QuantileSketch.DEFAULT_K, random);
+    for (int p = 0; p < 4; p++) {
+      QuantileSketch partial = new QuantileSketch(QuantileSketch.DEFAULT_K, random);
+      for (int i = p; i < SIZE; i += 4) {
+        partial.add(i);
+      }
+      merged.mergeWith(partial);
+    }
+    assertEquals(SIZE, merged.getCount());
+    for (double q : new double[] { 0.05, 0.5, 0.95 }) {
+      assertEquals("Quantile " + q, q * SIZE, merged.getQuantile(q), SIZE * 0.02);
+    }
+    assertEquals(0, merged.getMin(), 0);
+    assertEquals(SIZE - 1, merged.getMax(), 0);
+  }
+  
+  @Test
+  public void testEmpty() {
+    QuantileSketch sketch = new QuantileSketch();
+    assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+    sketch.mergeWith(new QuantileSketch());
+    assertEquals(0, sketch.getCount());
+  }
+  
+  @Test
+  public void testSmallInput() {
+    QuantileSketch sketch = new QuantileSketch();
+    sketch.add(3).add(1).add(2);
+    assertEquals(2, sketch.getQuantile(0.5), 0);
+  }
+}
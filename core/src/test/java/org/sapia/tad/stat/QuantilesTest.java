@@ -0,0 +1,67 @@
+package org.sapia.tad.stat;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class QuantilesTest {
+
+  @Test
+  public void testSelect() {
+    Random random = new Random(1);
+    for (int n : new int[] { 1, 2, 3, 10, 101, 1000 }) {
+      double[] values = new double[n];
+      for (int i = 0; i < n; i++) {
+        values[i] = random.nextInt(n / 2 + 1);
+      }
+      double[] sorted = values.clone();
+      Arrays.sort(sorted);
+      for (int k = 0; k < n; k += Math.max(1, n / 7)) {
+        assertEquals(sorted[k], Quantiles.select(values.clone(), k), 0);
+      }
+    }
+  }
+  
+  @Test
+  public void testQuantile_interpolation() {
+    assertEquals(7.5, Quantiles.quantile(new double[] { 10, 5 }, 0.5), 0);
+    assertEquals(10, Quantiles.quantile(new double[] { 15, 5, 10 }, 0.5), 0);
+    assertEquals(5, Quantiles.quantile(new double[] { 15, 5, 10 }, 0), 0);
+    assertEquals(15, Quantiles.quantile(new double[] { 15, 5, 10 }, 1), 0);
+    assertEquals(13.5, Quantiles.quantile(new double[] { 15, 5, 10 }, 0.85), 0.000001);
+  }
+  
+  @Test
+  public void testQuantiles() {
+    double[] values = new double[1001];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = values.length - i - 1;
+    }
+    double[] quantiles = Quantiles.quantiles(values, new double[] { 0.99, 0.5, 0.95, 0.0 });
+    assertArrayEquals(new double[] { 990, 500, 950, 0 }, quantiles, 0);
+  }
+  
+  @Test
+  public void testQuantiles_empty() {
+    assertTrue(Double.isNaN(Quantiles.quantile(new double[0], 0.5)));
+  }
+  
+  @Test(expected = IllegalArgumentException.class)
+  public void testQuantiles_invalid() {
+    Quantiles.quantile(new double[] { 1 }, 1.5);
+  }
+  
+  @Test
+  public void testName() {
+    assertEquals("p50", Quantiles.name(0.5));
+    assertEquals("p95", Quantiles.name(0.95));
+    assertEquals("p99.9", Quantiles.name(0.999));
+    assertEquals("p0", Quantiles.name(0));
+    assertEquals("p100", Quantiles.name(1));
+  }
+}
@@ -3,6 +3,7 @@ package org.sapia.tad.stat;
 import org.junit.Before;
 import org.junit.Test;
 import org.sapia.tad.*;
+import org.sapia.tad.computation.ComputationResults;
 import org.sapia.tad.impl.DefaultColumn;
 import org.sapia.tad.impl.DefaultDataset;
 import org.sapia.tad.impl.DefaultVector;
@@ -10,6 +11,7 @@ import org.sapia.tad.util.Data;
 import org.sapia.tad.value.Value;
 import org.sapia.tad.value.Values;
 
+import java.util.Arrays;
 import java.util.Random;
 import java.util.function.Function;
 
@@ -52,6 +54,46 @@ public class StatsTest {
     }
   }
 
+  @Test
+  public void testQuantiles() throws Exception {
+    Dataset dataset = new DefaultDataset(
+            Data.list(new DefaultColumn(0, Datatype.NUMERIC, "col0")),
+            Data.list(101, () -> Vectors.vector(rand.nextInt(1000)))
+    );
+    double[] values = dataset.getNumericColumn(0).toDoubleArray();
+    Arrays.sort(values);
+
+    ComputationResults results = Stats.quantiles(dataset, new double[] { 0.5, 0.95 });
+    Column col = dataset.getColumnSet().get("col0");
+    assertEquals(values[50], results.get("p50").get(col).get(), 0);
+    assertEquals(values[95], results.get("p95").get(col).get(), 0);
+  }
+
+  @Test
+  public void testSummary_median() throws Exception {
+    Dataset dataset = new DefaultDataset(
+            Data.list(new DefaultColumn(0, Datatype.NUMERIC, "col0")),
+            Data.list(Vectors.vector(30), Vectors.vector(10), Vectors.vector(20), Vectors.vector(40))
+    );
+    ComputationResults results = Stats.summary(dataset);
+    assertEquals(25, results.get(Stats.MEDIAN).get(dataset.getColumnSet().get("col0")).get(), 0);
+  }
+
+  @Test
+  public void testSummary_stream() throws Exception {
+    Dataset dataset = new DefaultDataset(
+            Data.list(new DefaultColumn(0, Datatype.NUMERIC, "col0"), new DefaultColumn(1, Datatype.NUMERIC, "col1")),
+            Data.list(99, () -> Vectors.vector(rand.nextInt(1000), rand.nextInt(10)))
+    );
+    ComputationResults expected = Stats.summary(dataset);
+    ComputationResults actual   = Stats.summary(DatasetStreams.stream(dataset, 10));
+    for (Column col : dataset.getColumnSet()) {
+      for (String stat : new String[] { Stats.COUNT, Stats.SUM, Stats.MEAN, Stats.VARIANCE, Stats.MIN, Stats.MAX, Stats.MEDIAN }) {
+        assertEquals(stat, expected.get(stat).get(col).get(), actual.get(stat).get(col).get(), 1e-9);
+      }
+    }
+  }
+
   private Vector vector() {
     return Vectors.vector(10 + rand.nextInt(100), 10 + rand.nextInt(100), 10 + rand.nextInt(100), 10 + rand.nextInt(100));
   }
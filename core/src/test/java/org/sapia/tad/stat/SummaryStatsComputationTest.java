@@ -0,0 +1,135 @@
+package org.sapia.tad.stat;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.ColumnSets;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.RowSet;
+import org.sapia.tad.RowSets;
+import org.sapia.tad.computation.ComputationResults;
+import org.sapia.tad.computation.ComputationTask;
+import org.sapia.tad.computation.PartitionedComputationTask;
+import org.sapia.tad.util.Time;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.NumericValue;
+import org.sapia.tad.value.Value;
+import org.sapia.tad.value.Values;
+
+public class SummaryStatsComputationTest {
+  
+  private ForkJoinPool    pool;
+  private ColumnSet       columns;
+  
+  @Before
+  public void setUp() {
+    pool     = new ForkJoinPool(4);
+    columns  = ColumnSets.columnSet("col0", Datatype.NUMERIC, "col1", Datatype.STRING);
+  }
+  
+  @After
+  public void tearDown() {
+    pool.shutdownNow();
+  }
+
+  @Test
+  public void testCompute() {
+    RowSet rows = RowSets.rowSet(new Value[][] {
+        Values.array(5, "row1"),
+        Values.array(10, "row2"),
+        Values.array(15, "row3")
+    });
+    ComputationResults results = ComputationResults.newInstance(columns);
+    new SummaryStatsComputation().compute(results, rows);
+    
+    assertEquals(new NumericValue(3), results.get(Stats.COUNT).get(columns.get("col0")));
+    assertEquals(new NumericValue(30), results.get(Stats.SUM).get(columns.get("col0")));
+    assertEquals(new NumericValue(10), results.get(Stats.MEAN).get(columns.get("col0")));
+    assertEquals(50d / 3, results.get(Stats.VARIANCE).get(columns.get("col0")).get(), 0.000001);
+    assertEquals(Math.sqrt(50d / 3), results.get(Stats.STDDEV).get(columns.get("col0")).get(), 0.000001);
+    assertEquals(new NumericValue(5), results.get(Stats.MIN).get(columns.get("col0")));
+    assertEquals(new NumericValue(15), results.get(Stats.MAX).get(columns.get("col0")));
+  }
+  
+  @Test
+  public void testCompute_skipsNulls() {
+    RowSet rows = RowSets.rowSet(new Value[][] {
+        Values.array(-5, "row1"),
+        new Value[] { NullValue.getInstance(), Values.array("row2")[0] },
+        Values.array(-15, "row3")
+    });
+    ComputationResults results = ComputationResults.newInstance(columns);
+    new SummaryStatsComputation().compute(results, rows);
+    
+    assertEquals(new NumericValue(2), results.get(Stats.COUNT).get(columns.get("col0")));
+    assertEquals(new NumericValue(-10), results.get(Stats.MEAN).get(columns.get("col0")));
+    assertEquals(new NumericValue(-15), results.get(Stats.MIN).get(columns.get("col0")));
+    assertEquals(new NumericValue(-5), results.get(Stats.MAX).get(columns.get("col0")));
+  }
+  
+  @Test
+  public void testCompute_empty() {
+    ComputationResults results = ComputationResults.newInstance(columns);
+    new SummaryStatsComputation().compute(results, RowSets.rowSet(new Value[0][]));
+    
+    assertEquals(new NumericValue(0), results.get(Stats.COUNT).get(columns.get("col0")));
+    assertTrue(NullValue.isNull(results.get(Stats.MEAN).get(columns.get("col0"))));
+  }
+
+  @Test
+  public void testCompute_parallel() throws Exception {
+    Random random = new Random(1);
+    List<Value[]> data = new ArrayList<>();
+    for (int i = 0; i < 50017; i++) {
+      data.add(Values.array(random.nextGaussian() * 100 + 1000, "row" + i));
+    }
+    RowSet rows = RowSets.rowSet(data.toArray(new Value[data.size()][]));
+    
+    ComputationResults sequential = ComputationResults.newInstance(columns);
+    new SummaryStatsComputation().compute(sequential, rows);
+    
+    ComputationTask task = new PartitionedComputationTask(pool, new Time(30, TimeUnit.SECONDS), 1000);
+    task.add(new SummaryStatsComputation());
+    ComputationResults parallel = task.compute(columns, rows);
+    
+    for (String name : new String[] { Stats.COUNT, Stats.SUM, Stats.MEAN, Stats.VARIANCE, Stats.STDDEV, Stats.MIN, Stats.MAX }) {
+      assertEquals(name,
+          sequential.get(name).get(columns.get("col0")).get(), 
+          parallel.get(name).get(columns.get("col0")).get(), 
+          0.000001
+      );
+    }
+  }
+  
+  @Test
+  public void testMergeWith() {
+    SummaryStats all   = new SummaryStats();
+    SummaryStats left  = new SummaryStats();
+    SummaryStats right = new SummaryStats();
+    for (int i = 0; i < 100; i++) {
+      all.add(i);
+      if (i < 37) {
+        left.add(i);
+      } else {
+        right.add(i);
+      }
+    }
+    left.mergeWith(right);
+    assertEquals(all.getCount(), left.getCount());
+    assertEquals(all.getSum(), left.getSum(), 0);
+    assertEquals(all.getMean(), left.getMean(), 0.000001);
+    assertEquals(all.getVariance(), left.getVariance(), 0.000001);
+    assertEquals(0, left.getMin(), 0);
+    assertEquals(99, left.getMax(), 0);
+  }
+}
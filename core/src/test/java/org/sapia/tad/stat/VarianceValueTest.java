@@ -0,0 +1,43 @@
+package org.sapia.tad.stat;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class VarianceValueTest {
+
+  @Test
+  public void testAccumulate() {
+    VarianceValue variance = new VarianceValue();
+    variance.accumulate(5).accumulate(10).accumulate(15);
+    assertEquals(50d / 3, variance.get(), 0.000001);
+  }
+  
+  @Test
+  public void testMergeWith() {
+    VarianceValue all   = new VarianceValue();
+    VarianceValue left  = new VarianceValue();
+    VarianceValue right = new VarianceValue();
+    for (int i = 0; i < 50; i++) {
+      all.accumulate(i * i);
+      if (i % 3 == 0) {
+        left.accumulate(i * i);
+      } else {
+        right.accumulate(i * i);
+      }
+    }
+    assertEquals(all.get(), left.mergeWith(right).get(), 0.000001);
+  }
+  
+  @Test
+  public void testStdDev() {
+    VarianceValue stddev = new VarianceValue.StdDevValue();
+    stddev.accumulate(2).accumulate(4).accumulate(4).accumulate(4).accumulate(5).accumulate(5).accumulate(7).accumulate(9);
+    assertEquals(2d, stddev.get(), 0);
+  }
+  
+  @Test
+  public void testEmpty() {
+    assertEquals(0d, new VarianceValue().get(), 0);
+  }
+}
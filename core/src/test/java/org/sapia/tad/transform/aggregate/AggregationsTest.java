@@ -0,0 +1,352 @@
+package org.sapia.tad.transform.aggregate;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.ColumnSets;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.DatasetStreams;
+import org.sapia.tad.Datasets;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.Vector;
+import org.sapia.tad.Vectors;
+import org.sapia.tad.conf.Conf;
+import org.sapia.tad.conf.ConfProvider;
+import org.sapia.tad.conf.DefaultConfProvider;
+import org.sapia.tad.impl.DefaultDataset;
+import org.sapia.tad.impl.columnar.ColumnarDataset;
+import org.sapia.tad.util.DefaultRef;
+import org.sapia.tad.util.Numbers;
+import org.sapia.tad.util.Time;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.NumericValue;
+import org.sapia.tad.value.Value;
+
+public class AggregationsTest {
+
+  private Dataset rows;
+
+  @Before
+  public void setUp() {
+    ColumnSet    columns = ColumnSets.columnSet(
+        "key", Datatype.NUMERIC, "str", Datatype.STRING, "num", Datatype.NUMERIC
+    );
+    Random       random  = new Random(11);
+    List<Vector> data    = new ArrayList<>();
+    for (int i : Numbers.range(2000)) {
+      data.add(Vectors.vector(
+          new Integer(random.nextInt(300)),
+          i % 13 == 0 ? null : "k" + random.nextInt(3),
+          i % 9 == 0 ? null : new Double(random.nextInt(1000) - 500) / 8
+      ));
+    }
+    rows = new DefaultDataset(columns, data);
+  }
+
+  @Test
+  public void testAggregate() throws IOException {
+    Dataset result = Aggregations.aggregate(rows, Arrays.asList("key", "str"),
+        Aggregations.sum("num"), Aggregations.count(), Aggregations.count("num"),
+        Aggregations.min("num"), Aggregations.max("num"), Aggregations.mean("num").as("avg"));
+    assertEquals(
+        Arrays.asList("key", "str", "sum_num", "count", "count_num", "min_num", "max_num", "avg"),
+        result.getColumnSet().getColumnNames()
+    );
+    assertResults(expected(), result);
+  }
+
+  @Test
+  public void testGroupBy() throws IOException {
+    Dataset result = Aggregations.groupBy(rows, "key", "str").agg(
+        Aggregations.sum("num"), Aggregations.count(), Aggregations.count("num"),
+        Aggregations.min("num"), Aggregations.max("num"), Aggregations.mean("num").as("avg"));
+    assertResults(expected(), result);
+  }
+
+  @Test
+  public void testParallelAggregation() throws IOException {
+    HashAggregation     sequential = aggregation(Long.MAX_VALUE);
+    sequential.addAll(rows);
+    Dataset             expected = sequential.finish();
+
+    HashAggregation     parallel = aggregation(Long.MAX_VALUE);
+    ParallelAggregation ranges   = new ParallelAggregation(new ForkJoinPool(4), new Time(30, TimeUnit.SECONDS), 100);
+    ranges.aggregate(rows, parallel, aggregates(), Long.MAX_VALUE);
+    Dataset             actual   = parallel.finish();
+
+    // groups are expected in the same order
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.getRow(i).get(0), actual.getRow(i).get(0));
+      assertEquals(expected.getRow(i).get(1), actual.getRow(i).get(1));
+      for (int j = 2; j < expected.getColumnSet().size(); j++) {
+        Value e = expected.getRow(i).get(j);
+        Value a = actual.getRow(i).get(j);
+        assertEquals(NullValue.isNull(e), NullValue.isNull(a));
+        assertEquals(e.get(), a.get(), 1e-9);
+      }
+    }
+  }
+
+  @Test
+  public void testGroupByEncodedStrings() throws IOException {
+    ColumnarDataset     columnar = Datasets.columnar(rows);
+    Dataset             expected = Aggregations.groupBy(rows, "str").agg(aggregates());
+
+    HashAggregation     parallel = new HashAggregation(rows.getColumnSet(), Arrays.asList("str"), aggregates(), Long.MAX_VALUE);
+    ParallelAggregation ranges   = new ParallelAggregation(new ForkJoinPool(4), new Time(30, TimeUnit.SECONDS), 100);
+    ranges.aggregate(columnar, parallel, aggregates(), Long.MAX_VALUE);
+
+    for (Dataset actual : Arrays.asList(Aggregations.groupBy(columnar, "str").agg(aggregates()), parallel.finish())) {
+      // groups are expected in the same order, the null key included
+      assertEquals(4, actual.size());
+      assertEquals(expected.size(), actual.size());
+      for (int i = 0; i < expected.size(); i++) {
+        assertEquals(expected.getRow(i).get(0), actual.getRow(i).get(0));
+        for (int j = 1; j < expected.getColumnSet().size(); j++) {
+          Value e = expected.getRow(i).get(j);
+          Value a = actual.getRow(i).get(j);
+          assertEquals(NullValue.isNull(e), NullValue.isNull(a));
+          assertEquals(e.get(), a.get(), 1e-9);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testParallelAggregationWithSpills() throws IOException {
+    HashAggregation     aggregation = aggregation(4000);
+    ParallelAggregation ranges      = new ParallelAggregation(new ForkJoinPool(4), new Time(30, TimeUnit.SECONDS), 100);
+    ranges.aggregate(rows, aggregation, aggregates(), Long.MAX_VALUE);
+    assertResults(expected(), aggregation.finish());
+  }
+
+  @Test
+  public void testParallelAggregationWithinBudget() throws IOException {
+    // the tables of the ranges are flushed into the aggregation as they exceed their share of the budget
+    for (Dataset dataset : Arrays.asList(rows, Datasets.columnar(rows))) {
+      int                 before      = countPartitionFiles();
+      HashAggregation     aggregation = aggregation(4000);
+      ParallelAggregation ranges      = new ParallelAggregation(new ForkJoinPool(4), new Time(30, TimeUnit.SECONDS), 100);
+      ranges.aggregate(dataset, aggregation, aggregates(), 4000);
+      assertTrue(countPartitionFiles() > before);
+      assertResults(expected(), aggregation.finish());
+      assertEquals(before, countPartitionFiles());
+    }
+  }
+
+  @Test
+  public void testGroupByWithSpills() throws IOException {
+    DefaultConfProvider conf = new DefaultConfProvider();
+    conf.setAggregationMemoryBudget(8000);
+    conf.setParallelRowThreshold(100);
+    Conf.setProvider(new DefaultRef<ConfProvider>(conf));
+    try {
+      final int           before  = countPartitionFiles();
+      final AtomicBoolean spilled = new AtomicBoolean();
+      Dataset observed = new DefaultDataset(rows.getColumnSet(), copy(rows)) {
+        @Override
+        public Vector getRow(int rowIndex) {
+          if (rowIndex % 100 == 99 && countPartitionFiles() > before) {
+            spilled.set(true);
+          }
+          return super.getRow(rowIndex);
+        }
+      };
+      assertResults(expected(), Aggregations.groupBy(observed, "key", "str").agg(aggregates()));
+      assertTrue("Groups should have been spilled while rows were being accumulated", spilled.get());
+      assertEquals(before, countPartitionFiles());
+    } finally {
+      Conf.setProvider(new DefaultRef<ConfProvider>(new DefaultConfProvider()));
+    }
+  }
+
+  @Test
+  public void testAggregateWithSpills() throws IOException {
+    int             before      = countPartitionFiles();
+    HashAggregation aggregation = aggregation(4000);
+    aggregation.addAll(rows);
+    assertTrue(countPartitionFiles() > before);
+    assertResults(expected(), aggregation.finish());
+    assertEquals(before, countPartitionFiles());
+  }
+
+  @Test
+  public void testAggregateWithRecursiveSpills() throws IOException {
+    // every group is spilled as it's added, down to the maximum depth
+    HashAggregation aggregation = aggregation(1);
+    aggregation.addAll(rows);
+    assertResults(expected(), aggregation.finish());
+  }
+
+  @Test
+  public void testAbort() throws IOException {
+    int             before      = countPartitionFiles();
+    HashAggregation aggregation = aggregation(1);
+    aggregation.addAll(rows);
+    aggregation.abort();
+    assertEquals(before, countPartitionFiles());
+  }
+
+  @Test
+  public void testAggregateStream() throws IOException {
+    Dataset result = Aggregations.aggregate(DatasetStreams.stream(rows, 128), Arrays.asList("key", "str"),
+        Aggregations.sum("num"), Aggregations.count(), Aggregations.count("num"),
+        Aggregations.min("num"), Aggregations.max("num"), Aggregations.mean("num").as("avg"));
+    assertResults(expected(), result);
+  }
+
+  @Test
+  public void testNullAggregates() throws IOException {
+    ColumnSet columns = ColumnSets.columnSet("key", Datatype.STRING, "num", Datatype.NUMERIC);
+    Dataset   data    = new DefaultDataset(columns, Arrays.asList(
+        Vectors.vector("a", null), Vectors.vector("a", null), Vectors.vector("b", 1)
+    ));
+    Dataset result = Aggregations.aggregate(data, Arrays.asList("key"),
+        Aggregations.sum("num"), Aggregations.count(), Aggregations.count("num"));
+    assertEquals(2, result.size());
+    assertTrue(NullValue.isNull(result.getRow(0).get(1)));
+    assertEquals(2, result.getRow(0).get(2).get(), 0);
+    assertEquals(0, result.getRow(0).get(3).get(), 0);
+    assertEquals(1, result.getRow(1).get(1).get(), 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNonNumericColumn() throws IOException {
+    Aggregations.aggregate(rows, Arrays.asList("key"), Aggregations.sum("str"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGeometryKey() throws IOException {
+    ColumnSet columns = ColumnSets.columnSet("geom", Datatype.GEOMETRY, "num", Datatype.NUMERIC);
+    Dataset   data    = new DefaultDataset(columns, Arrays.asList(Vectors.vector(null, 1)));
+    // rejected even though the groups fit in memory
+    Aggregations.aggregate(data, Arrays.asList("geom"), Aggregations.sum("num"));
+  }
+
+  @Test
+  public void testNullZeroAndNaNKeys() throws IOException {
+    ColumnSet columns = ColumnSets.columnSet("key", Datatype.NUMERIC, "num", Datatype.NUMERIC);
+    Double[]  keys    = { null, 0d, Double.NaN, 0d, null, Double.NaN };
+    for (boolean reversed : new boolean[] { false, true }) {
+      List<Vector> data = new ArrayList<>();
+      for (int i = 0; i < keys.length; i++) {
+        data.add(Vectors.vector(keys[reversed ? keys.length - 1 - i : i], i));
+      }
+      Dataset         dataset = new DefaultDataset(columns, data);
+      HashAggregation spilled = new HashAggregation(columns, Arrays.asList("key"), new Aggregate[] { Aggregations.count() }, 1);
+      spilled.addAll(dataset);
+      List<Dataset> results = Arrays.asList(
+          Aggregations.aggregate(dataset, Arrays.asList("key"), Aggregations.count()),
+          Aggregations.groupBy(dataset, "key").agg(Aggregations.count()),
+          Aggregations.groupBy(Datasets.columnar(dataset), "key").agg(Aggregations.count()),
+          spilled.finish()
+      );
+      for (Dataset result : results) {
+        assertEquals(3, result.size());
+        Map<String, Double> counts = new HashMap<>();
+        for (Vector row : result) {
+          counts.put(String.valueOf(row.get(0)), row.get(1).get());
+        }
+        assertEquals(2, counts.get(NullValue.getInstance().toString()), 0);
+        assertEquals(2, counts.get(new NumericValue(0).toString()), 0);
+        assertEquals(2, counts.get(new NumericValue(Double.NaN).toString()), 0);
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDuplicateName() throws IOException {
+    Aggregations.aggregate(rows, Arrays.asList("key"), Aggregations.sum("num").as("key"));
+  }
+
+  private HashAggregation aggregation(long memoryBudget) {
+    return new HashAggregation(rows.getColumnSet(), Arrays.asList("key", "str"), aggregates(), memoryBudget);
+  }
+
+  private static List<Vector> copy(Dataset dataset) {
+    List<Vector> copy = new ArrayList<>();
+    for (Vector row : dataset) {
+      copy.add(row);
+    }
+    return copy;
+  }
+
+  private static Aggregate[] aggregates() {
+    return new Aggregate[] {
+        Aggregations.sum("num"), Aggregations.count(), Aggregations.count("num"),
+        Aggregations.min("num"), Aggregations.max("num"), Aggregations.mean("num").as("avg")
+    };
+  }
+
+  // computes the expected results, per key: sum, count, count of values, min, max, mean
+  private Map<String, double[]> expected() {
+    Map<String, List<Double>> values = new HashMap<>();
+    Map<String, Integer>      counts = new HashMap<>();
+    for (Vector row : rows) {
+      String key = row.get(0) + "|" + row.get(1);
+      if (!values.containsKey(key)) {
+        values.put(key, new ArrayList<Double>());
+        counts.put(key, 0);
+      }
+      counts.put(key, counts.get(key) + 1);
+      if (!NullValue.isNull(row.get(2))) {
+        values.get(key).add(row.get(2).get());
+      }
+    }
+    Map<String, double[]> expected = new HashMap<>();
+    for (String key : values.keySet()) {
+      List<Double> v   = values.get(key);
+      double       sum = 0, min = Double.NaN, max = Double.NaN;
+      for (double d : v) {
+        sum += d;
+        min  = Double.isNaN(min) ? d : Math.min(min, d);
+        max  = Double.isNaN(max) ? d : Math.max(max, d);
+      }
+      expected.put(key, new double[] {
+          v.isEmpty() ? Double.NaN : sum, counts.get(key), v.size(), min, max, v.isEmpty() ? Double.NaN : sum / v.size()
+      });
+    }
+    return expected;
+  }
+
+  private static void assertResults(Map<String, double[]> expected, Dataset result) {
+    assertEquals(expected.size(), result.size());
+    for (Vector row : result) {
+      double[] e = expected.get(row.get(0) + "|" + row.get(1));
+      assertNotNull("Unexpected group: " + row, e);
+      for (int i = 0; i < e.length; i++) {
+        if (Double.isNaN(e[i])) {
+          assertTrue(NullValue.isNull(row.get(2 + i)));
+        } else {
+          assertEquals(e[i], row.get(2 + i).get(), 1e-9);
+        }
+      }
+    }
+  }
+
+  private static int countPartitionFiles() {
+    String[] names = new File(System.getProperty("java.io.tmpdir")).list(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        return name.startsWith("tad-aggregate-");
+      }
+    });
+    return names == null ? 0 : names.length;
+  }
+}
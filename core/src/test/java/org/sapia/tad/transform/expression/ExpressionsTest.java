@@ -0,0 +1,165 @@
+package org.sapia.tad.transform.expression;
+
+import static org.junit.Assert.*;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mvel2.MVEL;
+import org.sapia.tad.Column;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.ColumnSets;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.RowResult;
+import org.sapia.tad.Vector;
+import org.sapia.tad.Vectors;
+import org.sapia.tad.algo.Criteria;
+import org.sapia.tad.impl.DefaultDataset;
+import org.sapia.tad.impl.DefaultRowResult;
+import org.sapia.tad.transform.filter.Filters;
+import org.sapia.tad.transform.formula.Formula;
+import org.sapia.tad.transform.formula.Formulas;
+import org.sapia.tad.util.Data;
+import org.sapia.tad.value.NullValue;
+import org.sapia.tad.value.NumericValue;
+import org.sapia.tad.value.StringValue;
+
+public class ExpressionsTest {
+
+  private ColumnSet    columns;
+  private List<Vector> rows;
+
+  @Before
+  public void setUp() {
+    columns = ColumnSets.columnSet(
+        "x", Datatype.NUMERIC, "y", Datatype.NUMERIC, "name", Datatype.STRING, "created", Datatype.DATE
+    );
+    rows = Data.list(
+        Vectors.vector(1, 10, "a", new Date(1000)),
+        Vectors.vector(2, 20, "b", new Date(2000)),
+        Vectors.vector(3, null, "c", null),
+        Vectors.vector(null, 40, null, new Date(500)),
+        Vectors.vector(5, 50, "b", new Date(2000))
+    );
+  }
+
+  @Test
+  public void testCriteriaMatchesMvel() {
+    String[] expressions = {
+        "x > 2", "x >= 2", "x < 2", "x <= 2", "x == 2", "x != 2", "y > 15 && x < 5", "y > 15 || x < 2", "!(x > 2)",
+        "x == null", "x != null", "null == name", "name == 'b'", "name != \"b\"", "name < 'b'", "name >= 'b'",
+        "created > created", "created == created", "created == null", "true", "x > 1.5e0", ".5 < x",
+        "y == 20 && name != null", "true == (x > 2)"
+    };
+    assertMatchesMvel(expressions, rows);
+  }
+
+  @Test
+  public void testArithmeticMatchesMvel() {
+    // MVEL does not handle arithmetic involving nulls consistently (compiled expressions propagate nulls)
+    String[] expressions = {
+        "x + y > 20", "x * 2 - y / 10 == 1", "y % 20 == 0", "-x < -2", "x * (y + 1) >= 33", "y == x * 10"
+    };
+    assertMatchesMvel(expressions, Data.list(rows.get(0), rows.get(1), rows.get(4)));
+  }
+
+  @Test
+  public void testFallbackToMvel() {
+    String[] expressions = {
+        "name.length() == 1", "name contains 'b'", "name + 'z' == 'bz'", "x == '2'", "unknown == null",
+        "x > 1 ? true : false", "x > 1L", "y > 15 or x < 2"
+    };
+    for (String expr : expressions) {
+      assertFalse(expr, Expressions.isCompilable(columns, expr));
+    }
+    Criteria<RowResult> criteria = Expressions.criteria(columns, "name + 'z' == 'bz'");
+    DefaultRowResult    result   = new DefaultRowResult(columns);
+    result.setVector(rows.get(1));
+    assertTrue(criteria.matches(result));
+    result.setVector(rows.get(0));
+    assertFalse(criteria.matches(result));
+  }
+
+  @Test
+  public void testNaNIsNotNull() {
+    DefaultRowResult result = new DefaultRowResult(columns);
+    result.setVector(rows.get(0));
+    assertFalse(Expressions.criteria(columns, "x % 0 == x % 0").matches(result));
+    assertTrue(Expressions.criteria(columns, "x % 0 != x % 0").matches(result));
+    assertFalse(Expressions.criteria(columns, "x % 0 == null").matches(result));
+    assertTrue(Double.isNaN(Expressions.formula(columns, "x % 0").call(result).get()));
+    assertTrue(Double.isNaN(Expressions.formula(columns, "x % 0 * 2").call(result).get()));
+
+    result.setVector(rows.get(3));
+    assertTrue(Expressions.criteria(columns, "x * 2 == x * 2").matches(result));
+    assertTrue(Expressions.criteria(columns, "-x == null").matches(result));
+    assertFalse(Expressions.criteria(columns, "x * 2 == y % 0").matches(result));
+    assertTrue(NullValue.isNull(Expressions.formula(columns, "x % 0").call(result)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCriteriaNotBoolean() {
+    Expressions.criteria(columns, "x + 1");
+  }
+
+  @Test
+  public void testFormula() {
+    Formula<RowResult> formula = Expressions.formula(columns, "x * 2 + y");
+    DefaultRowResult   result  = new DefaultRowResult(columns);
+    result.setVector(rows.get(1));
+    assertEquals(NumericValue.of(24), formula.call(result));
+    result.setVector(rows.get(2));
+    assertTrue(NullValue.isNull(formula.call(result)));
+
+    formula = Expressions.formula(columns, "name");
+    result.setVector(rows.get(0));
+    assertEquals(StringValue.of("a"), formula.call(result));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testFormulaBoolean() {
+    Expressions.formula(columns, "x > 1");
+  }
+
+  @Test
+  public void testFiltersSelect() {
+    Dataset dataset  = new DefaultDataset(columns, rows);
+    Dataset selected = Filters.select(dataset, "y >= 20 && name == 'b'");
+    assertEquals(2, selected.size());
+    assertEquals(2, selected.getRow(0).get(0).get(), 0);
+    assertEquals(5, selected.getRow(1).get(0).get(), 0);
+  }
+
+  @Test
+  public void testFormulasAddFormula() {
+    Dataset dataset = Formulas.addFormula(new DefaultDataset(columns, rows), "total", Datatype.NUMERIC, "x + y");
+    assertEquals(5, dataset.getColumnSet().size());
+    assertEquals(11, dataset.getRow(0).get(4).get(), 0);
+    assertEquals(55, dataset.getRow(4).get(4).get(), 0);
+  }
+
+  private void assertMatchesMvel(String[] expressions, List<Vector> rows) {
+    DefaultRowResult result = new DefaultRowResult(columns);
+    for (String expr : expressions) {
+      assertTrue(expr, Expressions.isCompilable(columns, expr));
+      Criteria<RowResult> criteria = Expressions.criteria(columns, expr);
+      for (Vector row : rows) {
+        result.setVector(row);
+        assertEquals(expr + " for " + row, mvel(expr, row), criteria.matches(result));
+      }
+    }
+  }
+
+  private Object mvel(String expression, Vector row) {
+    Map<String, Object> context = new HashMap<>();
+    for (Column col : columns) {
+      context.put(col.getName(), row.get(col.getIndex()).getInternalValue());
+    }
+    return MVEL.executeExpression(MVEL.compileExpression(expression), context);
+  }
+}
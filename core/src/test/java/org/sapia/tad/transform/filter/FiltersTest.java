@@ -130,6 +130,35 @@ public class FiltersTest {
     }
   }
 
+  @Test
+  public void testReplaceWithNominalColumnar() {
+    ColumnSet columns = ColumnSets.columnSet("col0", Datatype.STRING, "col1", Datatype.NUMERIC);
+    List<Vector> rows = Data.list(
+      Vectors.vector("VAL2", 1),
+      Vectors.vector(null, 2),
+      Vectors.vector("VAL0", 1),
+      Vectors.vector("VAL2", 3)
+    );
+    
+    Dataset expected = Filters.replaceWithNominal(new DefaultDataset(columns, rows), "col0");
+    Dataset actual   = Filters.replaceWithNominal(Datasets.columnar(new DefaultDataset(columns, rows)), "col0");
+    
+    assertEquals(
+        new ArrayList<>(expected.getColumnSet().get("col0").getNominalValues().getValues()),
+        new ArrayList<>(actual.getColumnSet().get("col0").getNominalValues().getValues())
+    );
+    for (int i : new int[] { 0, 2, 3 }) {
+      assertEquals(expected.getRow(i), actual.getRow(i));
+    }
+    assertTrue(NullValue.isNull(actual.getRow(1).get(0)));
+    Nominal nominal = (Nominal) actual.getRow(0).get(0);
+    assertEquals("VAL2", nominal.getName());
+    assertEquals(1, nominal.getValue());
+    nominal = (Nominal) actual.getRow(2).get(0);
+    assertEquals("VAL0", nominal.getName());
+    assertEquals(0, nominal.getValue());
+  }
+
   @Test
   public void testRemoveHead() {
     Dataset subset = Filters.removeHead(dataset, 10);
@@ -179,5 +208,13 @@ public class FiltersTest {
     assertEquals(1, subset.size());
     
   }
+  
+  @Test
+  public void testSelect_stream() throws Exception {
+    DatasetStream stream = Filters.select(DatasetStreams.stream(dataset, 8), "col0 >= 10 && col1 == 's1'");
+    Dataset subset = DatasetStreams.collect(stream);
+    assertEquals(40, subset.size());
+    assertEquals(NumericValue.of(10), subset.getRow(0).get(0));
+  }
 
 }
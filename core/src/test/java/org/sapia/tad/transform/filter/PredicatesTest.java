@@ -0,0 +1,146 @@
+package org.sapia.tad.transform.filter;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.ColumnSets;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.Datasets;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.Vector;
+import org.sapia.tad.Vectors;
+import org.sapia.tad.impl.DefaultDataset;
+import org.sapia.tad.util.Data;
+import org.sapia.tad.util.Numbers;
+import org.sapia.tad.value.NumericValue;
+
+public class PredicatesTest {
+
+  private Dataset rows;
+  private Dataset columnar;
+
+  @Before
+  public void setUp() {
+    ColumnSet    columns = ColumnSets.columnSet("num", Datatype.NUMERIC, "str", Datatype.STRING, "date", Datatype.DATE);
+    List<Vector> data    = new ArrayList<>();
+    for (int i : Numbers.range(200)) {
+      data.add(Vectors.vector(
+          i % 10 == 0 ? null : new Integer(i),
+          i % 7 == 0 ? null : "s" + (i % 5),
+          i % 11 == 0 ? null : new Date(i * 1000L)
+      ));
+    }
+    rows     = new DefaultDataset(columns, data);
+    columnar = Datasets.columnar(rows);
+  }
+
+  @Test
+  public void testComparisons() {
+    assertSameAs("num > 100", Predicates.gt("num", 100));
+    assertSameAs("num >= 100", Predicates.ge("num", 100));
+    assertSameAs("num < 50", Predicates.lt("num", 50));
+    assertSameAs("num <= 50", Predicates.le("num", 50));
+    assertSameAs("num == 51", Predicates.eq("num", 51));
+    assertSameAs("num != 51 && num != null", Predicates.ne("num", 51));
+    assertSameAs("str == 's1'", Predicates.eq("str", "s1"));
+    assertSameAs("str > 's2'", Predicates.gt("str", "s2"));
+    assertSameAs("num > 100", Predicates.gt("num", NumericValue.of(100)));
+  }
+
+  @Test
+  public void testNaNOperand() {
+    for (Dataset ds : new Dataset[] { rows, columnar }) {
+      assertEquals(0, Filters.where(ds, Predicates.eq("num", Double.NaN)).size());
+      assertEquals(0, Filters.where(ds, Predicates.le("num", Double.NaN)).size());
+      assertEquals(0, Filters.where(ds, Predicates.ge("num", Double.NaN)).size());
+      assertEquals(0, Filters.where(ds, Predicates.lt("num", Double.NaN)).size());
+      assertEquals(0, Filters.where(ds, Predicates.gt("num", Double.NaN)).size());
+      assertEquals(180, Filters.where(ds, Predicates.ne("num", Double.NaN)).size());
+      assertEquals(0, Filters.where(ds, Predicates.between("num", 0, Double.NaN)).size());
+      assertEquals(0, Filters.where(ds, Predicates.between("num", Double.NaN, 100)).size());
+    }
+  }
+
+  @Test
+  public void testBetween() {
+    assertSameAs("num >= 20 && num <= 40", Predicates.between("num", 20, 40));
+    Dataset selected = Filters.where(columnar, Predicates.between("date", new Date(10000), new Date(20000)));
+    assertEquals(10, selected.size());
+    assertEquals(10, Filters.where(rows, Predicates.between("date", new Date(10000), new Date(20000))).size());
+  }
+
+  @Test
+  public void testIsIn() {
+    assertSameAs("num == 3 || num == 5 || num == 150", Predicates.isIn("num", 3, 5, 150, 1000));
+    assertSameAs("str == 's0' || str == 's4'", Predicates.isIn("str", Data.list("s0", "s4", "none")));
+  }
+
+  @Test
+  public void testNulls() {
+    assertSameAs("num == null", Predicates.isNull("num"));
+    assertSameAs("num != null", Predicates.isNotNull("num"));
+    assertSameAs("date == null", Predicates.isNull("date"));
+    assertSameAs("str != null", Predicates.isNotNull("str"));
+  }
+
+  @Test
+  public void testCombinations() {
+    assertSameAs("num > 100 && str == 's1'", Predicates.and(Predicates.gt("num", 100), Predicates.eq("str", "s1")));
+    assertSameAs("num < 10 || str == 's1'", Predicates.or(Predicates.lt("num", 10), Predicates.eq("str", "s1")));
+    assertSameAs("!(num > 100)", Predicates.not(Predicates.gt("num", 100)));
+  }
+
+  @Test
+  public void testWhereOnFilteredDataset() {
+    Dataset first  = Filters.where(columnar, Predicates.gt("num", 100));
+    Dataset second = Filters.where(first, Predicates.eq("str", "s1"));
+    assertTrue(second instanceof FilteredDataset);
+    assertSame(columnar, ((FilteredDataset) second).getSource());
+    assertEquals(Filters.select(rows, "num > 100 && str == 's1'").size(), second.size());
+  }
+
+  @Test
+  public void testView() {
+    Dataset selected = Filters.where(columnar, Predicates.between("num", 20, 29));
+    assertEquals(9, selected.size());
+    assertEquals(21, selected.getRow(0).get(0).get(), 0);
+    assertEquals(29, selected.getRow(8).get(0).get(), 0);
+    int count = 0;
+    for (Vector row : selected) {
+      assertEquals(21 + count++, row.get(0).get(), 0);
+    }
+    assertEquals(9, count);
+    Vector column = selected.getColumn("num");
+    assertEquals(9, column.size());
+    assertEquals(25, column.get(4).get(), 0);
+    assertEquals(25, selected.getNumericColumn("num").getDouble(4), 0);
+    assertEquals(2, selected.getSubset(row -> row.get("num").get() > 27).size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTypeMismatch() {
+    Filters.where(rows, Predicates.eq("num", "s1"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidColumn() {
+    Filters.where(rows, Predicates.eq("none", 1));
+  }
+
+  private void assertSameAs(String expression, Predicate predicate) {
+    Dataset expected = Filters.select(rows, expression);
+    for (Dataset dataset : Data.list(rows, columnar)) {
+      Dataset actual = Filters.where(dataset, predicate);
+      assertEquals(expression, expected.size(), actual.size());
+      for (int i = 0; i < expected.size(); i++) {
+        assertEquals(expression, expected.getRow(i).toString(), actual.getRow(i).toString());
+      }
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package org.sapia.tad.transform.join;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.sapia.tad.ColumnSets;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.Datasets;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.Vector;
+import org.sapia.tad.Vectors;
+
+/**
+ * Compares the sequential and parallel join paths, for a left-enrichment join of a "fact" dataset
+ * against a "dimension" dataset. Not run as part of the test suite: invoke the <code>main</code>
+ * method, optionally passing the number of fact and dimension rows.
+ * 
+ * @author yduchesne
+ *
+ */
+public class JoinsBenchmark {
+  
+  private static final int RUNS = 5;
+
+  public static void main(String[] args) {
+    int factRows = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+    int dimRows  = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+    
+    Random       random = new Random(42);
+    List<Vector> facts  = new ArrayList<>(factRows);
+    for (int i = 0; i < factRows; i++) {
+      facts.add(Vectors.vector(i, random.nextInt(dimRows), random.nextDouble()));
+    }
+    List<Vector> dims = new ArrayList<>(dimRows);
+    for (int i = 0; i < dimRows; i++) {
+      dims.add(Vectors.vector(i, "dim-" + i));
+    }
+    Dataset fact = Datasets.dataset(ColumnSets.columnSet("id", Datatype.NUMERIC, "dim_id", Datatype.NUMERIC, "amount", Datatype.NUMERIC), facts);
+    Dataset dim  = Datasets.dataset(ColumnSets.columnSet("id", Datatype.NUMERIC, "name", Datatype.STRING), dims);
+    
+    System.out.println(String.format("Joining %s fact rows with %s dimension rows (%s processors)", 
+        factRows, dimRows, Runtime.getRuntime().availableProcessors()));
+    run("sequential hash", fact, dim, false, true);
+    run("parallel, ordered", fact, dim, true, true);
+    run("parallel, unordered", fact, dim, true, false);
+  }
+  
+  private static void run(String name, Dataset fact, Dataset dim, boolean parallel, boolean ordered) {
+    Join join = new Join(fact.getColumnSet().includes("dim_id"), dim.getColumnSet().includes("id"), Join.Type.LEFT_OUTER);
+    join.setStrategy(Join.Strategy.HASH);
+    join.setParallel(parallel);
+    join.setOrdered(ordered);
+    
+    long best = Long.MAX_VALUE;
+    int  size = 0;
+    for (int i = 0; i < RUNS; i++) {
+      long start = System.nanoTime();
+      size = Joins.join(fact, dim, join).size();
+      best = Math.min(best, System.nanoTime() - start);
+    }
+    System.out.println(String.format("%-20s: %8d ms (%s rows)", name, best / 1000000, size));
+  }
+}
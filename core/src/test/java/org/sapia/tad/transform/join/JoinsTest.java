@@ -1,17 +1,28 @@
 package org.sapia.tad.transform.join;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.sapia.tad.ColumnSets;
 import org.sapia.tad.Dataset;
 import org.sapia.tad.Datasets;
 import org.sapia.tad.Datatype;
+import org.sapia.tad.Vector;
 import org.sapia.tad.Vectors;
 import org.sapia.tad.util.Data;
+import org.sapia.tad.value.NullValue;
 
 public class JoinsTest {
   
   private Dataset left, right;
+  private Dataset numLeft, numRight;
   
   @Before
   public void setUp() {
@@ -44,6 +55,33 @@ public class JoinsTest {
             Vectors.vector("04", "008", "id2", "id3")
         )
     );
+    
+    numLeft = Datasets.dataset(
+        ColumnSets.columnSet(
+            "lval", Datatype.STRING, 
+            "fkey", Datatype.NUMERIC
+        ),
+        Data.list(
+            Vectors.vector("a", 3),
+            Vectors.vector("b", 1),
+            Vectors.vector("c", 5),
+            Vectors.vector("d", 1),
+            Vectors.vector("e", null)
+        )
+    );
+    
+    numRight = Datasets.dataset(
+        ColumnSets.columnSet(
+            "key", Datatype.NUMERIC,
+            "rval", Datatype.STRING 
+        ),
+        Data.list(
+            Vectors.vector(1, "x"),
+            Vectors.vector(2, "y"),
+            Vectors.vector(1, "z"),
+            Vectors.vector(null, "w")
+        )
+    );
   }
   
   @Test
@@ -56,4 +94,202 @@ public class JoinsTest {
     System.out.println(Datasets.toString(joined));
   }
 
+  
+  @Test
+  public void testJoin_outer() {
+    Join join = new Join(
+        left.getColumnSet().includes("fkey0", "fkey1"), 
+        right.getColumnSet().includes("key0", "key1")
+    );
+    Dataset joined = Joins.join(left, right, join);
+    assertEquals(8, joined.size());
+    assertEquals(6, joined.getColumnSet().size());
+    assertEquals("col0", joined.getColumnSet().get(0).getName());
+    assertEquals("key0", joined.getColumnSet().get(2).getName());
+    assertEquals("col3", joined.getColumnSet().get(5).getName());
+    assertEquals(Vectors.vector("01", "001", "id0", "id1", "03", "005"), Vectors.vector(joined.getRow(0).toArray()));
+    assertEquals(Vectors.vector("02", "004", "id2", "id3", "04", "008"), Vectors.vector(joined.getRow(7).toArray()));
+  }
+  
+  @Test
+  public void testJoin_inner() {
+    for (Join.Strategy strategy : Join.Strategy.values()) {
+      Dataset joined = Joins.join(numLeft, numRight, numJoin(Join.Type.INNER, strategy));
+      assertEquals(rows(3, "b", 1, "x", "b", 1, "z", "d", 1, "x", "d", 1, "z"), rows(joined));
+    }
+  }
+  
+  @Test
+  public void testJoin_leftOuter() {
+    for (Join.Strategy strategy : Join.Strategy.values()) {
+      Dataset joined = Joins.join(numLeft, numRight, numJoin(Join.Type.LEFT_OUTER, strategy));
+      assertEquals(
+          rows(3, "a", 3, null, "b", 1, "x", "b", 1, "z", "c", 5, null, "d", 1, "x", "d", 1, "z", "e", null, null), 
+          rows(joined)
+      );
+      assertEquals(rows(joined), rows(Joins.join(numLeft, numRight, numJoin(Join.Type.OUTER, strategy))));
+    }
+  }
+  
+  @Test
+  public void testJoin_rightOuter() {
+    for (Join.Strategy strategy : Join.Strategy.values()) {
+      Dataset joined = Joins.join(numLeft, numRight, numJoin(Join.Type.RIGHT_OUTER, strategy));
+      assertEquals(
+          rows(3, "b", 1, "x", "b", 1, "z", "d", 1, "x", "d", 1, "z", null, 2, "y", null, null, "w"), 
+          rows(joined)
+      );
+    }
+  }
+  
+  @Test
+  public void testJoin_fullOuter() {
+    for (Join.Strategy strategy : Join.Strategy.values()) {
+      Dataset joined = Joins.join(numLeft, numRight, numJoin(Join.Type.FULL_OUTER, strategy));
+      assertEquals(
+          rows(3, "a", 3, null, "b", 1, "x", "b", 1, "z", "c", 5, null, "d", 1, "x", "d", 1, "z", "e", null, null,
+              null, 2, "y", null, null, "w"), 
+          rows(joined)
+      );
+    }
+  }
+  
+  @Test
+  public void testJoin_semi() {
+    for (Join.Strategy strategy : Join.Strategy.values()) {
+      Dataset joined = Joins.join(numLeft, numRight, numJoin(Join.Type.SEMI, strategy));
+      assertEquals(numLeft.getColumnSet(), joined.getColumnSet());
+      assertEquals(rows(2, "b", 1, "d", 1), rows(joined));
+    }
+  }
+  
+  @Test
+  public void testJoin_anti() {
+    for (Join.Strategy strategy : Join.Strategy.values()) {
+      Dataset joined = Joins.join(numLeft, numRight, numJoin(Join.Type.ANTI, strategy));
+      assertEquals(rows(2, "a", 3, "c", 5, "e", null), rows(joined));
+    }
+  }
+  
+  @Test
+  public void testJoin_hashAndSortMergeEquivalence() {
+    Dataset l = randomLeft(500);
+    Dataset r = randomRight(300);
+
+    for (Join.Type type : Join.Type.values()) {
+      Join hash = new Join(l.getColumnSet().includes("k0", "k1"), r.getColumnSet().includes("key0", "key1"), type);
+      hash.setStrategy(Join.Strategy.HASH);
+      Join merge = new Join(l.getColumnSet().includes("k0", "k1"), r.getColumnSet().includes("key0", "key1"), type);
+      merge.setStrategy(Join.Strategy.SORT_MERGE);
+      assertEquals(type.toString(), rows(Joins.join(l, r, hash)), rows(Joins.join(l, r, merge)));
+    }
+  }
+  
+  @Test
+  public void testJoin_parallel() {
+    Dataset l = randomLeft(2000);
+    Dataset r = randomRight(700);
+
+    for (Join.Type type : Join.Type.values()) {
+      Join sequential = new Join(l.getColumnSet().includes("k0", "k1"), r.getColumnSet().includes("key0", "key1"), type);
+      Join parallel   = new Join(l.getColumnSet().includes("k0", "k1"), r.getColumnSet().includes("key0", "key1"), type);
+      parallel.setParallel(true);
+      assertEquals(type.toString(), rows(Joins.join(l, r, sequential)), rows(Joins.join(l, r, parallel)));
+    }
+  }
+  
+  @Test
+  public void testJoin_parallelUnordered() {
+    Dataset l = randomLeft(2000);
+    Dataset r = randomRight(700);
+
+    for (Join.Type type : Join.Type.values()) {
+      Join sequential = new Join(l.getColumnSet().includes("k0", "k1"), r.getColumnSet().includes("key0", "key1"), type);
+      Join parallel   = new Join(l.getColumnSet().includes("k0", "k1"), r.getColumnSet().includes("key0", "key1"), type);
+      parallel.setParallel(true);
+      parallel.setOrdered(false);
+      parallel.setStrategy(Join.Strategy.SORT_MERGE);
+      List<List<Object>> expected = rows(Joins.join(l, r, sequential));
+      List<List<Object>> actual   = rows(Joins.join(l, r, parallel));
+      assertEquals(type.toString(), expected.size(), actual.size());
+      assertEquals(type.toString(), new HashSet<>(expected), new HashSet<>(actual));
+    }
+  }
+  
+  @Test
+  public void testJoin_parallelEmpty() {
+    Join join = numJoin(Join.Type.INNER, Join.Strategy.AUTO);
+    join.setParallel(true);
+    Dataset joined = Joins.join(Datasets.dataset(numLeft.getColumnSet(), new ArrayList<Vector>()), numRight, join);
+    assertEquals(0, joined.size());
+    assertEquals(3, joined.getColumnSet().size());
+  }
+  
+  @Test
+  public void testEngineFor_auto() {
+    JoinKeys[] unsorted = JoinKeys.encode(numRight, numRight.getColumnSet().includes("key"), numRight, numRight.getColumnSet().includes("key"));
+    assertTrue(Joins.engineFor(unsorted[0], unsorted[1], Join.Strategy.AUTO) instanceof HashJoinEngine);
+    
+    Dataset ordered = Datasets.dataset(
+        ColumnSets.columnSet("key", Datatype.NUMERIC, "val", Datatype.STRING), 
+        Data.list(Vectors.vector(1, "a"), Vectors.vector(2, "b"), Vectors.vector(2, "c"), Vectors.vector(null, "d"), Vectors.vector(3, "e"))
+    );
+    JoinKeys[] keys = JoinKeys.encode(ordered, ordered.getColumnSet().includes("key"), ordered, ordered.getColumnSet().includes("key"));
+    assertTrue(keys[0].isSorted());
+    assertTrue(Joins.engineFor(keys[0], keys[1], Join.Strategy.AUTO) instanceof SortMergeJoinEngine);
+  }
+  
+  @Test(expected = IllegalArgumentException.class)
+  public void testJoin_typeMismatch() {
+    Joins.join(numLeft, numRight, new Join(numLeft.getColumnSet().includes("lval"), numRight.getColumnSet().includes("key")));
+  }
+  
+  private static Dataset randomLeft(int size) {
+    Random       random = new Random(42);
+    List<Vector> rows   = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      rows.add(Vectors.vector(i, random.nextInt(50), "k" + random.nextInt(3)));
+    }
+    return Datasets.dataset(ColumnSets.columnSet("id", Datatype.NUMERIC, "k0", Datatype.NUMERIC, "k1", Datatype.STRING), rows);
+  }
+  
+  private static Dataset randomRight(int size) {
+    Random       random = new Random(24);
+    List<Vector> rows   = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      rows.add(Vectors.vector(random.nextInt(60), "k" + random.nextInt(4), -i));
+    }
+    return Datasets.dataset(ColumnSets.columnSet("key0", Datatype.NUMERIC, "key1", Datatype.STRING, "val", Datatype.NUMERIC), rows);
+  }
+  
+  private Join numJoin(Join.Type type, Join.Strategy strategy) {
+    Join join = new Join(numLeft.getColumnSet().includes("fkey"), numRight.getColumnSet().includes("key"), type);
+    join.setStrategy(strategy);
+    return join;
+  }
+  
+  private static List<List<Object>> rows(Dataset dataset) {
+    List<List<Object>> rows = new ArrayList<>();
+    for (Vector row : dataset) {
+      List<Object> values = new ArrayList<>();
+      for (int i = 0; i < row.size(); i++) {
+        values.add(NullValue.isNull(row.get(i)) ? null : row.get(i).getInternalValue());
+      }
+      rows.add(values);
+    }
+    return rows;
+  }
+  
+  private static List<List<Object>> rows(int width, Object... values) {
+    List<List<Object>> rows = new ArrayList<>();
+    for (int i = 0; i < values.length; i += width) {
+      List<Object> row = new ArrayList<>();
+      for (int j = i; j < i + width; j++) {
+        row.add(values[j] instanceof Number ? (Object) ((Number) values[j]).doubleValue() : values[j]);
+      }
+      rows.add(row);
+    }
+    return rows;
+  }
+
 }
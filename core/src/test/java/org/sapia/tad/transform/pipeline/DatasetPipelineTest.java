@@ -0,0 +1,224 @@
+package org.sapia.tad.transform.pipeline;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.ColumnSets;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.RowResult;
+import org.sapia.tad.Vector;
+import org.sapia.tad.Vectors;
+import org.sapia.tad.impl.DefaultDataset;
+import org.sapia.tad.transform.filter.Filters;
+import org.sapia.tad.transform.formula.Formula;
+import org.sapia.tad.transform.slice.Slices;
+import org.sapia.tad.transform.sort.Sorts;
+import org.sapia.tad.transform.view.Views;
+import org.sapia.tad.util.Numbers;
+import org.sapia.tad.util.Tuple;
+import org.sapia.tad.value.NumericValue;
+import org.sapia.tad.value.StringValue;
+import org.sapia.tad.value.Value;
+
+public class DatasetPipelineTest {
+
+  private Dataset dataset;
+
+  @Before
+  public void setUp() {
+    ColumnSet columns = ColumnSets.columnSet("id", Datatype.NUMERIC, "group", Datatype.NUMERIC, "label", Datatype.STRING);
+    List<Vector> rows = new ArrayList<>();
+    for (int i : Numbers.range(100)) {
+      rows.add(Vectors.vector(i, i % 7, "l" + i));
+    }
+    dataset = new DefaultDataset(columns, rows);
+  }
+
+  @Test
+  public void testCollectEquivalentToEagerTransforms() {
+    Dataset expected = Slices.slice(
+        Sorts.desc(Views.include(Filters.select(dataset, "group > 2"), "id", "group"), "group"), 0, 10
+    );
+    Dataset actual = DatasetPipeline.from(dataset)
+        .include("id", "group")
+        .desc("group")
+        .select("group > 2")
+        .head(10)
+        .collect();
+
+    assertEquals(expected.getColumnSet().getColumnNames(), actual.getColumnSet().getColumnNames());
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.getRow(i).get(1), actual.getRow(i).get(1));
+    }
+  }
+
+  @Test
+  public void testTopIsStable() {
+    Dataset result = DatasetPipeline.from(dataset).asc("group").head(5).collect();
+    assertEquals(5, result.size());
+    double previous = -1;
+    for (Vector row : result) {
+      assertEquals(0, row.get(1).get(), 0);
+      assertTrue(row.get(0).get() > previous);
+      previous = row.get(0).get();
+    }
+  }
+
+  @Test
+  public void testSliceWithoutSort() {
+    final AtomicInteger evaluated = new AtomicInteger();
+    Dataset result = DatasetPipeline.from(dataset)
+        .select(row -> {
+          evaluated.incrementAndGet();
+          return true;
+        })
+        .slice(10, 15)
+        .collect();
+    assertEquals(5, result.size());
+    assertEquals(10, result.getRow(0).get(0).get(), 0);
+    assertEquals(14, result.getRow(4).get(0).get(), 0);
+    assertEquals(15, evaluated.get());
+  }
+
+  @Test
+  public void testConsecutiveSlices() {
+    Dataset result = DatasetPipeline.from(dataset).slice(10, 50).slice(5, 10).collect();
+    assertEquals(5, result.size());
+    assertEquals(15, result.getRow(0).get(0).get(), 0);
+  }
+
+  @Test
+  public void testFormulas() {
+    Dataset result = DatasetPipeline.from(dataset)
+        .addFormulas(new Tuple(Datatype.NUMERIC, "twice", (Formula<RowResult>) row -> NumericValue.product(row.get("id"), NumericValue.of(2))))
+        .select("id < 3")
+        .collect();
+    assertEquals(3, result.size());
+    assertEquals(4, result.getColumnSet().size());
+    assertEquals(4, result.getRow(2).get(3).get(), 0);
+  }
+
+  @Test
+  public void testFilterPushedBeforeFormulas() {
+    DatasetPipeline pipeline = DatasetPipeline.from(dataset)
+        .addFormulas(new Tuple(Datatype.NUMERIC, "twice", (Formula<RowResult>) row -> NumericValue.product(row.get("id"), NumericValue.of(2))))
+        .select("id < 3");
+    assertEquals("scan -> [filter(id < 3) -> formulas(twice)]", pipeline.explain());
+  }
+
+  @Test
+  public void testFilterOnFormulaNotPushed() {
+    DatasetPipeline pipeline = DatasetPipeline.from(dataset)
+        .addFormulas(new Tuple(Datatype.NUMERIC, "twice", (Formula<RowResult>) row -> NumericValue.product(row.get("id"), NumericValue.of(2))))
+        .select("twice < 3");
+    assertEquals("scan -> [formulas(twice) -> filter(twice < 3)]", pipeline.explain());
+    assertEquals(2, pipeline.count());
+  }
+
+  @Test
+  public void testDeadFormulaRemoved() {
+    final AtomicInteger evaluated = new AtomicInteger();
+    DatasetPipeline pipeline = DatasetPipeline.from(dataset)
+        .addFormulas(new Tuple(Datatype.NUMERIC, "twice", (Formula<RowResult>) row -> {
+          evaluated.incrementAndGet();
+          return NumericValue.of(0);
+        }))
+        .include("id", "label");
+    assertEquals("scan -> [project(id, label)]", pipeline.explain());
+    assertEquals(100, pipeline.count());
+    assertEquals(0, evaluated.get());
+  }
+
+  @Test
+  public void testExplainTop() {
+    DatasetPipeline pipeline = DatasetPipeline.from(dataset)
+        .desc("group")
+        .include("id", "group")
+        .select("id > 10")
+        .head(10);
+    assertEquals("scan -> [filter(id > 10) -> project(id, group) -> top(desc(group), slice(0, 10))]", pipeline.explain());
+  }
+
+  @Test
+  public void testLazy() {
+    final AtomicInteger evaluated = new AtomicInteger();
+    DatasetPipeline pipeline = DatasetPipeline.from(dataset).select(row -> {
+      evaluated.incrementAndGet();
+      return row.get("group").get() == 0;
+    });
+    assertEquals(0, evaluated.get());
+    assertEquals(15, pipeline.count());
+    assertEquals(100, evaluated.get());
+  }
+
+  @Test
+  public void testGetColumnSet() {
+    DatasetPipeline pipeline = DatasetPipeline.from(dataset).exclude("group");
+    assertEquals(2, pipeline.getColumnSet().size());
+    assertEquals("label", pipeline.getColumnSet().get(1).getName());
+  }
+
+  @Test
+  public void testFilterOnProjectedOutColumnNotPushed() {
+    DatasetPipeline pipeline = DatasetPipeline.from(dataset)
+        .include("id", "group")
+        .select("label == 'l1'");
+    assertEquals("scan -> [project(id, group) -> filter(label == 'l1')]", pipeline.explain());
+    try {
+      pipeline.collect();
+      fail("Filter should not be able to refer to a column that was projected out");
+    } catch (RuntimeException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testMvelFilterBindsReferencedColumnsOnly() {
+    ColumnSet    columns = ColumnSets.columnSet("label", Datatype.STRING, "other", Datatype.STRING);
+    List<Vector> rows    = new ArrayList<>();
+    for (int i : Numbers.range(10)) {
+      rows.add(Vectors.vector(new StringValue("l" + i), new Value() {
+        @Override
+        public double get() {
+          throw new UnsupportedOperationException();
+        }
+        @Override
+        public boolean isNumeric() {
+          return false;
+        }
+        @Override
+        public Object getInternalValue() {
+          throw new IllegalStateException("Column not referenced by the filter should not be bound");
+        }
+      }));
+    }
+    Dataset result = DatasetPipeline.from(new DefaultDataset(columns, rows)).select("label.startsWith('l1')").collect();
+    assertEquals(1, result.size());
+  }
+
+  @Test
+  public void testConsecutiveProjectionsMergedOnlyIfSubset() {
+    ColumnSet      columns = dataset.getColumnSet();
+    List<PlanStep> steps   = new ArrayList<>();
+    steps.add(new PlanStep.Project(Arrays.asList("id", "group")));
+    steps.add(new PlanStep.Project(Arrays.asList("group")));
+    assertEquals("[project(group)]", PlanOptimizer.optimize(columns, steps).toString());
+
+    steps.set(1, new PlanStep.Project(Arrays.asList("group", "label")));
+    assertEquals("[project(id, group), project(group, label)]", PlanOptimizer.optimize(columns, steps).toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidColumn() {
+    DatasetPipeline.from(dataset).include("id").asc("label");
+  }
+}
@@ -1,13 +1,28 @@
 package org.sapia.tad.transform.pivot;
 
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Before;
 import org.junit.Test;
+import org.sapia.tad.ColumnSet;
 import org.sapia.tad.ColumnSets;
 import org.sapia.tad.Dataset;
 import org.sapia.tad.Datasets;
 import org.sapia.tad.Datatype;
+import org.sapia.tad.IndexedDataset;
+import org.sapia.tad.Vector;
 import org.sapia.tad.Vectors;
 import org.sapia.tad.util.Data;
+import org.sapia.tad.util.Numbers;
+import org.sapia.tad.util.Time;
+import org.sapia.tad.value.NullValue;
 
 public class PivotsTest {
   
@@ -47,4 +62,123 @@ public class PivotsTest {
     System.out.println(Pivots.pivot(multiLevel, "year", "country", "gdp"));
   }
 
+  @Test
+  public void testPivotCells() {
+    IndexedDataset pivot = Pivots.pivot(multiLevel, "year", "country", "gdp");
+    assertEquals(
+        Arrays.asList("country", "fact_column", "2000", "2001", "2002", "2003"), 
+        pivot.getColumnSet().getColumnNames()
+    );
+    assertEquals(3, pivot.size());
+    // rows are sorted by key
+    assertEquals("fr", pivot.getRow(0).get(0).toString());
+    assertEquals("gdp", pivot.getRow(0).get(1).toString());
+    assertTrue(NullValue.isNull(pivot.getRow(0).get(2)));
+    assertEquals(302, pivot.getRow(0).get(4).get(), 0);
+    assertEquals("us", pivot.getRow(2).get(0).toString());
+    assertEquals(100, pivot.getRow(2).get(2).get(), 0);
+    assertTrue(NullValue.isNull(pivot.getRow(2).get(5)));
+  }
+
+  @Test
+  public void testSingleLevelPivot() {
+    IndexedDataset pivot = Pivots.pivot(singleLevel, "year", "gdp");
+    assertEquals(1, pivot.size());
+    assertEquals(300, pivot.getRow(0).get(1).get(), 0);
+    assertEquals(302, pivot.getRow(0).get(2).get(), 0);
+    assertEquals(404, pivot.getRow(0).get(3).get(), 0);
+    assertEquals(203, pivot.getRow(0).get(4).get(), 0);
+  }
+
+  @Test
+  public void testPivotFunctions() {
+    Dataset data = Datasets.dataset(
+        ColumnSets.columnSet("country", Datatype.STRING, "gdp", Datatype.NUMERIC, "year", Datatype.NUMERIC),
+        Data.list(
+            Vectors.vector("us", 100, 2000),
+            Vectors.vector("us", 300, 2000),
+            Vectors.vector("us", 300, 2000),
+            Vectors.vector("us", null, 2000),
+            Vectors.vector("us", 50, null)
+        )
+    );
+    assertEquals(700, Pivots.pivot(data, "year", PivotFunction.SUM, "country", "gdp").getRow(0).get(2).get(), 0);
+    assertEquals(3, Pivots.pivot(data, "year", PivotFunction.COUNT, "country", "gdp").getRow(0).get(2).get(), 0);
+    assertEquals(2, Pivots.pivot(data, "year", PivotFunction.DISTINCT_COUNT, "country", "gdp").getRow(0).get(2).get(), 0);
+    assertEquals(700d / 3, Pivots.pivot(data, "year", PivotFunction.MEAN, "country", "gdp").getRow(0).get(2).get(), 1e-9);
+    assertEquals(100, Pivots.pivot(data, "year", PivotFunction.MIN, "country", "gdp").getRow(0).get(2).get(), 0);
+    assertEquals(300, Pivots.pivot(data, "year", PivotFunction.MAX, "country", "gdp").getRow(0).get(2).get(), 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNonNumericFactColumn() {
+    Pivots.pivot(multiLevel, "year", PivotFunction.MEAN, "gdp", "country");
+  }
+
+  @Test
+  public void testDistinctCountOfStrings() {
+    IndexedDataset pivot = Pivots.pivot(multiLevel, "year", PivotFunction.DISTINCT_COUNT, "country");
+    assertEquals(2, pivot.getRow(0).get(1).get(), 0);
+    assertEquals(1, pivot.getRow(0).get(4).get(), 0);
+  }
+
+  @Test
+  public void testMerge() {
+    for (PivotFunction f : PivotFunction.values()) {
+      // the merged pivots have rows in common
+      List<Vector>   firstRows  = Data.slice(rows(multiLevel), 0, 4);
+      List<Vector>   secondRows = Data.slice(rows(multiLevel), 2, 7);
+      List<Vector>   allRows    = new ArrayList<>(firstRows);
+      allRows.addAll(secondRows);
+      Dataset        first      = Datasets.dataset(multiLevel.getColumnSet(), firstRows);
+      Dataset        second     = Datasets.dataset(multiLevel.getColumnSet(), secondRows);
+      Dataset        all        = Datasets.dataset(multiLevel.getColumnSet(), allRows);
+      IndexedDataset merged     = Pivots.merge(
+          (PivotDataset) Pivots.pivot(first, "year", f, "country", "gdp"), 
+          (PivotDataset) Pivots.pivot(second, "year", f, "country", "gdp")
+      );
+      assertPivots(Pivots.pivot(all, "year", f, "country", "gdp"), merged);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMergeDifferentFunctions() {
+    Pivots.merge(
+        (PivotDataset) Pivots.pivot(multiLevel, "year", PivotFunction.SUM, "country", "gdp"), 
+        (PivotDataset) Pivots.pivot(multiLevel, "year", PivotFunction.MEAN, "country", "gdp")
+    );
+  }
+
+  @Test
+  public void testParallelPivot() {
+    ColumnSet    columns = ColumnSets.columnSet("country", Datatype.STRING, "gdp", Datatype.NUMERIC, "year", Datatype.NUMERIC);
+    Random       random  = new Random(5);
+    List<Vector> data    = new ArrayList<>();
+    for (int i : Numbers.range(5000)) {
+      data.add(Vectors.vector("c" + random.nextInt(50), i % 17 == 0 ? null : random.nextInt(1000), 2000 + random.nextInt(10)));
+    }
+    Dataset       dataset  = Datasets.dataset(columns, data);
+    ParallelPivot parallel = new ParallelPivot(new ForkJoinPool(4), new Time(30, TimeUnit.SECONDS), 100);
+    for (PivotFunction f : PivotFunction.values()) {
+      PivotTable prototype = new PivotTable(columns, "year", new String[] { "country", "gdp" }, f);
+      assertPivots(Pivots.pivot(dataset, "year", f, "country", "gdp"), new PivotDataset(parallel.pivot(dataset, prototype)));
+    }
+  }
+
+  private static List<Vector> rows(Dataset dataset) {
+    List<Vector> rows = new ArrayList<>();
+    for (Vector row : dataset) {
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  private static void assertPivots(Dataset expected, Dataset actual) {
+    assertEquals(expected.getColumnSet().getColumnNames(), actual.getColumnSet().getColumnNames());
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.getRow(i).toString(), actual.getRow(i).toString());
+    }
+  }
+
 }
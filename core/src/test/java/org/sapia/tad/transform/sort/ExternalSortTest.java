@@ -0,0 +1,143 @@
+package org.sapia.tad.transform.sort;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.ColumnSets;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.DatasetStream;
+import org.sapia.tad.DatasetStreams;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.Nominal;
+import org.sapia.tad.Vector;
+import org.sapia.tad.Vectors;
+import org.sapia.tad.impl.DefaultDataset;
+import org.sapia.tad.util.Numbers;
+import org.sapia.tad.value.NumericValue;
+
+public class ExternalSortTest {
+
+  private Dataset rows;
+
+  @Before
+  public void setUp() {
+    ColumnSet    columns = ColumnSets.columnSet(
+        "id", Datatype.NUMERIC, "num", Datatype.NUMERIC, "str", Datatype.STRING, "date", Datatype.DATE
+    );
+    Random       random  = new Random(7);
+    List<Vector> data    = new ArrayList<>();
+    for (int i : Numbers.range(1000)) {
+      data.add(Vectors.vector(
+          new Integer(i),
+          i % 10 == 0 ? null : new Double(random.nextInt(100) - 50) / 4,
+          i % 7 == 0 ? null : "sé" + random.nextInt(30),
+          i % 11 == 0 ? null : new Date(random.nextInt(100) * 1000L)
+      ));
+    }
+    rows = new DefaultDataset(columns, data);
+  }
+
+  @Test
+  public void testSortInMemory() throws IOException {
+    int before = countRunFiles();
+    assertSorted(new ExternalSort(Long.MAX_VALUE, 100), SortOrder.asc("num"), SortOrder.desc("str"));
+    assertEquals(before, countRunFiles());
+  }
+
+  @Test
+  public void testSortWithRuns() throws IOException {
+    // about 100 rows per run
+    assertSorted(new ExternalSort(15000, 64), SortOrder.asc("num"), SortOrder.desc("str"));
+    assertSorted(new ExternalSort(15000, 64), SortOrder.desc("date").nullsFirst(), SortOrder.asc("id"));
+    assertSorted(new ExternalSort(15000, 1000), SortOrder.asc("str").nullsLast());
+  }
+
+  @Test
+  public void testSortWithIntermediateMerges() throws IOException {
+    // one row per run
+    assertSorted(new ExternalSort(1, 100), SortOrder.desc("num"), SortOrder.asc("str"));
+  }
+
+  @Test
+  public void testRunFilesDeleted() throws IOException {
+    int           before = countRunFiles();
+    DatasetStream sorted = new ExternalSort(15000, 64).sort(DatasetStreams.stream(rows, 128), SortOrder.asc("num"));
+    assertTrue(countRunFiles() > before);
+    sorted.next();
+    sorted.close();
+    assertEquals(before, countRunFiles());
+  }
+
+  @Test
+  public void testSortsStream() throws IOException {
+    assertRows(Sorts.asc(rows, "str", "num"), DatasetStreams.collect(Sorts.asc(DatasetStreams.stream(rows, 100), "str", "num")));
+    assertRows(Sorts.desc(rows, "date"), DatasetStreams.collect(Sorts.desc(DatasetStreams.stream(rows, 100), "date")));
+  }
+
+  @Test
+  public void testEmptyStream() throws IOException {
+    Dataset empty = new DefaultDataset(rows.getColumnSet(), new ArrayList<Vector>());
+    assertEquals(0, DatasetStreams.count(new ExternalSort(1, 100).sort(DatasetStreams.stream(empty, 10), SortOrder.asc("num"))));
+  }
+
+  @Test
+  public void testSortNominalsInStringColumn() throws IOException {
+    ColumnSet    columns = ColumnSets.columnSet("id", Datatype.NUMERIC, "nom", Datatype.STRING);
+    Random       random  = new Random(11);
+    List<Vector> data    = new ArrayList<>();
+    for (int i : Numbers.range(500)) {
+      int value = random.nextInt(30);
+      data.add(Vectors.vector(new NumericValue(i), new Nominal("n" + value, value)));
+    }
+    rows = new DefaultDataset(columns, data);
+    assertSorted(new ExternalSort(3000, 64), SortOrder.asc("nom"));
+    assertSorted(new ExternalSort(3000, 64), SortOrder.desc("nom"), SortOrder.asc("id"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGeometryColumnRejected() throws IOException {
+    ColumnSet    columns = ColumnSets.columnSet("id", Datatype.NUMERIC, "geom", Datatype.GEOMETRY);
+    List<Vector> data    = new ArrayList<>();
+    data.add(Vectors.vector(1, null));
+    // rejected even though the rows fit in memory
+    new ExternalSort(Long.MAX_VALUE, 100).sort(DatasetStreams.stream(new DefaultDataset(columns, data), 10), SortOrder.asc("id"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidColumn() throws IOException {
+    new ExternalSort(1, 100).sort(DatasetStreams.stream(rows, 10), SortOrder.asc("none"));
+  }
+
+  private void assertSorted(ExternalSort sort, SortOrder...orders) throws IOException {
+    Dataset expected = Sorts.sort(rows, orders);
+    Dataset actual   = DatasetStreams.collect(sort.sort(DatasetStreams.stream(rows, 128), orders));
+    assertRows(expected, actual);
+  }
+
+  private static void assertRows(Dataset expected, Dataset actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.getRow(i).toString(), actual.getRow(i).toString());
+    }
+  }
+
+  private static int countRunFiles() {
+    String[] names = new File(System.getProperty("java.io.tmpdir")).list(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        return name.startsWith("tad-sort-");
+      }
+    });
+    return names == null ? 0 : names.length;
+  }
+}
@@ -0,0 +1,239 @@
+package org.sapia.tad.transform.sort;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.sapia.tad.ColumnSet;
+import org.sapia.tad.ColumnSets;
+import org.sapia.tad.Dataset;
+import org.sapia.tad.DatasetStreams;
+import org.sapia.tad.Datasets;
+import org.sapia.tad.Datatype;
+import org.sapia.tad.Vector;
+import org.sapia.tad.Vectors;
+import org.sapia.tad.algo.ReverseComparator;
+import org.sapia.tad.concurrent.Threading;
+import org.sapia.tad.impl.DefaultDataset;
+import org.sapia.tad.transform.slice.Slices;
+import org.sapia.tad.util.Data;
+import org.sapia.tad.util.Numbers;
+import org.sapia.tad.util.Time;
+import org.sapia.tad.value.NullValue;
+
+public class SortsTest {
+
+  private Dataset rows;
+  private Dataset columnar;
+
+  @Before
+  public void setUp() {
+    ColumnSet    columns = ColumnSets.columnSet(
+        "id", Datatype.NUMERIC, "num", Datatype.NUMERIC, "str", Datatype.STRING, "date", Datatype.DATE
+    );
+    Random       random  = new Random(42);
+    List<Vector> data    = new ArrayList<>();
+    for (int i : Numbers.range(500)) {
+      data.add(Vectors.vector(
+          new Integer(i),
+          i % 10 == 0 ? null : new Double(random.nextInt(50) - 25),
+          i % 7 == 0 ? null : "s" + random.nextInt(20),
+          i % 11 == 0 ? null : new Date(random.nextInt(100) * 1000L)
+      ));
+    }
+    rows     = new DefaultDataset(columns, data);
+    columnar = Datasets.columnar(rows);
+  }
+
+  @Test
+  public void testAsc() {
+    List<Vector> expected = copy(rows);
+    Collections.sort(expected, new VectorComparator(rows.getColumnSet().includes("num", "str")));
+    for (Dataset dataset : Data.list(rows, columnar)) {
+      assertRows(expected, Sorts.asc(dataset, "num", "str"));
+    }
+  }
+
+  @Test
+  public void testDesc() {
+    List<Vector> expected = copy(rows);
+    Collections.sort(expected, new ReverseComparator<>(new VectorComparator(rows.getColumnSet().includes("str", "num"))));
+    for (Dataset dataset : Data.list(rows, columnar)) {
+      assertRows(expected, Sorts.desc(dataset, "str", "num"));
+    }
+  }
+
+  @Test
+  public void testMixedOrders() {
+    for (Dataset dataset : Data.list(rows, columnar)) {
+      Dataset sorted = Sorts.sort(dataset, SortOrder.asc("str"), SortOrder.desc("num"));
+      assertEquals(rows.size(), sorted.size());
+      for (int i = 1; i < sorted.size(); i++) {
+        Vector previous = sorted.getRow(i - 1);
+        Vector current  = sorted.getRow(i);
+        int    strCmp   = Datatype.STRING.strategy().compareTo(previous.get(2), current.get(2));
+        assertTrue(strCmp <= 0);
+        if (strCmp == 0) {
+          assertTrue(Datatype.NUMERIC.strategy().compareTo(previous.get(1), current.get(1)) >= 0);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testNullsPolicy() {
+    for (Dataset dataset : Data.list(rows, columnar)) {
+      Dataset ascLast = Sorts.sort(dataset, SortOrder.asc("num").nullsLast());
+      assertFalse(NullValue.isNull(ascLast.getRow(0).get(1)));
+      assertTrue(NullValue.isNull(ascLast.getRow(rows.size() - 1).get(1)));
+      assertEquals(-25, ascLast.getRow(0).get(1).get(), 0);
+
+      Dataset descFirst = Sorts.sort(dataset, SortOrder.desc("num").nullsFirst());
+      assertTrue(NullValue.isNull(descFirst.getRow(0).get(1)));
+      assertFalse(NullValue.isNull(descFirst.getRow(rows.size() - 1).get(1)));
+      assertEquals(24, descFirst.getRow(50).get(1).get(), 0);
+    }
+  }
+
+  @Test
+  public void testStability() {
+    for (Dataset dataset : Data.list(rows, columnar)) {
+      for (Dataset sorted : Data.list(Sorts.asc(dataset, "num"), Sorts.desc(dataset, "num"))) {
+        for (int i = 1; i < sorted.size(); i++) {
+          Vector previous = sorted.getRow(i - 1);
+          Vector current  = sorted.getRow(i);
+          if (Datatype.NUMERIC.strategy().compareTo(previous.get(1), current.get(1)) == 0) {
+            assertTrue(previous.get(0).get() < current.get(0).get());
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testDates() {
+    for (Dataset dataset : Data.list(rows, columnar)) {
+      Dataset sorted = Sorts.desc(dataset, "date");
+      long    last   = Long.MAX_VALUE;
+      for (int i = 0; i < sorted.size() - 46; i++) {
+        long time = ((Date) sorted.getRow(i).get(3).getInternalValue()).getTime();
+        assertTrue(time <= last);
+        last = time;
+      }
+      assertTrue(NullValue.isNull(sorted.getRow(sorted.size() - 46).get(3)));
+    }
+  }
+
+  @Test
+  public void testSortSortedView() {
+    Dataset sorted = Sorts.asc(Sorts.desc(columnar, "num"), "str");
+    assertTrue(sorted instanceof SortedDataset);
+    assertSame(columnar, ((SortedDataset) sorted).getSource());
+    assertRows(copy(Sorts.sort(columnar, SortOrder.asc("str"), SortOrder.desc("num"))), sorted);
+  }
+
+  @Test
+  public void testView() {
+    Dataset sorted = Sorts.asc(columnar, "id");
+    assertEquals(rows.size(), sorted.getColumn("id").size());
+    assertEquals(10, sorted.getColumn("id").get(10).get(), 0);
+    assertEquals(rows.getNumericColumn("num").getDouble(1), sorted.getNumericColumn("num").getDouble(1), 0);
+    int count = 0;
+    for (Vector row : sorted) {
+      assertEquals(count++, row.get(0).get(), 0);
+    }
+    assertEquals(rows.size(), count);
+    Dataset subset = Sorts.desc(columnar, "id").getSubset(row -> row.get("id").get() < 5);
+    assertEquals(5, subset.size());
+    assertEquals(4, subset.getRow(0).get(0).get(), 0);
+  }
+
+  @Test
+  public void testParallelSort() {
+    List<Vector> expected = copy(rows);
+    Collections.sort(expected, new VectorComparator(rows.getColumnSet().includes("str", "num")));
+    PermutationSort sorter = new PermutationSort(Threading.getForkJoinPool(), new Time(30, TimeUnit.SECONDS), 50);
+    for (Dataset dataset : Data.list(rows, columnar)) {
+      int[] sorted = sorter.sort(new SortKeys(dataset, SortOrder.asc("str"), SortOrder.asc("num")));
+      assertRows(expected, new SortedDataset(dataset, sorted));
+    }
+  }
+
+  @Test
+  public void testTopAndBottom() {
+    for (Dataset dataset : Data.list(rows, columnar)) {
+      assertRows(copy(Slices.slice(Sorts.desc(rows, "num", "str"), 0, 20)), Sorts.top(dataset, 20, "num", "str"));
+      assertRows(copy(Slices.slice(Sorts.asc(rows, "date"), 0, 60)), Sorts.bottom(dataset, 60, "date"));
+      assertRows(
+          copy(Slices.slice(Sorts.sort(rows, SortOrder.asc("str").nullsLast(), SortOrder.desc("num")), 0, 5)),
+          Sorts.first(dataset, 5, SortOrder.asc("str").nullsLast(), SortOrder.desc("num"))
+      );
+      assertRows(copy(Sorts.desc(rows, "num")), Sorts.top(dataset, 1000, "num"));
+      assertEquals(0, Sorts.top(dataset, 0, "num").size());
+    }
+  }
+
+  @Test
+  public void testParallelTop() {
+    TopRowSelection selection = new TopRowSelection(Threading.getForkJoinPool(), new Time(30, TimeUnit.SECONDS), 50);
+    for (Dataset dataset : Data.list(rows, columnar)) {
+      for (int count : new int[] {1, 25, 100, 500}) {
+        int[] selected = selection.select(new SortKeys(dataset, SortOrder.desc("num"), SortOrder.asc("str")), count);
+        assertRows(
+            copy(Slices.slice(Sorts.sort(rows, SortOrder.desc("num"), SortOrder.asc("str")), 0, count)),
+            new SortedDataset(dataset, selected)
+        );
+      }
+    }
+  }
+
+  @Test
+  public void testTopOfStream() throws IOException {
+    assertRows(copy(Sorts.top(rows, 30, "num")), Sorts.top(DatasetStreams.stream(rows, 37), 30, "num"));
+    assertRows(copy(Sorts.bottom(rows, 30, "str", "num")), Sorts.bottom(DatasetStreams.stream(columnar, 64), 30, "str", "num"));
+    assertEquals(rows.size(), Sorts.top(DatasetStreams.stream(rows, 37), 1000, "num").size());
+  }
+
+  @Test
+  public void testEmpty() {
+    Dataset empty = new DefaultDataset(rows.getColumnSet(), new ArrayList<Vector>());
+    assertEquals(0, Sorts.asc(empty, "num").size());
+  }
+
+  @Test
+  public void testNullStrings() {
+    List<Vector> data = new ArrayList<>();
+    data.add(Vectors.vector(1, null, null, null));
+    data.add(Vectors.vector(2, null, null, null));
+    Dataset nulls = new DefaultDataset(rows.getColumnSet(), data);
+    assertEquals(2, Sorts.desc(nulls, "str").getRow(1).get(0).get(), 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidColumn() {
+    Sorts.asc(rows, "none");
+  }
+
+  private static List<Vector> copy(Dataset dataset) {
+    List<Vector> copy = new ArrayList<>();
+    for (Vector row : dataset) {
+      copy.add(row);
+    }
+    return copy;
+  }
+
+  private static void assertRows(List<Vector> expected, Dataset actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).toString(), actual.getRow(i).toString());
+    }
+  }
+}